@@ -43,6 +43,24 @@ public class ConfigurationStatistics implements StatisticsCollectable
    private final String channelPutTimeoutIntervalInMs;
    private final String streamQuoteNumericStrings;
    private final String streamMetadataFieldsOfInterest;
+   private final String streamTickResolutionInMs;
+   private final String channelPollerMaxInFlightGets;
+   private final String channelPollerMaxInFlightGetsPerIoc;
+   private final String channelIoCacheMaxSize;
+   private final String channelIoCacheMaxIdleTimeInSecs;
+   private final String channelIoMaxInFlightPerIoc;
+   private final String channelIoVirtualThreadsEnabled;
+   private final String streamDeduplicationEnabled;
+   private final String streamLazyAcquisitionEnabled;
+   private final String streamIdleGracePeriodInSecs;
+   private final String streamIdleReapPeriodInSecs;
+   private final String streamAdaptiveRateEnabled;
+   private final String streamAdaptiveRateMaxSlowdownFactor;
+   private final String streamPushModeEnabled;
+   private final String streamPushBatchWindowInMillis;
+   private final String streamPushMaxBatchSize;
+   private final String streamAlarmLaneEnabled;
+   private final String streamAlarmLaneCoalescingWindowInMillis;
    private final String corsAllowedOriginPatterns;
 
 
@@ -69,6 +87,24 @@ public class ConfigurationStatistics implements StatisticsCollectable
     * @param channelPutTimeoutIntervalInMs the default timeout in milliseconds to be applied when putting a new value to a wica channel.
     * @param streamQuoteNumericStrings whether strict JSON compliance should be used when serializing NaN and Infinity values (=true) or whether JSON5 serialization compliance is acceptable (=false).
     * @param streamMetadataFieldsOfInterest the fields of interest that should be serialized when sending the channel metadata.
+    * @param streamTickResolutionInMs the resolution in milliseconds of the shared timer which drives the publication of all wica streams.
+    * @param channelPollerMaxInFlightGets the maximum number of outstanding poller get operations.
+    * @param channelPollerMaxInFlightGetsPerIoc the maximum number of outstanding poller get operations per IOC.
+    * @param channelIoCacheMaxSize the maximum number of channels retained by the GET and PUT services.
+    * @param channelIoCacheMaxIdleTimeInSecs the period after which an unused channel retained by the GET and PUT services will be closed.
+    * @param channelIoMaxInFlightPerIoc the maximum number of channel I/O operations in progress per IOC.
+    * @param channelIoVirtualThreadsEnabled whether virtual threads are used for blocking channel I/O.
+    * @param streamDeduplicationEnabled whether streams with identical configurations share a pipeline.
+    * @param streamLazyAcquisitionEnabled whether stream data acquisition is deferred until the first subscriber arrives.
+    * @param streamIdleGracePeriodInSecs the period after which acquisition for a stream without subscribers is suspended.
+    * @param streamIdleReapPeriodInSecs the period after which a stream without subscribers is deleted.
+    * @param streamAdaptiveRateEnabled whether the rate at which values are sent adapts to each client.
+    * @param streamAdaptiveRateMaxSlowdownFactor the maximum factor by which value intervals may be stretched.
+    * @param streamPushModeEnabled whether monitored values are pushed soon after they arrive.
+    * @param streamPushBatchWindowInMillis the length of the push mode micro-batch window.
+    * @param streamPushMaxBatchSize the number of values after which a micro-batch is sent early.
+    * @param streamAlarmLaneEnabled whether alarm transitions are sent to subscribers as soon as they are detected.
+    * @param streamAlarmLaneCoalescingWindowInMillis the length of the window within which alarm transitions are gathered into a single event.
     * @param corsAllowedOriginPatterns which origin patterns must be present in the http request header in order for a request to be accepted.
     */
    public ConfigurationStatistics( @Value( "${wica.test-logging-on-startup}" ) Boolean testLoggingOnStartup,
@@ -88,6 +124,24 @@ public class ConfigurationStatistics implements StatisticsCollectable
                                    @Value( "${wica.channel-put-timeout-interval-in-ms}" ) Integer channelPutTimeoutIntervalInMs,
                                    @Value( "${wica.stream-quote-numeric-strings}" ) Boolean streamQuoteNumericStrings,
                                    @Value( "${wica.stream-metadata-fields-of-interest}" ) String streamMetadataFieldsOfInterest,
+                                   @Value( "${wica.stream-tick-resolution-in-ms}" ) Integer streamTickResolutionInMs,
+                                   @Value( "${wica.channel-poller-max-in-flight-gets}" ) Integer channelPollerMaxInFlightGets,
+                                   @Value( "${wica.channel-poller-max-in-flight-gets-per-ioc}" ) Integer channelPollerMaxInFlightGetsPerIoc,
+                                   @Value( "${wica.channel-io-cache-max-size}" ) Integer channelIoCacheMaxSize,
+                                   @Value( "${wica.channel-io-cache-max-idle-time-in-secs}" ) Integer channelIoCacheMaxIdleTimeInSecs,
+                                   @Value( "${wica.channel-io-max-in-flight-per-ioc}" ) int channelIoMaxInFlightPerIoc,
+                                   @Value( "${wica.channel-io-virtual-threads-enabled}" ) boolean channelIoVirtualThreadsEnabled,
+                                   @Value( "${wica.stream-deduplication-enabled}" ) boolean streamDeduplicationEnabled,
+                                   @Value( "${wica.stream-lazy-acquisition-enabled}" ) boolean streamLazyAcquisitionEnabled,
+                                   @Value( "${wica.stream-idle-grace-period-in-secs}" ) int streamIdleGracePeriodInSecs,
+                                   @Value( "${wica.stream-idle-reap-period-in-secs}" ) int streamIdleReapPeriodInSecs,
+                                   @Value( "${wica.stream-adaptive-rate-enabled}" ) boolean streamAdaptiveRateEnabled,
+                                   @Value( "${wica.stream-adaptive-rate-max-slowdown-factor}" ) int streamAdaptiveRateMaxSlowdownFactor,
+                                   @Value( "${wica.stream-push-mode-enabled}" ) boolean streamPushModeEnabled,
+                                   @Value( "${wica.stream-push-batch-window-in-millis}" ) int streamPushBatchWindowInMillis,
+                                   @Value( "${wica.stream-push-max-batch-size}" ) int streamPushMaxBatchSize,
+                                   @Value( "${wica.stream-alarm-lane-enabled}" ) boolean streamAlarmLaneEnabled,
+                                   @Value( "${wica.stream-alarm-lane-coalescing-window-in-millis}" ) int streamAlarmLaneCoalescingWindowInMillis,
                                    @Value( "${wica.cors-allowed-origin-patterns}" ) String corsAllowedOriginPatterns )
    {
       this.testLoggingOnStartup = String.valueOf( testLoggingOnStartup );
@@ -107,6 +161,24 @@ public class ConfigurationStatistics implements StatisticsCollectable
       this.channelPutTimeoutIntervalInMs = String.valueOf( channelPutTimeoutIntervalInMs );
       this.streamQuoteNumericStrings = String.valueOf( streamQuoteNumericStrings );
       this.streamMetadataFieldsOfInterest = streamMetadataFieldsOfInterest;
+      this.streamTickResolutionInMs = String.valueOf( streamTickResolutionInMs );
+      this.channelPollerMaxInFlightGets = String.valueOf( channelPollerMaxInFlightGets );
+      this.channelPollerMaxInFlightGetsPerIoc = String.valueOf( channelPollerMaxInFlightGetsPerIoc );
+      this.channelIoCacheMaxSize = String.valueOf( channelIoCacheMaxSize );
+      this.channelIoCacheMaxIdleTimeInSecs = String.valueOf( channelIoCacheMaxIdleTimeInSecs );
+      this.channelIoMaxInFlightPerIoc = String.valueOf( channelIoMaxInFlightPerIoc );
+      this.channelIoVirtualThreadsEnabled = String.valueOf( channelIoVirtualThreadsEnabled );
+      this.streamDeduplicationEnabled = String.valueOf( streamDeduplicationEnabled );
+      this.streamLazyAcquisitionEnabled = String.valueOf( streamLazyAcquisitionEnabled );
+      this.streamIdleGracePeriodInSecs = String.valueOf( streamIdleGracePeriodInSecs );
+      this.streamIdleReapPeriodInSecs = String.valueOf( streamIdleReapPeriodInSecs );
+      this.streamAdaptiveRateEnabled = String.valueOf( streamAdaptiveRateEnabled );
+      this.streamAdaptiveRateMaxSlowdownFactor = String.valueOf( streamAdaptiveRateMaxSlowdownFactor );
+      this.streamPushModeEnabled = String.valueOf( streamPushModeEnabled );
+      this.streamPushBatchWindowInMillis = String.valueOf( streamPushBatchWindowInMillis );
+      this.streamPushMaxBatchSize = String.valueOf( streamPushMaxBatchSize );
+      this.streamAlarmLaneEnabled = String.valueOf( streamAlarmLaneEnabled );
+      this.streamAlarmLaneCoalescingWindowInMillis = String.valueOf( streamAlarmLaneCoalescingWindowInMillis );
       this.corsAllowedOriginPatterns = String.valueOf( corsAllowedOriginPatterns );
 
    }
@@ -134,6 +206,24 @@ public class ConfigurationStatistics implements StatisticsCollectable
                                                                       new StatisticsItem( "- wica.channel-put-timeout-interval-in-ms",              channelPutTimeoutIntervalInMs ),
                                                                       new StatisticsItem( "- wica.stream-quote-numeric-strings",                    streamQuoteNumericStrings ),
                                                                       new StatisticsItem( "- wica.stream-metadata-fields-of-interest",              streamMetadataFieldsOfInterest ),
+                                                                      new StatisticsItem( "- wica.stream-tick-resolution-in-ms",                    streamTickResolutionInMs ),
+                                                                      new StatisticsItem( "- wica.channel-poller-max-in-flight-gets",               channelPollerMaxInFlightGets ),
+                                                                      new StatisticsItem( "- wica.channel-poller-max-in-flight-gets-per-ioc",       channelPollerMaxInFlightGetsPerIoc ),
+                                                                      new StatisticsItem( "- wica.channel-io-cache-max-size",                       channelIoCacheMaxSize ),
+                                                                      new StatisticsItem( "- wica.channel-io-cache-max-idle-time-in-secs",          channelIoCacheMaxIdleTimeInSecs ),
+                                                                      new StatisticsItem( "- wica.channel-io-max-in-flight-per-ioc",                channelIoMaxInFlightPerIoc ),
+                                                                      new StatisticsItem( "- wica.channel-io-virtual-threads-enabled",              channelIoVirtualThreadsEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-deduplication-enabled",                    streamDeduplicationEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-lazy-acquisition-enabled",                 streamLazyAcquisitionEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-idle-grace-period-in-secs",                streamIdleGracePeriodInSecs ),
+                                                                      new StatisticsItem( "- wica.stream-idle-reap-period-in-secs",                 streamIdleReapPeriodInSecs ),
+                                                                      new StatisticsItem( "- wica.stream-adaptive-rate-enabled",                    streamAdaptiveRateEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-adaptive-rate-max-slowdown-factor",        streamAdaptiveRateMaxSlowdownFactor ),
+                                                                      new StatisticsItem( "- wica.stream-push-mode-enabled",                        streamPushModeEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-push-batch-window-in-millis",              streamPushBatchWindowInMillis ),
+                                                                      new StatisticsItem( "- wica.stream-push-max-batch-size",                      streamPushMaxBatchSize ),
+                                                                      new StatisticsItem( "- wica.stream-alarm-lane-enabled",                       streamAlarmLaneEnabled ),
+                                                                      new StatisticsItem( "- wica.stream-alarm-lane-coalescing-window-in-millis",   streamAlarmLaneCoalescingWindowInMillis ),
                                                                       new StatisticsItem( "- wica.cors-allowed-origin-patterns",                    corsAllowedOriginPatterns ) ) );
    }
 
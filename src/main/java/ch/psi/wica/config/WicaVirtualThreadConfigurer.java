@@ -0,0 +1,64 @@
+/*- Package Declaration ------------------------------------------------------*/
+
+package ch.psi.wica.config;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Configures the embedded Tomcat server to handle each HTTP request on its
+ * own virtual thread.
+ * <p>
+ * The channel GET and PUT controllers block whilst waiting for the data
+ * source. When handled on platform threads a burst of requests against an
+ * unreachable IOC can exhaust the server's thread pool and stall unrelated
+ * traffic. Virtual threads release their carrier thread whilst blocked so
+ * this can no longer happen. The load presented to each IOC remains bounded
+ * by the channel I/O limiter.
+ * <p>
+ * This configuration is only active when the property
+ * 'wica.channel-io-virtual-threads-enabled' is set to true.
+ */
+@Configuration
+@ConditionalOnProperty( name = "wica.channel-io-virtual-threads-enabled", havingValue = "true" )
+class WicaVirtualThreadConfigurer
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( WicaVirtualThreadConfigurer.class );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Returns a customizer which configures Tomcat to use virtual threads.
+    *
+    * @return the customizer.
+    */
+   @Bean
+   TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer()
+   {
+      logger.info( "Configuring Tomcat to handle requests on virtual threads..." );
+      return protocolHandler -> protocolHandler.setExecutor( Executors.newVirtualThreadPerTaskExecutor() );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -6,8 +6,12 @@ package ch.psi.wica.controllers;
 
 import ch.psi.wica.controlsystem.epics.io.EpicsChannelReaderService;
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.infrastructure.channel.WicaChannelBulkRequestDecoder;
+import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializer;
 import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializerBuilder;
+import ch.psi.wica.model.channel.WicaChannelData;
 import ch.psi.wica.model.app.StatisticsCollectionService;
+import ch.psi.wica.services.channel.WicaChannelValueReadService;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +22,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
@@ -37,8 +49,12 @@ class WicaChannelGetController
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
+   private static final String READ_SOURCE_HEADER = "X-Wica-Read-Source";
+
    private final Logger logger = LoggerFactory.getLogger( WicaChannelGetController.class );
    private final EpicsChannelReaderService epicsChannelReaderService;
+   private final WicaChannelValueReadService wicaChannelValueReadService;
+   private final WicaChannelBulkRequestDecoder wicaChannelBulkRequestDecoder;
    private final int defaultTimeoutInMillis;
    private final int defaultNumericScale;
    private final String channelValueDefaultFieldsOfInterest;
@@ -60,6 +76,10 @@ class WicaChannelGetController
     *
     * @param epicsChannelReaderService reference to the service object which can be used
     *        to get values to or from a wica channel.
+    * @param wicaChannelValueReadService reference to the service object which can be
+    *        used to get the current value of a wica channel.
+    * @param wicaChannelBulkRequestDecoder reference to the object which will decode
+    *        the channel specifications of bulk requests.
     * @param statisticsCollectionService an object which will collect the statistics
     *        associated with this class instance.
     */
@@ -68,17 +88,23 @@ class WicaChannelGetController
                                      @Value( "${wica.channel-get-value-default-fields-of-interest}") String channelValueDefaultFieldsOfInterest,
                                      @Value( "${wica.channel-get-metadata-default-fields-of-interest}") String channelMetadataDefaultFieldsOfInterest,
                                      @Autowired EpicsChannelReaderService epicsChannelReaderService,
+                                     @Autowired WicaChannelValueReadService wicaChannelValueReadService,
+                                     @Autowired WicaChannelBulkRequestDecoder wicaChannelBulkRequestDecoder,
                                      @Autowired StatisticsCollectionService statisticsCollectionService )
    {
       Validate.isTrue( defaultTimeoutInMillis > 0 );
       Validate.isTrue( defaultNumericScale > 0 );
       Validate.notNull( epicsChannelReaderService, "The 'epicsChannelReaderService' argument is null." );
+      Validate.notNull( wicaChannelValueReadService, "The 'wicaChannelValueReadService' argument is null." );
+      Validate.notNull( wicaChannelBulkRequestDecoder, "The 'wicaChannelBulkRequestDecoder' argument is null." );
 
       this.defaultTimeoutInMillis = defaultTimeoutInMillis;
       this.defaultNumericScale = defaultNumericScale;
       this.channelValueDefaultFieldsOfInterest = channelValueDefaultFieldsOfInterest;
       this.channelMetadataDefaultFieldsOfInterest = channelMetadataDefaultFieldsOfInterest;
       this.epicsChannelReaderService = epicsChannelReaderService;
+      this.wicaChannelValueReadService = wicaChannelValueReadService;
+      this.wicaChannelBulkRequestDecoder = wicaChannelBulkRequestDecoder;
 
       this.statisticsCollector = new ControllerStatistics("WICA CHANNEL GET CONTROLLER" );
       statisticsCollectionService.addCollectable( statisticsCollector );
@@ -107,6 +133,11 @@ class WicaChannelGetController
     *     optional parameter is not provided then the configured default
     *     value will be used.
     *
+    * @param maxAgeInMillis the maximum age of a previously obtained value
+    *     which may be returned instead of reading the channel. If this
+    *     optional parameter is not provided, or is zero, then the channel
+    *     will be read.
+    *
     * @param httpServletRequest contextual information for the request; used
     *     for statistics collection only.
     *
@@ -114,12 +145,16 @@ class WicaChannelGetController
     *    (= 200) and a body which includes the JSON string representation of
     *    the current channel value. If a timeout occurred the JSON representation
     *    will be set to show that the channel metedata is currently UNKNOWN.
+    *    The 'X-Wica-Read-Source' header reports whether the value was served
+    *    from the 'cache', from a 'joined' read already in progress, or was
+    *    'fresh'.
     */
    @GetMapping( value="/{channelName}", produces = MediaType.APPLICATION_JSON_VALUE )
    public ResponseEntity<String> getChannelValue( @PathVariable String channelName,
                                                   @RequestParam( value="timeout", required = false ) Integer timeoutInMillis,
                                                   @RequestParam( value="numericScale", required = false ) Integer numericScale,
                                                   @RequestParam( value="fieldsOfInterest", required = false ) String fieldsOfInterest,
+                                                  @RequestParam( value="maxAge", required = false ) Integer maxAgeInMillis,
                                                   HttpServletRequest httpServletRequest )
    {
       logger.info( "GET: Handling channel get request." );
@@ -139,7 +174,7 @@ class WicaChannelGetController
       numericScale = numericScale == null ? defaultNumericScale : numericScale;
       fieldsOfInterest = fieldsOfInterest == null ? channelValueDefaultFieldsOfInterest : fieldsOfInterest;
 
-      final var wicaChannelValue = epicsChannelReaderService.readChannelValue( EpicsChannelName.of( channelName ), timeoutInMillis, TimeUnit.MILLISECONDS );
+      final var result = wicaChannelValueReadService.readChannelValue( EpicsChannelName.of( channelName ), timeoutInMillis, TimeUnit.MILLISECONDS, maxAgeInMillis );
       final var fieldsOfInterestSet = Set.of( fieldsOfInterest.split( ";" ) );
 
       final var serializer = WicaChannelDataSerializerBuilder
@@ -151,7 +186,9 @@ class WicaChannelGetController
 
       logger.info( "'{}' - OK: Returning wica channel value.", channelName );
       statisticsCollector.incrementReplies();
-      return new ResponseEntity<>( serializer.writeToJson( wicaChannelValue ), HttpStatus.OK );
+      return ResponseEntity.ok()
+            .header( READ_SOURCE_HEADER, result.source().asString() )
+            .body( serializer.writeToJson( result.value() ) );
    }
 
    /**
@@ -221,6 +258,100 @@ class WicaChannelGetController
       return new ResponseEntity<>( serializer.writeToJson( wicaChannelValue ), HttpStatus.OK );
    }
 
+   /**
+    * Handles an HTTP POST request to return the values of multiple channels.
+    * <p>
+    * The channels are read concurrently and subject to a single shared
+    * timeout. Channels which could not be read within the timeout are
+    * reported as disconnected; they do not cause the request to fail.
+    *
+    * @param optJsonBulkRequest the JSON string specifying the channels to be
+    *     read, and optionally the numeric scale and fields of interest which
+    *     are to apply to each. See {@link WicaChannelBulkRequestDecoder}.
+    *
+    * @param timeoutInMillis the timeout to be applied when attempting to
+    *     get the channel values from the underlying data source. If this
+    *     optional parameter is not provided then the configured default
+    *     value will be used.
+    *
+    * @param numericScale the default number of digits after the decimal
+    *     point for channels which do not specify their own. If this optional
+    *     parameter is not provided then the configured default value will be
+    *     used.
+    *
+    * @param fieldsOfInterest the default fields of interest for channels
+    *     which do not specify their own. If this optional parameter is not
+    *     provided then the configured default value will be used.
+    *
+    * @param httpServletRequest contextual information for the request; used
+    *     for statistics collection only.
+    *
+    * @return ResponseEntity set to return an HTTP status code of 'OK'
+    *    (= 200) and a body containing a JSON object which maps each channel
+    *    name to the JSON representation of its current value, or 'Bad
+    *    Request' (= 400) if the request string was invalid, in which case
+    *    the response header 'X-WICA-ERROR' describes the error.
+    */
+   @PostMapping( value="/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE )
+   public ResponseEntity<String> getMultipleChannelValues( @RequestBody( required = false ) Optional<String> optJsonBulkRequest,
+                                                           @RequestParam( value="timeout", required = false ) Integer timeoutInMillis,
+                                                           @RequestParam( value="numericScale", required = false ) Integer numericScale,
+                                                           @RequestParam( value="fieldsOfInterest", required = false ) String fieldsOfInterest,
+                                                           HttpServletRequest httpServletRequest )
+   {
+      logger.info( "POST: Handling bulk channel get request." );
+      final long timeout = timeoutInMillis == null ? defaultTimeoutInMillis : timeoutInMillis;
+      return handleBulkRequest( optJsonBulkRequest, numericScale, fieldsOfInterest, channelValueDefaultFieldsOfInterest, httpServletRequest,
+                                name -> epicsChannelReaderService.readChannelValueAsync( name, timeout, TimeUnit.MILLISECONDS ) );
+   }
+
+   /**
+    * Handles an HTTP POST request to return the metadata of multiple channels.
+    * <p>
+    * The channels are read concurrently and subject to a single shared
+    * timeout. Channels whose metadata could not be obtained within the
+    * timeout are reported as UNKNOWN; they do not cause the request to fail.
+    *
+    * @param optJsonBulkRequest the JSON string specifying the channels to be
+    *     read, and optionally the numeric scale and fields of interest which
+    *     are to apply to each. See {@link WicaChannelBulkRequestDecoder}.
+    *
+    * @param timeoutInMillis the timeout to be applied when attempting to
+    *     get the channel metadata from the underlying data source. If this
+    *     optional parameter is not provided then the configured default
+    *     value will be used.
+    *
+    * @param numericScale the default number of digits after the decimal
+    *     point for channels which do not specify their own. If this optional
+    *     parameter is not provided then the configured default value will be
+    *     used.
+    *
+    * @param fieldsOfInterest the default fields of interest for channels
+    *     which do not specify their own. If this optional parameter is not
+    *     provided then the configured default value will be used.
+    *
+    * @param httpServletRequest contextual information for the request; used
+    *     for statistics collection only.
+    *
+    * @return ResponseEntity set to return an HTTP status code of 'OK'
+    *    (= 200) and a body containing a JSON object which maps each channel
+    *    name to the JSON representation of its metadata, or 'Bad Request'
+    *    (= 400) if the request string was invalid, in which case the
+    *    response header 'X-WICA-ERROR' describes the error.
+    */
+   @PostMapping( value="/metadata/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE )
+   public ResponseEntity<String> getMultipleChannelMetadata( @RequestBody( required = false ) Optional<String> optJsonBulkRequest,
+                                                             @RequestParam( value="timeout", required = false ) Integer timeoutInMillis,
+                                                             @RequestParam( value="numericScale", required = false ) Integer numericScale,
+                                                             @RequestParam( value="fieldsOfInterest", required = false ) String fieldsOfInterest,
+                                                             HttpServletRequest httpServletRequest )
+   {
+      logger.info( "POST: Handling bulk channel get metadata request." );
+      final long timeout = timeoutInMillis == null ? defaultTimeoutInMillis : timeoutInMillis;
+      return handleBulkRequest( optJsonBulkRequest, numericScale, fieldsOfInterest, channelMetadataDefaultFieldsOfInterest, httpServletRequest,
+                                name -> epicsChannelReaderService.readChannelMetadataAsync( name, timeout, TimeUnit.MILLISECONDS ) );
+   }
+
    @ExceptionHandler( Exception.class )
    public void handleException( Exception ex)
    {
@@ -229,6 +360,76 @@ class WicaChannelGetController
    }
 
 /*- Private methods ----------------------------------------------------------*/
+
+   @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+   private ResponseEntity<String> handleBulkRequest( Optional<String> optJsonBulkRequest,
+                                                     Integer numericScale,
+                                                     String fieldsOfInterest,
+                                                     String defaultFieldsOfInterest,
+                                                     HttpServletRequest httpServletRequest,
+                                                     Function<EpicsChannelName,CompletableFuture<? extends WicaChannelData>> reader )
+   {
+      // Check that the Spring framework gives us something in the HttpServletRequest field.
+      Validate.notNull( httpServletRequest, "The 'httpServletRequest' field was empty." );
+
+      // Update the usage statistics for this controller.
+      statisticsCollector.incrementRequests();
+      statisticsCollector.addClientIpAddr(httpServletRequest.getRemoteHost() );
+
+      // Decode the list of requested channels.
+      final List<WicaChannelBulkRequestDecoder.ChannelRequest> channelRequests;
+      try
+      {
+         channelRequests = wicaChannelBulkRequestDecoder.decode( optJsonBulkRequest.orElse( "" ) );
+      }
+      catch ( RuntimeException ex )
+      {
+         final String errorMessage = "WICA SERVER: " + ex.getMessage();
+         logger.warn( "POST: Rejected request because '{}'.", errorMessage );
+         statisticsCollector.incrementErrors();
+         statisticsCollector.incrementReplies();
+         return ResponseEntity.status( HttpStatus.BAD_REQUEST ).header( "X-WICA-ERROR", errorMessage ).build();
+      }
+
+      // Assign default values when not explicitly provided.
+      final int requestNumericScale = numericScale == null ? defaultNumericScale : numericScale;
+      final String requestFieldsOfInterest = fieldsOfInterest == null ? defaultFieldsOfInterest : fieldsOfInterest;
+
+      // Initiate all reads before waiting for any of them. Since the reads all
+      // start together and are subject to the same timeout they share a single
+      // deadline. The futures never complete exceptionally.
+      final List<CompletableFuture<? extends WicaChannelData>> reads = new ArrayList<>( channelRequests.size() );
+      channelRequests.forEach( r -> reads.add( reader.apply( EpicsChannelName.of( r.name() ) ) ) );
+
+      final Map<List<Object>,WicaChannelDataSerializer> serializerMap = new HashMap<>();
+      final JsonStringEncoder jsonStringEncoder = JsonStringEncoder.getInstance();
+      final StringBuilder stringBuilder = new StringBuilder( "{" );
+      for ( int i = 0; i < channelRequests.size(); i++ )
+      {
+         final var channelRequest = channelRequests.get( i );
+         final int channelNumericScale = channelRequest.numericScale() == null ? requestNumericScale : channelRequest.numericScale();
+         final String channelFieldsOfInterest = channelRequest.fieldsOfInterest() == null ? requestFieldsOfInterest : channelRequest.fieldsOfInterest();
+         final var serializer = serializerMap.computeIfAbsent( List.of( channelFieldsOfInterest, channelNumericScale ), k -> WicaChannelDataSerializerBuilder
+               .create()
+               .withFieldsOfInterest( Set.of( channelFieldsOfInterest.split( ";" ) ) )
+               .withNumericScale( channelNumericScale )
+               .withQuotedNumericStrings( false )
+               .build() );
+
+         if ( i > 0 )
+         {
+            stringBuilder.append( ',' );
+         }
+         stringBuilder.append( '"' ).append( jsonStringEncoder.quoteAsString( channelRequest.name() ) ).append( "\":" );
+         stringBuilder.append( serializer.writeToJson( reads.get( i ).join() ) );
+      }
+      stringBuilder.append( '}' );
+
+      logger.info( "OK: Returning data for {} channels.", channelRequests.size() );
+      statisticsCollector.incrementReplies();
+      return new ResponseEntity<>( stringBuilder.toString(), HttpStatus.OK );
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
@@ -5,8 +5,12 @@ package ch.psi.wica.controllers;
 /*- Imported packages --------------------------------------------------------*/
 
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.io.EpicsChannelWriteCoalescer;
 import ch.psi.wica.controlsystem.epics.io.EpicsChannelWriterService;
+import ch.psi.wica.infrastructure.channel.WicaChannelBulkPutRequestDecoder;
 import ch.psi.wica.model.app.StatisticsCollectionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +22,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
@@ -35,8 +47,11 @@ class WicaChannelPutController
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
+   private static final ObjectMapper resultMapper = new ObjectMapper();
+
    private final Logger logger = LoggerFactory.getLogger( WicaChannelPutController.class );
    private final EpicsChannelWriterService epicsChannelWriterService;
+   private final WicaChannelBulkPutRequestDecoder wicaChannelBulkPutRequestDecoder;
    private final int defaultTimeoutInMillis;
    private final ControllerStatistics statisticsCollector;
 
@@ -53,11 +68,15 @@ class WicaChannelPutController
     * @param epicsChannelWriterService reference to the service object which can be used
     *        to put values to a wica channel.
     *
+    * @param wicaChannelBulkPutRequestDecoder reference to the object which will
+    *        decode the channel values of bulk requests.
+    *
     * @param statisticsCollectionService an object which will collect the statistics associated
     *        with this class instance.
     */
    private WicaChannelPutController( @Value( "${wica.channel-put-timeout-interval-in-ms}") int defaultTimeoutInMillis,
                                      @Autowired EpicsChannelWriterService epicsChannelWriterService,
+                                     @Autowired WicaChannelBulkPutRequestDecoder wicaChannelBulkPutRequestDecoder,
                                      @Autowired StatisticsCollectionService statisticsCollectionService )
    {
       Validate.isTrue( defaultTimeoutInMillis > 0 );
@@ -65,6 +84,7 @@ class WicaChannelPutController
 
       this.defaultTimeoutInMillis = defaultTimeoutInMillis;
       this.epicsChannelWriterService = Validate.notNull( epicsChannelWriterService, "The 'epicsChannelWriterService' argument is null." );
+      this.wicaChannelBulkPutRequestDecoder = Validate.notNull( wicaChannelBulkPutRequestDecoder, "The 'wicaChannelBulkPutRequestDecoder' argument is null." );
 
       this.statisticsCollector = new ControllerStatistics("WICA CHANNEL PUT CONTROLLER" );
       statisticsCollectionService.addCollectable( statisticsCollector );
@@ -83,6 +103,13 @@ class WicaChannelPutController
     *     optional parameter is not provided then the configured default
     *     value will be used.
     *
+    * @param coalesce whether the put may be coalesced with other puts to
+    *     the same channel. When true at most one put per channel is in
+    *     progress at any time and a put which is still queued when a newer
+    *     value arrives is discarded, which suits clients such as sliders
+    *     which only care about the latest value. When false (the default)
+    *     the value is always written.
+    *
     * @param channelValue the string representation of the new value.
     *
     * @param httpServletRequest contextual information for the request; used
@@ -91,13 +118,15 @@ class WicaChannelPutController
     * @return ResponseEntity set to return an HTTP status code of 'OK'
     *    (= 200) if the put operation completes successfully or
     *    'Internal Server Error' (= 500) if a timeout occurs.  When
-    *    successful the body of the response contains the string "OK".
-    *    When unsuccessful the response header 'X-WICA-ERROR' is
+    *    successful the body of the response contains the string "OK",
+    *    or "SUPERSEDED" if the value was discarded in favour of a newer
+    *    one. When unsuccessful the response header 'X-WICA-ERROR' is
     *    written with a description of the error.
     */
    @PutMapping( value="/{channelName}", consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.TEXT_PLAIN_VALUE )
    public ResponseEntity<String> putChannelValue( @PathVariable String channelName,
                                                   @RequestParam( value="timeout", required = false ) Integer timeoutInMillis,
+                                                  @RequestParam( value="coalesce", required = false, defaultValue = "false" ) boolean coalesce,
                                                   @RequestBody String channelValue,
                                                   HttpServletRequest httpServletRequest )
    {
@@ -116,8 +145,21 @@ class WicaChannelPutController
       // Assign default values when not explicitly provided.
       timeoutInMillis = timeoutInMillis == null ? defaultTimeoutInMillis : timeoutInMillis;
 
+      // Perform the write. A null outcome indicates failure.
+      final EpicsChannelName epicsChannelName = EpicsChannelName.of( channelName );
+      final EpicsChannelWriteCoalescer.Outcome outcome;
+      if ( coalesce )
+      {
+         outcome = writeCoalesced( epicsChannelName, channelValue, timeoutInMillis );
+      }
+      else
+      {
+         final boolean written = epicsChannelWriterService.writeStringValue( epicsChannelName, channelValue, timeoutInMillis, TimeUnit.MILLISECONDS );
+         outcome = written ? EpicsChannelWriteCoalescer.Outcome.WRITTEN : null;
+      }
+
       // Handle failure of the command.
-      if ( ! epicsChannelWriterService.writeStringValue( EpicsChannelName.of( channelName ), channelValue, timeoutInMillis, TimeUnit.MILLISECONDS ) )
+      if ( outcome == null )
       {
          final String errorMessage = "a timeout occurred (channel = '" + channelName + "', value = '" + channelValue + "').";
          logger.warn( "PUT: Rejected request because {}", errorMessage  );
@@ -126,12 +168,120 @@ class WicaChannelPutController
          return ResponseEntity.status( HttpStatus.INTERNAL_SERVER_ERROR ).header( "X-WICA-ERROR", errorMessage ).build();
       }
 
+      // Handle the situation where a newer value arrived before this one could be written.
+      if ( outcome == EpicsChannelWriteCoalescer.Outcome.SUPERSEDED )
+      {
+         logger.info( "'{}' - OK: PUT channel request was superseded.", channelName );
+         statisticsCollector.incrementReplies();
+         return new ResponseEntity<>("SUPERSEDED", HttpStatus.OK );
+      }
+
       // Handle the normal situation.
       logger.info( "'{}' - OK: PUT channel request.", channelName );
       statisticsCollector.incrementReplies();
       return new ResponseEntity<>("OK", HttpStatus.OK );
    }
 
+   /**
+    * Handles an HTTP PUT request to set the values of multiple channels.
+    * <p>
+    * The values are written in their native types and the writes to all
+    * channels are issued without waiting for earlier writes to complete.
+    * They are subject to a single shared timeout.
+    *
+    * @param optJsonBulkPutRequest the JSON string which maps each channel name
+    *     to the value to be written. See {@link WicaChannelBulkPutRequestDecoder}.
+    *
+    * @param timeoutInMillis the timeout to be applied when attempting to
+    *     put the channel values to the underlying data source. If this
+    *     optional parameter is not provided then the configured default
+    *     value will be used.
+    *
+    * @param mode the completion mode. When set to 'callback' (the default)
+    *     each write is reported as successful only once the IOC has
+    *     confirmed that the processing resulting from it has completed.
+    *     When set to 'nowait' the writes are fire-and-forget: each is
+    *     reported as successful as soon as it has been sent.
+    *
+    * @param httpServletRequest contextual information for the request; used
+    *     for statistics collection only.
+    *
+    * @return ResponseEntity set to return an HTTP status code of 'OK'
+    *    (= 200) and a body containing a JSON object which maps each channel
+    *    name to the status of its write, or 'Bad Request' (= 400) if the
+    *    request was invalid, in which case the response header 'X-WICA-ERROR'
+    *    describes the error. The status of each write is a JSON object
+    *    whose 'ok' field reports whether it succeeded and whose 'error'
+    *    field, when present, describes the failure.
+    */
+   @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
+   @PutMapping( value="/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE )
+   public ResponseEntity<String> putMultipleChannelValues( @RequestBody( required = false ) Optional<String> optJsonBulkPutRequest,
+                                                           @RequestParam( value="timeout", required = false ) Integer timeoutInMillis,
+                                                           @RequestParam( value="mode", required = false ) String mode,
+                                                           HttpServletRequest httpServletRequest ) throws JsonProcessingException
+   {
+      logger.info( "PUT: Handling bulk channel put request." );
+
+      // Check that the Spring framework gives us something in the HttpServletRequest field.
+      Validate.notNull( httpServletRequest, "The 'httpServletRequest' field was empty." );
+
+      // Update the usage statistics for this controller.
+      statisticsCollector.incrementRequests();
+      statisticsCollector.addClientIpAddr(httpServletRequest.getRemoteHost() );
+
+      // Assign default values when not explicitly provided.
+      timeoutInMillis = timeoutInMillis == null ? defaultTimeoutInMillis : timeoutInMillis;
+      mode = mode == null ? "callback" : mode;
+
+      if ( ! ( mode.equals( "callback" ) || mode.equals( "nowait" ) ) )
+      {
+         return rejectBulkRequest( "WICA SERVER: The put mode '" + mode + "' was not recognised." );
+      }
+
+      final Map<String,Object> channelValueMap;
+      try
+      {
+         channelValueMap = wicaChannelBulkPutRequestDecoder.decode( optJsonBulkPutRequest.orElse( "" ) );
+      }
+      catch ( RuntimeException ex )
+      {
+         return rejectBulkRequest( "WICA SERVER: " + ex.getMessage() );
+      }
+
+      // Issue all the writes before waiting for any of them.
+      final boolean awaitCompletion = mode.equals( "callback" );
+      final List<CompletableFuture<Void>> writes = new ArrayList<>( channelValueMap.size() );
+      for ( Map.Entry<String,Object> entry : channelValueMap.entrySet() )
+      {
+         writes.add( epicsChannelWriterService.writeValueAsync( EpicsChannelName.of( entry.getKey() ), entry.getValue(), awaitCompletion, timeoutInMillis, TimeUnit.MILLISECONDS ) );
+      }
+
+      final Map<String,Map<String,Object>> resultMap = new LinkedHashMap<>();
+      int index = 0;
+      int failures = 0;
+      for ( String channelName : channelValueMap.keySet() )
+      {
+         final Map<String,Object> channelResult = new LinkedHashMap<>();
+         try
+         {
+            writes.get( index++ ).join();
+            channelResult.put( "ok", true );
+         }
+         catch ( CompletionException ex )
+         {
+            failures++;
+            channelResult.put( "ok", false );
+            channelResult.put( "error", ex.getCause() instanceof TimeoutException ? "a timeout occurred." : String.valueOf( ex.getCause() ) );
+         }
+         resultMap.put( channelName, channelResult );
+      }
+
+      logger.info( "OK: PUT to {} channels completed with {} failures.", channelValueMap.size(), failures );
+      statisticsCollector.incrementReplies();
+      return new ResponseEntity<>( resultMapper.writeValueAsString( resultMap ), HttpStatus.OK );
+   }
+
    @ExceptionHandler( Exception.class )
    public void handleException( Exception ex)
    {
@@ -140,6 +290,31 @@ class WicaChannelPutController
    }
 
 /*- Private methods ----------------------------------------------------------*/
+
+   /**
+    * Writes the value using the coalescing writer, returning null if the
+    * write failed.
+    */
+   private EpicsChannelWriteCoalescer.Outcome writeCoalesced( EpicsChannelName epicsChannelName, String channelValue, int timeoutInMillis )
+   {
+      try
+      {
+         return epicsChannelWriterService.writeValueCoalesced( epicsChannelName, channelValue, timeoutInMillis, TimeUnit.MILLISECONDS ).join();
+      }
+      catch ( CompletionException ex )
+      {
+         return null;
+      }
+   }
+
+   private ResponseEntity<String> rejectBulkRequest( String errorMessage )
+   {
+      logger.warn( "PUT: Rejected request because '{}'.", errorMessage );
+      statisticsCollector.incrementErrors();
+      statisticsCollector.incrementReplies();
+      return ResponseEntity.status( HttpStatus.BAD_REQUEST ).header( "X-WICA-ERROR", errorMessage ).build();
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
@@ -70,6 +70,11 @@ class WicaStreamGetController
     *
     * @param optStreamId the ID of the stream to be subscribed to.
     *
+    * @param optLastEventId the ID of the last event received by a web client
+    *     which is reconnecting to the stream. When supplied, and the values
+    *     published since that event are still available, only those values
+    *     are replayed to the client instead of the full state of the stream.
+    *
     * @param httpServletRequest contextual information for the request; used
     *     for statistics collection only.
     *
@@ -84,6 +89,7 @@ class WicaStreamGetController
    @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" )
    @GetMapping( value = { "", "/{optStreamId}"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE )
    public ResponseEntity<Flux<ServerSentEvent<String>>> get( @PathVariable Optional<String> optStreamId,
+                                                             @RequestHeader( value = "Last-Event-ID", required = false ) Optional<String> optLastEventId,
                                                              HttpServletRequest httpServletRequest )
    {
       logger.trace( "GET: Handling subscribe stream request." );
@@ -138,7 +144,7 @@ class WicaStreamGetController
       final Flux<ServerSentEvent<String>> wicaStreamFlux;
       try
       {
-         wicaStreamFlux = wicaStreamLifecycleService.getFlux( wicaStreamId );
+         wicaStreamFlux = wicaStreamLifecycleService.getFlux( wicaStreamId, optLastEventId );
       }
       catch( Exception ex )
       {
@@ -159,6 +165,7 @@ class WicaStreamGetController
       }
 
       appLogger.info( "GET: subscribing to stream with id: '{}' following request from client with IP: '{}'", wicaStreamId, httpServletRequest.getRemoteHost() );
+      optLastEventId.ifPresent( lastEventId -> logger.trace( "Client is reconnecting after receiving event with id: '{}'", lastEventId ) );
       logger.trace( "Returning stream with id: '{}'", optStreamId );
       statisticsCollector.incrementReplies();
       return new ResponseEntity<>( wicaStreamFlux, HttpStatus.OK );
@@ -9,6 +9,7 @@ import ch.psi.wica.model.app.StatisticsCollectionService;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.epics.ca.Channel;
+import org.epics.ca.ConnectionState;
 import org.epics.ca.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +18,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
@@ -95,44 +98,72 @@ public abstract class EpicsChannelManager implements AutoCloseable
       return statisticsCollector;
    }
 
+   /**
+    * Returns the channel which this manager has established to the specified
+    * EPICS channel, provided that it is currently connected.
+    * <p>
+    * This allows other services to reuse the channel rather than creating a
+    * new one of their own. The returned channel remains owned by this manager,
+    * so it must not be closed and may be closed at any time without notice.
+    *
+    * @param epicsChannelName the name of the channel.
+    * @return the channel, or empty if no connected channel is available.
+    */
+   public Optional<Channel<Object>> getConnectedChannel( EpicsChannelName epicsChannelName )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      final Channel<Object> caChannel = channels.get( epicsChannelName );
+      return ( caChannel != null ) && ( caChannel.getConnectionState() == ConnectionState.CONNECTED ) ? Optional.of( caChannel ) : Optional.empty();
+   }
+
    public void createChannel( EpicsChannelName epicsChannelName )
    {
       Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
       statisticsCollector.incrementCreateMonitoredChannelRequests();
 
-      if ( channelInterestMap.containsKey( epicsChannelName ) )
-      {
-         final int currentInterestCount = channelInterestMap.get( epicsChannelName );
+      // Note: the interest count is updated atomically so that channels may be
+      // created and removed concurrently. The channel itself is created whilst
+      // the entry is locked so that no other thread can observe the interest
+      // count before the channel exists.
+      channelInterestMap.compute( epicsChannelName, ( k, currentInterestCount ) -> {
+         if ( currentInterestCount == null )
+         {
+            logger.debug( "'{}' - creating new channel...", epicsChannelName );
+            channels.put( epicsChannelName, createChannel_( epicsChannelName ) );
+            return 1;
+         }
          final int newInterestCount = currentInterestCount + 1;
          logger.info( "Increasing interest level in control system channel named: '{}' to {}", epicsChannelName, newInterestCount );
-         channelInterestMap.put( epicsChannelName, newInterestCount );
-         return;
-      }
-
-      logger.debug( "'{}' - creating new channel...", epicsChannelName );
-      final Channel<Object> caChannel = createChannel_( epicsChannelName );
-      channels.put( epicsChannelName, caChannel );
-      channelInterestMap.put( epicsChannelName, 1 );
+         return newInterestCount;
+      } );
    }
 
    public void removeChannel( EpicsChannelName epicsChannelName )
    {
       Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
-      Validate.validState( channels.containsKey( epicsChannelName ) );
-      Validate.validState( channelInterestMap.containsKey( epicsChannelName ) );
-      Validate.validState(channelInterestMap.get( epicsChannelName ) > 0 );
       statisticsCollector.incrementRemoveMonitoredChannelRequests();
 
-      final int currentInterestCount = channelInterestMap.get( epicsChannelName );
-      final int newInterestCount = currentInterestCount - 1;
-      logger.info( "Reducing interest level in control system channel named: '{}' to {}" , epicsChannelName, newInterestCount );
-      channelInterestMap.put( epicsChannelName, newInterestCount );
-
-      if ( newInterestCount == 0 )
+      final AtomicReference<Channel<Object>> removedChannel = new AtomicReference<>();
+      channelInterestMap.compute( epicsChannelName, ( k, currentInterestCount ) -> {
+         Validate.validState( channels.containsKey( epicsChannelName ) );
+         Validate.validState( ( currentInterestCount != null ) && ( currentInterestCount > 0 ) );
+
+         final int newInterestCount = currentInterestCount - 1;
+         logger.info( "Reducing interest level in control system channel named: '{}' to {}" , epicsChannelName, newInterestCount );
+         if ( newInterestCount == 0 )
+         {
+            removedChannel.set( channels.remove( epicsChannelName ) );
+            return null;
+         }
+         return newInterestCount;
+      } );
+
+      // Close the channel outside the remapping function since this may
+      // result in callbacks to arbitrary code.
+      if ( removedChannel.get() != null )
       {
          logger.info( "Removing control system channel named: '{}'", epicsChannelName );
-         channelInterestMap.remove( epicsChannelName );
-         final Channel<Object> caChannel = channels.remove( epicsChannelName );
+         final Channel<Object> caChannel = removedChannel.get();
          caChannel.close();
          epicsChannelEventPublisher.publishChannelDisconnected( scope, caChannel );
       }
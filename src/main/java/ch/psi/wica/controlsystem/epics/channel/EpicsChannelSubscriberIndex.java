@@ -0,0 +1,122 @@
+/*- Package Declaration ------------------------------------------------------*/
+
+package ch.psi.wica.controlsystem.epics.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides an index of the subscribers that are interested in each EPICS
+ * channel.
+ * <p>
+ * The subscribers of each channel are held in an immutable list which is
+ * replaced whenever a subscriber is added or removed. Lookups are therefore
+ * lock-free and their cost depends only on the number of subscribers to
+ * the channel concerned, not on the total number of subscribers.
+ *
+ * @param <T> the type of subscriber.
+ */
+@ThreadSafe
+public class EpicsChannelSubscriberIndex<T>
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Map<EpicsChannelName,List<T>> subscriberMap = new ConcurrentHashMap<>();
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Adds a subscriber to the specified channel.
+    *
+    * @param epicsChannelName the channel name.
+    * @param subscriber the subscriber.
+    */
+   public void add( EpicsChannelName epicsChannelName, T subscriber )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( subscriber, "The 'subscriber' argument is null." );
+
+      subscriberMap.compute( epicsChannelName, ( k, v ) -> {
+         if ( v == null )
+         {
+            return List.of( subscriber );
+         }
+         final List<T> subscribers = new ArrayList<>( v.size() + 1 );
+         subscribers.addAll( v );
+         subscribers.add( subscriber );
+         return Collections.unmodifiableList( subscribers );
+      } );
+   }
+
+   /**
+    * Removes a subscriber from the specified channel.
+    *
+    * @param epicsChannelName the channel name.
+    * @param subscriber the subscriber.
+    * @return true if the subscriber was removed, false if it was not present.
+    */
+   public boolean remove( EpicsChannelName epicsChannelName, T subscriber )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( subscriber, "The 'subscriber' argument is null." );
+
+      final AtomicBoolean removed = new AtomicBoolean( false );
+      subscriberMap.computeIfPresent( epicsChannelName, ( k, v ) -> {
+         final List<T> subscribers = new ArrayList<>( v );
+         removed.set( subscribers.remove( subscriber ) );
+
+         // Entries for channels which have no more subscribers are discarded.
+         return subscribers.isEmpty() ? null : Collections.unmodifiableList( subscribers );
+      } );
+      return removed.get();
+   }
+
+   /**
+    * Returns the subscribers to the specified channel.
+    * <p>
+    * The returned list is an immutable snapshot which will not reflect any
+    * subsequent changes.
+    *
+    * @param epicsChannelName the channel name.
+    * @return the subscribers, possibly empty.
+    */
+   public List<T> get( EpicsChannelName epicsChannelName )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      return subscriberMap.getOrDefault( epicsChannelName, List.of() );
+   }
+
+   /**
+    * Returns a boolean indicating whether the supplied subscriber is
+    * subscribed to the specified channel.
+    *
+    * @param epicsChannelName the channel name.
+    * @param subscriber the subscriber.
+    * @return the result.
+    */
+   public boolean contains( EpicsChannelName epicsChannelName, T subscriber )
+   {
+      return get( epicsChannelName ).contains( subscriber );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -97,6 +98,36 @@ public class EpicsChannelValueGetter
    {
       Validate.notNull( channel, "The 'channel' argument is null." );
       Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
+      return getAsync( channel ).get( timeout, timeUnit );
+   }
+
+   /**
+    * Initiates a channel-access GET operation on the supplied EPICS channel
+    * and returns a future which will be completed with a WicaChannelValue
+    * object which encapsulates the properties of the channel which may change
+    * quickly (eg online/offline state, instantaneous value, timestamp, alarm
+    * severity etc).
+    * <p>
+    * This method does not block. No timeout is applied to the returned future;
+    * callers who need one should apply it themselves, for example by using
+    * CompletableFuture.orTimeout.
+    * <p>
+    * If the channel is already offline when this method is invoked then the
+    * returned future will already be completed with a value which indicates
+    * that the channel is disconnected.
+    * <p>
+    * Precondition: the channel should have been connected at least once.
+    * Postcondition: the state of the channel will remain unaffected.
+    *
+    * @param channel the EPICS channel to query.
+    * @return the future.
+    *
+    * @throws NullPointerException if the channel argument was null.
+    * @throws IllegalStateException if the channel state was not as expected.
+    */
+   public CompletableFuture<WicaChannelValue> getAsync( Channel<Object> channel )
+   {
+      Validate.notNull( channel, "The 'channel' argument is null." );
       Validate.validState( channel.getConnectionState() != ConnectionState.NEVER_CONNECTED, "Programming Error: the channel was never connected" );
 
       // Obtain the control system name for logging purposes.
@@ -107,20 +138,21 @@ public class EpicsChannelValueGetter
       if ( channel.getConnectionState() != ConnectionState.CONNECTED )
       {
          logger.trace( "'{}' - channel is offline, returning disconnected value.", controlSystemName );
-         return WicaChannelValueBuilder.createChannelValueDisconnected();
+         return CompletableFuture.completedFuture( WicaChannelValueBuilder.createChannelValueDisconnected() );
       }
 
       // Perform a channel GET request to obtain the properties of the channel which
       // may change quickly. Currently (2019-07-11) this includes the current value,
       // the timestamp the and alarm state.
       logger.trace( "'{}' - getting EPICS TIMESTAMPED data...", controlSystemName );
-      final var completableFuture = channel.getAsync( Timestamped.class );
-      final var metadataObj = completableFuture.get( timeout, timeUnit );
-      final var timestampedObj = (Timestamped<Object>) metadataObj;
-      logger.trace( "'{}' - EPICS TIMESTAMPED data received.", controlSystemName );
-
-      // Now construct and return a wica value object using the timestamped object information.
-      return wicaChannelValueCreator.build( controlSystemName, timestampedObj );
+      return channel.getAsync( Timestamped.class ).thenApply( metadataObj -> {
+         @SuppressWarnings( "unchecked" )
+         final var timestampedObj = (Timestamped<Object>) metadataObj;
+         logger.trace( "'{}' - EPICS TIMESTAMPED data received.", controlSystemName );
+
+         // Now construct and return a wica value object using the timestamped object information.
+         return wicaChannelValueCreator.build( controlSystemName, timestampedObj );
+      } );
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -0,0 +1,327 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.epics.ca.Channel;
+import org.epics.ca.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides a cache of recently used EPICS channels so that repeated reads or
+ * writes on the same channel need not incur the cost of a channel access name
+ * search and connection handshake on every request.
+ * <p>
+ * Channels are obtained by acquiring a lease, which must be closed when the
+ * channel is no longer required. Concurrent requests for the same channel
+ * share a single connection attempt. Channels which are not leased are closed
+ * by the periodic eviction once they have been idle for longer than the
+ * configured idle time. When the cache grows beyond its maximum size the
+ * least recently used channels which are not leased are closed straight away.
+ *
+ * @param <T> the type of the channel.
+ */
+@ThreadSafe
+public class EpicsChannelConnectionCache<T> implements AutoCloseable
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( EpicsChannelConnectionCache.class );
+
+   private final Context caContext;
+   private final Class<T> channelType;
+   private final int maxSize;
+   private final long maxIdleTimeInNanos;
+   private final LongSupplier nanoTimeSupplier;
+   private final Map<EpicsChannelName,Entry<T>> entryMap;
+   private final AtomicLong hitCount;
+   private final AtomicLong missCount;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    *
+    * @param caContext the context in which channels will be created.
+    * @param channelType the type of the channels to be created.
+    * @param maxSize the maximum number of channels to retain.
+    * @param maxIdleTime the time after which a channel which has not been used will be closed.
+    * @param timeUnit the time units of the maxIdleTime argument.
+    *
+    * @throws NullPointerException if any of the reference object arguments were null.
+    * @throws IllegalArgumentException if the maxSize or maxIdleTime arguments were negative.
+    */
+   public EpicsChannelConnectionCache( Context caContext, Class<T> channelType, int maxSize, long maxIdleTime, TimeUnit timeUnit )
+   {
+      this( caContext, channelType, maxSize, maxIdleTime, timeUnit, System::nanoTime );
+   }
+
+   /**
+    * Creates a new instance which takes its time from the supplied source.
+    *
+    * @param caContext the context in which channels will be created.
+    * @param channelType the type of the channels to be created.
+    * @param maxSize the maximum number of channels to retain.
+    * @param maxIdleTime the time after which a channel which has not been used will be closed.
+    * @param timeUnit the time units of the maxIdleTime argument.
+    * @param nanoTimeSupplier the time source.
+    */
+   EpicsChannelConnectionCache( Context caContext, Class<T> channelType, int maxSize, long maxIdleTime, TimeUnit timeUnit, LongSupplier nanoTimeSupplier )
+   {
+      this.caContext = Validate.notNull( caContext, "The 'caContext' argument is null." );
+      this.channelType = Validate.notNull( channelType, "The 'channelType' argument is null." );
+      Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
+      Validate.isTrue( maxSize >= 0, "The 'maxSize' argument was negative." );
+      Validate.isTrue( maxIdleTime >= 0, "The 'maxIdleTime' argument was negative." );
+
+      this.maxSize = maxSize;
+      this.maxIdleTimeInNanos = timeUnit.toNanos( maxIdleTime );
+      this.nanoTimeSupplier = Validate.notNull( nanoTimeSupplier, "The 'nanoTimeSupplier' argument is null." );
+      this.entryMap = new ConcurrentHashMap<>();
+      this.hitCount = new AtomicLong( 0 );
+      this.missCount = new AtomicLong( 0 );
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Acquires a lease on the specified channel, creating the channel and
+    * initiating its connection if it is not already in the cache.
+    * <p>
+    * This method does not block. The connection state of the channel is
+    * reported through the lease's future.
+    *
+    * @param epicsChannelName the name of the channel.
+    * @return the lease, which must be closed when the channel is no longer required.
+    */
+   public Lease<T> acquire( EpicsChannelName epicsChannelName )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+
+      final long now = nanoTimeSupplier.getAsLong();
+      final Entry<T> entry = entryMap.compute( epicsChannelName, ( k, v ) -> {
+
+         // Entries whose connection attempt failed are discarded as soon as
+         // they are no longer in use so that the next request tries again.
+         if ( ( v != null ) && ( v.leaseCount == 0 ) && v.connectFuture.isCompletedExceptionally() )
+         {
+            v.caChannel.close();
+            v = null;
+         }
+
+         if ( v == null )
+         {
+            missCount.incrementAndGet();
+            v = createEntry( epicsChannelName );
+         }
+         else
+         {
+            hitCount.incrementAndGet();
+         }
+         v.leaseCount++;
+         v.lastUsedTimeInNanos = now;
+         return v;
+      } );
+
+      // The idle channels are left to the periodic eviction. Only a cache
+      // which has outgrown its limit is trimmed here.
+      if ( entryMap.size() > maxSize )
+      {
+         evictLeastRecentlyUsedChannels();
+      }
+      return new Lease<>( this, epicsChannelName, entry.connectFuture );
+   }
+
+   /**
+    * Closes any channels which are not currently leased and which have been
+    * idle for longer than the configured idle time. Intended to be called
+    * periodically.
+    */
+   public void evictIdleChannels()
+   {
+      final long now = nanoTimeSupplier.getAsLong();
+      entryMap.keySet().forEach( k -> entryMap.computeIfPresent( k, ( name, v ) -> {
+         if ( ( v.leaseCount == 0 ) && ( now - v.lastUsedTimeInNanos > maxIdleTimeInNanos ) )
+         {
+            logger.debug( "'{}' - closing idle cached channel.", name );
+            v.caChannel.close();
+            return null;
+         }
+         return v;
+      } ) );
+      evictLeastRecentlyUsedChannels();
+   }
+
+   /**
+    * Returns the number of channels currently held in the cache.
+    *
+    * @return the result.
+    */
+   public int size()
+   {
+      return entryMap.size();
+   }
+
+   /**
+    * Returns the number of requests which were satisfied by a channel that
+    * was already in the cache.
+    *
+    * @return the result.
+    */
+   public long getHitCount()
+   {
+      return hitCount.get();
+   }
+
+   /**
+    * Returns the number of requests which required a new channel to be created.
+    *
+    * @return the result.
+    */
+   public long getMissCount()
+   {
+      return missCount.get();
+   }
+
+   /**
+    * Closes all channels in the cache.
+    */
+   @Override
+   public void close()
+   {
+      new ArrayList<>( entryMap.keySet() ).forEach( k -> entryMap.computeIfPresent( k, ( name, v ) -> {
+         v.caChannel.close();
+         return null;
+      } ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private Entry<T> createEntry( EpicsChannelName epicsChannelName )
+   {
+      logger.debug( "'{}' - creating cached channel...", epicsChannelName );
+      final Channel<T> caChannel = caContext.createChannel( epicsChannelName.asString(), channelType );
+      final CompletableFuture<Channel<T>> connectFuture = caChannel.connectAsync();
+      return new Entry<>( caChannel, connectFuture );
+   }
+
+   private void release( EpicsChannelName epicsChannelName )
+   {
+      final long now = nanoTimeSupplier.getAsLong();
+      entryMap.computeIfPresent( epicsChannelName, ( k, v ) -> {
+         v.leaseCount--;
+         v.lastUsedTimeInNanos = now;
+         return v;
+      } );
+   }
+
+   private void evictLeastRecentlyUsedChannels()
+   {
+      final int excess = entryMap.size() - maxSize;
+      if ( excess <= 0 )
+      {
+         return;
+      }
+      final List<EpicsChannelName> candidates = entryMap.entrySet().stream()
+            .filter( e -> e.getValue().leaseCount == 0 )
+            .sorted( Comparator.comparingLong( e -> e.getValue().lastUsedTimeInNanos ) )
+            .limit( excess )
+            .map( Map.Entry::getKey )
+            .toList();
+
+      candidates.forEach( k -> entryMap.computeIfPresent( k, ( name, v ) -> {
+         if ( v.leaseCount == 0 )
+         {
+            logger.debug( "'{}' - closing least recently used cached channel.", name );
+            v.caChannel.close();
+            return null;
+         }
+         return v;
+      } ) );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   /**
+    * Represents the right to use a cached channel until the lease is closed.
+    *
+    * @param <T> the type of the channel.
+    */
+   public static class Lease<T> implements AutoCloseable
+   {
+      private final EpicsChannelConnectionCache<T> cache;
+      private final EpicsChannelName epicsChannelName;
+      private final CompletableFuture<Channel<T>> connectFuture;
+      private boolean closed = false;
+
+      private Lease( EpicsChannelConnectionCache<T> cache, EpicsChannelName epicsChannelName, CompletableFuture<Channel<T>> connectFuture )
+      {
+         this.cache = cache;
+         this.epicsChannelName = epicsChannelName;
+         this.connectFuture = connectFuture;
+      }
+
+      /**
+       * Returns a future which completes with the channel once it has been
+       * connected.
+       *
+       * @return the future.
+       */
+      public CompletableFuture<Channel<T>> getConnectFuture()
+      {
+         return connectFuture;
+      }
+
+      /**
+       * Returns the leased channel to the cache.
+       */
+      @Override
+      public synchronized void close()
+      {
+         if ( ! closed )
+         {
+            closed = true;
+            cache.release( epicsChannelName );
+         }
+      }
+   }
+
+   // Note: the mutable fields are only modified from within the remapping
+   // functions of the ConcurrentHashMap, which serialises access to each key.
+   // They are volatile so that the eviction scan can read them safely.
+   private static class Entry<T>
+   {
+      private final Channel<T> caChannel;
+      private final CompletableFuture<Channel<T>> connectFuture;
+      private volatile int leaseCount;
+      private volatile long lastUsedTimeInNanos;
+
+      private Entry( Channel<T> caChannel, CompletableFuture<Channel<T>> connectFuture )
+      {
+         this.caChannel = caChannel;
+         this.connectFuture = connectFuture;
+      }
+   }
+
+}
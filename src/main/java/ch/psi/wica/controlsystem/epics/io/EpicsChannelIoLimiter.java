@@ -0,0 +1,283 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.epics.ca.Channel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Limits the number of channel read and write operations which may be in
+ * progress against any single IOC on behalf of the channel GET and PUT
+ * endpoints.
+ * <p>
+ * Operations which cannot start immediately are queued, in order of
+ * arrival, without occupying a thread. A queued operation which has not
+ * started by its deadline is abandoned. An operation which has started but
+ * not finished by its deadline is failed and gives up its place, so that a
+ * hung operation cannot block its IOC for good.
+ * <p>
+ * The limit protects the IOCs independently of the number of threads
+ * available to serve requests, which is effectively unbounded when requests
+ * are handled on virtual threads.
+ */
+@Component
+@ThreadSafe
+public class EpicsChannelIoLimiter
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int EXPIRED_WAITER_SCAN_INTERVAL = 1000;
+
+   private final int maxInFlightPerIoc;
+   private final Map<String,IocQueue> iocQueueMap;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    *
+    * @param maxInFlightPerIoc the maximum number of operations that may be
+    *     in progress against any single IOC.
+    *
+    * @throws IllegalArgumentException if the limit was not positive.
+    */
+   public EpicsChannelIoLimiter( @Value( "${wica.channel-io-max-in-flight-per-ioc}" ) int maxInFlightPerIoc )
+   {
+      Validate.isTrue( maxInFlightPerIoc > 0, "The 'maxInFlightPerIoc' argument was not positive." );
+
+      this.maxInFlightPerIoc = maxInFlightPerIoc;
+      this.iocQueueMap = new ConcurrentHashMap<>();
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Submits an operation on a connected channel for execution once the
+    * number of operations in progress against the IOC hosting the channel
+    * permits.
+    *
+    * @param caChannel the channel.
+    * @param deadlineNanos the value of System.nanoTime() after which the
+    *     operation should no longer be started and by which it must have
+    *     finished.
+    * @param operation the operation, which initiates the work and returns
+    *     a future which completes when the work has finished.
+    * @param <T> the type of the operation's result.
+    * @return a future which completes with the result of the operation, or
+    *     exceptionally with a TimeoutException if the operation could not be
+    *     started or did not finish before its deadline.
+    */
+   public <T> CompletableFuture<T> submit( Channel<?> caChannel, long deadlineNanos, Supplier<CompletableFuture<T>> operation )
+   {
+      Validate.notNull( caChannel, "The 'caChannel' argument is null." );
+
+      // The CA library reports the address of the server hosting each
+      // connected channel through the channel's 'remoteAddress' property.
+      final Object remoteAddress = caChannel.getProperties().get( "remoteAddress" );
+      return submit( remoteAddress == null ? "unknown" : remoteAddress.toString(), deadlineNanos, operation );
+   }
+
+   /**
+    * Submits an operation for execution once the number of operations in
+    * progress against the specified IOC permits.
+    *
+    * @param iocAddress the address of the IOC.
+    * @param deadlineNanos the value of System.nanoTime() after which the
+    *     operation should no longer be started and by which it must have
+    *     finished.
+    * @param operation the operation, which initiates the work and returns
+    *     a future which completes when the work has finished.
+    * @param <T> the type of the operation's result.
+    * @return a future which completes with the result of the operation, or
+    *     exceptionally with a TimeoutException if the operation could not be
+    *     started or did not finish before its deadline.
+    */
+   public <T> CompletableFuture<T> submit( String iocAddress, long deadlineNanos, Supplier<CompletableFuture<T>> operation )
+   {
+      Validate.notNull( iocAddress, "The 'iocAddress' argument is null." );
+      Validate.notNull( operation, "The 'operation' argument is null." );
+
+      final IocQueue iocQueue = iocQueueMap.computeIfAbsent( iocAddress, k -> new IocQueue( maxInFlightPerIoc ) );
+      final Waiter<T> waiter = new Waiter<>( iocQueue, deadlineNanos, operation );
+      final boolean startNow;
+      synchronized ( iocQueue )
+      {
+         startNow = iocQueue.availablePermits > 0;
+         if ( startNow )
+         {
+            iocQueue.availablePermits--;
+         }
+         else
+         {
+            iocQueue.waiters.add( waiter );
+         }
+      }
+
+      if ( startNow && ! waiter.tryStart() )
+      {
+         release( iocQueue );
+      }
+      return waiter.result;
+   }
+
+   /**
+    * Returns the number of operations which are waiting to start.
+    *
+    * @return the result.
+    */
+   public int getQueuedOperations()
+   {
+      return iocQueueMap.values().stream().mapToInt( q -> {
+         synchronized ( q )
+         {
+            return q.waiters.size();
+         }
+      } ).sum();
+   }
+
+   /**
+    * This method runs periodically to abandon the queued operations whose
+    * deadlines have passed, so that they do not accumulate whilst the
+    * operations in progress against their IOC are slow to finish.
+    */
+   @Scheduled( fixedRate=EXPIRED_WAITER_SCAN_INTERVAL )
+   public void abandonExpiredOperations()
+   {
+      final long nowNanos = System.nanoTime();
+      for ( IocQueue iocQueue : iocQueueMap.values() )
+      {
+         final List<Waiter<?>> expiredWaiters = new ArrayList<>();
+         synchronized ( iocQueue )
+         {
+            iocQueue.waiters.removeIf( w -> w.isExpired( nowNanos ) && expiredWaiters.add( w ) );
+         }
+         expiredWaiters.forEach( Waiter::abandon );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private static void release( IocQueue iocQueue )
+   {
+      // Hand the permit to the first waiter which is still able to use it.
+      while ( true )
+      {
+         final Waiter<?> next;
+         synchronized ( iocQueue )
+         {
+            next = iocQueue.waiters.poll();
+            if ( next == null )
+            {
+               iocQueue.availablePermits++;
+               return;
+            }
+         }
+         if ( next.tryStart() )
+         {
+            return;
+         }
+      }
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private static class IocQueue
+   {
+      private int availablePermits;
+      private final Deque<Waiter<?>> waiters = new ArrayDeque<>();
+
+      private IocQueue( int availablePermits )
+      {
+         this.availablePermits = availablePermits;
+      }
+   }
+
+   private static class Waiter<T>
+   {
+      private final IocQueue iocQueue;
+      private final long deadlineNanos;
+      private final Supplier<CompletableFuture<T>> operation;
+      private final CompletableFuture<T> result = new CompletableFuture<>();
+
+      private Waiter( IocQueue iocQueue, long deadlineNanos, Supplier<CompletableFuture<T>> operation )
+      {
+         this.iocQueue = iocQueue;
+         this.deadlineNanos = deadlineNanos;
+         this.operation = operation;
+      }
+
+      private boolean isExpired( long nowNanos )
+      {
+         return nowNanos - deadlineNanos > 0;
+      }
+
+      private void abandon()
+      {
+         result.completeExceptionally( new TimeoutException( "The operation could not be started before its deadline." ) );
+      }
+
+      /**
+       * Starts the operation using the permit which has been granted to it,
+       * returning false, without consuming the permit, if the deadline has
+       * already passed.
+       */
+      private boolean tryStart()
+      {
+         final long nowNanos = System.nanoTime();
+         if ( isExpired( nowNanos ) )
+         {
+            abandon();
+            return false;
+         }
+
+         CompletableFuture<T> future;
+         try
+         {
+            future = operation.get();
+         }
+         catch ( RuntimeException ex )
+         {
+            future = CompletableFuture.failedFuture( ex );
+         }
+         // The permit is released when the operation finishes or when its
+         // deadline passes, whichever is the sooner. The operation's own
+         // future is left untouched.
+         future.copy().orTimeout( deadlineNanos - nowNanos, TimeUnit.NANOSECONDS ).whenComplete( ( value, ex ) -> {
+            release( iocQueue );
+            if ( ex != null )
+            {
+               result.completeExceptionally( ex );
+            }
+            else
+            {
+               result.complete( value );
+            }
+         } );
+         return true;
+      }
+   }
+
+}
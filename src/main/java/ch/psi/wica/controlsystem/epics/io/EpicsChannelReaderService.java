@@ -6,6 +6,7 @@ package ch.psi.wica.controlsystem.epics.io;
 /*- Class Declaration --------------------------------------------------------*/
 
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelAccessContextSupplier;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelManager;
 import ch.psi.wica.controlsystem.epics.metadata.EpicsChannelMetadataGetter;
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelValueGetter;
@@ -20,9 +21,17 @@ import org.epics.ca.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * A service which offers the possibility to get the metadata or value
@@ -32,6 +41,10 @@ import java.util.concurrent.TimeUnit;
  * The current implementation uses PSI's CA EPICS client library to obtain a
  * single shared EPICS CA Context per class instance. The EPICS CA context and
  * all associated resources are disposed of when the service instance is closed.
+ * <p>
+ * Where a connected channel has already been established for the purpose of
+ * monitoring or polling then it is reused. Otherwise, the channels created by
+ * this service are retained in a cache for reuse by subsequent requests.
  */
 @Service
 @ThreadSafe
@@ -41,10 +54,17 @@ public class EpicsChannelReaderService implements AutoCloseable
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
+   private static final int IDLE_CHANNEL_SCAN_INTERVAL = 1000;
+   private static final int METADATA_GETTER_THREADS = 16;
+
    private final Logger logger = LoggerFactory.getLogger( EpicsChannelReaderService.class );
    private final Context caContext;
+   private final EpicsChannelConnectionCache<Object> channelCache;
+   private final List<EpicsChannelManager> sharedChannelManagers;
    private final EpicsChannelValueGetter epicsChannelValueGetter;
    private final EpicsChannelMetadataGetter epicsChannelMetadataGetter;
+   private final ExecutorService metadataGetterExecutor;
+   private final EpicsChannelIoLimiter epicsChannelIoLimiter;
    private boolean closed = false;
 
 /*- Main ---------------------------------------------------------------------*/
@@ -57,10 +77,22 @@ public class EpicsChannelReaderService implements AutoCloseable
     * @param epicsChannelAccessContextSupplier an object which can be used to obtain a Channel-Access context.
     * @param epicsChannelMetadataGetter an object that can get and build the returned metadata.
     * @param epicsChannelValueGetter an object that can get and build the returned value.
+    * @param epicsMonitoredChannelManagerService the manager whose connected channels may be reused.
+    * @param epicsPolledChannelManagerService the manager whose connected channels may be reused.
+    * @param channelIoCacheMaxSize the maximum number of channels to retain for reuse.
+    * @param channelIoCacheMaxIdleTimeInSecs the period after which a retained channel will be closed if not used.
+    * @param epicsChannelIoLimiter the object which limits the number of reads in progress against each IOC.
+    * @param virtualThreadsEnabled whether blocking work should be performed on virtual threads.
     */
    public EpicsChannelReaderService( @Autowired EpicsChannelAccessContextSupplier epicsChannelAccessContextSupplier,
                                      @Autowired EpicsChannelMetadataGetter epicsChannelMetadataGetter,
-                                     @Autowired EpicsChannelValueGetter epicsChannelValueGetter )
+                                     @Autowired EpicsChannelValueGetter epicsChannelValueGetter,
+                                     @Autowired EpicsChannelManager.EpicsMonitoredChannelManagerService epicsMonitoredChannelManagerService,
+                                     @Autowired EpicsChannelManager.EpicsPolledChannelManagerService epicsPolledChannelManagerService,
+                                     @Value( "${wica.channel-io-cache-max-size}" ) int channelIoCacheMaxSize,
+                                     @Value( "${wica.channel-io-cache-max-idle-time-in-secs}" ) int channelIoCacheMaxIdleTimeInSecs,
+                                     @Autowired EpicsChannelIoLimiter epicsChannelIoLimiter,
+                                     @Value( "${wica.channel-io-virtual-threads-enabled}" ) boolean virtualThreadsEnabled )
    {
       logger.debug( "'{}' - constructing new EpicsChannelReaderService instance...", this );
 
@@ -69,6 +101,11 @@ public class EpicsChannelReaderService implements AutoCloseable
 
       logger.info( "Getting CA context for EpicsChannelReaderService..." );
       this.caContext = epicsChannelAccessContextSupplier.getContextForScope( "io" );
+      this.channelCache = new EpicsChannelConnectionCache<>( caContext, Object.class, channelIoCacheMaxSize, channelIoCacheMaxIdleTimeInSecs, TimeUnit.SECONDS );
+      this.epicsChannelIoLimiter = Validate.notNull( epicsChannelIoLimiter, "The 'epicsChannelIoLimiter' argument is null." );
+      this.metadataGetterExecutor = virtualThreadsEnabled ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool( METADATA_GETTER_THREADS );
+      this.sharedChannelManagers = List.of( Validate.notNull( epicsMonitoredChannelManagerService, "The 'epicsMonitoredChannelManagerService' argument is null." ),
+                                            Validate.notNull( epicsPolledChannelManagerService, "The 'epicsPolledChannelManagerService' argument is null." ) );
 
       logger.debug( "'{}' - service instance constructed ok.", this );
    }
@@ -79,8 +116,9 @@ public class EpicsChannelReaderService implements AutoCloseable
    /**
     * Returns the metadata associated with a channel.
     * <p>
-    * This method incurs the network cost of establishing a channel to the remote
-    * data source and performing a synchronous GET operation.
+    * This method incurs the network cost of performing a synchronous GET
+    * operation and, where no suitable channel is already available, of
+    * establishing a channel to the remote data source.
     *
     * @param epicsChannelName the name of the channel.
     *
@@ -93,6 +131,26 @@ public class EpicsChannelReaderService implements AutoCloseable
     * @return the metadata.
     */
    public WicaChannelMetadata readChannelMetadata( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit )
+   {
+      return readChannelMetadataAsync( epicsChannelName, timeout, timeUnit ).join();
+   }
+
+   /**
+    * Initiates the reading of the metadata associated with a channel and
+    * returns a future which completes once the metadata has been obtained.
+    * <p>
+    * The returned future never completes exceptionally. If the metadata
+    * could not be obtained within the specified timeout it completes with
+    * WicaChannelMetadataUnknown.
+    *
+    * @param epicsChannelName the name of the channel.
+    * @param timeout the timeout to be applied when attempting to get the channel
+    *     metadata from the underlying data source.
+    * @param timeUnit the time units to be used.
+    *
+    * @return the future.
+    */
+   public CompletableFuture<WicaChannelMetadata> readChannelMetadataAsync( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit )
    {
       Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
       Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
@@ -101,27 +159,30 @@ public class EpicsChannelReaderService implements AutoCloseable
 
       final String channelName = epicsChannelName.asString();
       logger.info( "'{}' - Reading channel metadata...", channelName );
-      try( final Channel<Object> caChannel = this.caContext.createChannel( epicsChannelName.asString(), Object.class ) )
-      {
-         caChannel.connectAsync().get( timeout, timeUnit);
 
-         logger.info( "'{}' - Getting channel metadata...", channelName );
-         final var result = epicsChannelMetadataGetter.get( caChannel );
-         logger.info( "'{}' - OK: channel metadata obtained.", channelName );
-         return result;
-      }
-      catch ( Throwable th )
-      {
-         logger.info( "'{}' - ERROR: Exception whilst getting channel metadata. Details: '{}'.", channelName, th.getMessage() );
-         return WicaChannelMetadataBuilder.createUnknownInstance();
-      }
+      // Note: the metadata getter blocks whilst the remote data source is
+      // queried, so it is run on a dedicated executor.
+      final CompletableFuture<WicaChannelMetadata> future = readChannelAsync( epicsChannelName, timeout, timeUnit, caChannel ->
+            CompletableFuture.supplyAsync( () -> epicsChannelMetadataGetter.get( caChannel ), metadataGetterExecutor ) );
+
+      return future.orTimeout( timeout, timeUnit )
+         .handle( ( metadata, th ) -> {
+            if ( th != null )
+            {
+               logger.info( "'{}' - ERROR: Exception whilst getting channel metadata. Details: '{}'.", channelName, th.getMessage() );
+               return WicaChannelMetadataBuilder.createUnknownInstance();
+            }
+            logger.info( "'{}' - OK: channel metadata obtained.", channelName );
+            return metadata;
+         } );
    }
 
    /**
     * Returns the value of a channel.
     * <p>
-    * This method incurs the network cost of establishing a channel to the remote
-    * data source and performing a synchronous GET operation.
+    * This method incurs the network cost of performing a synchronous GET
+    * operation and, where no suitable channel is already available, of
+    * establishing a channel to the remote data source.
     *
     * @param epicsChannelName the name of the channel.
     *
@@ -134,30 +195,57 @@ public class EpicsChannelReaderService implements AutoCloseable
     * @return the value.
     */
    public WicaChannelValue readChannelValue( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit )
+   {
+      return readChannelValueAsync( epicsChannelName, timeout, timeUnit ).join();
+   }
+
+   /**
+    * Initiates the reading of the value of a channel and returns a future
+    * which completes once the value has been obtained.
+    * <p>
+    * This method does not block, so many channels may be read concurrently
+    * from the same thread. The returned future never completes exceptionally.
+    * If the value could not be obtained within the specified timeout it
+    * completes with WicaChannelValueDisconnected.
+    *
+    * @param epicsChannelName the name of the channel.
+    * @param timeout the timeout to be applied when attempting to get the channel
+    *     value from the underlying data source.
+    * @param timeUnit the time units to be used.
+    *
+    * @return the future.
+    */
+   public CompletableFuture<WicaChannelValue> readChannelValueAsync( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit )
    {
       Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
       Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
       Validate.isTrue( timeout > 0 );
       Validate.validState( ! closed, "The service was previously closed and can no longer be used." );
 
-      // Create a new autocloseable channel.
       final String channelName = epicsChannelName.asString();
       logger.info( "'{}' - Reading channel value...", channelName );
-      try( final Channel<Object> caChannel = this.caContext.createChannel( epicsChannelName.asString(), Object.class ) )
-      {
-         // TimeoutException -->
-         caChannel.connectAsync().get( timeout, timeUnit );
 
-         logger.info( "'{}' - Getting channel value...", channelName );
-         final var result = epicsChannelValueGetter.get( caChannel, timeout, timeUnit );
-         logger.info( "'{}' - OK: channel value obtained.", channelName );
-         return result;
-      }
-      catch ( Throwable th )
-      {
-         logger.info( "'{}' - ERROR: Exception whilst getting channel value. Details: '{}'.", channelName, th.getMessage() );
-         return WicaChannelValueBuilder.createChannelValueDisconnected();
-      }
+      final CompletableFuture<WicaChannelValue> future = readChannelAsync( epicsChannelName, timeout, timeUnit, epicsChannelValueGetter::getAsync );
+      return future.orTimeout( timeout, timeUnit )
+         .handle( ( value, th ) -> {
+            if ( th != null )
+            {
+               logger.info( "'{}' - ERROR: Exception whilst getting channel value. Details: '{}'.", channelName, th.getMessage() );
+               return WicaChannelValueBuilder.createChannelValueDisconnected();
+            }
+            logger.info( "'{}' - OK: channel value obtained.", channelName );
+            return value;
+         } );
+   }
+
+   /**
+    * This method runs periodically to close the cached channels which are
+    * no longer being used.
+    */
+   @Scheduled( fixedRate=IDLE_CHANNEL_SCAN_INTERVAL )
+   public void closeIdleChannels()
+   {
+      channelCache.evictIdleChannels();
    }
 
    /**
@@ -173,11 +261,52 @@ public class EpicsChannelReaderService implements AutoCloseable
       logger.debug( "'{}' - disposing resources...", this );
 
       // Note: closing the context disposes of any open channels.
+      metadataGetterExecutor.shutdownNow();
+      channelCache.close();
       caContext.close();
       logger.debug( "'{}' - resources disposed ok.", this );
    }
 
 /*- Private methods ----------------------------------------------------------*/
+
+   /**
+    * Applies the supplied asynchronous operation to a connected channel. A
+    * shared channel is used where available. Otherwise, a channel is leased
+    * from the cache and returned to it once the operation has completed.
+    * The operation is subject to the per-IOC limit on reads in progress.
+    */
+   private <T> CompletableFuture<T> readChannelAsync( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit, Function<Channel<Object>,CompletableFuture<T>> unlimitedOperation )
+   {
+      final long deadlineNanos = System.nanoTime() + timeUnit.toNanos( timeout );
+      final Function<Channel<Object>,CompletableFuture<T>> operation = caChannel -> epicsChannelIoLimiter.submit( caChannel, deadlineNanos, () -> unlimitedOperation.apply( caChannel ) );
+      try
+      {
+         final Optional<Channel<Object>> sharedChannel = getSharedChannel( epicsChannelName );
+         if ( sharedChannel.isPresent() )
+         {
+            logger.info( "'{}' - Using shared channel...", epicsChannelName );
+            return operation.apply( sharedChannel.get() );
+         }
+
+         final EpicsChannelConnectionCache.Lease<Object> lease = channelCache.acquire( epicsChannelName );
+         final CompletableFuture<T> future = lease.getConnectFuture().thenCompose( operation );
+         future.whenComplete( ( result, th ) -> lease.close() );
+         return future;
+      }
+      catch ( RuntimeException ex )
+      {
+         return CompletableFuture.failedFuture( ex );
+      }
+   }
+
+   private Optional<Channel<Object>> getSharedChannel( EpicsChannelName epicsChannelName )
+   {
+      return sharedChannelManagers.stream()
+            .map( manager -> manager.getConnectedChannel( epicsChannelName ) )
+            .flatMap( Optional::stream )
+            .findFirst();
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 
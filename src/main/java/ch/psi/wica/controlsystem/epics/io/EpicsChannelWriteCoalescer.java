@@ -0,0 +1,174 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Coalesces the writes to each channel so that at most one write per
+ * channel is in progress at any time.
+ * <p>
+ * A write which is requested whilst another write to the same channel is in
+ * progress is queued. Only the most recently requested value is retained in
+ * the queue: when a newer value arrives the previously queued request is
+ * completed immediately with the outcome SUPERSEDED. Once the write in
+ * progress has finished the queued value, if any, is written.
+ * <p>
+ * This bounds the write load presented to the data source when values are
+ * requested faster than they can be written, and ensures that the most
+ * recent value is written as soon as possible.
+ */
+@ThreadSafe
+public class EpicsChannelWriteCoalescer
+{
+
+/*- Public attributes --------------------------------------------------------*/
+
+   /**
+    * The outcome of a write request which completed normally.
+    */
+   public enum Outcome
+   {
+      /** The value was written. */
+      WRITTEN,
+      /** The value was not written because a newer value was requested first. */
+      SUPERSEDED
+   }
+
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( EpicsChannelWriteCoalescer.class );
+
+   // Note: a channel is present in this map only whilst a write to it is in progress.
+   private final Map<EpicsChannelName,ChannelState> channelStateMap;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    */
+   public EpicsChannelWriteCoalescer()
+   {
+      this.channelStateMap = new ConcurrentHashMap<>();
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Requests that a write be performed on the specified channel.
+    *
+    * @param epicsChannelName the channel name.
+    * @param writeOperation the operation which will initiate the write and
+    *     return a future which completes when the write has finished. The
+    *     operation is not invoked if the request is superseded.
+    * @return a future which completes with the outcome of the request, or
+    *     exceptionally if the write failed.
+    */
+   public CompletableFuture<Outcome> write( EpicsChannelName epicsChannelName, Supplier<CompletableFuture<Void>> writeOperation )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( writeOperation, "The 'writeOperation' argument is null." );
+
+      final WriteRequest request = new WriteRequest( writeOperation, new CompletableFuture<>() );
+      final AtomicReference<WriteRequest> supersededRequest = new AtomicReference<>();
+      final ChannelState newState = new ChannelState();
+      final ChannelState state = channelStateMap.compute( epicsChannelName, ( k, v ) -> {
+         if ( v == null )
+         {
+            return newState;
+         }
+         supersededRequest.set( v.queuedRequest );
+         v.queuedRequest = request;
+         return v;
+      } );
+
+      // Note: the futures are completed, and new writes started, outside of
+      // the map's remapping functions since they may run arbitrary code.
+      if ( supersededRequest.get() != null )
+      {
+         logger.debug( "'{}' - queued write was superseded.", epicsChannelName );
+         supersededRequest.get().future.complete( Outcome.SUPERSEDED );
+      }
+      if ( state == newState )
+      {
+         startWrite( epicsChannelName, request );
+      }
+      return request.future;
+   }
+
+   /**
+    * Returns the number of channels to which a write is currently in progress.
+    *
+    * @return the result.
+    */
+   public int getChannelsWithWritesInProgress()
+   {
+      return channelStateMap.size();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private void startWrite( EpicsChannelName epicsChannelName, WriteRequest request )
+   {
+      CompletableFuture<Void> writeFuture;
+      try
+      {
+         writeFuture = request.writeOperation.get();
+      }
+      catch ( RuntimeException ex )
+      {
+         writeFuture = CompletableFuture.failedFuture( ex );
+      }
+
+      writeFuture.whenComplete( ( result, ex ) -> {
+         if ( ex == null )
+         {
+            request.future.complete( Outcome.WRITTEN );
+         }
+         else
+         {
+            request.future.completeExceptionally( ex );
+         }
+
+         // Start the queued write, if any. Otherwise, the channel is now idle.
+         final AtomicReference<WriteRequest> nextRequest = new AtomicReference<>();
+         channelStateMap.computeIfPresent( epicsChannelName, ( k, v ) -> {
+            nextRequest.set( v.queuedRequest );
+            v.queuedRequest = null;
+            return nextRequest.get() == null ? null : v;
+         } );
+         if ( nextRequest.get() != null )
+         {
+            startWrite( epicsChannelName, nextRequest.get() );
+         }
+      } );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private record WriteRequest( Supplier<CompletableFuture<Void>> writeOperation, CompletableFuture<Outcome> future ) {}
+
+   // Note: the queued request is only accessed from within the remapping
+   // functions of the ConcurrentHashMap, which serialises access to each key.
+   private static class ChannelState
+   {
+      private WriteRequest queuedRequest;
+   }
+
+}
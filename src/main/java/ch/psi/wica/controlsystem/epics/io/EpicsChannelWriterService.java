@@ -11,20 +11,35 @@ import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.epics.ca.Channel;
 import org.epics.ca.Context;
+import org.epics.ca.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
- * A service which offers the possibility to write to a String value to an
- * EPICS channel.
+ * A service which offers the possibility to write String, numeric or array
+ * values to EPICS channels.
  *
  * @implNote.
  * The current implementation uses PSI's CA EPICS client library to obtain a
  * single shared EPICS CA Context per class instance. The EPICS CA context and
  * all associated resources are disposed of when the service instance is closed.
+ * <p>
+ * The channels created by this service are retained in a cache for reuse by
+ * subsequent requests. Each supported value type has its own cache so that
+ * values are transferred to the IOC in their native representation rather
+ * than as strings which the IOC must then parse. Each cache is bounded by
+ * the configured maximum size, so the service as a whole may retain up to
+ * six times that number of channels, and a channel which is written with
+ * values of different types is held open once for each type.
  */
 @Service
 @ThreadSafe
@@ -34,8 +49,14 @@ public class EpicsChannelWriterService implements AutoCloseable
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
+   private static final int IDLE_CHANNEL_SCAN_INTERVAL = 1000;
+   private static final List<Class<?>> SUPPORTED_VALUE_TYPES = List.of( String.class, Integer.class, Double.class, String[].class, int[].class, double[].class );
+
    private final Logger logger = LoggerFactory.getLogger( EpicsChannelWriterService.class );
    private final Context caContext;
+   private final Map<Class<?>,EpicsChannelConnectionCache<?>> channelCacheMap;
+   private final EpicsChannelWriteCoalescer writeCoalescer;
+   private final EpicsChannelIoLimiter epicsChannelIoLimiter;
    private boolean closed = false;
 
 /*- Main ---------------------------------------------------------------------*/
@@ -45,13 +66,25 @@ public class EpicsChannelWriterService implements AutoCloseable
     * Returns a new instance.
     *
     * @param epicsChannelAccessContextSupplier an object which can be used to obtain a Channel-Access context.
+    * @param channelIoCacheMaxSize the maximum number of channels to retain for reuse
+    *     for each supported value type.
+    * @param channelIoCacheMaxIdleTimeInSecs the period after which a retained channel will be closed if not used.
+    * @param epicsChannelIoLimiter the object which limits the number of writes in progress against each IOC.
     */
-   public EpicsChannelWriterService( @Autowired EpicsChannelAccessContextSupplier epicsChannelAccessContextSupplier)
+   public EpicsChannelWriterService( @Autowired EpicsChannelAccessContextSupplier epicsChannelAccessContextSupplier,
+                                     @Value( "${wica.channel-io-cache-max-size}" ) int channelIoCacheMaxSize,
+                                     @Value( "${wica.channel-io-cache-max-idle-time-in-secs}" ) int channelIoCacheMaxIdleTimeInSecs,
+                                     @Autowired EpicsChannelIoLimiter epicsChannelIoLimiter )
    {
       logger.debug( "'{}' - constructing new EpicsChannelWriterService instance...", this );
 
       logger.info( "Getting CA context for EpicsChannelWriterService..." );
       this.caContext = epicsChannelAccessContextSupplier.getContextForScope( "io" );
+      this.channelCacheMap = SUPPORTED_VALUE_TYPES.stream().collect( Collectors.toUnmodifiableMap( type -> type, type ->
+            new EpicsChannelConnectionCache<>( caContext, type, channelIoCacheMaxSize, channelIoCacheMaxIdleTimeInSecs, TimeUnit.SECONDS ) ) );
+
+      this.writeCoalescer = new EpicsChannelWriteCoalescer();
+      this.epicsChannelIoLimiter = Validate.notNull( epicsChannelIoLimiter, "The 'epicsChannelIoLimiter' argument is null." );
 
       logger.debug( "'{}' - service instance constructed ok.", this );
    }
@@ -62,8 +95,9 @@ public class EpicsChannelWriterService implements AutoCloseable
    /**
     * Sets the value of a channel.
     *
-    * This method incurs the network cost of establishing a channel to the remote
-    * data source and performing a synchronous (= confirmed) PUT operation.
+    * This method incurs the network cost of performing a synchronous (= confirmed)
+    * PUT operation and, where the channel is not already cached, of establishing
+    * a channel to the remote data source.
     *
     * @param epicsChannelName the channel name.
     * @param channelValue the channel value.
@@ -82,29 +116,132 @@ public class EpicsChannelWriterService implements AutoCloseable
       Validate.isTrue( timeout > 0 );
       Validate.validState( ! closed, "The service was previously closed and can no longer be used." );
 
-      // Create a new autocloseable channel.
-      final String channelName = epicsChannelName.asString();
-      logger.info( "'{}' - Setting channel value to '{}' ...", channelName, channelValue );
-      logger.info( "'{}' - Creating channel...", channelName );
-      try( Channel<String> caChannel = caContext.createChannel( channelName, String.class ) )
+      try
       {
-         logger.info( "'{}' - OK: channel created.", channelName );
+         writeValueAsync( epicsChannelName, channelValue, true, timeout, timeUnit ).join();
+         return true;
+      }
+      catch ( RuntimeException ex )
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Initiates the setting of the value of a channel and returns a future
+    * which completes when the operation has finished.
+    * <p>
+    * This method does not block, so that writes to many channels may be
+    * pipelined from a single thread.
+    * <p>
+    * When completion is awaited the value is written using the Channel
+    * Access put-with-callback mechanism, and the future completes only
+    * once the IOC has confirmed that all processing resulting from the
+    * write has finished. Otherwise, the future completes as soon as the
+    * value has been sent.
+    *
+    * @param epicsChannelName the channel name.
+    * @param channelValue the channel value, which must be one of the types
+    *     String, Integer, Double, String[], int[] or double[].
+    * @param awaitCompletion whether to wait for the IOC to confirm completion.
+    * @param timeout the timeout to be applied when attempting to put the
+    *     channel value to the underlying data source.
+    * @param timeUnit the time units to be used.
+    * @return a future which completes exceptionally if the value could not
+    *     be written within the specified timeout.
+    * @throws NullPointerException if any of the reference object arguments were null.
+    * @throws IllegalArgumentException if the value was of an unsupported type.
+    */
+   public CompletableFuture<Void> writeValueAsync( EpicsChannelName epicsChannelName, Object channelValue, boolean awaitCompletion, long timeout, TimeUnit timeUnit )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( channelValue, "The 'channelValue' argument is null." );
+      Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
+      Validate.isTrue( timeout > 0 );
+      Validate.isTrue( SUPPORTED_VALUE_TYPES.contains( channelValue.getClass() ), "The 'channelValue' argument was of an unsupported type." );
+      Validate.validState( ! closed, "The service was previously closed and can no longer be used." );
 
-         logger.info( "'{}' - Connecting channel with timeout {} {}...", channelName, timeout, timeUnit );
-         caChannel.connectAsync().get( timeout, timeUnit );
-         logger.info( "'{}' - OK: channel connected.", channelName );
+      final String channelName = epicsChannelName.asString();
+      logger.info( "'{}' - Setting channel value (awaitCompletion = {})...", channelName, awaitCompletion );
 
-         logger.info( "'{}' - Putting to channel with timeout {} {}...", channelName, timeout, timeUnit );
-         caChannel.putAsync( channelValue ).get( timeout, timeUnit );
-         logger.info( "'{}' - OK: Channel PUT completed.", channelName );
+      // Obtain a cached channel, which will be returned to the cache when the put has completed.
+      // The put itself is subject to the per-IOC limit on writes in progress.
+      final long deadlineNanos = System.nanoTime() + timeUnit.toNanos( timeout );
+      CompletableFuture<Void> future;
+      try
+      {
+         final EpicsChannelConnectionCache.Lease<Object> lease = getChannelCache( channelValue.getClass() ).acquire( epicsChannelName );
+         future = lease.getConnectFuture().thenCompose( caChannel -> epicsChannelIoLimiter.submit( caChannel, deadlineNanos, () -> {
+            if ( awaitCompletion )
+            {
+               return caChannel.putAsync( channelValue ).thenAccept( status -> checkStatus( channelName, status ) );
+            }
+            caChannel.putNoWait( channelValue );
+            return CompletableFuture.completedFuture( null );
+         } ) );
+         future.whenComplete( ( result, ex ) -> lease.close() );
       }
-      catch ( Throwable ex )
+      catch ( RuntimeException ex )
       {
-         logger.info( "'{}' - ERROR: Exception whilst putting channel value. Details: '{}'", channelName, ex.getMessage() );
-         return false;
+         future = CompletableFuture.failedFuture( ex );
       }
 
-      return true;
+      return future.orTimeout( timeout, timeUnit )
+         .whenComplete( ( result, ex ) -> {
+            if ( ex != null )
+            {
+               logger.info( "'{}' - ERROR: Exception whilst putting channel value. Details: '{}'", channelName, ex.toString() );
+            }
+            else
+            {
+               logger.info( "'{}' - OK: Channel PUT completed.", channelName );
+            }
+         } );
+   }
+
+   /**
+    * Initiates the setting of the value of a channel, coalescing the write
+    * with any other writes to the same channel which were initiated using
+    * this method.
+    * <p>
+    * At most one such write per channel is in progress at any time. Writes
+    * requested in the meantime are queued, and a queued write is discarded
+    * if a newer value is requested before it has started. Each write awaits
+    * completion as described for {@link #writeValueAsync}.
+    *
+    * @param epicsChannelName the channel name.
+    * @param channelValue the channel value, which must be one of the types
+    *     String, Integer, Double, String[], int[] or double[].
+    * @param timeout the timeout to be applied when attempting to put the
+    *     channel value to the underlying data source, measured from when
+    *     the write starts.
+    * @param timeUnit the time units to be used.
+    * @return a future which completes with the outcome WRITTEN when the
+    *     value has been written, or SUPERSEDED when it was discarded in
+    *     favour of a newer value. It completes exceptionally if the value
+    *     could not be written.
+    * @throws NullPointerException if any of the reference object arguments were null.
+    * @throws IllegalArgumentException if the value was of an unsupported type.
+    */
+   public CompletableFuture<EpicsChannelWriteCoalescer.Outcome> writeValueCoalesced( EpicsChannelName epicsChannelName, Object channelValue, long timeout, TimeUnit timeUnit )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( channelValue, "The 'channelValue' argument is null." );
+      Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
+      Validate.isTrue( timeout > 0 );
+      Validate.isTrue( SUPPORTED_VALUE_TYPES.contains( channelValue.getClass() ), "The 'channelValue' argument was of an unsupported type." );
+
+      return writeCoalescer.write( epicsChannelName, () -> writeValueAsync( epicsChannelName, channelValue, true, timeout, timeUnit ) );
+   }
+
+   /**
+    * This method runs periodically to close the cached channels which are
+    * no longer being used.
+    */
+   @Scheduled( fixedRate=IDLE_CHANNEL_SCAN_INTERVAL )
+   public void closeIdleChannels()
+   {
+      channelCacheMap.values().forEach( EpicsChannelConnectionCache::evictIdleChannels );
    }
 
    /**
@@ -120,12 +257,30 @@ public class EpicsChannelWriterService implements AutoCloseable
       logger.debug( "'{}' - disposing resources...", this );
 
       // Note: closing the context disposes of any open channels.
+      channelCacheMap.values().forEach( EpicsChannelConnectionCache::close );
       caContext.close();
       logger.debug( "'{}' - resources disposed ok.", this );
    }
 
 
 /*- Private methods ----------------------------------------------------------*/
+
+   // Note: the caches are keyed by the type of the channels they contain, so
+   // the channel type always matches the type of the value being written.
+   @SuppressWarnings( "unchecked" )
+   private EpicsChannelConnectionCache<Object> getChannelCache( Class<?> valueType )
+   {
+      return (EpicsChannelConnectionCache<Object>) channelCacheMap.get( valueType );
+   }
+
+   private static void checkStatus( String channelName, Status status )
+   {
+      if ( ! status.isSuccessful() )
+      {
+         throw new IllegalStateException( "The put to channel '" + channelName + "' completed with status '" + status + "'." );
+      }
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
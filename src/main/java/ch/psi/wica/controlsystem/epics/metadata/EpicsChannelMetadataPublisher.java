@@ -5,6 +5,8 @@ package ch.psi.wica.controlsystem.epics.metadata;
 /*- Imported packages --------------------------------------------------------*/
 
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelSubscriberIndex;
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelEventPublisher;
 import ch.psi.wica.controlsystem.event.channel.EpicsChannelConnectedEvent;
 import ch.psi.wica.model.app.StatisticsCollectionService;
@@ -15,7 +17,6 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -40,6 +41,7 @@ public class EpicsChannelMetadataPublisher
    private final EpicsChannelMetadataGetter epicsChannelMetadataGetter;
    private final WicaChannelEventPublisher wicaChannelEventPublisher;
    private final List<EpicsChannelMetadataRequest> requestList;
+   private final EpicsChannelSubscriberIndex<EpicsChannelMetadataRequest> requestIndex;
    private final EpicsChannelMetadataStatistics statisticsCollector;
 
    private final Map<EpicsChannelName, WicaChannelMetadata> lastMetadataMap;
@@ -49,18 +51,23 @@ public class EpicsChannelMetadataPublisher
 
    EpicsChannelMetadataPublisher( @Autowired EpicsChannelMetadataGetter epicsChannelMetadataGetter,
                                   @Autowired WicaChannelEventPublisher wicaChannelEventPublisher,
-                                  @Autowired StatisticsCollectionService statisticsCollectionService )
+                                  @Autowired StatisticsCollectionService statisticsCollectionService,
+                                  @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       logger.debug( "'{}' - constructing new EpicsChannelMetadataPublisher instance...", this );
 
       this.epicsChannelMetadataGetter = Validate.notNull( epicsChannelMetadataGetter, "The 'epicsChannelMetadataGetter' argument is null." );
       this.wicaChannelEventPublisher = Validate.notNull( wicaChannelEventPublisher, "The 'wicaChannelEventPublisher' argument is null." );
       this.requestList = Collections.synchronizedList( new ArrayList<>() );
+      this.requestIndex = new EpicsChannelSubscriberIndex<>();
       this.statisticsCollector = new EpicsChannelMetadataStatistics( requestList );
       statisticsCollectionService.addCollectable( statisticsCollector );
 
       this.lastMetadataMap = new ConcurrentHashMap<>();
 
+      // Metadata is obtained whenever a channel connects, irrespective of its scope.
+      controlSystemEventBus.subscribe( EpicsChannelConnectedEvent.class, this::handleEpicsChannelConnectedEvent );
+
       logger.debug( "'{}' - service instance constructed ok.", this );
    }
 
@@ -75,18 +82,20 @@ public class EpicsChannelMetadataPublisher
 
    public boolean isRequestObjectRecognised( EpicsChannelMetadataRequest requestObject )
    {
-      return this.requestList.contains( requestObject );
+      Validate.notNull( requestObject, "The 'requestObject' argument is null." );
+      return this.requestIndex.contains( requestObject.getEpicsChannelName(), requestObject );
    }
 
    public void addChannel( EpicsChannelMetadataRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
-      Validate.validState( ! requestList.contains( requestObject ) );
+      Validate.validState( ! isRequestObjectRecognised( requestObject ) );
 
       logger.info( "'{}' - adding metadata publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStartRequests();
       requestList.add( requestObject );
+      requestIndex.add( requestObject.getEpicsChannelName(), requestObject );
 
       // When a new metadata request is made the publication channel always receives
       // the previously received metadata value (if any).
@@ -99,11 +108,12 @@ public class EpicsChannelMetadataPublisher
    public void removeChannel( EpicsChannelMetadataRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
-      Validate.validState( requestList.contains( requestObject ) );
+      Validate.validState( isRequestObjectRecognised( requestObject ) );
 
       logger.info( "'{}' - removing metadata publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStopRequests();
+      requestIndex.remove( requestObject.getEpicsChannelName(), requestObject );
       requestList.remove( requestObject );
    }
 
@@ -123,8 +133,6 @@ public class EpicsChannelMetadataPublisher
    //    IOC will be intact.
    // c) the IOC hosting the channel has just come online following a reboot.
 
-//   @EventListener(condition = "#event.scope == 'monitored' || #event.scope == 'polled'" )
-   @EventListener
    public void handleEpicsChannelConnectedEvent( EpicsChannelConnectedEvent event )
    {
       final var epicsChannelName = event.getEpicsChannelName();
@@ -146,12 +154,13 @@ public class EpicsChannelMetadataPublisher
 
    private void publishMetadataUpdate( EpicsChannelName epicsChannelName, WicaChannelMetadata wicaChannelMetadata )
    {
-      // Look for any items in the metadata request list that match the name of the channel
-      // whose metadata has just been updated. Publish a notification to the wica channel(s)
-      // that are interested in it.
-      requestList.stream()
-                 .filter( x -> x.getEpicsChannelName().equals( epicsChannelName ) )
-                 .forEach( req -> wicaChannelEventPublisher.publishMetadataUpdated( req.getPublicationChannel(), wicaChannelMetadata ) );
+      // Look up the metadata requests that are associated with the channel whose metadata
+      // has just been updated. Publish a notification to the wica channel(s) that are
+      // interested in it.
+      for ( EpicsChannelMetadataRequest req : requestIndex.get( epicsChannelName ) )
+      {
+         wicaChannelEventPublisher.publishMetadataUpdated( req.getPublicationChannel(), wicaChannelMetadata );
+      }
    }
 
 /*- Nested Classes -----------------------------------------------------------*/
@@ -5,6 +5,8 @@ package ch.psi.wica.controlsystem.epics.monitor;
 /*- Imported packages --------------------------------------------------------*/
 
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelSubscriberIndex;
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.channel.EpicsChannelDisconnectedEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelEventPublisher;
 import ch.psi.wica.controlsystem.event.channel.EpicsChannelConnectedEvent;
@@ -16,7 +18,6 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -44,6 +45,7 @@ public class EpicsChannelMonitorPublisher
    private final EpicsChannelMonitorSubscriber epicsChannelMonitorSubscriber;
    private final WicaChannelEventPublisher wicaChannelEventPublisher;
    private final List<EpicsChannelMonitorRequest> requestList;
+   private final EpicsChannelSubscriberIndex<EpicsChannelMonitorRequest> requestIndex;
    private final EpicsChannelMonitorStatistics statisticsCollector;
    private final Map<EpicsChannelName,WicaChannelValue> lastValueMap;
 
@@ -56,21 +58,27 @@ public class EpicsChannelMonitorPublisher
     * @param epicsChannelMonitorSubscriber class which will inform of monitor changes.
     * @param wicaChannelEventPublisher class which will publish monitor changes.
     * @param statisticsCollectionService class which will collect statistics.
+    * @param controlSystemEventBus the bus which will deliver channel connection events.
     */
    EpicsChannelMonitorPublisher( @Autowired EpicsChannelMonitorSubscriber epicsChannelMonitorSubscriber,
                                  @Autowired WicaChannelEventPublisher wicaChannelEventPublisher,
-                                 @Autowired StatisticsCollectionService statisticsCollectionService )
+                                 @Autowired StatisticsCollectionService statisticsCollectionService,
+                                 @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       logger.debug( "'{}' - constructing new EpicsChannelMonitorPublisher instance...", this );
 
       this.epicsChannelMonitorSubscriber = Validate.notNull( epicsChannelMonitorSubscriber, "The 'epicsChannelMonitorSubscriber' argument was null." );
       this.wicaChannelEventPublisher = Validate.notNull( wicaChannelEventPublisher, "The 'wicaChannelEventPublisher' argument was null." );
       this.requestList = Collections.synchronizedList( new ArrayList<>() );
+      this.requestIndex = new EpicsChannelSubscriberIndex<>();
       this.statisticsCollector = new EpicsChannelMonitorStatistics( requestList );
       statisticsCollectionService.addCollectable( statisticsCollector );
 
       this.lastValueMap = new ConcurrentHashMap<>();
 
+      controlSystemEventBus.subscribe( EpicsChannelConnectedEvent.class, "monitored", this::handleChannelConnectedEvent );
+      controlSystemEventBus.subscribe( EpicsChannelDisconnectedEvent.class, "monitored", this::handleChannelDisconnectedEvent );
+
       logger.debug( "'{}' - service instance constructed ok.", this );
    }
 
@@ -97,7 +105,7 @@ public class EpicsChannelMonitorPublisher
    public boolean isRequestObjectRecognised( EpicsChannelMonitorRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
-      return this.requestList.contains( requestObject );
+      return this.requestIndex.contains( requestObject.getEpicsChannelName(), requestObject );
    }
 
    /**
@@ -108,12 +116,13 @@ public class EpicsChannelMonitorPublisher
    public void addChannel( EpicsChannelMonitorRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
-      Validate.validState( ! requestList.contains( requestObject ) );
+      Validate.validState( ! isRequestObjectRecognised( requestObject ) );
 
       logger.info( "'{}' - adding monitor publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStartRequests();
       requestList.add( requestObject );
+      requestIndex.add( requestObject.getEpicsChannelName(), requestObject );
 
       // When a new monitor request is made the publication channel always receives
       // the previously received monitor value (if any)
@@ -131,11 +140,12 @@ public class EpicsChannelMonitorPublisher
    public void removeChannel( EpicsChannelMonitorRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
-      Validate.validState( requestList.contains( requestObject ) );
+      Validate.validState( isRequestObjectRecognised( requestObject ) );
 
       logger.info( "'{}' - removing monitor publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStopRequests();
+      requestIndex.remove( requestObject.getEpicsChannelName(), requestObject );
       requestList.remove( requestObject );
    }
 
@@ -152,7 +162,6 @@ public class EpicsChannelMonitorPublisher
     * Handles the response to an EPICS channel monitor becoming connected.
     * @param event the event.
     */
-   @EventListener(condition = "#event.scope == 'monitored'" )
    public void handleChannelConnectedEvent( EpicsChannelConnectedEvent event )
    {
       // The processing below will be scheduled every time a channel comes online.
@@ -189,7 +198,6 @@ public class EpicsChannelMonitorPublisher
     * Handles the response to an EPICS channel monitor becoming disconnected.
     * @param event the event.
     */
-   @EventListener( condition = "#event.scope == 'monitored'" )
    public void handleChannelDisconnectedEvent( EpicsChannelDisconnectedEvent event )
    {
       //noinspection resource
@@ -201,9 +209,10 @@ public class EpicsChannelMonitorPublisher
       logger.info( "'{}' - publishing channel disconnect event to all monitor listeners...", epicsChannelName );
 
       final WicaChannelValue disconnectedValue = WicaChannelValueBuilder.createChannelValueDisconnected();
-      requestList.stream()
-         .filter( req -> req.getEpicsChannelName().equals( epicsChannelName ) )
-         .forEach( req -> wicaChannelEventPublisher.publishMonitoredValueUpdated( req.getPublicationChannel(), disconnectedValue ) );
+      for ( EpicsChannelMonitorRequest req : requestIndex.get( epicsChannelName ) )
+      {
+         wicaChannelEventPublisher.publishMonitoredValueUpdated( req.getPublicationChannel(), disconnectedValue );
+      }
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -212,13 +221,14 @@ public class EpicsChannelMonitorPublisher
    {
       this.statisticsCollector.incrementMonitorUpdateCount();
 
-      // Look for any items in the monitor request list that match the name of the channel
-      // whose value has just been updated. Publish a notification to the wica channel(s)
-      // that are interested in it.
-      requestList.stream()
-         .filter( x -> x.getEpicsChannelName().equals( epicsChannelName ) )
-         .forEach( req -> wicaChannelEventPublisher.publishMonitoredValueUpdated( req.getPublicationChannel(), wicaChannelValue ) );
-}
+      // Look up the monitor requests that are associated with the channel whose value
+      // has just been updated. Publish a notification to the wica channel(s) that are
+      // interested in it.
+      for ( EpicsChannelMonitorRequest req : requestIndex.get( epicsChannelName ) )
+      {
+         wicaChannelEventPublisher.publishMonitoredValueUpdated( req.getPublicationChannel(), wicaChannelValue );
+      }
+   }
 
 /*- Nested Classes -----------------------------------------------------------*/
 
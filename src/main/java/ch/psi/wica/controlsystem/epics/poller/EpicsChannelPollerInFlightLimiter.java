@@ -0,0 +1,105 @@
+/*- Package Declaration ------------------------------------------------------*/
+
+package ch.psi.wica.controlsystem.epics.poller;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Limits the number of channel access get operations which the pollers may
+ * have outstanding at any one time, both in total and against any single IOC.
+ * <p>
+ * Permits are never waited for: a poller which cannot obtain a permit skips
+ * its polling cycle. This ensures that a handful of unresponsive IOCs cannot
+ * consume the capacity needed to poll the remaining channels.
+ */
+@ThreadSafe
+public class EpicsChannelPollerInFlightLimiter
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final int maxInFlightGetsPerIoc;
+   private final Semaphore globalPermits;
+   private final Map<String,Semaphore> iocPermitsMap;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    *
+    * @param maxInFlightGets the maximum number of get operations that may be
+    *     outstanding in total.
+    * @param maxInFlightGetsPerIoc the maximum number of get operations that
+    *     may be outstanding against any single IOC.
+    *
+    * @throws IllegalArgumentException if either of the limits was not positive.
+    */
+   public EpicsChannelPollerInFlightLimiter( int maxInFlightGets, int maxInFlightGetsPerIoc )
+   {
+      Validate.isTrue( maxInFlightGets > 0, "The 'maxInFlightGets' argument was not positive." );
+      Validate.isTrue( maxInFlightGetsPerIoc > 0, "The 'maxInFlightGetsPerIoc' argument was not positive." );
+
+      this.maxInFlightGetsPerIoc = maxInFlightGetsPerIoc;
+      this.globalPermits = new Semaphore( maxInFlightGets );
+      this.iocPermitsMap = new ConcurrentHashMap<>();
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Attempts to obtain permission to issue a get operation against the
+    * specified IOC.
+    *
+    * @param iocAddress the address of the IOC hosting the channel.
+    * @return true if permission was granted, in which case the caller must
+    *     subsequently call release; otherwise false.
+    */
+   public boolean tryAcquire( String iocAddress )
+   {
+      Validate.notNull( iocAddress, "The 'iocAddress' argument is null." );
+
+      final Semaphore iocPermits = iocPermitsMap.computeIfAbsent( iocAddress, k -> new Semaphore( maxInFlightGetsPerIoc ) );
+      if ( ! iocPermits.tryAcquire() )
+      {
+         return false;
+      }
+      if ( ! globalPermits.tryAcquire() )
+      {
+         iocPermits.release();
+         return false;
+      }
+      return true;
+   }
+
+   /**
+    * Releases the permission previously obtained to issue a get operation
+    * against the specified IOC.
+    *
+    * @param iocAddress the address of the IOC hosting the channel.
+    */
+   public void release( String iocAddress )
+   {
+      Validate.notNull( iocAddress, "The 'iocAddress' argument is null." );
+      Validate.validState( iocPermitsMap.containsKey( iocAddress ), "The IOC address was not recognised." );
+
+      globalPermits.release();
+      iocPermitsMap.get( iocAddress ).release();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
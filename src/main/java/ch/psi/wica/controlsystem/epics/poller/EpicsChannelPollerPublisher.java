@@ -5,7 +5,9 @@ package ch.psi.wica.controlsystem.epics.poller;
 /*- Imported packages --------------------------------------------------------*/
 
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelSubscriberIndex;
 import ch.psi.wica.controlsystem.epics.channel.EpicsChannelValueGetter;
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.channel.EpicsChannelConnectedEvent;
 import ch.psi.wica.controlsystem.event.channel.EpicsChannelDisconnectedEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelEventPublisher;
@@ -19,10 +21,11 @@ import org.epics.ca.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -32,6 +35,27 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Polls an EPICS channel of interest and publishes the result.
+ * <p>
+ * Requests to poll the same EPICS channel at the same polling interval are
+ * coalesced onto a single poller, which performs one channel access get per
+ * polling cycle and publishes the result on the publication channel of every
+ * request. Pollers are reference-counted: a poller is created when the first
+ * request for its EPICS channel and polling interval is added and is cancelled
+ * when the last such request is removed.
+ * <p>
+ * Polling never blocks a thread while waiting for a channel access get
+ * operation to complete. Each polling cycle issues an asynchronous get whose
+ * timeout is applied through a scheduled completion. A poller whose previous
+ * get is still outstanding skips its cycle, as does one which would exceed
+ * the configured limits on the number of gets outstanding, either in total
+ * or against a single IOC.
+ * <p>
+ * To avoid bursts of channel access traffic when many pollers are created
+ * together (for example by a stream with thousands of channels) each poller
+ * runs at a fixed phase within its polling period. The phase is derived from
+ * a hash of the EPICS channel name, so pollers sharing a polling interval are
+ * spread evenly across the period irrespective of when they were created,
+ * and the spreading is maintained automatically as pollers come and go.
  */
 @Component
 @ThreadSafe
@@ -47,7 +71,10 @@ public class EpicsChannelPollerPublisher
    private final WicaChannelEventPublisher wicaChannelEventPublisher;
    private final EpicsChannelPollerStatistics statisticsCollector;
    private final ScheduledExecutorService executor;
+   private final EpicsChannelPollerInFlightLimiter inFlightLimiter;
    private final Map<EpicsChannelPollerRequest,Poller> requestMap;
+   private final Map<PollerKey,Poller> pollerMap;
+   private final EpicsChannelSubscriberIndex<Poller> pollerIndex;
    private final Map<EpicsChannelName,Channel<Object>> channelMap;
 
 /*- Main ---------------------------------------------------------------------*/
@@ -59,21 +86,34 @@ public class EpicsChannelPollerPublisher
     * @param epicsChannelValueGetter class which will get channel value changes.
     * @param wicaChannelEventPublisher class which will publish monitor changes.
     * @param statisticsCollectionService class which will collect statistics.
+    * @param controlSystemEventBus the bus which will deliver channel connection events.
+    * @param maxInFlightGets the maximum number of get operations that may be outstanding in total.
+    * @param maxInFlightGetsPerIoc the maximum number of get operations that may be outstanding against any single IOC.
     */
    public EpicsChannelPollerPublisher( @Autowired EpicsChannelValueGetter epicsChannelValueGetter,
                                        @Autowired WicaChannelEventPublisher wicaChannelEventPublisher,
-                                       @Autowired StatisticsCollectionService statisticsCollectionService)
+                                       @Autowired StatisticsCollectionService statisticsCollectionService,
+                                       @Autowired ControlSystemEventBus controlSystemEventBus,
+                                       @Value( "${wica.channel-poller-max-in-flight-gets}" ) int maxInFlightGets,
+                                       @Value( "${wica.channel-poller-max-in-flight-gets-per-ioc}" ) int maxInFlightGetsPerIoc )
    {
       logger.debug( "'{}' - constructing new EpicsChannelPollerPublisher instance...", this );
 
       this.epicsChannelValueGetter = Validate.notNull( epicsChannelValueGetter, "The 'epicsChannelValueGetter' argument is null." );
       this.wicaChannelEventPublisher = Validate.notNull( wicaChannelEventPublisher, "The 'wicaChannelEventPublisher' argument is null." );
-      this.executor = Executors.newScheduledThreadPool( 4 );
+      // Note: the polling tasks never block, so a single thread suffices to schedule them.
+      this.executor = Executors.newSingleThreadScheduledExecutor();
+      this.inFlightLimiter = new EpicsChannelPollerInFlightLimiter( maxInFlightGets, maxInFlightGetsPerIoc );
       this.requestMap = new ConcurrentHashMap<>();
+      this.pollerMap = new ConcurrentHashMap<>();
+      this.pollerIndex = new EpicsChannelSubscriberIndex<>();
       this.channelMap = new ConcurrentHashMap<>();
-      this.statisticsCollector = new EpicsChannelPollerStatistics( requestMap );
+      this.statisticsCollector = new EpicsChannelPollerStatistics( requestMap, pollerMap );
       statisticsCollectionService.addCollectable( statisticsCollector );
 
+      controlSystemEventBus.subscribe( EpicsChannelConnectedEvent.class, "polled", this::handleChannelConnectedEvent );
+      controlSystemEventBus.subscribe( EpicsChannelDisconnectedEvent.class, "polled", this::handleChannelDisconnectedEvent );
+
       logger.debug( "'{}' - service instance constructed ok.", this );
    }
 
@@ -105,10 +145,14 @@ public class EpicsChannelPollerPublisher
 
    /**
     * Adds a new channel to be polled.
+    * <p>
+    * If a poller already exists for the same EPICS channel and polling
+    * interval then the request's publication channel is added to it;
+    * otherwise a new poller is created.
     *
     * @param requestObject object providing the request details.
     */
-   public void addChannel( EpicsChannelPollerRequest requestObject )
+   public synchronized void addChannel( EpicsChannelPollerRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
       Validate.validState( !requestMap.containsKey( requestObject ) );
@@ -116,8 +160,21 @@ public class EpicsChannelPollerPublisher
       logger.info( "'{}' - adding poller publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStartRequests();
-      final Poller poller = new Poller( executor, requestObject, epicsChannelValueGetter, wicaChannelEventPublisher, statisticsCollector );
+      final PollerKey pollerKey = new PollerKey( requestObject.getEpicsChannelName(), requestObject.getPollingInterval() );
+      final Poller existingPoller = pollerMap.get( pollerKey );
+      if ( existingPoller != null )
+      {
+         logger.info( "'{}' - sharing existing poller.", requestObject.getPublicationChannel() );
+         existingPoller.addPublicationChannel( requestObject.getPublicationChannel() );
+         requestMap.put( requestObject, existingPoller );
+         return;
+      }
+
+      final Poller poller = new Poller( executor, inFlightLimiter, pollerKey, epicsChannelValueGetter, wicaChannelEventPublisher, statisticsCollector );
+      poller.addPublicationChannel( requestObject.getPublicationChannel() );
+      pollerMap.put( pollerKey, poller );
       requestMap.put( requestObject, poller );
+      pollerIndex.add( requestObject.getEpicsChannelName(), poller );
 
       final Channel<Object> caChannel = channelMap.get( requestObject.getEpicsChannelName() );
       if ( caChannel != null )
@@ -128,10 +185,13 @@ public class EpicsChannelPollerPublisher
 
    /**
     * Removes a channel from polling.
+    * <p>
+    * The underlying poller is cancelled only when no other request is
+    * sharing it.
     *
     * @param requestObject object providing the request details.
     */
-   public void removeChannel( EpicsChannelPollerRequest requestObject )
+   public synchronized void removeChannel( EpicsChannelPollerRequest requestObject )
    {
       Validate.notNull( requestObject, "The 'requestObject' argument is null." );
       Validate.validState( requestMap.containsKey( requestObject ) );
@@ -139,7 +199,15 @@ public class EpicsChannelPollerPublisher
       logger.info( "'{}' - removing poller publication channel.", requestObject.getPublicationChannel() );
 
       this.statisticsCollector.incrementStopRequests();
-      requestMap.remove( requestObject ).cancel();
+      final Poller poller = requestMap.remove( requestObject );
+      if ( poller.removePublicationChannel( requestObject.getPublicationChannel() ) > 0 )
+      {
+         return;
+      }
+
+      pollerMap.remove( poller.getKey() );
+      pollerIndex.remove( requestObject.getEpicsChannelName(), poller );
+      poller.cancel();
    }
 
    /**
@@ -162,11 +230,13 @@ public class EpicsChannelPollerPublisher
 
    /**
     * Handles the response to an EPICS channel poller becoming connected.
+    * <p>
+    * Synchronized with the addition and removal of channels so that a
+    * poller which is being added as its channel connects is started once.
     *
     * @param event the event.
     */
-   @EventListener(condition = "#event.scope == 'polled'" )
-   public void handleChannelConnectedEvent( EpicsChannelConnectedEvent event )
+   public synchronized void handleChannelConnectedEvent( EpicsChannelConnectedEvent event )
    {
       // The processing below will be scheduled every time a channel comes online.
       // This could be for any of the following reasons:
@@ -192,8 +262,7 @@ public class EpicsChannelPollerPublisher
     *
     * @param event the event.
     */
-   @EventListener(condition = "#event.scope == 'polled'" )
-   public void handleChannelDisconnectedEvent( EpicsChannelDisconnectedEvent event )
+   public synchronized void handleChannelDisconnectedEvent( EpicsChannelDisconnectedEvent event )
    {
       final var epicsChannelName = event.getEpicsChannelName();
       logger.info( "'{}' - channel disconnected.", epicsChannelName );
@@ -210,31 +279,25 @@ public class EpicsChannelPollerPublisher
    private void enableAllPollersForEpicsChannel( EpicsChannelName epicsChannelName, Channel<Object> caChannel )
    {
       logger.info( "'{}' - enabling poller...", epicsChannelName );
-      requestMap.entrySet()
-                .stream()
-                .filter( e -> e.getKey().getEpicsChannelName().equals( epicsChannelName ) )
-                .forEach( e -> {
-                   final Poller poller = e.getValue();
-                   if ( poller.isStarted() )
-                   {
-                      logger.info( "'{}' - resuming poller...", epicsChannelName );
-                      poller.resume();
-                   }
-                   else
-                   {
-                      logger.info( "'{}' - starting poller...", epicsChannelName );
-                      poller.start( caChannel );
-                   }
-                });
+      for ( Poller poller : pollerIndex.get( epicsChannelName ) )
+      {
+         if ( poller.isStarted() )
+         {
+            logger.info( "'{}' - resuming poller...", epicsChannelName );
+            poller.resume();
+         }
+         else
+         {
+            logger.info( "'{}' - starting poller...", epicsChannelName );
+            poller.start( caChannel );
+         }
+      }
    }
 
    private void disableAllPollersForEpicsChannel( EpicsChannelName epicsChannelName )
    {
       logger.info( "'{}' - pausing poller...", epicsChannelName );
-      requestMap.entrySet()
-                .stream()
-                .filter( e -> e.getKey().getEpicsChannelName().equals( epicsChannelName ) )
-                .forEach( e -> e.getValue().pause() );
+      pollerIndex.get( epicsChannelName ).forEach( Poller::pause );
    }
 
 
@@ -242,46 +305,91 @@ public class EpicsChannelPollerPublisher
 /*- Nested Classes -----------------------------------------------------------*/
 
    /**
-    * Polls an EPICS channel.
+    * Identifies the pollers which may be shared: those which poll the same
+    * EPICS channel at the same polling interval.
+    *
+    * @param epicsChannelName the name of the EPICS channel.
+    * @param pollingIntervalInMillis the polling interval.
+    */
+   public record PollerKey( EpicsChannelName epicsChannelName, int pollingIntervalInMillis ) {}
+
+   /**
+    * Polls an EPICS channel and publishes the result on each of the
+    * publication channels that are sharing it.
     */
    @ThreadSafe
    public static class Poller
    {
       private final Logger logger = LoggerFactory.getLogger( Poller.class );
       private final ScheduledExecutorService executor;
+      private final EpicsChannelPollerInFlightLimiter inFlightLimiter;
       private final EpicsChannelValueGetter epicsChannelValueGetter;
       private final WicaChannelEventPublisher wicaChannelEventPublisher;
-      private final WicaChannel publicationChannel;
+      private final List<WicaChannel> publicationChannels;
       private final EpicsChannelPollerStatistics statisticsCollector;
       private final AtomicBoolean pause;
+      private final AtomicBoolean getInFlight;
+      private final PollerKey key;
       private final EpicsChannelName epicsChannelName;
       private final int pollingIntervalInMillis;
 
-      private ScheduledFuture<?> scheduledFuture;
+      private volatile ScheduledFuture<?> scheduledFuture;
 
       /**
        * Creates a new instance.
        *
        * @param executor reference to an executor that will carry out the polling.
-       * @param requestObject object providing the polling request specification.
+       * @param inFlightLimiter reference to an object which limits the number of outstanding get operations.
+       * @param key the EPICS channel and polling interval.
        * @param epicsChannelValueGetter object which will get new channel values.
        * @param wicaChannelEventPublisher reference to an object which will publish the result of each poll attempt.
        * @param statisticCollector reference to an object which will collect poll statistics.
        */
       public Poller( ScheduledExecutorService executor,
-                     EpicsChannelPollerRequest requestObject,
+                     EpicsChannelPollerInFlightLimiter inFlightLimiter,
+                     PollerKey key,
                      EpicsChannelValueGetter epicsChannelValueGetter,
                      WicaChannelEventPublisher wicaChannelEventPublisher,
                      EpicsChannelPollerStatistics statisticCollector )
       {
          this.executor = executor;
+         this.inFlightLimiter = inFlightLimiter;
+         this.key = key;
          this.epicsChannelValueGetter = epicsChannelValueGetter;
          this.wicaChannelEventPublisher = wicaChannelEventPublisher;
-         this.publicationChannel = requestObject.getPublicationChannel();
-         this.epicsChannelName = requestObject.getEpicsChannelName();
-         this.pollingIntervalInMillis = requestObject.getPollingInterval();
+         this.publicationChannels = new CopyOnWriteArrayList<>();
+         this.epicsChannelName = key.epicsChannelName();
+         this.pollingIntervalInMillis = key.pollingIntervalInMillis();
          this.statisticsCollector = statisticCollector;
          this.pause = new AtomicBoolean( false );
+         this.getInFlight = new AtomicBoolean( false );
+      }
+
+      PollerKey getKey()
+      {
+         return key;
+      }
+
+      /**
+       * Adds a publication channel to this poller.
+       *
+       * @param publicationChannel the channel.
+       */
+      void addPublicationChannel( WicaChannel publicationChannel )
+      {
+         publicationChannels.add( publicationChannel );
+      }
+
+      /**
+       * Removes a publication channel from this poller.
+       *
+       * @param publicationChannel the channel.
+       * @return the number of publication channels which remain.
+       */
+      int removePublicationChannel( WicaChannel publicationChannel )
+      {
+         publicationChannels.remove( publicationChannel );
+         return publicationChannels.size();
       }
 
       boolean isStarted()
@@ -305,37 +413,67 @@ public class EpicsChannelPollerPublisher
                return;
             }
 
-            try
+            if ( getInFlight.get() )
             {
-               logger.trace( "'{}' - polling now...", epicsChannelName );
-               statisticsCollector.incrementPollCycleCount();
-               final int getTimeoutInMillis = pollingIntervalInMillis / 2;
-               final WicaChannelValue wicaChannelValue = this.epicsChannelValueGetter.get( caChannel, getTimeoutInMillis, TimeUnit.MILLISECONDS );
-               logger.trace( "'{}' - posting SUCCESSFUL poll result...", epicsChannelName );
-               statisticsCollector.updatePollingResult( true );
-               this.publishChannelValue(  wicaChannelValue );
-               logger.trace( "'{}' - done.", epicsChannelName );
+               logger.trace( "'{}' - previous poll still outstanding so skipping this cycle.", epicsChannelName );
+               statisticsCollector.incrementPollOverrunCount();
                return;
             }
-            catch ( InterruptedException ex )
-            {
-               logger.warn( "'{}' - InterruptedException", epicsChannelName );
-            }
-            catch ( TimeoutException ex )
-            {
-               logger.error( "'{}' - TimeoutException", epicsChannelName );
-            }
-            catch ( ExecutionException ex )
+
+            final String iocAddress = getIocAddress( caChannel );
+            if ( ! inFlightLimiter.tryAcquire( iocAddress ) )
             {
-               logger.error( "'{}' - ExecutionException", epicsChannelName );
+               logger.trace( "'{}' - too many polls outstanding so skipping this cycle.", epicsChannelName );
+               statisticsCollector.incrementPollThrottledCount();
+               return;
             }
 
-            logger.trace( "'{}' - posting FAILED poll result...", epicsChannelName );
-            statisticsCollector.updatePollingResult( false );
-            this.publishChannelDisconnect();
-            logger.trace( "'{}' - done.", epicsChannelName );
+            logger.trace( "'{}' - polling now...", epicsChannelName );
+            statisticsCollector.recordPollStart( System.currentTimeMillis() );
+            getInFlight.set( true );
+            statisticsCollector.incrementPollCycleCount();
+            statisticsCollector.incrementPollsInFlight();
+            final long startTimeInNanos = System.nanoTime();
+            final int getTimeoutInMillis = pollingIntervalInMillis / 2;
+            getValueAsync( caChannel )
+               .orTimeout( getTimeoutInMillis, TimeUnit.MILLISECONDS )
+               .whenComplete( ( wicaChannelValue, throwable ) -> {
+                  statisticsCollector.decrementPollsInFlight( System.nanoTime() - startTimeInNanos );
+                  inFlightLimiter.release( iocAddress );
+                  getInFlight.set( false );
+                  handlePollResult( wicaChannelValue, throwable );
+               } );
+
+         }, getInitialDelayInMillis( epicsChannelName, pollingIntervalInMillis, System.currentTimeMillis() ), pollingIntervalInMillis, TimeUnit.MILLISECONDS );
+      }
 
-         }, 0, pollingIntervalInMillis, TimeUnit.MILLISECONDS );
+      /**
+       * Returns the delay before a poller for the specified channel should
+       * first run so that it, and all subsequent runs, occur at the channel's
+       * phase within the polling period.
+       * <p>
+       * The phase is measured relative to the wall clock so that it is the same
+       * for every poller of the channel, whenever it was started.
+       *
+       * @param epicsChannelName the name of the channel.
+       * @param pollingIntervalInMillis the polling interval.
+       * @param currentTimeInMillis the current wall clock time.
+       * @return the delay, which lies in the range [0, pollingIntervalInMillis).
+       */
+      static long getInitialDelayInMillis( EpicsChannelName epicsChannelName, int pollingIntervalInMillis, long currentTimeInMillis )
+      {
+         // Note: the String hashcodes of channels with similar names (eg 'counter01',
+         // 'counter02') differ only in their low order bits, so the hash is mixed
+         // (using the MurmurHash3 finalizer) before it is reduced to a phase.
+         int hash = epicsChannelName.asString().hashCode();
+         hash ^= hash >>> 16;
+         hash *= 0x85ebca6b;
+         hash ^= hash >>> 13;
+         hash *= 0xc2b2ae35;
+         hash ^= hash >>> 16;
+
+         final long phaseInMillis = Math.floorMod( hash, pollingIntervalInMillis );
+         return Math.floorMod( phaseInMillis - currentTimeInMillis, pollingIntervalInMillis );
       }
 
       /**
@@ -366,15 +504,62 @@ public class EpicsChannelPollerPublisher
          pause.set( false );
       }
 
+      private CompletableFuture<WicaChannelValue> getValueAsync( Channel<Object> caChannel )
+      {
+         try
+         {
+            return epicsChannelValueGetter.getAsync( caChannel );
+         }
+         catch ( RuntimeException ex )
+         {
+            return CompletableFuture.failedFuture( ex );
+         }
+      }
+
+      private void handlePollResult( WicaChannelValue wicaChannelValue, Throwable throwable )
+      {
+         if ( throwable == null )
+         {
+            logger.trace( "'{}' - posting SUCCESSFUL poll result...", epicsChannelName );
+            statisticsCollector.updatePollingResult( true );
+            this.publishChannelValue( wicaChannelValue );
+            logger.trace( "'{}' - done.", epicsChannelName );
+            return;
+         }
+
+         final Throwable cause = ( throwable instanceof CompletionException ) && ( throwable.getCause() != null ) ? throwable.getCause() : throwable;
+         if ( cause instanceof TimeoutException )
+         {
+            logger.error( "'{}' - TimeoutException", epicsChannelName );
+         }
+         else
+         {
+            logger.error( "'{}' - {}", epicsChannelName, cause.getClass().getSimpleName() );
+         }
+
+         logger.trace( "'{}' - posting FAILED poll result...", epicsChannelName );
+         statisticsCollector.updatePollingResult( false );
+         this.publishChannelDisconnect();
+         logger.trace( "'{}' - done.", epicsChannelName );
+      }
+
+      private static String getIocAddress( Channel<Object> caChannel )
+      {
+         // The CA library reports the address of the server hosting each
+         // connected channel through the channel's 'remoteAddress' property.
+         final Object remoteAddress = caChannel.getProperties().get( "remoteAddress" );
+         return remoteAddress == null ? "unknown" : remoteAddress.toString();
+      }
+
       private void publishChannelValue( WicaChannelValue wicaChannelValue )
       {
-         wicaChannelEventPublisher.publishPolledValueUpdated( publicationChannel, wicaChannelValue );
+         publicationChannels.forEach( publicationChannel -> wicaChannelEventPublisher.publishPolledValueUpdated( publicationChannel, wicaChannelValue ) );
       }
 
       private void publishChannelDisconnect()
       {
-         wicaChannelEventPublisher.publishPolledValueUpdated( publicationChannel, WicaChannelValueBuilder.createChannelValueDisconnected() );
-
+         final WicaChannelValue wicaChannelValue = WicaChannelValueBuilder.createChannelValueDisconnected();
+         publicationChannels.forEach( publicationChannel -> wicaChannelEventPublisher.publishPolledValueUpdated( publicationChannel, wicaChannelValue ) );
       }
    }
 
@@ -97,7 +97,8 @@ public class EpicsChannelPollerService
       {
          // The ordering below is important.
          // 1. Tell the poller publisher about the new request. This means that a new poller scheduler
-         //    will be created to periodically poll the control system channel and to publish the results
+         //    will be created (or an existing one polling the same channel at the same interval will
+         //    be shared) to periodically poll the control system channel and to publish the results
          //    to the relevant wica publication channel.
          epicsChannelPollerPublisher.addChannel( requestObject );
 
@@ -10,7 +10,9 @@ import org.apache.commons.lang3.Validate;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -33,7 +35,22 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
    private final AtomicInteger pollCycleCount = new AtomicInteger(0);
    private final AtomicInteger pollSuccessCount = new AtomicInteger(0);
    private final AtomicInteger pollFailureCount = new AtomicInteger(0);
+   private final AtomicInteger pollOverrunCount = new AtomicInteger(0);
+   private final AtomicInteger pollThrottledCount = new AtomicInteger(0);
+   private final AtomicInteger pollsInFlight = new AtomicInteger(0);
+   private final AtomicLong pollLatencyTotalInNanos = new AtomicLong(0);
+   private final AtomicLong pollLatencyMaxInNanos = new AtomicLong(0);
+   private final AtomicLong pollLatencySampleCount = new AtomicLong(0);
+
+   // Burst statistics: the number of polls which start within the same tick.
+   private static final int BURST_TICK_IN_MILLIS = 10;
+   private long currentBurstTick = -1;
+   private int currentBurstSize = 0;
+   private int pollBurstSizeMax = 0;
+   private long pollBurstTickCount = 0;
+   private long pollBurstPollCount = 0;
    private final  Map<EpicsChannelPollerRequest, EpicsChannelPollerPublisher.Poller> requestMap;
+   private final  Map<EpicsChannelPollerPublisher.PollerKey, EpicsChannelPollerPublisher.Poller> pollerMap;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -43,10 +60,13 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
     * Creates a new EPICS channel poller statistics collector.
     *
     * @param requestMap initial list of poller requests.
+    * @param pollerMap initial list of the pollers which are servicing the requests.
     */
-   public EpicsChannelPollerStatistics( Map<EpicsChannelPollerRequest, EpicsChannelPollerPublisher.Poller> requestMap )
+   public EpicsChannelPollerStatistics( Map<EpicsChannelPollerRequest, EpicsChannelPollerPublisher.Poller> requestMap,
+                                        Map<EpicsChannelPollerPublisher.PollerKey, EpicsChannelPollerPublisher.Poller> pollerMap )
    {
       this.requestMap = Validate.notNull( requestMap, "The 'requestMap' argument is null." );
+      this.pollerMap = Validate.notNull( pollerMap, "The 'pollerMap' argument is null." );
    }
 
 /*- Class methods ------------------------------------------------------------*/
@@ -59,11 +79,19 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
                              List.of( new StatisticsItem( "- Pollers: Start Requests", getStartRequests() ),
                                       new StatisticsItem( "- Pollers: Stop Requests", getStopRequests() ),
                                       new StatisticsItem( "- Pollers: Active Requests", getActiveRequests() ),
+                                      new StatisticsItem( "- Pollers: Active Pollers", getActivePollers() ),
                                       new StatisticsItem( "- Pollers: Channel Connects", getChannelConnectCount() ),
                                       new StatisticsItem( "- Pollers: Channel Disconnects", getChannelDisconnectCount() ),
                                       new StatisticsItem( "- Pollers: Total Cycles", getPollCycleCount() ),
                                       new StatisticsItem( "- Pollers: Total Successes", getPollSuccessCount() ),
-                                      new StatisticsItem( "- Pollers: Total Failures", getPollFailureCount() ) ) );
+                                      new StatisticsItem( "- Pollers: Total Failures", getPollFailureCount() ),
+                                      new StatisticsItem( "- Pollers: Total Overruns", getPollOverrunCount() ),
+                                      new StatisticsItem( "- Pollers: Total Throttled", getPollThrottledCount() ),
+                                      new StatisticsItem( "- Pollers: Gets In Flight", getPollsInFlight() ),
+                                      new StatisticsItem( "- Pollers: Mean Latency (ms)", getPollLatencyMeanInMillis() ),
+                                      new StatisticsItem( "- Pollers: Max Latency (ms)", getPollLatencyMaxInMillis() ),
+                                      new StatisticsItem( "- Pollers: Mean Burst Size", getPollBurstSizeMean() ),
+                                      new StatisticsItem( "- Pollers: Max Burst Size", getPollBurstSizeMax() ) ) );
    }
    @Override
    public void reset()
@@ -75,6 +103,12 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
       pollCycleCount.set( 0 );
       pollSuccessCount.set( 0 );
       pollFailureCount.set( 0 );
+      pollOverrunCount.set( 0 );
+      pollThrottledCount.set( 0 );
+      pollLatencyTotalInNanos.set( 0 );
+      pollLatencyMaxInNanos.set( 0 );
+      pollLatencySampleCount.set( 0 );
+      resetBurstStatistics();
    }
 
    /**
@@ -121,6 +155,18 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
       return String.valueOf( requestMap.size() );
    }
 
+   /**
+    * Returns the count of pollers that are currently active. Requests to poll
+    * the same EPICS channel at the same polling interval share a poller, so
+    * this may be less than the number of active requests.
+    *
+    * @return the result.
+    */
+   public String getActivePollers()
+   {
+      return String.valueOf( pollerMap.size() );
+   }
+
    /**
     * Returns the count of connected EPICS channels.
     *
@@ -171,6 +217,88 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
       return String.valueOf( pollFailureCount );
    }
 
+   /**
+    * Returns the count of EPICS polling cycles that were skipped because the
+    * get operation from the previous cycle was still outstanding.
+    *
+    * @return the result.
+    */
+   public String getPollOverrunCount()
+   {
+      return String.valueOf( pollOverrunCount );
+   }
+
+   /**
+    * Returns the count of EPICS polling cycles that were skipped because the
+    * limit on outstanding get operations had been reached.
+    *
+    * @return the result.
+    */
+   public String getPollThrottledCount()
+   {
+      return String.valueOf( pollThrottledCount );
+   }
+
+   /**
+    * Returns the count of EPICS poller get operations that are currently
+    * outstanding.
+    *
+    * @return the result.
+    */
+   public String getPollsInFlight()
+   {
+      return String.valueOf( pollsInFlight );
+   }
+
+   /**
+    * Returns the mean time taken for the EPICS poller get operations to
+    * complete.
+    *
+    * @return the result.
+    */
+   public String getPollLatencyMeanInMillis()
+   {
+      final long sampleCount = pollLatencySampleCount.get();
+      final long meanInNanos = sampleCount == 0 ? 0 : pollLatencyTotalInNanos.get() / sampleCount;
+      return String.valueOf( TimeUnit.NANOSECONDS.toMillis( meanInNanos ) );
+   }
+
+   /**
+    * Returns the maximum time taken for an EPICS poller get operation to
+    * complete.
+    *
+    * @return the result.
+    */
+   public String getPollLatencyMaxInMillis()
+   {
+      return String.valueOf( TimeUnit.NANOSECONDS.toMillis( pollLatencyMaxInNanos.get() ) );
+   }
+
+   /**
+    * Returns the mean number of polls which started within the same
+    * BURST_TICK_IN_MILLIS interval, counting only intervals in which at
+    * least one poll started.
+    *
+    * @return the result.
+    */
+   public synchronized String getPollBurstSizeMean()
+   {
+      final long tickCount = pollBurstTickCount + ( currentBurstSize > 0 ? 1 : 0 );
+      final long pollCount = pollBurstPollCount + currentBurstSize;
+      return String.valueOf( tickCount == 0 ? 0 : pollCount / tickCount );
+   }
+
+   /**
+    * Returns the maximum number of polls which started within the same
+    * BURST_TICK_IN_MILLIS interval.
+    *
+    * @return the result.
+    */
+   public synchronized String getPollBurstSizeMax()
+   {
+      return String.valueOf( Math.max( pollBurstSizeMax, currentBurstSize ) );
+   }
+
 /*- Package-access methods ---------------------------------------------------*/
 
    /**
@@ -213,6 +341,68 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
       pollCycleCount.incrementAndGet();
    }
 
+   /**
+    * Increments the count of polling cycles that were skipped because
+    * the previous get operation was still outstanding.
+    */
+   void incrementPollOverrunCount()
+   {
+      pollOverrunCount.incrementAndGet();
+   }
+
+   /**
+    * Increments the count of polling cycles that were skipped because
+    * the limit on outstanding get operations had been reached.
+    */
+   void incrementPollThrottledCount()
+   {
+      pollThrottledCount.incrementAndGet();
+   }
+
+   /**
+    * Records the start of a polling cycle for the purpose of calculating
+    * the burst statistics.
+    *
+    * @param timeInMillis the time at which the cycle started.
+    */
+   synchronized void recordPollStart( long timeInMillis )
+   {
+      final long tick = timeInMillis / BURST_TICK_IN_MILLIS;
+      if ( tick != currentBurstTick )
+      {
+         if ( currentBurstSize > 0 )
+         {
+            pollBurstTickCount++;
+            pollBurstPollCount += currentBurstSize;
+            pollBurstSizeMax = Math.max( pollBurstSizeMax, currentBurstSize );
+         }
+         currentBurstTick = tick;
+         currentBurstSize = 0;
+      }
+      currentBurstSize++;
+   }
+
+   /**
+    * Records the start of a get operation.
+    */
+   void incrementPollsInFlight()
+   {
+      pollsInFlight.incrementAndGet();
+   }
+
+   /**
+    * Records the completion of a get operation.
+    *
+    * @param latencyInNanos the time taken for the operation to complete or to time out.
+    */
+   void decrementPollsInFlight( long latencyInNanos )
+   {
+      pollsInFlight.decrementAndGet();
+      pollLatencyTotalInNanos.addAndGet( latencyInNanos );
+      pollLatencyMaxInNanos.accumulateAndGet( latencyInNanos, Math::max );
+      pollLatencySampleCount.incrementAndGet();
+   }
+
    /**
     * Updates the polling result statistics.
     *
@@ -231,6 +421,16 @@ public class EpicsChannelPollerStatistics implements StatisticsCollectable
    }
 
 /*- Private methods ----------------------------------------------------------*/
+
+   private synchronized void resetBurstStatistics()
+   {
+      currentBurstTick = -1;
+      currentBurstSize = 0;
+      pollBurstSizeMax = 0;
+      pollBurstTickCount = 0;
+      pollBurstPollCount = 0;
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
\ No newline at end of file
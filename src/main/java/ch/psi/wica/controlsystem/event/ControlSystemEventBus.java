@@ -0,0 +1,194 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.event;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides a lightweight event bus for the high-frequency control system
+ * events: channel connection and disconnection, value updates and metadata
+ * updates.
+ * <p>
+ * Listeners are registered against an event type and, optionally, against
+ * a scope (for example 'monitored' or 'polled'). Events are delivered
+ * synchronously on the publishing thread to the listeners that were
+ * registered for exactly the event's class, followed by those registered
+ * for its scope.
+ * <p>
+ * Listener registration is expected to be rare (typically once, during
+ * application startup), whereas publication happens on every control system
+ * update. The listener tables are therefore held in arrays which are copied
+ * on registration, so that dispatch requires no locking and allocates
+ * nothing.
+ * <p>
+ * Unlike Spring's event multicaster, an exception thrown by one listener
+ * is logged and does not prevent delivery to the remaining listeners.
+ * <p>
+ * The less frequent application lifecycle events (for example the requests
+ * to start and stop data acquisition on a channel) continue to be published
+ * through Spring's ApplicationEventPublisher.
+ */
+@Component
+@ThreadSafe
+public class ControlSystemEventBus
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( ControlSystemEventBus.class );
+
+   private final Map<Class<?>,ListenerTable> listenerTableMap = new ConcurrentHashMap<>();
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Registers a listener for all events of the specified type, irrespective
+    * of their scope.
+    *
+    * @param eventType the event type.
+    * @param listener the listener.
+    * @param <E> the event type.
+    */
+   public <E> void subscribe( Class<E> eventType, Consumer<? super E> listener )
+   {
+      Validate.notNull( eventType, "The 'eventType' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      getListenerTable( eventType ).addUnscopedListener( listener );
+   }
+
+   /**
+    * Registers a listener for events of the specified type which are
+    * published with the specified scope.
+    *
+    * @param eventType the event type.
+    * @param scope the scope.
+    * @param listener the listener.
+    * @param <E> the event type.
+    */
+   public <E> void subscribe( Class<E> eventType, String scope, Consumer<? super E> listener )
+   {
+      Validate.notNull( eventType, "The 'eventType' argument is null." );
+      Validate.notNull( scope, "The 'scope' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      getListenerTable( eventType ).addScopedListener( scope, listener );
+   }
+
+   /**
+    * Publishes an event which has no scope to the listeners that are
+    * registered for its type.
+    *
+    * @param event the event.
+    */
+   public void publish( Object event )
+   {
+      Validate.notNull( event, "The 'event' argument is null." );
+
+      final ListenerTable listenerTable = listenerTableMap.get( event.getClass() );
+      if ( listenerTable != null )
+      {
+         dispatch( listenerTable.unscopedListeners, event );
+      }
+   }
+
+   /**
+    * Publishes an event to the listeners that are registered for its type,
+    * and to the listeners that are registered for its type and scope.
+    *
+    * @param event the event.
+    * @param scope the scope.
+    */
+   public void publish( Object event, String scope )
+   {
+      Validate.notNull( event, "The 'event' argument is null." );
+      Validate.notNull( scope, "The 'scope' argument is null." );
+
+      final ListenerTable listenerTable = listenerTableMap.get( event.getClass() );
+      if ( listenerTable != null )
+      {
+         dispatch( listenerTable.unscopedListeners, event );
+         final Consumer<Object>[] scopedListeners = listenerTable.scopedListenerMap.get( scope );
+         if ( scopedListeners != null )
+         {
+            dispatch( scopedListeners, event );
+         }
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private ListenerTable getListenerTable( Class<?> eventType )
+   {
+      return listenerTableMap.computeIfAbsent( eventType, k -> new ListenerTable() );
+   }
+
+   private void dispatch( Consumer<Object>[] listeners, Object event )
+   {
+      for ( Consumer<Object> listener : listeners )
+      {
+         try
+         {
+            listener.accept( event );
+         }
+         catch ( RuntimeException ex )
+         {
+            logger.error( "Unexpected exception when delivering event: '{}'. Details: '{}'", event, ex.getMessage(), ex );
+         }
+      }
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   /**
+    * Holds the listeners that are registered for a single event type.
+    */
+   @ThreadSafe
+   private static class ListenerTable
+   {
+      private volatile Consumer<Object>[] unscopedListeners = newListenerArray( 0 );
+      private final Map<String,Consumer<Object>[]> scopedListenerMap = new ConcurrentHashMap<>();
+
+      private synchronized void addUnscopedListener( Consumer<?> listener )
+      {
+         unscopedListeners = append( unscopedListeners, listener );
+      }
+
+      private void addScopedListener( String scope, Consumer<?> listener )
+      {
+         scopedListenerMap.merge( scope, append( newListenerArray( 0 ), listener ), ( oldArray, newArray ) -> append( oldArray, listener ) );
+      }
+
+      @SuppressWarnings( "unchecked" )
+      private static Consumer<Object>[] append( Consumer<Object>[] listeners, Consumer<?> listener )
+      {
+         final Consumer<Object>[] result = Arrays.copyOf( listeners, listeners.length + 1 );
+         result[ listeners.length ] = (Consumer<Object>) listener;
+         return result;
+      }
+
+      @SuppressWarnings( "unchecked" )
+      private static Consumer<Object>[] newListenerArray( int length )
+      {
+         return (Consumer<Object>[]) new Consumer<?>[ length ];
+      }
+   }
+
+}
@@ -3,9 +3,9 @@ package ch.psi.wica.controlsystem.event.channel;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import org.apache.commons.lang3.Validate;
 import org.epics.ca.Channel;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -21,7 +21,7 @@ public class EpicsChannelEventPublisher
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
-   private final ApplicationEventPublisher applicationEventPublisher;
+   private final ControlSystemEventBus controlSystemEventBus;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -29,11 +29,11 @@ public class EpicsChannelEventPublisher
    /**
     * Constructs a new instance.
     *
-    * @param applicationEventPublisher the application event publisher.
+    * @param controlSystemEventBus the bus on which the events will be published.
     */
-   public EpicsChannelEventPublisher( ApplicationEventPublisher applicationEventPublisher )
+   public EpicsChannelEventPublisher( ControlSystemEventBus controlSystemEventBus )
    {
-      this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument is null." );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument is null." );
    }
 
 /*- Public methods -----------------------------------------------------------*/
@@ -46,7 +46,7 @@ public class EpicsChannelEventPublisher
     */
    public void publishFirstConnected( String scope, Channel<Object> caChannel )
    {
-      applicationEventPublisher.publishEvent( new EpicsChannelFirstConnectedEvent( scope, caChannel ) );
+      controlSystemEventBus.publish( new EpicsChannelFirstConnectedEvent( scope, caChannel ), scope );
    }
 
    /**
@@ -57,7 +57,7 @@ public class EpicsChannelEventPublisher
     */
    public void publishChannelConnected( String scope, Channel<Object> caChannel)
    {
-      applicationEventPublisher.publishEvent( new EpicsChannelConnectedEvent( scope, caChannel ) );
+      controlSystemEventBus.publish( new EpicsChannelConnectedEvent( scope, caChannel ), scope );
    }
 
    /**
@@ -68,7 +68,7 @@ public class EpicsChannelEventPublisher
     */
    public void publishChannelDisconnected( String scope, Channel<Object> caChannel)
    {
-      applicationEventPublisher.publishEvent( new EpicsChannelDisconnectedEvent( scope, caChannel ) );
+      controlSystemEventBus.publish( new EpicsChannelDisconnectedEvent( scope, caChannel ), scope );
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -3,6 +3,7 @@ package ch.psi.wica.controlsystem.event.wica;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
@@ -10,7 +11,6 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -24,14 +24,14 @@ public class WicaChannelEventPublisher
 /*- Private attributes -------------------------------------------------------*/
 
    private final Logger logger = LoggerFactory.getLogger( WicaChannelEventPublisher.class );
-   private final ApplicationEventPublisher applicationEventPublisher;
+   private final ControlSystemEventBus controlSystemEventBus;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
 
-   public WicaChannelEventPublisher( @Autowired ApplicationEventPublisher applicationEventPublisher )
+   public WicaChannelEventPublisher( @Autowired ControlSystemEventBus controlSystemEventBus )
    {
-      this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument is null." );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument is null." );
    }
 
 /*- Public methods -----------------------------------------------------------*/
@@ -48,7 +48,7 @@ public class WicaChannelEventPublisher
       Validate.notNull( wicaChannelMetadata, "The 'wicaChannelMetadata' argument was null");
 
       logger.trace("'{}' - metadata changed.", wicaChannel );
-      applicationEventPublisher.publishEvent( new WicaChannelMetadataUpdateEvent( wicaChannel, wicaChannelMetadata ) );
+      controlSystemEventBus.publish( new WicaChannelMetadataUpdateEvent( wicaChannel, wicaChannelMetadata ) );
       logger.trace("'{}' - metadata  published ok", wicaChannel );
    }
 
@@ -64,7 +64,7 @@ public class WicaChannelEventPublisher
       Validate.notNull( wicaChannelValue, "The 'wicaChannelValue' argument was null");
 
       logger.trace("'{}' - value changed.", wicaChannel );
-      applicationEventPublisher.publishEvent( new WicaChannelMonitoredValueUpdateEvent( wicaChannel, wicaChannelValue ) );
+      controlSystemEventBus.publish( new WicaChannelMonitoredValueUpdateEvent( wicaChannel, wicaChannelValue ) );
       logger.trace("'{}' - value  published ok", wicaChannel );
    }
 
@@ -80,7 +80,7 @@ public class WicaChannelEventPublisher
       Validate.notNull( wicaChannelValue, "The 'wicaChannelValue' argument was null");
 
       logger.trace("'{}' - value changed to: '{}'", wicaChannel, wicaChannelValue );
-      applicationEventPublisher.publishEvent( new WicaChannelPolledValueUpdateEvent( wicaChannel, wicaChannelValue ) );
+      controlSystemEventBus.publish( new WicaChannelPolledValueUpdateEvent( wicaChannel, wicaChannelValue ) );
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -0,0 +1,181 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jcip.annotations.Immutable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Decodes the JSON request string which specifies the values to be written
+ * in a single bulk channel PUT operation.
+ * <p>
+ * The request string must be a non-empty JSON object which maps each
+ * channel name to the value to be written. The type of each value is
+ * determined from its JSON representation as follows:
+ * <ul>
+ *    <li>integer numbers which fit in 32 bits are decoded as Integer;</li>
+ *    <li>other numbers are decoded as Double;</li>
+ *    <li>strings are decoded as String;</li>
+ *    <li>arrays of such integers are decoded as int[];</li>
+ *    <li>arrays of numbers which include other numbers are decoded as double[];</li>
+ *    <li>arrays of strings are decoded as String[].</li>
+ * </ul>
+ * For example:
+ * <pre>
+ *    { "CHAN1": 1.5, "CHAN2": 3, "CHAN3": "ON", "CHAN4": [ 1.0, 2.5 ] }
+ * </pre>
+ */
+@Component
+@Immutable
+public class WicaChannelBulkPutRequestDecoder
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final ObjectMapper mapper = new ObjectMapper().enable( JsonParser.Feature.STRICT_DUPLICATE_DETECTION );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Decodes the supplied request string.
+    *
+    * @param jsonInputString the request string.
+    * @return an unmodifiable map of channel name to value, in the order in
+    *     which the channels were specified.
+    *
+    * @throws NullPointerException if the request string was null.
+    * @throws IllegalArgumentException if the request string was invalid.
+    */
+   public Map<String,Object> decode( String jsonInputString )
+   {
+      Validate.notNull( jsonInputString, "The JSON input string was null." );
+      Validate.notBlank( jsonInputString, "The JSON input string was blank." );
+      try
+      {
+         return parse( jsonInputString );
+      }
+      catch ( IOException ex )
+      {
+         final Logger logger = LoggerFactory.getLogger( WicaChannelBulkPutRequestDecoder.class );
+         logger.warn( "Failed to decode JSON bulk put request string '{}'", jsonInputString );
+         logger.warn( "The detail of the exception message was '{}", ex.getMessage() );
+         throw new IllegalArgumentException( "The JSON bulk put request string: '" + jsonInputString + "' was invalid.", ex );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private Map<String,Object> parse( String jsonInputString ) throws IOException
+   {
+      final JsonNode rootNode = mapper.readTree( jsonInputString );
+      if ( ( rootNode == null ) || ( ! rootNode.isObject() ) )
+      {
+         throw new IllegalArgumentException( "The root node of the JSON bulk put request string was not a JSON Object." );
+      }
+
+      if ( rootNode.isEmpty() )
+      {
+         throw new IllegalArgumentException( "The JSON bulk put request string did not specify any channels." );
+      }
+
+      final Map<String,Object> channelValueMap = new LinkedHashMap<>();
+      final Iterator<Map.Entry<String,JsonNode>> fields = rootNode.fields();
+      while ( fields.hasNext() )
+      {
+         final Map.Entry<String,JsonNode> field = fields.next();
+         if ( field.getKey().isBlank() )
+         {
+            throw new IllegalArgumentException( "The JSON bulk put request string contained a blank channel name." );
+         }
+         channelValueMap.put( field.getKey(), decodeValue( field.getKey(), field.getValue() ) );
+      }
+      return Collections.unmodifiableMap( channelValueMap );
+   }
+
+   private static Object decodeValue( String channelName, JsonNode valueNode )
+   {
+      if ( valueNode.isTextual() )
+      {
+         return valueNode.textValue();
+      }
+      if ( valueNode.isIntegralNumber() && valueNode.canConvertToInt() )
+      {
+         return valueNode.intValue();
+      }
+      if ( valueNode.isNumber() )
+      {
+         return valueNode.doubleValue();
+      }
+      if ( valueNode.isArray() && ! valueNode.isEmpty() )
+      {
+         return decodeArray( channelName, valueNode );
+      }
+      throw new IllegalArgumentException( "The value for channel '" + channelName + "' was not a number, a string, or a non-empty array of numbers or strings." );
+   }
+
+   private static Object decodeArray( String channelName, JsonNode arrayNode )
+   {
+      final int length = arrayNode.size();
+      boolean allStrings = true;
+      boolean allNumbers = true;
+      boolean allInts = true;
+      for ( JsonNode elementNode : arrayNode )
+      {
+         allStrings &= elementNode.isTextual();
+         allNumbers &= elementNode.isNumber();
+         allInts &= elementNode.isIntegralNumber() && elementNode.canConvertToInt();
+      }
+
+      if ( allStrings )
+      {
+         final String[] result = new String[ length ];
+         for ( int i = 0; i < length; i++ )
+         {
+            result[ i ] = arrayNode.get( i ).textValue();
+         }
+         return result;
+      }
+      if ( allInts )
+      {
+         final int[] result = new int[ length ];
+         for ( int i = 0; i < length; i++ )
+         {
+            result[ i ] = arrayNode.get( i ).intValue();
+         }
+         return result;
+      }
+      if ( allNumbers )
+      {
+         final double[] result = new double[ length ];
+         for ( int i = 0; i < length; i++ )
+         {
+            result[ i ] = arrayNode.get( i ).doubleValue();
+         }
+         return result;
+      }
+      throw new IllegalArgumentException( "The array value for channel '" + channelName + "' contained a mixture of types or unsupported elements." );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
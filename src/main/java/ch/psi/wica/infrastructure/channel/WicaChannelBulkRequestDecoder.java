@@ -0,0 +1,184 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jcip.annotations.Immutable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Decodes the JSON request string which specifies the channels to be read
+ * in a single bulk channel GET operation.
+ * <p>
+ * The request string must be a JSON object containing a non-empty array
+ * named 'channels'. Each element of the array is either the name of a
+ * channel or an object with a 'name' field and, optionally, a 'numericScale'
+ * and/or 'fieldsOfInterest' field which override the request defaults for
+ * that channel. For example:
+ * <pre>
+ *    { "channels": [ "CHAN1", { "name": "CHAN2", "numericScale": 3, "fieldsOfInterest": "val;sevr" } ] }
+ * </pre>
+ */
+@Component
+@Immutable
+public class WicaChannelBulkRequestDecoder
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final ObjectMapper mapper = new ObjectMapper().enable( JsonParser.Feature.STRICT_DUPLICATE_DETECTION );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Decodes the supplied request string.
+    *
+    * @param jsonInputString the request string.
+    * @return the requested channels, in the order in which they were specified.
+    *
+    * @throws NullPointerException if the request string was null.
+    * @throws IllegalArgumentException if the request string was invalid.
+    */
+   public List<ChannelRequest> decode( String jsonInputString )
+   {
+      Validate.notNull( jsonInputString, "The JSON input string was null." );
+      Validate.notBlank( jsonInputString, "The JSON input string was blank." );
+      try
+      {
+         return parse( jsonInputString );
+      }
+      catch ( IOException ex )
+      {
+         final Logger logger = LoggerFactory.getLogger( WicaChannelBulkRequestDecoder.class );
+         logger.warn( "Failed to decode JSON bulk request string '{}'", jsonInputString );
+         logger.warn( "The detail of the exception message was '{}", ex.getMessage() );
+         throw new IllegalArgumentException( "The JSON bulk request string: '" + jsonInputString + "' was invalid.", ex );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private List<ChannelRequest> parse( String jsonInputString ) throws IOException
+   {
+      final JsonNode rootNode = mapper.readTree( jsonInputString );
+      if ( ( rootNode == null ) || ( ! rootNode.isObject() ) )
+      {
+         throw new IllegalArgumentException( "The root node of the JSON bulk request string was not a JSON Object." );
+      }
+
+      final JsonNode channelArrayNode = rootNode.get( "channels" );
+      if ( ( channelArrayNode == null ) || ( ! channelArrayNode.isArray() ) )
+      {
+         throw new IllegalArgumentException( "The root node of the JSON bulk request string did not contain an array named 'channels'." );
+      }
+
+      if ( channelArrayNode.isEmpty() )
+      {
+         throw new IllegalArgumentException( "The JSON bulk request string did not specify any channels." );
+      }
+
+      final List<ChannelRequest> channelRequests = new ArrayList<>( channelArrayNode.size() );
+      final Set<String> channelNames = new HashSet<>();
+      for ( final JsonNode channelNode : channelArrayNode )
+      {
+         final ChannelRequest channelRequest = parseChannel( channelNode );
+         if ( ! channelNames.add( channelRequest.name() ) )
+         {
+            throw new IllegalArgumentException( "The JSON bulk request string specified channel '" + channelRequest.name() + "' more than once." );
+         }
+         channelRequests.add( channelRequest );
+      }
+      return channelRequests;
+   }
+
+   private ChannelRequest parseChannel( JsonNode channelNode )
+   {
+      if ( channelNode.isTextual() )
+      {
+         return new ChannelRequest( validateName( channelNode.textValue() ), null, null );
+      }
+
+      if ( ! channelNode.isObject() )
+      {
+         throw new IllegalArgumentException( "One or more elements of the 'channels' array was neither a channel name nor a JSON Object." );
+      }
+
+      final JsonNode nameNode = channelNode.get( "name" );
+      if ( ( nameNode == null ) || ( ! nameNode.isTextual() ) )
+      {
+         throw new IllegalArgumentException( "The JSON bulk request string did not specify the name of one or more channels (missing 'name' field)." );
+      }
+
+      final Integer numericScale;
+      final JsonNode numericScaleNode = channelNode.get( "numericScale" );
+      if ( numericScaleNode == null )
+      {
+         numericScale = null;
+      }
+      else if ( numericScaleNode.isInt() && ( numericScaleNode.intValue() >= 0 ) )
+      {
+         numericScale = numericScaleNode.intValue();
+      }
+      else
+      {
+         throw new IllegalArgumentException( "The 'numericScale' field of channel '" + nameNode.textValue() + "' was not a non-negative integer." );
+      }
+
+      final String fieldsOfInterest;
+      final JsonNode fieldsOfInterestNode = channelNode.get( "fieldsOfInterest" );
+      if ( fieldsOfInterestNode == null )
+      {
+         fieldsOfInterest = null;
+      }
+      else if ( fieldsOfInterestNode.isTextual() )
+      {
+         fieldsOfInterest = fieldsOfInterestNode.textValue();
+      }
+      else
+      {
+         throw new IllegalArgumentException( "The 'fieldsOfInterest' field of channel '" + nameNode.textValue() + "' was not a string." );
+      }
+
+      return new ChannelRequest( validateName( nameNode.textValue() ), numericScale, fieldsOfInterest );
+   }
+
+   private static String validateName( String name )
+   {
+      if ( name.isBlank() )
+      {
+         throw new IllegalArgumentException( "The JSON bulk request string contained a blank channel name." );
+      }
+      return name;
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   /**
+    * Specifies a channel to be read.
+    *
+    * @param name the name of the channel.
+    * @param numericScale the numeric scale, or null if the request default applies.
+    * @param fieldsOfInterest the fields of interest, or null if the request default applies.
+    */
+   public record ChannelRequest( String name, Integer numericScale, String fieldsOfInterest ) {}
+
+}
@@ -0,0 +1,241 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.channel.WicaChannelData;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides a cache which remembers the JSON serialized representation of
+ * WicaChannelData objects so that data which is shared between many streams
+ * need only be serialized once for each distinct serialization setting.
+ * <p>
+ * Cache entries are keyed by the identity of the data object. They are held
+ * weakly, so an entry is evicted automatically once the data object has left
+ * the data buffers and is no longer referenced elsewhere. The entries are held
+ * in a concurrent map so that the many threads which serialize stream events
+ * never contend for a cache-wide lock.
+ * <p>
+ * The serializers themselves are held in a small least-recently-used map
+ * which is consulted only when a new serialization is required. Its size is
+ * bounded since the settings derive from client-supplied stream properties.
+ */
+@ThreadSafe
+public class WicaChannelDataSerializationCache
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int MAX_SERIALIZERS = 64;
+
+   private final Map<DataKey, Map<SerializerSettings, String>> cache = new ConcurrentHashMap<>();
+   private final ReferenceQueue<WicaChannelData> collectedDataQueue = new ReferenceQueue<>();
+   private final Map<SerializerSettings, WicaChannelDataSerializer> serializerMap = new LinkedHashMap<>( 16, 0.75f, true )
+   {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<SerializerSettings, WicaChannelDataSerializer> eldest )
+      {
+         return size() > MAX_SERIALIZERS;
+      }
+   };
+   private final AtomicLong hitCount = new AtomicLong( 0 );
+   private final AtomicLong missCount = new AtomicLong( 0 );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Returns the JSON serialized representation of the supplied object,
+    * serializing it only if it has not previously been serialized with the
+    * same settings.
+    *
+    * @param wicaChannelData the object to serialize.
+    * @param fieldsOfInterest the fields to be included in the output.
+    * @param numericScale the number of digits to appear after the decimal point.
+    * @param quoteNumericStrings whether NaN and Infinity should be written as strings.
+    * @return the JSON serialized representation.
+    *
+    * @throws NullPointerException if the 'wicaChannelData' or 'fieldsOfInterest' arguments were null.
+    * @throws IllegalArgumentException if the numericScale was negative.
+    */
+   public String writeToJson( WicaChannelData wicaChannelData, Set<String> fieldsOfInterest, int numericScale, boolean quoteNumericStrings )
+   {
+      Validate.notNull( wicaChannelData, "The 'wicaChannelData' argument is null." );
+      Validate.notNull( fieldsOfInterest, "The 'fieldsOfInterest' argument is null." );
+
+      final SerializerSettings settings = new SerializerSettings( fieldsOfInterest, numericScale, quoteNumericStrings );
+      expungeCollectedData();
+      final Map<SerializerSettings, String> entry = getOrCreateEntry( wicaChannelData );
+      final String cachedJson = entry.get( settings );
+      if ( cachedJson != null )
+      {
+         hitCount.incrementAndGet();
+         return cachedJson;
+      }
+
+      missCount.incrementAndGet();
+      final String json = getOrCreateSerializer( settings ).writeToJson( wicaChannelData );
+      entry.put( settings, json );
+      return json;
+   }
+
+   /**
+    * Returns the number of requests which were satisfied from the cache.
+    *
+    * @return the result.
+    */
+   public long getHitCount()
+   {
+      return hitCount.get();
+   }
+
+   /**
+    * Returns the number of requests which required a new serialization.
+    *
+    * @return the result.
+    */
+   public long getMissCount()
+   {
+      return missCount.get();
+   }
+
+   /**
+    * Returns the number of data objects currently held in the cache.
+    *
+    * @return the result.
+    */
+   public int size()
+   {
+      expungeCollectedData();
+      return cache.size();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private WicaChannelDataSerializer getOrCreateSerializer( SerializerSettings settings )
+   {
+      synchronized ( serializerMap )
+      {
+         return serializerMap.computeIfAbsent( settings, s -> WicaChannelDataSerializerBuilder.create()
+               .withFieldsOfInterest( s.fieldsOfInterest() )
+               .withNumericScale( s.numericScale() )
+               .withQuotedNumericStrings( s.quoteNumericStrings() )
+               .build() );
+      }
+   }
+
+   private Map<SerializerSettings, String> getOrCreateEntry( WicaChannelData wicaChannelData )
+   {
+      // The lookup avoids creating a weak reference when the entry exists.
+      final Map<SerializerSettings, String> entry = cache.get( new LookupKey( wicaChannelData ) );
+      if ( entry != null )
+      {
+         return entry;
+      }
+      return cache.computeIfAbsent( new WeakKey( wicaChannelData, collectedDataQueue ), k -> new ConcurrentHashMap<>() );
+   }
+
+   private void expungeCollectedData()
+   {
+      Reference<? extends WicaChannelData> collected;
+      while ( ( collected = collectedDataQueue.poll() ) != null )
+      {
+         cache.remove( (WeakKey) collected );
+      }
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private record SerializerSettings( Set<String> fieldsOfInterest, int numericScale, boolean quoteNumericStrings ) {}
+
+   /**
+    * A key which compares data objects by identity. Keys whose data object
+    * has been collected are equal only to themselves.
+    */
+   private interface DataKey
+   {
+      WicaChannelData getData();
+
+      static boolean equals( DataKey key, Object other )
+      {
+         if ( key == other )
+         {
+            return true;
+         }
+         if ( ! ( other instanceof DataKey otherKey ) )
+         {
+            return false;
+         }
+         final WicaChannelData data = key.getData();
+         return ( data != null ) && ( data == otherKey.getData() );
+      }
+   }
+
+   private static final class WeakKey extends WeakReference<WicaChannelData> implements DataKey
+   {
+      private final int hashCode;
+
+      private WeakKey( WicaChannelData wicaChannelData, ReferenceQueue<WicaChannelData> queue )
+      {
+         super( wicaChannelData, queue );
+         this.hashCode = System.identityHashCode( wicaChannelData );
+      }
+
+      @Override
+      public WicaChannelData getData()
+      {
+         return get();
+      }
+
+      @Override
+      public boolean equals( Object other )
+      {
+         return DataKey.equals( this, other );
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hashCode;
+      }
+   }
+
+   private record LookupKey( WicaChannelData data ) implements DataKey
+   {
+      @Override
+      public WicaChannelData getData()
+      {
+         return data;
+      }
+
+      @Override
+      public boolean equals( Object other )
+      {
+         return DataKey.equals( this, other );
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return System.identityHashCode( data );
+      }
+   }
+
+}
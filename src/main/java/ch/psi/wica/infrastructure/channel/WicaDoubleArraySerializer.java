@@ -77,7 +77,7 @@ class WicaDoubleArraySerializer extends JsonSerializer<double[]>
 
       for ( double value: values )
       {
-         // All other detaiuls the same as for the double scalar serializer
+         // All other details the same as for the double scalar serializer
          WicaDoubleSerializer.serializeDouble( value, gen, numericScale );
       }
       gen.writeEndArray();
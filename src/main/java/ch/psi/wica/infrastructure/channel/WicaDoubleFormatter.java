@@ -0,0 +1,148 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import net.jcip.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides a means of formatting finite doubles as plain decimal text with
+ * a fixed number of digits after the decimal point, without the need to
+ * allocate any intermediate objects.
+ * <p>
+ * The output is identical to that obtained by formatting the value using
+ * {@code BigDecimal.valueOf( value ).setScale( numericScale, RoundingMode.HALF_UP ).toPlainString()}.
+ * Values which cannot be handled exactly on the fast path (very large
+ * magnitudes, very large numeric scales, or values which lie too close to a
+ * rounding boundary) are reported back to the caller so that they can be
+ * formatted using BigDecimal instead.
+ */
+@Immutable
+final class WicaDoubleFormatter
+{
+
+/*- Public attributes --------------------------------------------------------*/
+
+   /**
+    * The minimum size of the buffer which must be supplied to the format method.
+    */
+   static final int MAX_FORMATTED_LENGTH = 32;
+
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int MAX_FAST_PATH_NUMERIC_SCALE = 15;
+   private static final double MAX_FAST_PATH_SCALED_VALUE = 1e15;
+   private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7,
+                                                   1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   // Private to prevent instantiation.
+   private WicaDoubleFormatter() {}
+
+/*- Class methods ------------------------------------------------------------*/
+
+   /**
+    * Attempts to write the supplied value into the buffer as plain decimal
+    * text with the specified number of digits after the decimal point.
+    * <p>
+    * Where the numeric scale forces rounding, then a RoundingMode.HALF_UP
+    * strategy is implemented.
+    *
+    * @param value the value to format.
+    * @param numericScale a non-negative number specifying the number of
+    *     digits to appear after the decimal point.
+    * @param buffer the buffer to write to, starting at index zero. It must
+    *     be at least MAX_FORMATTED_LENGTH characters long.
+    *
+    * @return the number of characters written, or -1 if the value could not
+    *     be formatted on the fast path, in which case the buffer contents are
+    *     undefined.
+    */
+   static int format( double value, int numericScale, char[] buffer )
+   {
+      if ( ( numericScale < 0 ) || ( numericScale > MAX_FAST_PATH_NUMERIC_SCALE ) || Double.isNaN( value ) || Double.isInfinite( value ) )
+      {
+         return -1;
+      }
+
+      final double scaledMagnitude = Math.abs( value ) * POWERS_OF_TEN[ numericScale ];
+      if ( scaledMagnitude >= MAX_FAST_PATH_SCALED_VALUE )
+      {
+         return -1;
+      }
+
+      // Note: BigDecimal.valueOf() rounds the SHORTEST decimal representation
+      // of the double rather than its exact binary value. The two differ by
+      // at most half an ulp, and the scaling multiplication introduces at most
+      // another half ulp of error. So the rounding decision taken here can only
+      // differ from BigDecimal's when the scaled value lies within a few ulps
+      // of a half-way point. In that case we leave it to the slow path.
+      final double floor = Math.floor( scaledMagnitude );
+      final double fraction = scaledMagnitude - floor;
+      if ( Math.abs( fraction - 0.5 ) <= 4 * Math.ulp( scaledMagnitude ) )
+      {
+         return -1;
+      }
+
+      long unscaledValue = (long) floor + ( fraction > 0.5 ? 1 : 0 );
+
+      // BigDecimal has no negative zero, so values which round to zero are
+      // written without a sign.
+      final boolean negative = ( value < 0 ) && ( unscaledValue != 0 );
+
+      // Ensure there is always at least one digit before the decimal point.
+      int digitCount = 1;
+      for ( long remainder = unscaledValue; remainder >= 10; remainder /= 10 )
+      {
+         digitCount++;
+      }
+      digitCount = Math.max( digitCount, numericScale + 1 );
+
+      final int length = ( negative ? 1 : 0 ) + digitCount + ( numericScale > 0 ? 1 : 0 );
+      int position = length;
+      for ( int i = 0; i < digitCount; i++ )
+      {
+         if ( ( i == numericScale ) && ( numericScale > 0 ) )
+         {
+            buffer[ --position ] = '.';
+         }
+         buffer[ --position ] = (char) ( '0' + ( unscaledValue % 10 ) );
+         unscaledValue /= 10;
+      }
+      if ( negative )
+      {
+         buffer[ --position ] = '-';
+      }
+      return length;
+   }
+
+   /**
+    * Formats the supplied finite value as plain decimal text with the
+    * specified number of digits after the decimal point using BigDecimal.
+    * <p>
+    * This is the reference implementation against which the fast path is
+    * defined.
+    *
+    * @param value the value to format.
+    * @param numericScale a non-negative number specifying the number of
+    *     digits to appear after the decimal point.
+    * @return the formatted value.
+    */
+   static String formatUsingBigDecimal( double value, int numericScale )
+   {
+      return BigDecimal.valueOf( value ).setScale( numericScale, RoundingMode.HALF_UP ).toPlainString();
+   }
+
+/*- Public methods -----------------------------------------------------------*/
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -10,8 +10,6 @@ import net.jcip.annotations.Immutable;
 import org.apache.commons.lang3.Validate;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -31,6 +29,8 @@ class WicaDoubleSerializer extends JsonSerializer<Double>
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
+   private static final ThreadLocal<char[]> FORMAT_BUFFER = ThreadLocal.withInitial( () -> new char[ WicaDoubleFormatter.MAX_FORMATTED_LENGTH ] );
+
    private final int numericScale;
 
 /*- Main ---------------------------------------------------------------------*/
@@ -72,23 +72,33 @@ class WicaDoubleSerializer extends JsonSerializer<Double>
     *        in the serialized representation.
     * @throws IOException if something goes wrong.
     */
-   static void serializeDouble( Double value, JsonGenerator gen, int numericScale ) throws IOException
+   static void serializeDouble( double value, JsonGenerator gen, int numericScale ) throws IOException
    {
-      if ( value.isNaN() || value.isInfinite()  )
+      if ( Double.isNaN( value ) || Double.isInfinite( value ) )
       {
          // Note: the behaviour here is determined by the JsonGenerator.Feature.QUOTE_NON_NUMERIC_NUMBERS
          // setting in the object mapper associated with this serializer. When the feature is enabled a
          // strict JSON compliance will be enforced and NaN and Infinity will be written in quotes. When
          // the feature is disabled they will be written as numbers.
          gen.writeNumber( value );
+         return;
+      }
+
+      // Optimisation Note:
+      // Most values can be formatted directly into a reusable buffer which is then
+      // handed to the generator. This avoids the BigDecimal and String objects that
+      // would otherwise be created for every element of a waveform.
+      final char[] buffer = FORMAT_BUFFER.get();
+      final int length = WicaDoubleFormatter.format( value, numericScale, buffer );
+      if ( length >= 0 )
+      {
+         gen.writeNumber( buffer, 0, length );
       }
       else
       {
          // Note: BigDecimal provides a convenient way of formatting our double with the required number of digits.
-         final BigDecimal bd = BigDecimal.valueOf( value ).setScale( numericScale, RoundingMode.HALF_UP );
-         final String bdAsString = bd.toPlainString();
          // Note: the generator explicitly supports serializing a number field with String input type.
-         gen.writeNumber( bdAsString );
+         gen.writeNumber( WicaDoubleFormatter.formatUsingBigDecimal( value, numericScale ) );
       }
    }
 
@@ -8,16 +8,28 @@ import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.WicaChannelData;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
 
+/**
+ * Provides a buffer which holds the most recently received data points for
+ * each storage key in a fixed-capacity ring.
+ * <p>
+ * Every data point saved in a ring is allocated a monotonically increasing
+ * sequence number. Subscribers which need to see only the data points that
+ * have arrived since their previous read should obtain a
+ * {@link WicaStreamDataBufferCursor} and use it when reading from the buffer.
+ */
 @ThreadSafe
 abstract class WicaStreamDataBuffer<T extends WicaChannelData>
 {
@@ -25,8 +37,11 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
-   private final Map<WicaDataBufferStorageKey, Deque<T>> stash;
+   private final Logger logger = LoggerFactory.getLogger( WicaStreamDataBuffer.class );
+
+   private final Map<WicaDataBufferStorageKey, RingBuffer<T>> stash;
    private final int bufferSize;
+   private final AtomicLong modificationCount = new AtomicLong( 0 );
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -39,13 +54,52 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
     */
    WicaStreamDataBuffer( int bufferSize  )
    {
+      Validate.isTrue( bufferSize > 0, "The 'bufferSize' argument was not positive." );
       this.bufferSize = bufferSize;
-      this.stash = Collections.synchronizedMap( new HashMap<>() );
+      this.stash = new ConcurrentHashMap<>();
    }
 
 /*- Class methods ------------------------------------------------------------*/
 /*- Public methods -----------------------------------------------------------*/
 
+   /**
+    * Returns a new cursor positioned at the start of this buffer.
+    *
+    * @return the cursor.
+    */
+   public WicaStreamDataBufferCursor createCursor()
+   {
+      return new WicaStreamDataBufferCursor( this );
+   }
+
+   /**
+    * Returns a new cursor positioned after the data points currently held
+    * in this buffer for the specified channels.
+    * <p>
+    * The cursor's first read returns only those data points which were
+    * saved after the cursor was created.
+    *
+    * @param wicaChannels the channels of interest.
+    * @return the cursor.
+    */
+   public WicaStreamDataBufferCursor createCursorAtEnd( Set<WicaChannel> wicaChannels )
+   {
+      Validate.notNull( wicaChannels, "The 'wicaChannels' argument is null." );
+
+      // The modification count is captured first so that a data point saved
+      // whilst the cursor is being positioned is never skipped.
+      final WicaStreamDataBufferCursor cursor = new WicaStreamDataBufferCursor( this );
+      final long currentModificationCount = modificationCount.get();
+      for ( WicaChannel wicaChannel : wicaChannels )
+      {
+         final WicaDataBufferStorageKey key = getStorageKey( wicaChannel );
+         final RingBuffer<T> ringBuffer = stash.get( key );
+         cursor.setNextSequence( key, ringBuffer == null ? 0 : ringBuffer.getNextSequence() );
+      }
+      cursor.setLastObservedModificationCount( currentModificationCount );
+      return cursor;
+   }
+
    public Map<WicaChannel, List<T>> getLaterThan( Set<WicaChannel> wicaChannels, LocalDateTime since )
    {
       Validate.notNull( wicaChannels, "The 'wicaChannels' argument is null." );
@@ -57,31 +111,94 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
       } ) );
    }
 
-   public void saveDataPoint( WicaDataBufferStorageKey key, T t )
+   /**
+    * Returns a map of the data points that have been saved for the specified
+    * channels since the previous read made with the specified cursor, then
+    * advances the cursor beyond them.
+    * <p>
+    * Only channels with new data points are included in the returned map.
+    * When the cursor's first read of a channel takes place all data points
+    * currently held for the channel are returned.
+    * <p>
+    * When a subscriber reads too slowly some data points may have been
+    * overwritten before they could be read. These are not returned but are
+    * reported through the cursor's overrun count.
+    *
+    * @param wicaChannels the channels of interest.
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    *
+    * @throws NullPointerException if any of the arguments were null.
+    * @throws IllegalArgumentException if the cursor was not created by this buffer.
+    */
+   public Map<WicaChannel, List<T>> getLaterThan( Set<WicaChannel> wicaChannels, WicaStreamDataBufferCursor cursor )
    {
-      Validate.notNull( key, "The 'key' argument is null." );
-      Validate.notNull( t, "The 't' argument is null." );
+      Validate.notNull( wicaChannels, "The 'wicaChannels' argument is null." );
+      Validate.notNull( cursor, "The 'cursor' argument is null." );
+      Validate.isTrue( cursor.isOwnedBy( this ), "The 'cursor' argument was not created by this buffer." );
 
-      synchronized ( this )
+      // Optimisation Note:
+      // When nothing at all has been saved since the cursor's previous read
+      // there is no need to visit any of the channels.
+      final long currentModificationCount = modificationCount.get();
+      if ( currentModificationCount == cursor.getLastObservedModificationCount() )
       {
-         // Lazily instantiate a Queue the first time a data point comes in
-         // for a control system name that was not previously known.
-         if ( ! stash.containsKey( key ) )
-         {
-            final Deque<T> deque = new ConcurrentLinkedDeque<>();
-            stash.put( key, deque);
-         }
+         return Map.of();
+      }
 
-         // Evict the oldest value from the queue when it has reached its configured size limit.
-         final Deque<T> deque = stash.get( key );
-         if ( deque.size() == bufferSize )
+      final Map<WicaChannel, List<T>> outputMap = new HashMap<>();
+      for ( WicaChannel wicaChannel : wicaChannels )
+      {
+         final WicaDataBufferStorageKey key = getStorageKey( wicaChannel );
+         final List<T> values = getLaterThan( key, cursor );
+         if ( ! values.isEmpty() )
          {
-            deque.remove();
+            outputMap.put( wicaChannel, values );
          }
-
-         // Now adds the new data point as the last item in the data queue.
-         deque.addLast( t );
       }
+      cursor.setLastObservedModificationCount( currentModificationCount );
+      return Collections.unmodifiableMap( outputMap );
+   }
+
+   /**
+    * Returns an indication of whether this buffer still holds every data
+    * point saved for the specified channels after the specified time.
+    * <p>
+    * The result is false when the ring for any of the channels is full and
+    * its oldest data point was received after the specified time, since data
+    * points received in the intervening period may then have been
+    * overwritten.
+    *
+    * @param wicaChannels the channels of interest.
+    * @param since the time.
+    * @return the result.
+    */
+   public boolean isRetainedSince( Set<WicaChannel> wicaChannels, LocalDateTime since )
+   {
+      Validate.notNull( wicaChannels, "The 'wicaChannels' argument is null." );
+      Validate.notNull( since, "The 'since' argument is null." );
+
+      return wicaChannels.stream()
+            .map( c -> stash.get( getStorageKey( c ) ) )
+            .filter( Objects::nonNull )
+            .map( RingBuffer::getOldestIfFull )
+            .filter( Objects::nonNull )
+            .noneMatch( oldest -> oldest.getWicaServerTimestamp().isAfter( since ) );
+   }
+
+   public void saveDataPoint( WicaDataBufferStorageKey key, T t )
+   {
+      Validate.notNull( key, "The 'key' argument is null." );
+      Validate.notNull( t, "The 't' argument is null." );
+
+      // Lazily instantiate a ring the first time a data point comes in
+      // for a control system name that was not previously known.
+      final RingBuffer<T> ringBuffer = stash.computeIfAbsent( key, k -> new RingBuffer<>( bufferSize ) );
+
+      // Now add the new data point, overwriting the oldest value when the
+      // ring has reached its configured size limit.
+      ringBuffer.add( t );
+      modificationCount.incrementAndGet();
    }
 
    public T getLatest( WicaDataBufferStorageKey key )
@@ -89,11 +206,21 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
       Validate.notNull( key, "The 'key' argument is null." );
       Validate.isTrue( stash.containsKey( key ) );
 
-      synchronized ( this )
-      {
-         final Deque<T> deque = stash.get( key );
-         return deque.peekLast();
-      }
+      return stash.get( key ).getLatest();
+   }
+
+   /**
+    * Returns the most recent data point saved with the specified key.
+    *
+    * @param key the key.
+    * @return the data point, or empty if no data point has yet been saved.
+    */
+   public Optional<T> findLatest( WicaDataBufferStorageKey key )
+   {
+      Validate.notNull( key, "The 'key' argument is null." );
+
+      final RingBuffer<T> ringBuffer = stash.get( key );
+      return ringBuffer == null ? Optional.empty() : Optional.ofNullable( ringBuffer.getLatest() );
    }
 
 /*- Protected methods --------------------------------------------------------*/
@@ -107,14 +234,17 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
       Validate.notNull( key, "The 'key' argument is null." );
       Validate.notNull( since, "The 'since' argument is null." );
 
-      final Queue<T> inputQueue = stash.get( key );
-      if ( inputQueue == null )
+      final RingBuffer<T> ringBuffer = stash.get( key );
+      if ( ringBuffer == null )
       {
          return List.of();
       }
 
+      final List<T> inputList = new ArrayList<>();
+      ringBuffer.copyFrom( 0, inputList );
+
       final List<T> outputList = new ArrayList<>();
-      inputQueue.forEach( c -> {
+      inputList.forEach( c -> {
          if ( c.getWicaServerTimestamp( ).isAfter( since ) )
          {
             outputList.add( c );
@@ -123,8 +253,122 @@ abstract class WicaStreamDataBuffer<T extends WicaChannelData>
       return Collections.unmodifiableList( outputList );
    }
 
+   private List<T> getLaterThan( WicaDataBufferStorageKey key, WicaStreamDataBufferCursor cursor )
+   {
+      final RingBuffer<T> ringBuffer = stash.get( key );
+      if ( ringBuffer == null )
+      {
+         return List.of();
+      }
+
+      final long cursorSequence = cursor.getNextSequence( key );
+      final long fromSequence = ( cursorSequence == WicaStreamDataBufferCursor.UNVISITED ) ? 0 : cursorSequence;
+      final List<T> outputList = new ArrayList<>();
+      final long nextSequence = ringBuffer.copyFrom( fromSequence, outputList );
+
+      // Detect the situation where data points that the cursor has not yet
+      // seen have been overwritten by newer data.
+      final long oldestSequence = Math.max( 0, nextSequence - bufferSize );
+      if ( ( cursorSequence != WicaStreamDataBufferCursor.UNVISITED ) && ( cursorSequence < oldestSequence ) )
+      {
+         final long overruns = oldestSequence - cursorSequence;
+         logger.debug( "Cursor overrun on storage key: '{}'. {} data points were lost.", key, overruns );
+         cursor.addOverruns( overruns );
+      }
+
+      cursor.setNextSequence( key, nextSequence );
+      return outputList.isEmpty() ? List.of() : Collections.unmodifiableList( outputList );
+   }
 
 /*- Nested Classes -----------------------------------------------------------*/
 
+   /**
+    * A fixed-capacity ring of data points in which each data point is
+    * identified by its sequence number.
+    *
+    * @param <T> the type of data point.
+    */
+   @ThreadSafe
+   private static final class RingBuffer<T>
+   {
+      private final Object[] slots;
+
+      private long nextSequence = 0;
+
+      private RingBuffer( int capacity )
+      {
+         this.slots = new Object[ capacity ];
+      }
+
+      /**
+       * Adds the supplied data point, overwriting the oldest data point
+       * when the ring is full.
+       *
+       * @param t the data point.
+       */
+      synchronized void add( T t )
+      {
+         slots[ getSlotIndex( nextSequence ) ] = t;
+         nextSequence++;
+      }
+
+      /**
+       * Returns the sequence number which will be given to the next data
+       * point to be added.
+       *
+       * @return the sequence number.
+       */
+      synchronized long getNextSequence()
+      {
+         return nextSequence;
+      }
+
+      /**
+       * Returns the most recently added data point or null if the ring is empty.
+       *
+       * @return the data point.
+       */
+      @SuppressWarnings( "unchecked" )
+      synchronized T getLatest()
+      {
+         return nextSequence == 0 ? null : (T) slots[ getSlotIndex( nextSequence - 1 ) ];
+      }
+
+      /**
+       * Returns the oldest data point if the ring is full, otherwise null.
+       *
+       * @return the data point.
+       */
+      @SuppressWarnings( "unchecked" )
+      synchronized T getOldestIfFull()
+      {
+         return nextSequence < slots.length ? null : (T) slots[ getSlotIndex( nextSequence - slots.length ) ];
+      }
+
+      /**
+       * Appends to the output list, in order of arrival, all data points which
+       * are still held in the ring and whose sequence number is greater than
+       * or equal to the specified sequence number.
+       *
+       * @param fromSequence the sequence number of the first data point of interest.
+       * @param outputList the list to append to.
+       * @return the sequence number that will be assigned to the next data point.
+       */
+      @SuppressWarnings( "unchecked" )
+      synchronized long copyFrom( long fromSequence, List<T> outputList )
+      {
+         final long oldestSequence = Math.max( 0, nextSequence - slots.length );
+         for ( long sequence = Math.max( fromSequence, oldestSequence ); sequence < nextSequence; sequence++ )
+         {
+            outputList.add( (T) slots[ getSlotIndex( sequence ) ] );
+         }
+         return nextSequence;
+      }
+
+      private int getSlotIndex( long sequence )
+      {
+         return (int) ( sequence % slots.length );
+      }
+   }
 
 }
@@ -0,0 +1,110 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.WicaDataBufferStorageKey;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Records the read position of a single subscriber within a
+ * {@link WicaStreamDataBuffer}.
+ * <p>
+ * The cursor remembers, for every storage key that the subscriber has
+ * visited, the sequence number of the next data point it expects to
+ * receive. It also remembers the buffer's global modification count
+ * at the time of the last read so that reads which take place when
+ * nothing has changed can return immediately.
+ * <p>
+ * Cursors are obtained from the buffer whose data they track and
+ * may not be used with any other buffer.
+ */
+@ThreadSafe
+public class WicaStreamDataBufferCursor
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   // Sequence value used to indicate that the cursor has never read the data
+   // associated with a storage key.
+   static final long UNVISITED = -1L;
+
+   private final WicaStreamDataBuffer<?> owner;
+   private final Map<WicaDataBufferStorageKey,Long> nextSequenceMap = new ConcurrentHashMap<>();
+   private final AtomicLong lastObservedModificationCount = new AtomicLong( -1 );
+   private final AtomicLong overrunCount = new AtomicLong( 0 );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Constructs a new cursor positioned at the start of the specified buffer.
+    *
+    * @param owner the buffer whose data this cursor tracks.
+    */
+   WicaStreamDataBufferCursor( WicaStreamDataBuffer<?> owner )
+   {
+      this.owner = Validate.notNull( owner, "The 'owner' argument is null." );
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Returns the total number of data points which this cursor's subscriber
+    * failed to read because they were overwritten in the buffer before the
+    * subscriber got round to reading them.
+    *
+    * @return the overrun count.
+    */
+   public long getOverrunCount()
+   {
+      return overrunCount.get();
+   }
+
+/*- Package-access methods ---------------------------------------------------*/
+
+   boolean isOwnedBy( WicaStreamDataBuffer<?> buffer )
+   {
+      return owner == buffer;
+   }
+
+   long getNextSequence( WicaDataBufferStorageKey key )
+   {
+      return nextSequenceMap.getOrDefault( key, UNVISITED );
+   }
+
+   void setNextSequence( WicaDataBufferStorageKey key, long nextSequence )
+   {
+      nextSequenceMap.put( key, nextSequence );
+   }
+
+   long getLastObservedModificationCount()
+   {
+      return lastObservedModificationCount.get();
+   }
+
+   void setLastObservedModificationCount( long modificationCount )
+   {
+      lastObservedModificationCount.set( modificationCount );
+   }
+
+   void addOverruns( long overruns )
+   {
+      overrunCount.addAndGet( overruns );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
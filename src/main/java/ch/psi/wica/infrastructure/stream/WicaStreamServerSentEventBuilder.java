@@ -10,6 +10,7 @@ import org.springframework.http.codec.ServerSentEvent;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.OptionalLong;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -41,7 +42,12 @@ public enum WicaStreamServerSentEventBuilder
    /**
     * Defines the event type and comment associated with CHANNEL MONITORED VALUE Server-Sent-Events.
     */
-   EV_WICA_CHANNEL_MONITORED_VALUES ("ev-wica-channel-value",    "channel monitored values" );
+   EV_WICA_CHANNEL_MONITORED_VALUES ("ev-wica-channel-value",    "channel monitored values" ),
+
+   /**
+    * Defines the event type and comment associated with CHANNEL ALARM VALUE Server-Sent-Events.
+    */
+   EV_WICA_CHANNEL_ALARM_VALUES     ("ev-wica-channel-alarm-value", "channel alarm values"  );
 
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
@@ -71,17 +77,64 @@ public enum WicaStreamServerSentEventBuilder
    }
 
 /*- Class methods ------------------------------------------------------------*/
+
+   /**
+    * Returns the SSE event ID which identifies the event with the specified
+    * sequence number in the stream with the specified id.
+    * <p>
+    * The event ID has the form '&lt;stream id&gt;-&lt;sequence number&gt;'.
+    * The sequence numbers of the events in each stream increase
+    * monotonically. Web clients which reconnect to a stream present the
+    * event ID of the last event they received in the 'Last-Event-ID'
+    * request header.
+    *
+    * @param id the WicaStreamId.
+    * @param sequence the sequence number.
+    * @return the event ID.
+    */
+   public static String formatEventId( WicaStreamId id, long sequence )
+   {
+      Validate.notNull( id, "The id field was null" );
+      return id.asString() + "-" + sequence;
+   }
+
+   /**
+    * Returns the sequence number encoded in the specified SSE event ID.
+    *
+    * @param eventId the event ID.
+    * @return the sequence number, or empty if the event ID was not
+    *     well-formed.
+    */
+   public static OptionalLong parseEventSequence( String eventId )
+   {
+      final int separatorIndex = ( eventId == null ) ? -1 : eventId.lastIndexOf( '-' );
+      if ( separatorIndex < 0 )
+      {
+         return OptionalLong.empty();
+      }
+      try
+      {
+         final long sequence = Long.parseLong( eventId.substring( separatorIndex + 1 ) );
+         return sequence >= 0 ? OptionalLong.of( sequence ) : OptionalLong.empty();
+      }
+      catch ( NumberFormatException ex )
+      {
+         return OptionalLong.empty();
+      }
+   }
+
 /*- Public methods -----------------------------------------------------------*/
 
    /**
-    * Returns a Wica ServerSent Event customised with the supplied WicaStream id
-    * and String data payload.
+    * Returns a Wica ServerSent Event customised with the supplied WicaStream id,
+    * event sequence number and String data payload.
     *
     * @param id the WicaStreamId
+    * @param sequence the sequence number of the event within the stream.
     * @param dataString the String data
     * @return the generated SSE.
     */
-   public ServerSentEvent<String> build( WicaStreamId id, String dataString )
+   public ServerSentEvent<String> build( WicaStreamId id, long sequence, String dataString )
    {
       Validate.notNull( id, "The id field was null" );
       Validate.notNull( dataString,"The valueMap field was null ");
@@ -89,7 +142,7 @@ public enum WicaStreamServerSentEventBuilder
       final DateTimeFormatter formatter = DateTimeFormatter.ofPattern( DATETIME_FORMAT_PATTERN );
       final String formattedTimeAndDateNow =  LocalDateTime.now().format(formatter );
       return ServerSentEvent.builder( dataString )
-            .id( id.asString() )
+            .id( formatEventId( id, sequence ) )
             .comment( formattedTimeAndDateNow + " - " + this.comment )
             .event( this.event )
             .build();
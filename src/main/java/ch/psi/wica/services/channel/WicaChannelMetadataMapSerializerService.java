@@ -3,8 +3,7 @@ package ch.psi.wica.services.channel;
 
 /*- Imported packages --------------------------------------------------------*/
 
-import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializer;
-import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializerBuilder;
+import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializationCache;
 import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -13,7 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
@@ -27,8 +26,16 @@ import java.util.Set;
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
 
+/**
+ * Serializes maps of channel metadata for transmission to the wica stream
+ * subscribers.
+ * <p>
+ * The serialized representation of each channel's metadata is remembered,
+ * so metadata which is shared by many streams, or which is resent without
+ * having changed, is only serialized once.
+ */
 @Service
-@Immutable
+@ThreadSafe
 public class WicaChannelMetadataMapSerializerService
 {
 
@@ -36,6 +43,7 @@ public class WicaChannelMetadataMapSerializerService
 /*- Private attributes -------------------------------------------------------*/
 
    private final ObjectMapper mapper;
+   private final WicaChannelDataSerializationCache serializationCache;
 
 
 /*- Main ---------------------------------------------------------------------*/
@@ -47,9 +55,10 @@ public class WicaChannelMetadataMapSerializerService
       Validate.notNull( fieldsOfInterest, "The 'fieldsOfInterest' argument is null." );
       final Set<String> fieldsOfInterestSet = Set.of( fieldsOfInterest.split( ";" ) );
 
+      serializationCache = new WicaChannelDataSerializationCache();
       mapper = Jackson2ObjectMapperBuilder.json().build();
       final SimpleModule module = new SimpleModule();
-      module.addSerializer( new MyCustomWicaChannelMetadataMapSerializer( fieldsOfInterestSet, quoteNumericStrings ) );
+      module.addSerializer( new MyCustomWicaChannelMetadataMapSerializer( fieldsOfInterestSet, quoteNumericStrings, serializationCache ) );
       mapper.registerModule( module );
    }
 
@@ -68,6 +77,16 @@ public class WicaChannelMetadataMapSerializerService
       }
    }
 
+   /**
+    * Returns the cache which holds the serialized representation of the
+    * channel metadata.
+    *
+    * @return the cache.
+    */
+   public WicaChannelDataSerializationCache getSerializationCache()
+   {
+      return serializationCache;
+   }
 
 /*- Private methods ----------------------------------------------------------*/
 /*- Nested Interfaces --------------------------------------------------------*/
@@ -78,12 +97,14 @@ public class WicaChannelMetadataMapSerializerService
    {
       final Set<String> fieldsOfInterest;
       final boolean quoteNumericStrings;
+      final WicaChannelDataSerializationCache serializationCache;
 
-      MyCustomWicaChannelMetadataMapSerializer( Set<String> fieldsOfInterest, boolean quoteNumericStrings)
+      MyCustomWicaChannelMetadataMapSerializer( Set<String> fieldsOfInterest, boolean quoteNumericStrings, WicaChannelDataSerializationCache serializationCache )
       {
          super( Map.class );
          this.fieldsOfInterest = fieldsOfInterest;
          this.quoteNumericStrings = quoteNumericStrings;
+         this.serializationCache = serializationCache;
       }
 
       @Override
@@ -98,14 +119,7 @@ public class WicaChannelMetadataMapSerializerService
 
             final int numericScale = wicaChannel.getProperties().getNumericPrecision();
 
-            final WicaChannelDataSerializer serializer = WicaChannelDataSerializerBuilder
-                  .create()
-                  .withFieldsOfInterest( fieldsOfInterest )
-                  .withNumericScale( numericScale )
-                  .withQuotedNumericStrings( quoteNumericStrings )
-                  .build();
-
-            final String str = serializer.writeToJson( wicaChannelMetadata );
+            final String str = serializationCache.writeToJson( wicaChannelMetadata, fieldsOfInterest, numericScale, quoteNumericStrings );
             gen.writeRawValue( str );
          }
          gen.writeEndObject();
@@ -4,6 +4,7 @@ package ch.psi.wica.services.channel;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledMonitorValueUpdateEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelStartPollingEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelStopPollingEvent;
@@ -12,7 +13,6 @@ import ch.psi.wica.model.channel.WicaChannel;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
@@ -25,7 +25,7 @@ import java.util.concurrent.*;
 
 /**
  * A service for polling EPICS channels at a configurable rate and for
- * publishing the results using the Spring event service.
+ * publishing the results using the control system event bus.
  */
 @Service
 @ThreadSafe
@@ -35,16 +35,16 @@ public class WicaChannelPollMonitorService
 /*- Public attributes --------------------------------------------------------*/
 /*- Private attributes -------------------------------------------------------*/
 
-   private final ApplicationEventPublisher applicationEventPublisher;
+   private final ControlSystemEventBus controlSystemEventBus;
    private final Map<WicaChannel, ScheduledFuture<?>> channelExecutorMap = new ConcurrentHashMap<>();
    private final ScheduledExecutorService executor;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
 
-   public WicaChannelPollMonitorService( @Autowired ApplicationEventPublisher applicationEventPublisher )
+   public WicaChannelPollMonitorService( @Autowired ControlSystemEventBus controlSystemEventBus )
    {
-      this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument is null." );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument is null." );
       this.executor = Executors.newSingleThreadScheduledExecutor();
    }
 
@@ -90,7 +90,7 @@ public class WicaChannelPollMonitorService
 
    private void startPolling( WicaChannel wicaChannel, int pollingIntervalInMillis )
    {
-      final ScheduledFuture<?> scheduledFuture = executor.scheduleAtFixedRate(() -> applicationEventPublisher.publishEvent( new WicaChannelPolledMonitorValueUpdateEvent(wicaChannel ) ), pollingIntervalInMillis, pollingIntervalInMillis, TimeUnit.MILLISECONDS );
+      final ScheduledFuture<?> scheduledFuture = executor.scheduleAtFixedRate(() -> controlSystemEventBus.publish( new WicaChannelPolledMonitorValueUpdateEvent(wicaChannel ) ), pollingIntervalInMillis, pollingIntervalInMillis, TimeUnit.MILLISECONDS );
 
       this.channelExecutorMap.put( wicaChannel, scheduledFuture );
    }
@@ -57,20 +57,29 @@ public class WicaChannelValueFilteringService
       Validate.notNull( wicaChannel, "The 'wicaChannel' argument is null." );
       Validate.notNull( wicaChannelValues, "The 'wicaChannelValues' argument is null." );
 
-      final WicaChannelValueFilter filter;
-      if ( wicaChannelValueFilterMap.containsKey( wicaChannel ) )
-      {
-         filter = wicaChannelValueFilterMap.get( wicaChannel );
-      }
-      else
-      {
-         filter = getFilterForChannel( wicaChannel );
-         wicaChannelValueFilterMap.put( wicaChannel, filter );
-      }
+      final WicaChannelValueFilter filter = wicaChannelValueFilterMap.computeIfAbsent( wicaChannel, this::getFilterForChannel );
 
       return filter.apply( wicaChannelValues );
    }
 
+   /**
+    * Filters the supplied list of channel values according to the properties
+    * defined for channel monitoring using a newly created filter. Unlike
+    * {@link #filterValues}, the state of the filter associated with the
+    * channel is left unchanged.
+    *
+    * @param wicaChannel object which provides access to the filtering properties.
+    * @param wicaChannelValues the list of values to filter.
+    * @return the filtered output.
+    */
+   public List<WicaChannelValue> filterValuesWithNewFilter( WicaChannel wicaChannel, List<WicaChannelValue> wicaChannelValues )
+   {
+      Validate.notNull( wicaChannel, "The 'wicaChannel' argument is null." );
+      Validate.notNull( wicaChannelValues, "The 'wicaChannelValues' argument is null." );
+
+      return getFilterForChannel( wicaChannel ).apply( wicaChannelValues );
+   }
+
    /**
     * Filters the supplied list of channel values directly using a last value filter.
     *
@@ -3,7 +3,7 @@ package ch.psi.wica.services.channel;
 
 /*- Imported packages --------------------------------------------------------*/
 
-import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializerBuilder;
+import ch.psi.wica.infrastructure.channel.WicaChannelDataSerializationCache;
 import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
 
@@ -13,20 +13,29 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
 
+/**
+ * Serializes maps of channel values for transmission to the wica stream
+ * subscribers.
+ * <p>
+ * The serialized representation of each channel value is remembered, so a
+ * value which is shared by many streams with the same numeric precision and
+ * fields of interest is only serialized once.
+ */
 @Service
-@Immutable
+@ThreadSafe
 public class WicaChannelValueMapSerializerService
 {
 
@@ -34,6 +43,7 @@ public class WicaChannelValueMapSerializerService
 /*- Private attributes -------------------------------------------------------*/
 
    private final ObjectMapper mapper;
+   private final WicaChannelDataSerializationCache serializationCache;
 
 
 /*- Main ---------------------------------------------------------------------*/
@@ -41,9 +51,10 @@ public class WicaChannelValueMapSerializerService
 
    public WicaChannelValueMapSerializerService( @Value( "${wica.stream-quote-numeric-strings}" ) boolean quoteNumericStrings)
    {
+      serializationCache = new WicaChannelDataSerializationCache();
       mapper = Jackson2ObjectMapperBuilder.json().build();
       final SimpleModule module = new SimpleModule();
-      module.addSerializer( new WicaChannelValueMapSerializerService.MyCustomWicaChannelValueMapSerializer( quoteNumericStrings ) );
+      module.addSerializer( new WicaChannelValueMapSerializerService.MyCustomWicaChannelValueMapSerializer( quoteNumericStrings, serializationCache ) );
 
       mapper.registerModule( module );
    }
@@ -63,6 +74,17 @@ public class WicaChannelValueMapSerializerService
       }
    }
 
+   /**
+    * Returns the cache which holds the serialized representation of the
+    * channel values.
+    *
+    * @return the cache.
+    */
+   public WicaChannelDataSerializationCache getSerializationCache()
+   {
+      return serializationCache;
+   }
+
 /*- Private methods ----------------------------------------------------------*/
 /*- Nested Interfaces --------------------------------------------------------*/
 /*- Nested Classes -----------------------------------------------------------*/
@@ -70,12 +92,17 @@ public class WicaChannelValueMapSerializerService
    @SuppressWarnings( "rawtypes" )
    private static class MyCustomWicaChannelValueMapSerializer extends StdSerializer<Map>
    {
+      private static final int MAX_FIELDS_OF_INTEREST_ENTRIES = 64;
+
       final boolean quoteNumericStrings;
+      final WicaChannelDataSerializationCache serializationCache;
+      final Map<String,Set<String>> fieldsOfInterestMap = new ConcurrentHashMap<>();
 
-      MyCustomWicaChannelValueMapSerializer( boolean quoteNumericStrings )
+      MyCustomWicaChannelValueMapSerializer( boolean quoteNumericStrings, WicaChannelDataSerializationCache serializationCache )
       {
          super( Map.class );
          this.quoteNumericStrings  = quoteNumericStrings;
+         this.serializationCache = serializationCache;
       }
 
       @Override
@@ -86,13 +113,7 @@ public class WicaChannelValueMapSerializerService
          {
             final WicaChannel wicaChannel = (WicaChannel) channel;
             final int numericScale = wicaChannel.getProperties().getNumericPrecision();
-            final Set<String> fieldsOfInterest = Set.of( wicaChannel.getProperties().getFieldsOfInterest().split(";" ) );
-
-            final var serializer = WicaChannelDataSerializerBuilder.create()
-               .withFieldsOfInterest( fieldsOfInterest )
-               .withNumericScale( numericScale )
-               .withQuotedNumericStrings( quoteNumericStrings )
-               .build();
+            final Set<String> fieldsOfInterest = getFieldsOfInterest( wicaChannel.getProperties().getFieldsOfInterest() );
 
             gen.writeFieldName( wicaChannel.getName().toString() );
 
@@ -103,13 +124,30 @@ public class WicaChannelValueMapSerializerService
             gen.writeStartArray();
             for ( WicaChannelValue wicaChannelValue : wicaChannelValueList )
             {
-               final String str = serializer.writeToJson( wicaChannelValue );
+               final String str = serializationCache.writeToJson( wicaChannelValue, fieldsOfInterest, numericScale, quoteNumericStrings );
                gen.writeRawValue(str);
             }
             gen.writeEndArray();
          }
          gen.writeEndObject();
       }
+
+      // The parsed field sets are keyed by the client-supplied string, so the
+      // map is cleared whenever it grows beyond its bound. Lookups of the few
+      // sets which are in use remain lock-free.
+      private Set<String> getFieldsOfInterest( String fieldsOfInterestString )
+      {
+         final Set<String> cached = fieldsOfInterestMap.get( fieldsOfInterestString );
+         if ( cached != null )
+         {
+            return cached;
+         }
+         if ( fieldsOfInterestMap.size() >= MAX_FIELDS_OF_INTEREST_ENTRIES )
+         {
+            fieldsOfInterestMap.clear();
+         }
+         return fieldsOfInterestMap.computeIfAbsent( fieldsOfInterestString, f -> Set.copyOf( Arrays.asList( f.split( ";" ) ) ) );
+      }
    }
 
 }
@@ -0,0 +1,265 @@
+/*- Package Declaration ------------------------------------------------------*/
+
+package ch.psi.wica.services.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelManager;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.io.EpicsChannelReaderService;
+import ch.psi.wica.model.app.ControlSystemName;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
+import ch.psi.wica.services.stream.WicaStreamMonitoredValueCollectorService;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * A service which reads the current value of EPICS channels on behalf of
+ * the channel GET endpoint.
+ * <p>
+ * Concurrent requests for the same channel are coalesced so that only one
+ * read is in progress on the underlying data source at any time. Requests
+ * which arrive whilst a read is in progress join it and receive its result.
+ * <p>
+ * Requests may optionally specify a maximum age, in which case they may be
+ * answered without contacting the data source. Where the channel is being
+ * monitored on behalf of some stream the latest monitored value is returned,
+ * provided it was received within the specified period. Otherwise the result
+ * of the most recent read is returned, provided it was obtained within the
+ * specified period. A maximum age of zero always causes the channel to be
+ * read.
+ */
+@Service
+@ThreadSafe
+public class WicaChannelValueReadService
+{
+
+/*- Public attributes --------------------------------------------------------*/
+
+   /**
+    * Describes how the result of a read was obtained.
+    */
+   public enum Source
+   {
+      /** The value was taken from a recent read or from a recent monitor update. */
+      CACHE,
+      /** The value was obtained by joining a read that was already in progress. */
+      JOINED,
+      /** The value was obtained by a new read on the data source. */
+      FRESH;
+
+      /**
+       * Returns the lower case name of this source.
+       *
+       * @return the result.
+       */
+      public String asString()
+      {
+         return name().toLowerCase();
+      }
+   }
+
+   /**
+    * The result of a read.
+    *
+    * @param value the channel value.
+    * @param source how the value was obtained.
+    */
+   public record Result( WicaChannelValue value, Source source ) {}
+
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int MAX_RECENT_VALUES = 1000;
+
+   private final Logger logger = LoggerFactory.getLogger( WicaChannelValueReadService.class );
+
+   private final EpicsChannelReaderService epicsChannelReaderService;
+   private final EpicsChannelManager epicsMonitoredChannelManager;
+   private final WicaStreamMonitoredValueCollectorService wicaStreamMonitoredValueCollectorService;
+   private final LongSupplier nanoTimeSupplier;
+   private final Map<EpicsChannelName,CompletableFuture<WicaChannelValue>> inFlightReadMap;
+   private final Map<EpicsChannelName,RecentValue> recentValueMap;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    *
+    * @param epicsChannelReaderService the service which will perform the reads.
+    * @param epicsMonitoredChannelManagerService the manager of the monitored channels.
+    * @param wicaStreamMonitoredValueCollectorService the service which holds the latest monitored values.
+    */
+   @Autowired
+   public WicaChannelValueReadService( @Autowired EpicsChannelReaderService epicsChannelReaderService,
+                                       @Autowired EpicsChannelManager.EpicsMonitoredChannelManagerService epicsMonitoredChannelManagerService,
+                                       @Autowired WicaStreamMonitoredValueCollectorService wicaStreamMonitoredValueCollectorService )
+   {
+      this( epicsChannelReaderService, epicsMonitoredChannelManagerService, wicaStreamMonitoredValueCollectorService, System::nanoTime );
+   }
+
+   /**
+    * Creates a new instance which takes its time from the supplied source.
+    *
+    * @param epicsChannelReaderService the service which will perform the reads.
+    * @param epicsMonitoredChannelManager the manager of the monitored channels.
+    * @param wicaStreamMonitoredValueCollectorService the service which holds the latest monitored values.
+    * @param nanoTimeSupplier the time source.
+    */
+   WicaChannelValueReadService( EpicsChannelReaderService epicsChannelReaderService,
+                                EpicsChannelManager epicsMonitoredChannelManager,
+                                WicaStreamMonitoredValueCollectorService wicaStreamMonitoredValueCollectorService,
+                                LongSupplier nanoTimeSupplier )
+   {
+      this.epicsChannelReaderService = Validate.notNull( epicsChannelReaderService, "The 'epicsChannelReaderService' argument is null." );
+      this.epicsMonitoredChannelManager = Validate.notNull( epicsMonitoredChannelManager, "The 'epicsMonitoredChannelManager' argument is null." );
+      this.wicaStreamMonitoredValueCollectorService = Validate.notNull( wicaStreamMonitoredValueCollectorService, "The 'wicaStreamMonitoredValueCollectorService' argument is null." );
+      this.nanoTimeSupplier = Validate.notNull( nanoTimeSupplier, "The 'nanoTimeSupplier' argument is null." );
+      this.inFlightReadMap = new ConcurrentHashMap<>();
+      this.recentValueMap = new LinkedHashMap<>( 16, 0.75f, true )
+      {
+         @Override
+         protected boolean removeEldestEntry( Map.Entry<EpicsChannelName,RecentValue> eldest )
+         {
+            return size() > MAX_RECENT_VALUES;
+         }
+      };
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Returns the current value of the specified channel.
+    *
+    * @param epicsChannelName the name of the channel.
+    * @param timeout the timeout to be applied when reading the value. If a
+    *     timeout occurs the returned value will be WicaChannelValueDisconnected.
+    * @param timeUnit the time units of the timeout argument.
+    * @param maxAgeInMillis the maximum age of a previously obtained value that
+    *     may be returned instead of reading the channel, or null or zero if
+    *     the channel must be read.
+    *
+    * @return the result.
+    */
+   public Result readChannelValue( EpicsChannelName epicsChannelName, long timeout, TimeUnit timeUnit, Integer maxAgeInMillis )
+   {
+      Validate.notNull( epicsChannelName, "The 'epicsChannelName' argument is null." );
+      Validate.notNull( timeUnit, "The 'timeUnit' argument is null." );
+      Validate.isTrue( timeout > 0 );
+      Validate.isTrue( ( maxAgeInMillis == null ) || ( maxAgeInMillis >= 0 ), "The 'maxAgeInMillis' argument was negative." );
+
+      if ( ( maxAgeInMillis != null ) && ( maxAgeInMillis > 0 ) )
+      {
+         final Optional<WicaChannelValue> cachedValue = getCachedValue( epicsChannelName, maxAgeInMillis );
+         if ( cachedValue.isPresent() )
+         {
+            logger.info( "'{}' - OK: returning cached channel value.", epicsChannelName );
+            return new Result( cachedValue.get(), Source.CACHE );
+         }
+      }
+
+      final CompletableFuture<WicaChannelValue> newRead = new CompletableFuture<>();
+      final CompletableFuture<WicaChannelValue> existingRead = inFlightReadMap.putIfAbsent( epicsChannelName, newRead );
+      if ( existingRead != null )
+      {
+         logger.info( "'{}' - Joining channel read which is already in progress...", epicsChannelName );
+         return new Result( awaitRead( epicsChannelName, existingRead, timeout, timeUnit ), Source.JOINED );
+      }
+
+      try
+      {
+         final WicaChannelValue value = epicsChannelReaderService.readChannelValue( epicsChannelName, timeout, timeUnit );
+         if ( value.isConnected() )
+         {
+            synchronized ( recentValueMap )
+            {
+               recentValueMap.put( epicsChannelName, new RecentValue( value, nanoTimeSupplier.getAsLong() ) );
+            }
+         }
+         newRead.complete( value );
+         return new Result( value, Source.FRESH );
+      }
+      catch ( RuntimeException ex )
+      {
+         newRead.completeExceptionally( ex );
+         throw ex;
+      }
+      finally
+      {
+         inFlightReadMap.remove( epicsChannelName, newRead );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private Optional<WicaChannelValue> getCachedValue( EpicsChannelName epicsChannelName, int maxAgeInMillis )
+   {
+      // A monitor only reports changes which exceed the record's deadband,
+      // so its latest value is used only if it was received recently enough.
+      if ( epicsMonitoredChannelManager.getConnectedChannel( epicsChannelName ).isPresent() )
+      {
+         final Optional<WicaChannelValue> monitoredValue = wicaStreamMonitoredValueCollectorService.getLatestValue( ControlSystemName.of( epicsChannelName.asString() ) );
+         if ( monitoredValue.isPresent() && monitoredValue.get().isConnected() )
+         {
+            final long ageInMillis = Duration.between( monitoredValue.get().getWicaServerTimestamp(), LocalDateTime.now() ).toMillis();
+            if ( ageInMillis <= maxAgeInMillis )
+            {
+               return monitoredValue;
+            }
+         }
+      }
+
+      final RecentValue recentValue;
+      synchronized ( recentValueMap )
+      {
+         recentValue = recentValueMap.get( epicsChannelName );
+      }
+      if ( ( recentValue != null ) && ( nanoTimeSupplier.getAsLong() - recentValue.readTimeInNanos <= TimeUnit.MILLISECONDS.toNanos( maxAgeInMillis ) ) )
+      {
+         return Optional.of( recentValue.value );
+      }
+      return Optional.empty();
+   }
+
+   private WicaChannelValue awaitRead( EpicsChannelName epicsChannelName, CompletableFuture<WicaChannelValue> read, long timeout, TimeUnit timeUnit )
+   {
+      try
+      {
+         return read.get( timeout, timeUnit );
+      }
+      catch ( InterruptedException ex )
+      {
+         Thread.currentThread().interrupt();
+         return WicaChannelValueBuilder.createChannelValueDisconnected();
+      }
+      catch ( Exception ex )
+      {
+         logger.info( "'{}' - ERROR: Exception whilst awaiting channel value. Details: '{}'.", epicsChannelName, ex.getMessage() );
+         return WicaChannelValueBuilder.createChannelValueDisconnected();
+      }
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private record RecentValue( WicaChannelValue value, long readTimeInNanos ) {}
+
+}
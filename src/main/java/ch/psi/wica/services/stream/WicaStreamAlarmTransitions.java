@@ -0,0 +1,71 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.channel.value.WicaChannelAlarmSeverity;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.channel.value.WicaChannelValueConnected;
+import net.jcip.annotations.Immutable;
+import org.apache.commons.lang3.Validate;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Identifies the changes in a channel's value which warrant publication on
+ * the stream's alarm priority lane.
+ */
+@Immutable
+final class WicaStreamAlarmTransitions
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   private WicaStreamAlarmTransitions() {}
+
+/*- Class methods ------------------------------------------------------------*/
+
+   /**
+    * Returns an indication of whether the change from the previous value to
+    * the latest value of a channel is a priority transition.
+    * <p>
+    * A priority transition is one where the channel connects or disconnects,
+    * or where its alarm severity changes to or from MAJOR or INVALID.
+    *
+    * @param previousValue the previous value.
+    * @param latestValue the latest value.
+    * @return the result.
+    */
+   static boolean isPriorityTransition( WicaChannelValue previousValue, WicaChannelValue latestValue )
+   {
+      Validate.notNull( previousValue, "The 'previousValue' argument is null." );
+      Validate.notNull( latestValue, "The 'latestValue' argument is null." );
+
+      if ( previousValue.isConnected() != latestValue.isConnected() )
+      {
+         return true;
+      }
+      if ( ! latestValue.isConnected() )
+      {
+         return false;
+      }
+      final WicaChannelAlarmSeverity previousSeverity = ((WicaChannelValueConnected) previousValue).getWicaAlarmSeverity();
+      final WicaChannelAlarmSeverity latestSeverity = ((WicaChannelValueConnected) latestValue).getWicaAlarmSeverity();
+      return ( previousSeverity != latestSeverity ) && ( isMajorOrWorse( previousSeverity ) || isMajorOrWorse( latestSeverity ) );
+   }
+
+/*- Public methods -----------------------------------------------------------*/
+/*- Private methods ----------------------------------------------------------*/
+
+   private static boolean isMajorOrWorse( WicaChannelAlarmSeverity severity )
+   {
+      return ( severity == WicaChannelAlarmSeverity.MAJOR_ALARM ) || ( severity == WicaChannelAlarmSeverity.INVALID_ALARM );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,205 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.WicaDataBufferStorageKey;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Tracks the level of interest in each of the channels whose data is being
+ * acquired on behalf of the streams, together with the time at which the
+ * level of interest last changed.
+ * <p>
+ * Every update is performed atomically on a per-channel basis so that
+ * streams may be started and stopped concurrently without external locking.
+ * <p>
+ * Channels whose level of interest falls to zero remain tracked until the
+ * release delay has elapsed. This allows the release of the underlying
+ * control system resources to be deferred in case interest in the channel
+ * revives. Each such channel is placed in a delay queue ordered by its
+ * release deadline, so that the cost of releasing channels is proportional
+ * to the number of channels whose deadline has passed rather than to the
+ * number of channels being tracked. A channel's pending release is
+ * cancelled when interest in it revives; cancelled entries are discarded
+ * when they reach the head of the queue.
+ */
+@ThreadSafe
+class WicaStreamChannelInterestTracker
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Map<WicaDataBufferStorageKey,Interest> interestMap = new ConcurrentHashMap<>();
+   private final DelayQueue<PendingRelease> pendingReleaseQueue = new DelayQueue<>();
+   private final Duration releaseDelay;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new instance.
+    *
+    * @param releaseDelay the period for which a channel remains tracked
+    *     after the level of interest in it has fallen to zero.
+    */
+   WicaStreamChannelInterestTracker( Duration releaseDelay )
+   {
+      this.releaseDelay = Validate.notNull( releaseDelay, "The 'releaseDelay' argument is null." );
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Package-level methods ----------------------------------------------------*/
+
+   /**
+    * Increments the level of interest in the specified channel.
+    *
+    * @param storageKey the key identifying the channel.
+    * @return true if the channel was not previously tracked, in which case
+    *     the caller is responsible for starting data acquisition for it.
+    */
+   boolean increment( WicaDataBufferStorageKey storageKey )
+   {
+      Validate.notNull( storageKey, "The 'storageKey' argument is null." );
+      final AtomicBoolean newlyTracked = new AtomicBoolean( false );
+      interestMap.compute( storageKey, ( k, v ) -> {
+         // Note: any pending release of the channel is implicitly cancelled.
+         newlyTracked.set( v == null );
+         return new Interest( v == null ? 1 : v.count() + 1, LocalDateTime.now(), null );
+      } );
+      return newlyTracked.get();
+   }
+
+   /**
+    * Decrements the level of interest in the specified channel. If the
+    * level of interest falls to zero the channel is scheduled for release.
+    *
+    * @param storageKey the key identifying the channel.
+    * @return the new level of interest.
+    * @throws IllegalStateException if there was no interest in the channel.
+    */
+   int decrement( WicaDataBufferStorageKey storageKey )
+   {
+      Validate.notNull( storageKey, "The 'storageKey' argument is null." );
+      final Interest interest = interestMap.compute( storageKey, ( k, v ) -> {
+         Validate.validState( ( v != null ) && ( v.count() > 0 ), "There was no interest in the channel." );
+         final int count = v.count() - 1;
+         final PendingRelease pendingRelease = ( count == 0 ) ? new PendingRelease( k, System.nanoTime() + releaseDelay.toNanos() ) : null;
+         if ( pendingRelease != null )
+         {
+            pendingReleaseQueue.add( pendingRelease );
+         }
+         return new Interest( count, LocalDateTime.now(), pendingRelease );
+      } );
+      return interest.count();
+   }
+
+   /**
+    * Returns the level of interest in the specified channel.
+    *
+    * @param storageKey the key identifying the channel.
+    * @return the level of interest, or zero if the channel is not tracked.
+    */
+   int getInterestCount( WicaDataBufferStorageKey storageKey )
+   {
+      final Interest interest = interestMap.get( storageKey );
+      return interest == null ? 0 : interest.count();
+   }
+
+   /**
+    * Returns the time at which the level of interest in the specified
+    * channel last changed.
+    *
+    * @param storageKey the key identifying the channel.
+    * @return the time, or empty if the channel is not tracked.
+    */
+   Optional<LocalDateTime> getLastEventTime( WicaDataBufferStorageKey storageKey )
+   {
+      final Interest interest = interestMap.get( storageKey );
+      return interest == null ? Optional.empty() : Optional.of( interest.lastEventTime() );
+   }
+
+   /**
+    * Stops tracking any channels whose release deadline has passed without
+    * any revival of interest.
+    * <p>
+    * The release action is invoked for each such channel whilst the channel's
+    * entry is locked, so that it is guaranteed to complete before any
+    * subsequent attempt to start data acquisition for the same channel.
+    *
+    * @param releaseAction the action which stops the data acquisition for
+    *     a channel which is no longer tracked.
+    */
+   void releaseExpired( Consumer<WicaDataBufferStorageKey> releaseAction )
+   {
+      Validate.notNull( releaseAction, "The 'releaseAction' argument is null." );
+      PendingRelease pendingRelease;
+      while ( ( pendingRelease = pendingReleaseQueue.poll() ) != null )
+      {
+         final PendingRelease expired = pendingRelease;
+         interestMap.computeIfPresent( expired.storageKey(), ( k, v ) -> {
+            // Ignore the entry if the release was cancelled by a subsequent
+            // revival of interest in the channel.
+            if ( v.pendingRelease() == expired )
+            {
+               releaseAction.accept( k );
+               return null;
+            }
+            return v;
+         } );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private record Interest( int count, LocalDateTime lastEventTime, PendingRelease pendingRelease ) {}
+
+   // Note: equality is based on identity so that a cancelled release cannot
+   // be mistaken for a subsequent release of the same channel.
+   private static final class PendingRelease implements Delayed
+   {
+      private final WicaDataBufferStorageKey storageKey;
+      private final long deadlineNanos;
+
+      private PendingRelease( WicaDataBufferStorageKey storageKey, long deadlineNanos )
+      {
+         this.storageKey = storageKey;
+         this.deadlineNanos = deadlineNanos;
+      }
+
+      private WicaDataBufferStorageKey storageKey()
+      {
+         return storageKey;
+      }
+
+      @Override
+      public long getDelay( TimeUnit unit )
+      {
+         return unit.convert( deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS );
+      }
+
+      @Override
+      public int compareTo( Delayed other )
+      {
+         return Long.compare( deadlineNanos, ((PendingRelease) other).deadlineNanos );
+      }
+   }
+
+}
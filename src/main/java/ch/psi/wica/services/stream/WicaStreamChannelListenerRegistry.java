@@ -0,0 +1,129 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.WicaDataBufferStorageKey;
+import ch.psi.wica.model.channel.WicaChannel;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Keeps track of the listeners which are to be notified when a channel value
+ * is received with a given data buffer storage key.
+ * <p>
+ * Each listener is registered for a set of channels and is told of the
+ * value once for each of its channels which has the value's storage key.
+ * The listener therefore sees the value on its own channel, with that
+ * channel's properties, rather than on the channel which delivered it.
+ * <p>
+ * Listeners are called on the thread which delivers the value so they
+ * should do no more than hand the value on for later processing.
+ */
+@ThreadSafe
+class WicaStreamChannelListenerRegistry
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Map<WicaDataBufferStorageKey,Set<Registration>> registrationMap = new ConcurrentHashMap<>();
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Registers a listener which will be notified of values received for any
+    * of the specified channels.
+    *
+    * @param wicaChannels the channels.
+    * @param storageKeyMapper the function which returns the storage key of
+    *     a channel.
+    * @param listener the listener.
+    * @return a handle which unregisters the listener when disposed.
+    */
+   Disposable add( Set<WicaChannel> wicaChannels,
+                   Function<WicaChannel,WicaDataBufferStorageKey> storageKeyMapper,
+                   BiConsumer<WicaChannel,WicaChannelValue> listener )
+   {
+      Validate.notNull( wicaChannels, "The 'wicaChannels' argument is null." );
+      Validate.notNull( storageKeyMapper, "The 'storageKeyMapper' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      final Map<WicaDataBufferStorageKey,Registration> registrations = wicaChannels.stream()
+         .collect( Collectors.groupingBy( storageKeyMapper, Collectors.collectingAndThen( Collectors.toUnmodifiableList(), l -> new Registration( l, listener ) ) ) );
+
+      // The registration sets are only modified within compute() so that a
+      // set which becomes empty cannot be removed whilst a listener is being
+      // added.
+      registrations.forEach( ( k, r ) -> registrationMap.compute( k, ( key, set ) -> {
+         final Set<Registration> result = ( set == null ) ? new CopyOnWriteArraySet<>() : set;
+         result.add( r );
+         return result;
+      } ) );
+      return () -> registrations.forEach( ( k, r ) -> registrationMap.computeIfPresent( k, ( key, set ) -> {
+         set.remove( r );
+         return set.isEmpty() ? null : set;
+      } ) );
+   }
+
+   /**
+    * Notifies the listeners registered for channels with the specified
+    * storage key of the specified value.
+    *
+    * @param storageKey the key.
+    * @param wicaChannelValue the value.
+    */
+   void notifyListeners( WicaDataBufferStorageKey storageKey, WicaChannelValue wicaChannelValue )
+   {
+      final Set<Registration> registrations = registrationMap.get( storageKey );
+      if ( registrations != null )
+      {
+         registrations.forEach( r -> r.wicaChannels().forEach( c -> r.listener().accept( c, wicaChannelValue ) ) );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+   // Registrations are compared by identity so that a listener which is
+   // registered twice for the same channels is also removed twice.
+   private static final class Registration
+   {
+      private final List<WicaChannel> wicaChannels;
+      private final BiConsumer<WicaChannel,WicaChannelValue> listener;
+
+      private Registration( List<WicaChannel> wicaChannels, BiConsumer<WicaChannel,WicaChannelValue> listener )
+      {
+         this.wicaChannels = wicaChannels;
+         this.listener = listener;
+      }
+
+      private List<WicaChannel> wicaChannels()
+      {
+         return wicaChannels;
+      }
+
+      private BiConsumer<WicaChannel,WicaChannelValue> listener()
+      {
+         return listener;
+      }
+   }
+
+}
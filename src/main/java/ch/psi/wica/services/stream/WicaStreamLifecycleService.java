@@ -6,25 +6,41 @@ package ch.psi.wica.services.stream;
 /*- Class Declaration --------------------------------------------------------*/
 
 import ch.psi.wica.infrastructure.stream.WicaStreamConfigurationDecoder;
+import ch.psi.wica.infrastructure.stream.WicaStreamServerSentEventBuilder;
 import ch.psi.wica.model.app.StatisticsCollectionService;
+import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.stream.WicaStream;
 import ch.psi.wica.model.stream.WicaStreamId;
+import ch.psi.wica.model.stream.WicaStreamProperties;
 import ch.psi.wica.services.channel.WicaChannelMetadataMapSerializerService;
 import ch.psi.wica.services.channel.WicaChannelValueMapSerializerService;
+import jakarta.annotation.PreDestroy;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 @Service
 @ThreadSafe
@@ -36,7 +52,21 @@ public class WicaStreamLifecycleService
 
    private final Logger logger = LoggerFactory.getLogger(WicaStreamLifecycleService.class );
 
-   private final Map<WicaStreamId, WicaStreamServerSentEventPublisher> wicaStreamPublisherMap = Collections.synchronizedMap( new HashMap<>() );
+   // Maps each recognised stream ID to the pipeline which serves it. When
+   // stream deduplication is enabled several IDs may map to the same pipeline.
+   private final Map<WicaStreamId, Pipeline> wicaStreamPipelineMap = new ConcurrentHashMap<>();
+
+   // Maps each distinct stream configuration to the pipeline which serves it.
+   // Only used when stream deduplication is enabled.
+   private final Map<WicaStreamConfigurationKey, Pipeline> sharedPipelineMap = new ConcurrentHashMap<>();
+
+   // Used to start the data acquisition subsystems for a stream in parallel.
+   // When platform threads are used the pool is bounded so that a burst of
+   // stream creations cannot spawn an unlimited number of threads.
+   private static final int DATA_ACQUISITION_START_THREADS = 12;
+   private final ExecutorService dataAcquisitionStartExecutor;
+
+   private static final int IDLE_STREAM_SCAN_INTERVAL = 1000;
 
    private final WicaStreamConfigurationDecoder wicaStreamConfigurationDecoder;
    private final WicaStreamMetadataRequesterService wicaStreamMetadataRequesterService;
@@ -47,7 +77,13 @@ public class WicaStreamLifecycleService
    private final WicaStreamPolledValueCollectorService wicaStreamPolledValueCollectorService;
    private final WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService;
    private final WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService;
+   private final WicaStreamTickSchedulerService wicaStreamTickSchedulerService;
    private final WicaStreamLifecycleStatistics wicaStreamLifecycleStatistics;
+   private final boolean streamDeduplicationEnabled;
+   private final boolean streamLazyAcquisitionEnabled;
+   private final int streamIdleGracePeriodInSecs;
+   private final int streamIdleReapPeriodInSecs;
+   private final WicaStreamServerSentEventPublisher.Options publisherOptions;
 
 
 /*- Main ---------------------------------------------------------------------*/
@@ -77,6 +113,31 @@ public class WicaStreamLifecycleService
     *        this class instance.
     * @param wicaChannelMetadataMapSerializerService reference to the service that serializes the metadata map.
     * @param wicaChannelValueMapSerializerService reference to the service that serializes the value map.
+    * @param wicaStreamTickSchedulerService reference to the service that drives the stream publishers.
+    * @param streamDeduplicationEnabled whether streams which are created with identical configurations
+    *        should share a single data acquisition and publication pipeline.
+    * @param streamLazyAcquisitionEnabled whether the start of data acquisition for a stream should be
+    *        deferred until the first client subscribes to it.
+    * @param streamIdleGracePeriodInSecs the period after which data acquisition for a stream with no
+    *        subscribers will be suspended. Zero means never.
+    * @param streamIdleReapPeriodInSecs the period after which a stream with no subscribers will be
+    *        deleted. Zero means never.
+    * @param streamAdaptiveRateEnabled whether the rate at which values are sent to each subscriber
+    *        should adapt to the speed of the subscriber's web client.
+    * @param streamAdaptiveRateMaxSlowdownFactor the maximum factor by which a stream's value
+    *        intervals may be stretched for a slow web client.
+    * @param streamPushModeEnabled whether monitored values should be pushed to subscribers soon
+    *        after they arrive.
+    * @param streamPushBatchWindowInMillis the length of the micro-batch window which is opened by
+    *        the arrival of a monitored value in push mode.
+    * @param streamPushMaxBatchSize the number of values after which a push mode micro-batch is
+    *        sent without waiting for the end of its window.
+    * @param streamAlarmLaneEnabled whether alarm transitions should be sent to subscribers as soon
+    *        as they are detected.
+    * @param streamAlarmLaneCoalescingWindowInMillis the length of the window within which alarm
+    *        transitions are gathered into a single event.
+    * @param virtualThreadsEnabled whether the data acquisition for a stream should be started on
+    *        virtual threads.
     */
    public WicaStreamLifecycleService( @Autowired WicaStreamConfigurationDecoder wicaStreamConfigurationDecoder,
                                       @Autowired WicaStreamMetadataRequesterService wicaStreamMetadataRequesterService,
@@ -87,7 +148,20 @@ public class WicaStreamLifecycleService
                                       @Autowired WicaStreamPolledValueCollectorService wicaStreamPolledValueCollectorService,
                                       @Autowired WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService,
                                       @Autowired WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService,
-                                      @Autowired StatisticsCollectionService statisticsCollectionService
+                                      @Autowired WicaStreamTickSchedulerService wicaStreamTickSchedulerService,
+                                      @Autowired StatisticsCollectionService statisticsCollectionService,
+                                      @Value( "${wica.stream-deduplication-enabled}" ) boolean streamDeduplicationEnabled,
+                                      @Value( "${wica.stream-lazy-acquisition-enabled}" ) boolean streamLazyAcquisitionEnabled,
+                                      @Value( "${wica.stream-idle-grace-period-in-secs}" ) int streamIdleGracePeriodInSecs,
+                                      @Value( "${wica.stream-idle-reap-period-in-secs}" ) int streamIdleReapPeriodInSecs,
+                                      @Value( "${wica.stream-adaptive-rate-enabled}" ) boolean streamAdaptiveRateEnabled,
+                                      @Value( "${wica.stream-adaptive-rate-max-slowdown-factor}" ) int streamAdaptiveRateMaxSlowdownFactor,
+                                      @Value( "${wica.stream-push-mode-enabled}" ) boolean streamPushModeEnabled,
+                                      @Value( "${wica.stream-push-batch-window-in-millis}" ) int streamPushBatchWindowInMillis,
+                                      @Value( "${wica.stream-push-max-batch-size}" ) int streamPushMaxBatchSize,
+                                      @Value( "${wica.stream-alarm-lane-enabled}" ) boolean streamAlarmLaneEnabled,
+                                      @Value( "${wica.stream-alarm-lane-coalescing-window-in-millis}" ) int streamAlarmLaneCoalescingWindowInMillis,
+                                      @Value( "${wica.channel-io-virtual-threads-enabled}" ) boolean virtualThreadsEnabled
    )
    {
       this.wicaStreamConfigurationDecoder = wicaStreamConfigurationDecoder;
@@ -99,8 +173,23 @@ public class WicaStreamLifecycleService
       this.wicaStreamPolledValueCollectorService = wicaStreamPolledValueCollectorService;
       this.wicaChannelMetadataMapSerializerService = wicaChannelMetadataMapSerializerService;
       this.wicaChannelValueMapSerializerService = wicaChannelValueMapSerializerService;
-
-      this.wicaStreamLifecycleStatistics = new WicaStreamLifecycleStatistics("WICA STREAM LIFECYCLE SERVICE" );
+      this.wicaStreamTickSchedulerService = Validate.notNull( wicaStreamTickSchedulerService, "The 'wicaStreamTickSchedulerService' argument was null." );
+      this.streamDeduplicationEnabled = streamDeduplicationEnabled;
+      this.streamLazyAcquisitionEnabled = streamLazyAcquisitionEnabled;
+      this.streamIdleGracePeriodInSecs = streamIdleGracePeriodInSecs;
+      this.streamIdleReapPeriodInSecs = streamIdleReapPeriodInSecs;
+      this.publisherOptions = new WicaStreamServerSentEventPublisher.Options( streamAdaptiveRateEnabled,
+                                                                            streamAdaptiveRateMaxSlowdownFactor,
+                                                                            streamPushModeEnabled,
+                                                                            streamPushBatchWindowInMillis,
+                                                                            streamPushMaxBatchSize,
+                                                                            streamAlarmLaneEnabled,
+                                                                            streamAlarmLaneCoalescingWindowInMillis );
+      this.dataAcquisitionStartExecutor = virtualThreadsEnabled ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool( DATA_ACQUISITION_START_THREADS );
+
+      // The subscriber statistics are obtained from the streams which currently exist.
+      this.wicaStreamLifecycleStatistics = new WicaStreamLifecycleStatistics( "WICA STREAM LIFECYCLE SERVICE",
+         () -> getDistinctPipelines().stream().map( p -> p.publisher ).toList() );
       statisticsCollectionService.addCollectable( wicaStreamLifecycleStatistics );
    }
 
@@ -110,6 +199,16 @@ public class WicaStreamLifecycleService
    /**
     * Creates and returns an active wica stream based on the supplied JSON
     * stream configuration string.
+    * <p>
+    * When stream deduplication is enabled and an active stream with an
+    * identical decoded configuration already exists, the returned stream is
+    * a lightweight handle which shares the existing stream's data acquisition
+    * and publication pipeline. The pipeline is torn down only when the last
+    * handle on it has been deleted.
+    * <p>
+    * When lazy acquisition is enabled, data acquisition for the stream's
+    * channels does not begin until the first client subscribes to the
+    * stream's flux.
     *
     * @param jsonStreamConfiguration the configuration string.
     * @return the returned stream.
@@ -124,67 +223,65 @@ public class WicaStreamLifecycleService
 
       logger.info( "Creating new stream from config string: '{}'", jsonStreamConfiguration );
 
-      // To ensure consistency the following operations are performed as a single atomic operation.
-      synchronized( this )
-      {
-         // Attempt to decode the stream configuration.
-         final StopWatch streamDecodeTimer = StopWatch.createStarted();
-
-         final WicaStream wicaStream;
-         try
-         {
-            wicaStream = wicaStreamConfigurationDecoder.decode( jsonStreamConfiguration );
-         }
-         catch ( Exception ex )
-         {
-            logger.warn( "The JSON configuration string '{}' was invalid.", jsonStreamConfiguration );
-            logger.warn( "The underlying exception was '{}'.", ex.getMessage() );
-            throw new IllegalArgumentException( "The JSON configuration string '" + truncateString( jsonStreamConfiguration ) + "' was invalid.", ex );
-         }
-
-         if ( wicaStream.getWicaChannels( ).isEmpty( ) )
-         {
-            logger.warn( "The JSON configuration string '{}' did not define any channels.", jsonStreamConfiguration );
-            throw new IllegalArgumentException( "The JSON configuration string did not define any channels." );
-         }
+      // Attempt to decode the stream configuration. No lock is held whilst
+      // doing this so that concurrent requests can be decoded in parallel.
+      final StopWatch streamDecodeTimer = StopWatch.createStarted();
 
-         final long streamDecodeTimeInMillis = streamDecodeTimer.getTime();
-         logger.info( "Stream decoding took: '{}' ms.,", streamDecodeTimeInMillis );
-         logger.info( "Stream created OK. Stream ID is '{}'", wicaStream.getWicaStreamId() );
+      final WicaStream wicaStream;
+      try
+      {
+         wicaStream = wicaStreamConfigurationDecoder.decode( jsonStreamConfiguration );
+      }
+      catch ( Exception ex )
+      {
+         logger.warn( "The JSON configuration string '{}' was invalid.", jsonStreamConfiguration );
+         logger.warn( "The underlying exception was '{}'.", ex.getMessage() );
+         throw new IllegalArgumentException( "The JSON configuration string '" + truncateString( jsonStreamConfiguration ) + "' was invalid.", ex );
+      }
 
-         // Tell the control system metadata service to start acquiring metadata
-         // for the  control system channels in this stream.
-         final StopWatch startMetadataTimer = StopWatch.createStarted();
-         wicaStreamMetadataRequesterService.startDataAcquisition( wicaStream );
-         logger.info( "Stream metadata initialisation took: '{}' us.", startMetadataTimer.getTime( TimeUnit.MICROSECONDS ));
+      if ( wicaStream.getWicaChannels( ).isEmpty( ) )
+      {
+         logger.warn( "The JSON configuration string '{}' did not define any channels.", jsonStreamConfiguration );
+         throw new IllegalArgumentException( "The JSON configuration string did not define any channels." );
+      }
 
-         // Tell the control system monitoring service to start monitoring
-         // and/or polling the  control system channels in this stream.
-         final StopWatch startMonitoringTimer = StopWatch.createStarted();
-         wicaStreamMonitoredValueRequesterService.startMonitoring( wicaStream );
-         logger.info( "Stream monitoring initialisation took: '{}' us.", startMonitoringTimer.getTime( TimeUnit.MICROSECONDS ));
+      final long streamDecodeTimeInMillis = streamDecodeTimer.getTime();
+      logger.info( "Stream decoding took: '{}' ms.,", streamDecodeTimeInMillis );
+      logger.info( "Stream created OK. Stream ID is '{}'", wicaStream.getWicaStreamId() );
 
-         final StopWatch startPollingTimer = StopWatch.createStarted();
-         wicaStreamPolledValueRequesterService.startPolling( wicaStream );
-         logger.info( "Stream polling initialisation took: '{}' us.", startPollingTimer.getTime( TimeUnit.MICROSECONDS ));
+      // If an identical stream already exists then attach the new stream ID
+      // to the existing pipeline. Otherwise, create a new pipeline.
+      // Note: publication will not begin until there is at least one active subscriber.
+      final var wicaStreamConfigurationKey = new WicaStreamConfigurationKey( wicaStream.getWicaStreamProperties(), wicaStream.getWicaChannels() );
+      final Pipeline pipeline = streamDeduplicationEnabled ?
+            sharedPipelineMap.compute( wicaStreamConfigurationKey, ( k, existing ) -> attachOrCreatePipeline( existing, wicaStream, k ) ) :
+            createPipeline( wicaStream, wicaStreamConfigurationKey );
 
-         // Create a new publisher and add it to the map of recognized publishers.
-         // Note:publication will not begin until there is at least one active subscriber.
-         final var wicaStreamServerSentEventPublisher = new WicaStreamServerSentEventPublisher( wicaStream,
-                                                                                                wicaStreamMetadataCollectorService,
-                                                                                                wicaStreamMonitoredValueCollectorService,
-                                                                                                wicaStreamPolledValueCollectorService,
-                                                                                                wicaChannelMetadataMapSerializerService,
-                                                                                                wicaChannelValueMapSerializerService);
+      wicaStreamPipelineMap.put( wicaStream.getWicaStreamId(), pipeline );
 
-         wicaStreamPublisherMap.put( wicaStream.getWicaStreamId(), wicaStreamServerSentEventPublisher );
+      final boolean isHandle = pipeline.publisher.getStream() != wicaStream;
+      if ( isHandle )
+      {
+         logger.info( "Stream '{}' shares the pipeline of identically configured stream '{}'.", wicaStream.getWicaStreamId(), pipeline.publisher.getStream().getWicaStreamId() );
+      }
+      else if ( ! streamLazyAcquisitionEnabled )
+      {
+         // Unless it is deferred until the first subscriber arrives, start the data acquisition now.
+         synchronized( pipeline )
+         {
+            if ( ! pipeline.deleted && ! pipeline.acquiring )
+            {
+               startDataAcquisition( wicaStream );
+               pipeline.acquiring = true;
+            }
+         }
+      }
 
-         // Lastly increase the count of created streams.
-         wicaStreamLifecycleStatistics.incrementStreamsCreated();
+      // Lastly increase the count of created streams.
+      wicaStreamLifecycleStatistics.incrementStreamsCreated();
 
-         // Return a reference to the newly created stream.
-         return wicaStream;
-      }
+      // Return a reference to the newly created stream.
+      return wicaStream;
    }
 
    /**
@@ -200,26 +297,10 @@ public class WicaStreamLifecycleService
       Validate.notNull( wicaStreamId, "The 'wicaStreamId' argument was null." );
       Validate.isTrue(( isKnown( wicaStreamId ) ), "The 'wicaStreamId' argument was not recognised."  );
 
-      // To ensure consistency the following operations are performed as a single atomic operation.
-      synchronized( this )
-      {
-         // Shutdown the information publisher associated with this stream.
-         final WicaStreamServerSentEventPublisher wicaStreamServerSentEventPublisher = wicaStreamPublisherMap.get( wicaStreamId );
-         wicaStreamServerSentEventPublisher.shutdown();
-
-         // Tell the control system monitoring service that we are no longer
-         // interested in this stream.
-         final WicaStream wicaStream = wicaStreamServerSentEventPublisher.getStream();
-         wicaStreamMetadataRequesterService.stopDataAcquisition( wicaStream );
-         wicaStreamMonitoredValueRequesterService.stopMonitoring( wicaStream ) ;
-         wicaStreamPolledValueRequesterService.stopPolling( wicaStream ) ;
-
-         // Remove the stream's ID from the list of recognised publishers.
-         wicaStreamPublisherMap.remove( wicaStreamId );
+      final Pipeline pipeline = wicaStreamPipelineMap.get( wicaStreamId );
+      Validate.isTrue( pipeline != null, "The 'wicaStreamId' argument was not recognised." );
 
-         // Lastly increase the count of deleted streams.
-         wicaStreamLifecycleStatistics.incrementStreamsDeleted();
-      }
+      delete( wicaStreamId, pipeline, p -> true );
    }
 
    /**
@@ -236,11 +317,19 @@ public class WicaStreamLifecycleService
       Validate.isTrue(( isKnown(wicaStreamId ) ), "The 'wicaStreamId' argument was not recognised."  );
 
       // Get a reference to the stream
-      final WicaStreamServerSentEventPublisher wicaStreamServerSentEventPublisher = wicaStreamPublisherMap.get( wicaStreamId );
-      final WicaStream wicaStream = wicaStreamServerSentEventPublisher.getStream();
+      final Pipeline pipeline = wicaStreamPipelineMap.get( wicaStreamId );
+      Validate.isTrue( pipeline != null, "The 'wicaStreamId' argument was not recognised." );
+      final WicaStream wicaStream = pipeline.publisher.getStream();
 
-      // Now invoke the stream monitoring restart feature.
-      wicaStreamMonitoredValueRequesterService.restartMonitoring( wicaStream );
+      // Now invoke the stream monitoring restart feature. There is nothing
+      // to restart if acquisition is not currently in progress.
+      synchronized( pipeline )
+      {
+         if ( pipeline.acquiring )
+         {
+            wicaStreamMonitoredValueRequesterService.restartMonitoring( wicaStream );
+         }
+      }
    }
 
    /**
@@ -257,23 +346,65 @@ public class WicaStreamLifecycleService
       Validate.isTrue(( isKnown( wicaStreamId ) ), "The 'wicaStreamId' argument was not recognised."  );
 
       // Get a reference to the stream
-      final WicaStreamServerSentEventPublisher wicaStreamServerSentEventPublisher = wicaStreamPublisherMap.get( wicaStreamId );
-      final WicaStream wicaStream = wicaStreamServerSentEventPublisher.getStream();
+      final Pipeline pipeline = wicaStreamPipelineMap.get( wicaStreamId );
+      Validate.isTrue( pipeline != null, "The 'wicaStreamId' argument was not recognised." );
+      final WicaStream wicaStream = pipeline.publisher.getStream();
 
-      // Now invoke the stream monitoring restart feature.
-      wicaStreamPolledValueRequesterService.restartPolling( wicaStream );
+      // Now invoke the stream monitoring restart feature. There is nothing
+      // to restart if acquisition is not currently in progress.
+      synchronized( pipeline )
+      {
+         if ( pipeline.acquiring )
+         {
+            wicaStreamPolledValueRequesterService.restartPolling( wicaStream );
+         }
+      }
    }
 
    /**
     * Gets the publication flux for the stream with the specified id.
     *
     * @param wicaStreamId the id of the flux to fetch.
-    * @return the combined flux.
+    * @return the combined flux, which is shared by all subscribers to the stream.
     */
    public Flux<ServerSentEvent<String>> getFlux( WicaStreamId wicaStreamId  )
+   {
+      return getFlux( wicaStreamId, Optional.empty() );
+   }
+
+   /**
+    * Gets the publication flux for the stream with the specified id on
+    * behalf of a web client which may be reconnecting to the stream.
+    * <p>
+    * When the client supplies the ID of the last event it received, and the
+    * values published since then are still held in the data buffers, the
+    * flux begins by replaying only those values. Otherwise, the flux begins
+    * with a snapshot of the stream's latest metadata and values.
+    *
+    * @param wicaStreamId the id of the flux to fetch.
+    * @param lastEventId the ID of the last event the client received, as
+    *     sent in the 'Last-Event-ID' request header, or empty if none.
+    * @return the combined flux, which is shared by all subscribers to the stream.
+    */
+   public Flux<ServerSentEvent<String>> getFlux( WicaStreamId wicaStreamId, Optional<String> lastEventId )
    {
       Validate.notNull( wicaStreamId, "The 'wicaStreamId' argument was null." );
-      return wicaStreamPublisherMap.get( wicaStreamId ).getFlux();
+      Validate.notNull( lastEventId, "The 'lastEventId' argument was null." );
+      final Pipeline pipeline = wicaStreamPipelineMap.get( wicaStreamId );
+
+      // Track the subscribers to the flux so that acquisition can be started
+      // when the first one arrives and suspended when the last one has gone.
+      final OptionalLong lastEventSequence = lastEventId.map( WicaStreamServerSentEventBuilder::parseEventSequence ).orElse( OptionalLong.empty() );
+      final Flux<ServerSentEvent<String>> publisherFlux = pipeline.publisher.getFlux( lastEventSequence );
+      final Flux<ServerSentEvent<String>> flux = Flux.defer( () -> {
+         handleSubscriberArrived( pipeline );
+         return publisherFlux.doFinally( signal -> handleSubscriberLeft( pipeline ) );
+      } );
+
+      // When the stream is a handle on another stream's pipeline the events
+      // are relabelled with the handle's ID. The serialized payloads are shared.
+      final boolean isHandle = ! pipeline.publisher.getStream().getWicaStreamId().equals( wicaStreamId );
+      return isHandle ? flux.map( sse -> relabel( sse, wicaStreamId ) ) : flux;
    }
 
    /**
@@ -285,11 +416,317 @@ public class WicaStreamLifecycleService
    public boolean isKnown( WicaStreamId wicaStreamId )
    {
       Validate.notNull( wicaStreamId, "The 'wicaStreamId' argument was null." );
-      return wicaStreamPublisherMap.containsKey( wicaStreamId );
+      return wicaStreamPipelineMap.containsKey( wicaStreamId );
+   }
+
+   /**
+    * This method runs periodically to suspend the data acquisition for
+    * streams which have had no subscribers for longer than the grace period,
+    * and to delete streams which have had no subscribers for longer than the
+    * reap period.
+    */
+   @Scheduled( fixedRate=IDLE_STREAM_SCAN_INTERVAL )
+   public void suspendOrDeleteIdleStreams()
+   {
+      suspendOrDeleteIdleStreams( System.currentTimeMillis() );
+   }
+
+   /**
+    * Releases the executor used to start data acquisition.
+    */
+   @PreDestroy
+   public void shutdown()
+   {
+      dataAcquisitionStartExecutor.shutdown();
+   }
+
+/*- Package-level methods ----------------------------------------------------*/
+
+   /**
+    * Suspends or deletes idle streams based on the specified time.
+    *
+    * @param timeNowInMillis the current time.
+    */
+   void suspendOrDeleteIdleStreams( long timeNowInMillis )
+   {
+      for ( Pipeline pipeline : getDistinctPipelines() )
+      {
+         final boolean reap;
+         synchronized( pipeline )
+         {
+            if ( pipeline.deleted || ( pipeline.subscribers > 0 ) )
+            {
+               continue;
+            }
+
+            final long idleTimeInMillis = timeNowInMillis - pipeline.idleSinceMillis;
+            reap = isReapable( pipeline, timeNowInMillis );
+            if ( ! reap && pipeline.acquiring && ( streamIdleGracePeriodInSecs > 0 ) && ( idleTimeInMillis > TimeUnit.SECONDS.toMillis( streamIdleGracePeriodInSecs ) ) )
+            {
+               logger.info( "Suspending data acquisition for stream '{}' which has had no subscribers for more than {} seconds.", pipeline.publisher.getStream().getWicaStreamId(), streamIdleGracePeriodInSecs );
+               stopDataAcquisition( pipeline.publisher.getStream() );
+               pipeline.acquiring = false;
+            }
+         }
+
+         if ( reap )
+         {
+            final List<WicaStreamId> idsToDelete = wicaStreamPipelineMap.entrySet().stream()
+                  .filter( e -> e.getValue() == pipeline )
+                  .map( Map.Entry::getKey )
+                  .toList();
+            logger.info( "Deleting stream(s) '{}' which have had no subscribers for more than {} seconds.", idsToDelete, streamIdleReapPeriodInSecs );
+            for ( WicaStreamId wicaStreamId : idsToDelete )
+            {
+               try
+               {
+                  // A subscriber or a new handle may have arrived since the
+                  // pipeline was found to be idle.
+                  if ( ! delete( wicaStreamId, pipeline, p -> isReapable( p, timeNowInMillis ) ) )
+                  {
+                     logger.info( "Stream '{}' is no longer idle and will not be deleted.", wicaStreamId );
+                     break;
+                  }
+               }
+               catch ( IllegalArgumentException ex )
+               {
+                  logger.info( "Stream '{}' was deleted concurrently.", wicaStreamId );
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Returns whether data acquisition is currently in progress for the stream
+    * with the specified ID.
+    *
+    * @param wicaStreamId the id of the stream to check.
+    * @return the result.
+    */
+   boolean isAcquiring( WicaStreamId wicaStreamId )
+   {
+      final Pipeline pipeline = wicaStreamPipelineMap.get( wicaStreamId );
+      if ( pipeline == null )
+      {
+         return false;
+      }
+      synchronized( pipeline )
+      {
+         return pipeline.acquiring;
+      }
    }
 
 /*- Private methods ----------------------------------------------------------*/
 
+   /**
+    * Returns the pipelines for all current streams, each listed once.
+    *
+    * @return the result.
+    */
+   private Set<Pipeline> getDistinctPipelines()
+   {
+      // Note: when deduplication is enabled several IDs may refer to the same pipeline.
+      final Set<Pipeline> pipelines = Collections.newSetFromMap( new IdentityHashMap<>() );
+      pipelines.addAll( wicaStreamPipelineMap.values() );
+      return pipelines;
+   }
+
+   /**
+    * Deletes the wica stream with the specified ID provided that its
+    * pipeline still satisfies the specified condition, which is tested
+    * with the pipeline locked.
+    *
+    * @param wicaStreamId the ID of the stream to delete.
+    * @param pipeline the stream's pipeline.
+    * @param condition the condition.
+    * @return whether the stream was deleted.
+    *
+    * @throws IllegalArgumentException if the stream had already been deleted.
+    */
+   private boolean delete( WicaStreamId wicaStreamId, Pipeline pipeline, Predicate<Pipeline> condition )
+   {
+      // To ensure consistency the following operations are performed as a
+      // single atomic operation on the stream's pipeline.
+      synchronized( pipeline )
+      {
+         if ( ! condition.test( pipeline ) )
+         {
+            return false;
+         }
+
+         // Guard against the stream having been deleted concurrently, for example by the idle stream reaper.
+         Validate.isTrue( wicaStreamPipelineMap.remove( wicaStreamId, pipeline ), "The 'wicaStreamId' argument was not recognised." );
+
+         // When the stream shares its pipeline with other streams which are
+         // still active, only the stream's handle is removed.
+         if ( --pipeline.handles > 0 )
+         {
+            logger.info( "Stream '{}' deleted. Its pipeline is still in use by {} other stream(s).", wicaStreamId, pipeline.handles );
+            wicaStreamLifecycleStatistics.incrementStreamsDeleted();
+            return true;
+         }
+         pipeline.deleted = true;
+
+         // Shutdown the information publisher associated with this stream.
+         pipeline.publisher.shutdown();
+
+         // Tell the control system monitoring service that we are no longer
+         // interested in this stream. Acquisition may already have been
+         // suspended or may never have started.
+         if ( pipeline.acquiring )
+         {
+            stopDataAcquisition( pipeline.publisher.getStream() );
+            pipeline.acquiring = false;
+         }
+      }
+
+      // Note: this is done outside the pipeline lock since the shared
+      // pipeline map's remapping function acquires the pipeline lock.
+      sharedPipelineMap.remove( pipeline.configurationKey, pipeline );
+
+      // Lastly increase the count of deleted streams.
+      wicaStreamLifecycleStatistics.incrementStreamsDeleted();
+      return true;
+   }
+
+   /**
+    * Returns whether the specified pipeline has had no subscribers for
+    * longer than the reap period. Must be called with the pipeline locked.
+    *
+    * @param pipeline the pipeline.
+    * @param timeNowInMillis the current time.
+    * @return the result.
+    */
+   private boolean isReapable( Pipeline pipeline, long timeNowInMillis )
+   {
+      final long idleTimeInMillis = timeNowInMillis - pipeline.idleSinceMillis;
+      return ! pipeline.deleted && ( pipeline.subscribers == 0 ) && ( streamIdleReapPeriodInSecs > 0 ) &&
+             ( idleTimeInMillis > TimeUnit.SECONDS.toMillis( streamIdleReapPeriodInSecs ) );
+   }
+
+   private Pipeline attachOrCreatePipeline( Pipeline existing, WicaStream wicaStream, WicaStreamConfigurationKey wicaStreamConfigurationKey )
+   {
+      if ( existing != null )
+      {
+         synchronized( existing )
+         {
+            // A pipeline whose last handle is being deleted cannot be reused.
+            if ( ! existing.deleted )
+            {
+               existing.handles++;
+
+               // The new stream's client has yet to subscribe, so the idle
+               // period starts afresh to give it the full time to do so.
+               if ( existing.subscribers == 0 )
+               {
+                  existing.idleSinceMillis = System.currentTimeMillis();
+               }
+               return existing;
+            }
+         }
+      }
+      return createPipeline( wicaStream, wicaStreamConfigurationKey );
+   }
+
+   private Pipeline createPipeline( WicaStream wicaStream, WicaStreamConfigurationKey wicaStreamConfigurationKey )
+   {
+      final var wicaStreamServerSentEventPublisher = new WicaStreamServerSentEventPublisher( wicaStream,
+                                                                                             wicaStreamMetadataCollectorService,
+                                                                                             wicaStreamMonitoredValueCollectorService,
+                                                                                             wicaStreamPolledValueCollectorService,
+                                                                                             wicaChannelMetadataMapSerializerService,
+                                                                                             wicaChannelValueMapSerializerService,
+                                                                                             wicaStreamTickSchedulerService,
+                                                                                             publisherOptions );
+      return new Pipeline( wicaStreamServerSentEventPublisher, wicaStreamConfigurationKey, System.currentTimeMillis() );
+   }
+
+   private void handleSubscriberArrived( Pipeline pipeline )
+   {
+      synchronized( pipeline )
+      {
+         if ( pipeline.deleted )
+         {
+            // The stream has been deleted. The flux will complete when the publisher notices.
+            return;
+         }
+         if ( ! pipeline.acquiring )
+         {
+            logger.info( "Starting data acquisition for stream '{}' on arrival of subscriber.", pipeline.publisher.getStream().getWicaStreamId() );
+            startDataAcquisition( pipeline.publisher.getStream() );
+            pipeline.acquiring = true;
+         }
+         // Only counted once acquisition is known to be running. A subscriber
+         // whose arrival fails never reaches the point at which its departure
+         // would be recorded.
+         pipeline.subscribers++;
+      }
+   }
+
+   private void handleSubscriberLeft( Pipeline pipeline )
+   {
+      synchronized( pipeline )
+      {
+         if ( ! pipeline.deleted && ( --pipeline.subscribers == 0 ) )
+         {
+            pipeline.idleSinceMillis = System.currentTimeMillis();
+         }
+      }
+   }
+
+   private void startDataAcquisition( WicaStream wicaStream )
+   {
+      // Tell the control system metadata service to start acquiring metadata,
+      // and the control system monitoring service to start monitoring and/or
+      // polling, the control system channels in this stream. The subsystems
+      // are independent of each other so they are started in parallel.
+      final CompletableFuture<Void> startMetadata = CompletableFuture.runAsync( () -> {
+         final StopWatch startMetadataTimer = StopWatch.createStarted();
+         wicaStreamMetadataRequesterService.startDataAcquisition( wicaStream );
+         logger.info( "Stream metadata initialisation took: '{}' us.", startMetadataTimer.getTime( TimeUnit.MICROSECONDS ));
+      }, dataAcquisitionStartExecutor );
+
+      final CompletableFuture<Void> startMonitoring = CompletableFuture.runAsync( () -> {
+         final StopWatch startMonitoringTimer = StopWatch.createStarted();
+         wicaStreamMonitoredValueRequesterService.startMonitoring( wicaStream );
+         logger.info( "Stream monitoring initialisation took: '{}' us.", startMonitoringTimer.getTime( TimeUnit.MICROSECONDS ));
+      }, dataAcquisitionStartExecutor );
+
+      final CompletableFuture<Void> startPolling = CompletableFuture.runAsync( () -> {
+         final StopWatch startPollingTimer = StopWatch.createStarted();
+         wicaStreamPolledValueRequesterService.startPolling( wicaStream );
+         logger.info( "Stream polling initialisation took: '{}' us.", startPollingTimer.getTime( TimeUnit.MICROSECONDS ));
+      }, dataAcquisitionStartExecutor );
+
+      try
+      {
+         CompletableFuture.allOf( startMetadata, startMonitoring, startPolling ).join();
+      }
+      catch ( CompletionException ex )
+      {
+         logger.warn( "Failed to start data acquisition for stream '{}'. The underlying exception was '{}'.", wicaStream.getWicaStreamId(), ex.getCause().getMessage() );
+         throw ex;
+      }
+   }
+
+   private void stopDataAcquisition( WicaStream wicaStream )
+   {
+      wicaStreamMetadataRequesterService.stopDataAcquisition( wicaStream );
+      wicaStreamMonitoredValueRequesterService.stopMonitoring( wicaStream ) ;
+      wicaStreamPolledValueRequesterService.stopPolling( wicaStream ) ;
+   }
+
+   private static ServerSentEvent<String> relabel( ServerSentEvent<String> sse, WicaStreamId wicaStreamId )
+   {
+      final long sequence = WicaStreamServerSentEventBuilder.parseEventSequence( sse.id() ).orElse( 0 );
+      return ServerSentEvent.builder( sse.data() )
+            .id( WicaStreamServerSentEventBuilder.formatEventId( wicaStreamId, sequence ) )
+            .event( sse.event() )
+            .comment( sse.comment() )
+            .build();
+   }
+
    private String truncateString( String input )
    {
       final int MAX_LENGTH = 256;
@@ -299,4 +736,35 @@ public class WicaStreamLifecycleService
 
 /*- Nested Classes -----------------------------------------------------------*/
 
+   /**
+    * A data acquisition and publication pipeline, together with its
+    * acquisition and subscription state. Access to the mutable state is
+    * guarded by the lock on the pipeline instance.
+    */
+   private static class Pipeline
+   {
+      private final WicaStreamServerSentEventPublisher publisher;
+      private final WicaStreamConfigurationKey configurationKey;
+      private int handles = 1;
+      private boolean deleted;
+      private boolean acquiring;
+      private int subscribers;
+      private long idleSinceMillis;
+
+      private Pipeline( WicaStreamServerSentEventPublisher publisher, WicaStreamConfigurationKey configurationKey, long idleSinceMillis )
+      {
+         this.publisher = publisher;
+         this.configurationKey = configurationKey;
+         this.idleSinceMillis = idleSinceMillis;
+      }
+   }
+
+   /**
+    * The canonical form of a decoded stream configuration. Two configurations
+    * are considered identical when their stream properties and their sets of
+    * channels (including each channel's properties) are equal, irrespective
+    * of the order or formatting of the original JSON.
+    */
+   private record WicaStreamConfigurationKey( WicaStreamProperties wicaStreamProperties, Set<WicaChannel> wicaChannels ) {}
+
 }
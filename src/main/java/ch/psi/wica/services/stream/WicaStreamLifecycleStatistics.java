@@ -7,8 +7,11 @@ package ch.psi.wica.services.stream;
 import ch.psi.wica.model.app.StatisticsCollectable;
 import net.jcip.annotations.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -24,15 +27,24 @@ public class WicaStreamLifecycleStatistics implements StatisticsCollectable
    private final String statisticsHeader;
    private final AtomicInteger streamsCreated = new AtomicInteger(0);
    private final AtomicInteger streamsDeleted = new AtomicInteger(0);
+   private final Supplier<Collection<WicaStreamServerSentEventPublisher>> publishersSupplier;
 
 
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
 
-   public WicaStreamLifecycleStatistics( String statisticsHeader )
+   /**
+    * Creates a new instance.
+    *
+    * @param statisticsHeader the header under which the statistics are reported.
+    * @param publishersSupplier supplies the publishers of the current streams,
+    *     from which the statistics for slow subscribers are obtained.
+    */
+   public WicaStreamLifecycleStatistics( String statisticsHeader, Supplier<Collection<WicaStreamServerSentEventPublisher>> publishersSupplier )
    {
       this.statisticsHeader = statisticsHeader;
+      this.publishersSupplier = publishersSupplier;
    }
 
 
@@ -43,9 +55,20 @@ public class WicaStreamLifecycleStatistics implements StatisticsCollectable
    @Override
    public Statistics get()
    {
-      return new Statistics( statisticsHeader, List.of( new StatisticsItem("- Streams Created", getStreamsCreated() ),
-                                                        new StatisticsItem("- Streams Deleted", getStreamsDeleted() ) )
-      );
+      final Collection<WicaStreamServerSentEventPublisher> publishers = publishersSupplier.get();
+      final List<StatisticsItem> items = new ArrayList<>();
+      items.add( new StatisticsItem("- Streams Created", getStreamsCreated() ) );
+      items.add( new StatisticsItem("- Streams Deleted", getStreamsDeleted() ) );
+      items.add( new StatisticsItem("- Subscriber Events Conflated", String.valueOf( publishers.stream().mapToLong( WicaStreamServerSentEventPublisher::getEventsConflated ).sum() ) ) );
+      items.add( new StatisticsItem("- Subscriber Values Dropped", String.valueOf( publishers.stream().mapToLong( WicaStreamServerSentEventPublisher::getValuesDropped ).sum() ) ) );
+
+      // The effective value intervals are only reported for streams whose
+      // subscribers are sent values at an adaptive rate.
+      publishers.stream()
+         .filter( p -> p.isAdaptiveRateEnabled() && ( p.getSubscriberCount() > 0 ) )
+         .forEach( p -> items.add( new StatisticsItem( "- Stream '" + p.getStream().getWicaStreamId().asString() + "' Max Effective Value Intervals (ms)",
+                                                       "monitored=" + p.getMaxEffectiveMonitoredValueIntervalInMillis() + ", polled=" + p.getMaxEffectivePolledValueIntervalInMillis() ) ) );
+      return new Statistics( statisticsHeader, items );
    }
 
    @Override
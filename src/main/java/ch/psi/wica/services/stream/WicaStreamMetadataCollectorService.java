@@ -3,7 +3,9 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelMetadataUpdateEvent;
+import ch.psi.wica.infrastructure.stream.WicaStreamDataBufferCursor;
 import ch.psi.wica.infrastructure.stream.WicaStreamMetadataDataBuffer;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
@@ -13,8 +15,7 @@ import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -27,7 +28,7 @@ import java.util.stream.Collectors;
 
 /**
  * Provides a service which listens and buffers metadata update events
- * received via the Spring event listening service making them available
+ * received via the control system event bus making them available
  * as a service to the rest of the application.
  */
 @Service
@@ -46,10 +47,13 @@ public class WicaStreamMetadataCollectorService
 
    /**
     * Constructs a new instance.
+    *
+    * @param controlSystemEventBus the bus which will deliver the metadata update events.
     */
-   public WicaStreamMetadataCollectorService()
+   public WicaStreamMetadataCollectorService( @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       this.wicaStreamMetadataDataBuffer = new WicaStreamMetadataDataBuffer();
+      controlSystemEventBus.subscribe( WicaChannelMetadataUpdateEvent.class, this::handleWicaChannelMetadataUpdateEvent );
    }
 
 
@@ -77,24 +81,66 @@ public class WicaStreamMetadataCollectorService
    }
 
 
-/*- Private methods ----------------------------------------------------------*/
-/*- Nested Classes -----------------------------------------------------------*/
+   /**
+    * Returns a new cursor which can be used to track a subscriber's read
+    * position in the metadata buffer.
+    *
+    * @return the cursor.
+    */
+   public WicaStreamDataBufferCursor createCursor()
+   {
+      return wicaStreamMetadataDataBuffer.createCursor();
+   }
 
-   @Component
-   public class ChannelMetadataUpdateListener
+   /**
+    * Returns a new cursor whose first read returns only the metadata
+    * which the specified stream's channels receive after the cursor was
+    * created.
+    *
+    * @param wicaStream the stream.
+    * @return the cursor.
+    */
+   WicaStreamDataBufferCursor createCursorAtEnd( WicaStream wicaStream )
    {
-      @EventListener
-      public void handleWicaChannelMetadataUpdateEvent( WicaChannelMetadataUpdateEvent wicaChannelMetadataUpdateEvent )
-      {
-         Validate.notNull( wicaChannelMetadataUpdateEvent, "The 'wicaChannelMetadataUpdateEvent' argument was null." );
-
-         logger.trace( "Received METADATA update event: {} ", wicaChannelMetadataUpdateEvent);
-
-         final WicaChannel wicaChannel = wicaChannelMetadataUpdateEvent.getWicaChannel();
-         final WicaDataBufferStorageKey wicaDataBufferStorageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
-         final WicaChannelMetadata wicaChannelMetadata = wicaChannelMetadataUpdateEvent.getWicaChannelMetadata();
-         wicaStreamMetadataDataBuffer.saveDataPoint( wicaDataBufferStorageKey, wicaChannelMetadata );
-      }
+      return wicaStreamMetadataDataBuffer.createCursorAtEnd( wicaStream.getWicaChannels() );
    }
 
+   /**
+    * Returns a map of any channels in the specified wica stream whose metadata
+    * has changed since the previous read made with the specified cursor.
+    *
+    * @param wicaStream the stream
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    */
+   public Map<WicaChannel,WicaChannelMetadata> get( WicaStream wicaStream, WicaStreamDataBufferCursor cursor )
+   {
+      final Map<WicaChannel, List<WicaChannelMetadata>> inputMap = wicaStreamMetadataDataBuffer.getLaterThan( wicaStream.getWicaChannels(), cursor );
+      final var outputMap = inputMap.keySet().stream()
+        .collect( Collectors.toUnmodifiableMap( c -> c, c-> inputMap.get( c ).get( inputMap.get( c ).size() - 1 ) ) );
+
+      logger.trace( "OUTPUT MAP IS: {} ", outputMap );
+      return outputMap;
+   }
+
+   /**
+    * Saves the metadata carried by the supplied event.
+    *
+    * @param wicaChannelMetadataUpdateEvent the event.
+    */
+   public void handleWicaChannelMetadataUpdateEvent( WicaChannelMetadataUpdateEvent wicaChannelMetadataUpdateEvent )
+   {
+      Validate.notNull( wicaChannelMetadataUpdateEvent, "The 'wicaChannelMetadataUpdateEvent' argument was null." );
+
+      logger.trace( "Received METADATA update event: {} ", wicaChannelMetadataUpdateEvent);
+
+      final WicaChannel wicaChannel = wicaChannelMetadataUpdateEvent.getWicaChannel();
+      final WicaDataBufferStorageKey wicaDataBufferStorageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
+      final WicaChannelMetadata wicaChannelMetadata = wicaChannelMetadataUpdateEvent.getWicaChannelMetadata();
+      wicaStreamMetadataDataBuffer.saveDataPoint( wicaDataBufferStorageKey, wicaChannelMetadata );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
 }
@@ -3,6 +3,7 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.*;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
@@ -20,10 +21,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
@@ -49,8 +47,8 @@ public class WicaStreamMetadataRequesterService
    private final int wicaChannelResourceReleaseIntervalInSecs;
    private final boolean wicaChannelPublishChannelMetadataInitialState;
    private final ApplicationEventPublisher applicationEventPublisher;
-   private final Map<WicaDataBufferStorageKey,Integer> channelInterestMap;
-   private final Map<WicaDataBufferStorageKey,LocalDateTime> channelEventMap;
+   private final ControlSystemEventBus controlSystemEventBus;
+   private final WicaStreamChannelInterestTracker channelInterestTracker;
 
    /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -70,35 +68,34 @@ public class WicaStreamMetadataRequesterService
     * @param applicationEventPublisher reference to the application publisher
     *    which will be used to publish the channels to acquire metadata for
     *    or which are no longer of interest.
+    *
+    * @param controlSystemEventBus reference to the bus which will be used to
+    *    publish the initial state of newly requested channels.
     */
    WicaStreamMetadataRequesterService( @Value( "${wica.channel-resource-release-interval-in-secs}" ) int wicaChannelResourceReleaseIntervalInSecs,
                                        @Value( "${wica.channel-publish-channel-metadata-initial-state}" ) boolean wicaChannelPublishChannelMetadataInitialState,
-                                       @Autowired ApplicationEventPublisher applicationEventPublisher )
+                                       @Autowired ApplicationEventPublisher applicationEventPublisher,
+                                       @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       this.wicaChannelResourceReleaseIntervalInSecs = wicaChannelResourceReleaseIntervalInSecs;
       this.wicaChannelPublishChannelMetadataInitialState = wicaChannelPublishChannelMetadataInitialState;
       this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument is null." );
-      this.channelInterestMap = Collections.synchronizedMap( new HashMap<>() );
-      this.channelEventMap = Collections.synchronizedMap( new HashMap<>() );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument is null." );
+      this.channelInterestTracker = new WicaStreamChannelInterestTracker( Duration.ofSeconds( wicaChannelResourceReleaseIntervalInSecs ) );
    }
 
 /*- Class methods ------------------------------------------------------------*/
 /*- Public methods -----------------------------------------------------------*/
 
    /**
-    * This method runs periodically to scan the discard list for entries corresponding
-    * to channels whose metadata is no longer of interest.
+    * This method runs periodically to release the resources associated with
+    * channels whose metadata is no longer of interest. Only the channels
+    * whose release deadline has passed are visited.
     */
    @Scheduled( fixedRate=RESOURCE_RELEASE_SCAN_INTERVAL )
    public void discardChannelsThatHaveReachedEndOfLife()
    {
-      final var timeNow = LocalDateTime.now();
-      channelInterestMap.keySet()
-            .stream()
-            .filter( key -> channelInterestMap.get( key ) == 0 )
-            .filter( key -> timeNow.isAfter( channelEventMap.get( key ).plusSeconds( wicaChannelResourceReleaseIntervalInSecs ) ) )
-            .toList()
-            .forEach( this::discardChannel );
+      channelInterestTracker.releaseExpired( this::discardChannel );
    }
 
 /*- Package-level methods ----------------------------------------------------*/
@@ -142,15 +139,11 @@ public class WicaStreamMetadataRequesterService
       final var storageKey = WicaDataBufferStorageKey.getMetadataStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
 
-      // Update the timestamp of the event that was most recently associated with the storage key.
-      channelEventMap.put( storageKey, LocalDateTime.now() );
-
-      // If a channel with these parameters already exists simply increment the interest count.
-      if ( channelInterestMap.containsKey( storageKey ) )
+      // Increment the level of interest in the channel. If the channel was already
+      // being acquired with these parameters there is nothing more to do.
+      if ( ! channelInterestTracker.increment( storageKey ) )
       {
-         final int newInterestCount = channelInterestMap.get( storageKey ) + 1;
-         logger.debug( "Increasing interest level in metadata for control system channel: '{}' to {}", controlSystemName, newInterestCount );
-         channelInterestMap.put( storageKey, newInterestCount );
+         logger.debug( "Increasing interest level in metadata for control system channel: '{}' to {}", controlSystemName, channelInterestTracker.getInterestCount( storageKey ) );
          return;
       }
 
@@ -161,12 +154,11 @@ public class WicaStreamMetadataRequesterService
       // as being UNKNOWN.
       if ( this.wicaChannelPublishChannelMetadataInitialState )
       {
-         applicationEventPublisher.publishEvent( new WicaChannelMetadataUpdateEvent( wicaChannel, WicaChannelMetadataBuilder.createUnknownInstance() ) );
+         controlSystemEventBus.publish( new WicaChannelMetadataUpdateEvent( wicaChannel, WicaChannelMetadataBuilder.createUnknownInstance() ) );
       }
 
       // Publish an event instructing the underlying control system to start data acquisition.
       applicationEventPublisher.publishEvent( new WicaChannelStartMetadataDataAcquisitionEvent( wicaChannel ) );
-      channelInterestMap.put( storageKey, 1 );
    }
 
    /**
@@ -189,17 +181,10 @@ public class WicaStreamMetadataRequesterService
 
       final var storageKey = WicaDataBufferStorageKey.getMetadataStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
-      Validate.validState( channelInterestMap.containsKey( storageKey ) );
-      Validate.validState( channelInterestMap.get( storageKey ) > 0 );
-
-      // Update the timestamp of the event that was most recently associated with the storage key.
-      channelEventMap.put( storageKey, LocalDateTime.now() );
 
       // Reduce the level of interest in the channel.
-      final int currentInterestCount = channelInterestMap.get( storageKey );
-      final int newInterestCount = currentInterestCount - 1;
+      final int newInterestCount = channelInterestTracker.decrement( storageKey );
       logger.debug( "Reducing interest level in metadata for control system channel named: '{}' to {}" , controlSystemName.asString(), newInterestCount );
-      channelInterestMap.put( storageKey, newInterestCount );
 
       if ( newInterestCount == 0 )
       {
@@ -210,15 +195,8 @@ public class WicaStreamMetadataRequesterService
 
    private void discardChannel( WicaDataBufferStorageKey storageKey )
    {
-      Validate.isTrue( channelInterestMap.containsKey( storageKey ) );
-      Validate.isTrue( channelEventMap.containsKey( storageKey ) );
-      Validate.isTrue( channelInterestMap.get( storageKey ) == 0 );
-
       logger.debug( "Releasing resources for the control system channel associated with storage key: '{}'." , storageKey.toString() );
       applicationEventPublisher.publishEvent( new WicaChannelStopMetadataDataAcquisitionEvent( storageKey.getWicaChannel() ) );
-
-      channelInterestMap.remove( storageKey );
-      channelEventMap.remove( storageKey );
    }
 
 /*- Nested Classes -----------------------------------------------------------*/
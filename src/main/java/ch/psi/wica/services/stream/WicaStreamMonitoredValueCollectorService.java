@@ -3,11 +3,14 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelMonitoredValueUpdateEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledMonitorValueUpdateEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledValueUpdateEvent;
 import ch.psi.wica.infrastructure.channel.WicaChannelValueTimestampRewriter;
+import ch.psi.wica.infrastructure.stream.WicaStreamDataBufferCursor;
 import ch.psi.wica.infrastructure.stream.WicaStreamMonitoredValueDataBuffer;
+import ch.psi.wica.model.app.ControlSystemName;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
@@ -20,15 +23,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.AbstractMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -45,22 +51,32 @@ public class WicaStreamMonitoredValueCollectorService
    private final Logger logger = LoggerFactory.getLogger( WicaStreamMonitoredValueCollectorService.class );
 
    private final WicaStreamMonitoredValueDataBuffer wicaStreamMonitoredValueDataBuffer;
-   private final ApplicationEventPublisher applicationEventPublisher;
+   private final ControlSystemEventBus controlSystemEventBus;
    private final WicaChannelValueTimestampRewriter wicaChannelValueTimestampRewriter;
    private final WicaChannelValueFilteringService wicaChannelValueFilteringService;
+   private final Map<ControlSystemName,WicaChannelValue> latestValueMap;
+   private final WicaStreamChannelListenerRegistry valueSavedListeners;
+   private final WicaStreamChannelListenerRegistry alarmTransitionListeners;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
 
    public WicaStreamMonitoredValueCollectorService( @Value( "${wica.channel-monitored-value-buffer-size}") int bufferSize,
-                                                    @Autowired ApplicationEventPublisher applicationEventPublisher,
+                                                    @Autowired ControlSystemEventBus controlSystemEventBus,
                                                     @Autowired WicaChannelValueTimestampRewriter wicaChannelValueTimestampRewriter,
                                                     @Autowired WicaChannelValueFilteringService wicaChannelValueFilteringService )
    {
       this.wicaStreamMonitoredValueDataBuffer = new WicaStreamMonitoredValueDataBuffer( bufferSize );
-      this.applicationEventPublisher = applicationEventPublisher;
+      this.controlSystemEventBus = controlSystemEventBus;
       this.wicaChannelValueTimestampRewriter = wicaChannelValueTimestampRewriter;
       this.wicaChannelValueFilteringService = wicaChannelValueFilteringService;
+      this.latestValueMap = new ConcurrentHashMap<>();
+      this.valueSavedListeners = new WicaStreamChannelListenerRegistry();
+      this.alarmTransitionListeners = new WicaStreamChannelListenerRegistry();
+
+      controlSystemEventBus.subscribe( WicaChannelMonitoredValueUpdateEvent.class, this::handleWicaChannelMonitoredValueUpdateEvent );
+      controlSystemEventBus.subscribe( WicaChannelPolledMonitorValueUpdateEvent.class, this::handleWicaChannelPolledMonitorValueUpdateEvent );
+      controlSystemEventBus.subscribe( WicaChannelPolledValueUpdateEvent.class, this::handleUpdateEvent );
    }
 
 /*- Class methods ------------------------------------------------------------*/
@@ -77,6 +93,151 @@ public class WicaStreamMonitoredValueCollectorService
                      .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
    }
 
+   /**
+    * Returns a map of the filtered values for any monitored channels in the
+    * specified stream which have received values after the specified time,
+    * for replay to a web client which has reconnected.
+    * <p>
+    * The values are filtered using newly created filters so that the state
+    * of the filters used for live publication is unaffected.
+    *
+    * @param wicaStream the stream.
+    * @param since the time.
+    * @return the map.
+    */
+   Map<WicaChannel,List<WicaChannelValue>> getForReplay( WicaStream wicaStream, LocalDateTime since )
+   {
+      final var inputMap = wicaStreamMonitoredValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), since );
+      return inputMap.entrySet()
+                     .stream()
+                     .filter( e -> e.getKey().getProperties().getDataAcquisitionMode().doesMonitorPublication() )
+                     .map( e -> new AbstractMap.SimpleEntry<>( e.getKey(), wicaChannelValueFilteringService.filterValuesWithNewFilter( e.getKey(), e.getValue() ) ) )
+                     .filter( e -> !e.getValue( ).isEmpty( ) )
+                     .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
+   }
+
+   /**
+    * Returns an indication of whether the data buffer still holds every
+    * value received for the channels in the specified stream after the
+    * specified time.
+    *
+    * @param wicaStream the stream.
+    * @param since the time.
+    * @return the result.
+    */
+   boolean isRetainedSince( WicaStream wicaStream, LocalDateTime since )
+   {
+      return wicaStreamMonitoredValueDataBuffer.isRetainedSince( wicaStream.getWicaChannels(), since );
+   }
+
+   /**
+    * Registers a listener which will be notified each time a value is saved
+    * in the data buffer for any of the channels in the specified stream.
+    * <p>
+    * The listener is called on the thread which delivers the value so it
+    * should do no more than signal that the stream's values have changed.
+    *
+    * @param wicaStream the stream.
+    * @param listener the listener.
+    * @return a handle which unregisters the listener when disposed.
+    */
+   Disposable addValueSavedListener( WicaStream wicaStream, Runnable listener )
+   {
+      Validate.notNull( wicaStream, "The 'wicaStream' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      return valueSavedListeners.add( wicaStream.getWicaChannels(), WicaDataBufferStorageKey::getMonitoredValueStorageKey, ( c, v ) -> listener.run() );
+   }
+
+   /**
+    * Registers a listener which will be notified each time a monitored
+    * channel in the specified stream connects or disconnects, or has its
+    * alarm severity change to or from MAJOR or INVALID.
+    * <p>
+    * The listener is called on the thread which delivers the value, after
+    * the value has been saved in the data buffer, so it should do no more
+    * than hand the value on for later publication.
+    *
+    * @param wicaStream the stream.
+    * @param listener the listener.
+    * @return a handle which unregisters the listener when disposed.
+    */
+   Disposable addAlarmTransitionListener( WicaStream wicaStream, BiConsumer<WicaChannel,WicaChannelValue> listener )
+   {
+      Validate.notNull( wicaStream, "The 'wicaStream' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      final Set<WicaChannel> publishedChannels = wicaStream.getWicaChannels().stream()
+         .filter( c -> c.getProperties().getDataAcquisitionMode().doesMonitorPublication() )
+         .collect( Collectors.toUnmodifiableSet() );
+      return alarmTransitionListeners.add( publishedChannels, WicaDataBufferStorageKey::getMonitoredValueStorageKey, listener );
+   }
+
+   /**
+    * Returns a new cursor which can be used to track a subscriber's read
+    * position in the monitored value buffer.
+    *
+    * @return the cursor.
+    */
+   public WicaStreamDataBufferCursor createCursor()
+   {
+      return wicaStreamMonitoredValueDataBuffer.createCursor();
+   }
+
+   /**
+    * Returns a new cursor whose first read returns only the monitored values
+    * which the specified stream's channels receive after the cursor was
+    * created.
+    *
+    * @param wicaStream the stream.
+    * @return the cursor.
+    */
+   WicaStreamDataBufferCursor createCursorAtEnd( WicaStream wicaStream )
+   {
+      return wicaStreamMonitoredValueDataBuffer.createCursorAtEnd( wicaStream.getWicaChannels() );
+   }
+
+   /**
+    * Returns a map of the filtered values for any monitored channels in the
+    * specified stream which have received new values since the previous
+    * read made with the specified cursor.
+    *
+    * @param wicaStream the stream.
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    */
+   public Map<WicaChannel,List<WicaChannelValue>> get( WicaStream wicaStream, WicaStreamDataBufferCursor cursor )
+   {
+      final var inputMap = wicaStreamMonitoredValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), cursor );
+      return inputMap.entrySet()
+                     .stream()
+                     .filter( e -> e.getKey().getProperties().getDataAcquisitionMode().doesMonitorPublication() )
+                     .map( e -> new AbstractMap.SimpleEntry<>( e.getKey(), wicaChannelValueFilteringService.filterValues( e.getKey(), e.getValue() ) ) )
+                     .filter( e -> !e.getValue( ).isEmpty( ) )
+                     .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
+   }
+
+   /**
+    * Returns a map of the most recent value for any monitored channels in
+    * the specified stream which have received values since the previous read
+    * made with the specified cursor. On the cursor's first read this is the
+    * latest value of every monitored channel in the stream.
+    *
+    * @param wicaStream the stream.
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    */
+   Map<WicaChannel,List<WicaChannelValue>> getLatest( WicaStream wicaStream, WicaStreamDataBufferCursor cursor )
+   {
+      final var inputMap = wicaStreamMonitoredValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), cursor );
+      return inputMap.entrySet()
+                     .stream()
+                     .filter( e -> e.getKey().getProperties().getDataAcquisitionMode().doesMonitorPublication() )
+                     .map( e -> new AbstractMap.SimpleEntry<>( e.getKey(), wicaChannelValueFilteringService.filterLastValues( e.getValue() ) ) )
+                     .filter( e -> !e.getValue( ).isEmpty( ) )
+                     .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
+   }
+
    Map<WicaChannel,List<WicaChannelValue>> getLatest( WicaStream wicaStream )
    {
       final var inputMap = wicaStreamMonitoredValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), LocalDateTime.MIN );
@@ -88,17 +249,37 @@ public class WicaStreamMonitoredValueCollectorService
                      .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
    }
 
-   @EventListener
+   /**
+    * Returns the most recent monitored value received for the specified
+    * control system channel, irrespective of the wica channel(s) on which
+    * it was published.
+    *
+    * @param controlSystemName the name of the control system channel.
+    * @return the value, or empty if no value has been received.
+    */
+   public Optional<WicaChannelValue> getLatestValue( ControlSystemName controlSystemName )
+   {
+      Validate.notNull( controlSystemName, "The 'controlSystemName' argument is null." );
+      return Optional.ofNullable( latestValueMap.get( controlSystemName ) );
+   }
+
    public void handleWicaChannelMonitoredValueUpdateEvent( WicaChannelMonitoredValueUpdateEvent event )
    {
       Validate.notNull( event, "The 'event' argument was null." );
       final WicaChannel wicaChannel = event.getWicaChannel();
       final WicaDataBufferStorageKey wicaDataBufferStorageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
       final WicaChannelValue wicaChannelValue = event.getWicaChannelValue();
+      final Optional<WicaChannelValue> previousValue = wicaStreamMonitoredValueDataBuffer.findLatest( wicaDataBufferStorageKey );
       wicaStreamMonitoredValueDataBuffer.saveDataPoint( wicaDataBufferStorageKey, wicaChannelValue );
+      latestValueMap.put( wicaChannel.getName().getControlSystemName(), wicaChannelValue );
+
+      valueSavedListeners.notifyListeners( wicaDataBufferStorageKey, wicaChannelValue );
+      if ( previousValue.isPresent() && WicaStreamAlarmTransitions.isPriorityTransition( previousValue.get(), wicaChannelValue ) )
+      {
+         alarmTransitionListeners.notifyListeners( wicaDataBufferStorageKey, wicaChannelValue );
+      }
    }
 
-   @EventListener
    public void handleWicaChannelPolledMonitorValueUpdateEvent( WicaChannelPolledMonitorValueUpdateEvent event)
    {
       Validate.notNull( event, "The 'event' argument was null." );
@@ -106,11 +287,10 @@ public class WicaStreamMonitoredValueCollectorService
       final WicaDataBufferStorageKey wicaDataBufferStorageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey(wicaChannel );
       final WicaChannelValue wicaChannelValue = wicaStreamMonitoredValueDataBuffer.getLatest( wicaDataBufferStorageKey );
       final WicaChannelValue rewrittenChannelValue = wicaChannelValueTimestampRewriter.rewrite( wicaChannelValue, LocalDateTime.now() );
-      applicationEventPublisher.publishEvent( new WicaChannelPolledValueUpdateEvent( wicaChannel, rewrittenChannelValue ) );
+      controlSystemEventBus.publish( new WicaChannelPolledValueUpdateEvent( wicaChannel, rewrittenChannelValue ) );
    }
 
    // Detect and log warning message when monitored value lags behind polled value by more than 1 second
-   @EventListener
    public void handleUpdateEvent( WicaChannelPolledValueUpdateEvent event )
    {
       Validate.notNull( event, "The 'event' argument was null." );
@@ -162,6 +342,7 @@ public class WicaStreamMonitoredValueCollectorService
    }
 
 /*- Private methods ----------------------------------------------------------*/
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
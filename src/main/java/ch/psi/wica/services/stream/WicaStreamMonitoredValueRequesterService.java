@@ -3,6 +3,7 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.*;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
@@ -20,10 +21,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -51,8 +50,8 @@ public class WicaStreamMonitoredValueRequesterService
    private final boolean wicaChannelPublishMonitorRestarts;
    private final boolean wicaChannelPublishChannelValueInitialState;
    private final ApplicationEventPublisher applicationEventPublisher;
-   private final Map<WicaDataBufferStorageKey,Integer> monitoredChannelInterestMap;
-   private final Map<WicaDataBufferStorageKey,LocalDateTime> monitoredChannelEventMap;
+   private final ControlSystemEventBus controlSystemEventBus;
+   private final WicaStreamChannelInterestTracker channelInterestTracker;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -76,37 +75,36 @@ public class WicaStreamMonitoredValueRequesterService
     * @param applicationEventPublisher reference to the application publisher
     *    which will be used to publish the channels that are to be monitored
     *    or which are no longer of interest.
+    *
+    * @param controlSystemEventBus reference to the bus which will be used to
+    *    publish the initial state of newly requested channels.
     */
    WicaStreamMonitoredValueRequesterService( @Value( "${wica.channel-resource-release-interval-in-secs}" ) int wicaChannelResourceReleaseIntervalInSecs,
                                              @Value( "${wica.channel-publish-monitor-restarts}" ) boolean wicaChannelPublishMonitorRestarts,
                                              @Value( "${wica.channel-publish-channel-value-initial-state}" ) boolean wicaChannelPublishChannelValueInitialState,
-                                             @Autowired ApplicationEventPublisher applicationEventPublisher )
+                                             @Autowired ApplicationEventPublisher applicationEventPublisher,
+                                             @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       this.wicaChannelResourceReleaseIntervalInSecs = wicaChannelResourceReleaseIntervalInSecs;
       this.wicaChannelPublishMonitorRestarts = wicaChannelPublishMonitorRestarts;
       this.wicaChannelPublishChannelValueInitialState = wicaChannelPublishChannelValueInitialState;
       this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument was null." );
-      this.monitoredChannelInterestMap = Collections.synchronizedMap( new HashMap<>() );
-      this.monitoredChannelEventMap = Collections.synchronizedMap( new HashMap<>() );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument was null." );
+      this.channelInterestTracker = new WicaStreamChannelInterestTracker( Duration.ofSeconds( wicaChannelResourceReleaseIntervalInSecs ) );
    }
 
 /*- Class methods ------------------------------------------------------------*/
 /*- Public methods -----------------------------------------------------------*/
 
    /**
-    * This method runs periodically to scan the discard list for entries corresponding to
-    * monitored channels that are no longer of interest
+    * This method runs periodically to release the resources associated with
+    * monitored channels which are no longer of interest. Only the channels
+    * whose release deadline has passed are visited.
     */
    @Scheduled( fixedRate=RESOURCE_RELEASE_SCAN_INTERVAL )
    public void discardMonitorsThatHaveReachedEndOfLife()
    {
-      final var timeNow = LocalDateTime.now();
-      monitoredChannelInterestMap.keySet()
-            .stream()
-            .filter( key -> monitoredChannelInterestMap.get( key ) == 0 )
-            .filter( key -> timeNow.isAfter( monitoredChannelEventMap.get( key ).plusSeconds( wicaChannelResourceReleaseIntervalInSecs ) ) )
-            .toList( )
-            .forEach( this::discardMonitoredChannel );
+      channelInterestTracker.releaseExpired( this::discardMonitoredChannel );
    }
 
 /*- Package-level methods ----------------------------------------------------*/
@@ -166,7 +164,7 @@ public class WicaStreamMonitoredValueRequesterService
    int getInterestCountForChannel( WicaChannel wicaChannel )
    {
       final var storageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
-      return monitoredChannelInterestMap.getOrDefault( storageKey, 0 );
+      return channelInterestTracker.getInterestCount( storageKey );
    }
 
    /**
@@ -181,7 +179,7 @@ public class WicaStreamMonitoredValueRequesterService
    Optional<LocalDateTime> getLastEventForChannel( WicaChannel wicaChannel )
    {
       final var storageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
-      return Optional.ofNullable( monitoredChannelEventMap.get( storageKey ) );
+      return channelInterestTracker.getLastEventTime( storageKey );
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -211,7 +209,7 @@ public class WicaStreamMonitoredValueRequesterService
       // Publish a channel disconnect value
       if ( wicaChannelPublishMonitorRestarts )
       {
-         applicationEventPublisher.publishEvent( new WicaChannelMonitoredValueUpdateEvent( wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+         controlSystemEventBus.publish( new WicaChannelMonitoredValueUpdateEvent( wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
       }
 
       // Tell the underlying control system to START monitoring this channel.
@@ -233,17 +231,11 @@ public class WicaStreamMonitoredValueRequesterService
       final var storageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
 
-      // Update the timestamp associated with the storage key. These timestamps are used by
-      // the periodic scheduling task to determine when to release a channel for which
-      // there is no longer any interest.
-      monitoredChannelEventMap.put( storageKey, LocalDateTime.now() );
-
-      // If a channel with these monitoring parameters already exists simply increment the interest count.
-      if ( monitoredChannelInterestMap.containsKey( storageKey ) )
+      // Increment the level of interest in the channel. If the channel was already
+      // being acquired with these parameters there is nothing more to do.
+      if ( ! channelInterestTracker.increment( storageKey ) )
       {
-         final int newInterestCount = monitoredChannelInterestMap.get( storageKey ) + 1;
-         logger.debug( "Increasing interest level in monitored control system channel: '{}' to {}", controlSystemName, newInterestCount );
-         monitoredChannelInterestMap.put( storageKey, newInterestCount );
+         logger.debug( "Increasing interest level in monitored control system channel: '{}' to {}", controlSystemName, channelInterestTracker.getInterestCount( storageKey ) );
          return;
       }
 
@@ -254,13 +246,12 @@ public class WicaStreamMonitoredValueRequesterService
       // When the initial state publication feature is enabled publish the initial channel's state as being DISCONNECTED.
       if ( this.wicaChannelPublishChannelValueInitialState )
       {
-         applicationEventPublisher.publishEvent( new WicaChannelMonitoredValueUpdateEvent(wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+         controlSystemEventBus.publish( new WicaChannelMonitoredValueUpdateEvent(wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
       }
 
       // Publish an event instructing the underlying control system to start monitoring.
       // Pretty soon the first monitored value should arrive.
       applicationEventPublisher.publishEvent( new WicaChannelStartMonitoringEvent( wicaChannel ) );
-      monitoredChannelInterestMap.put( storageKey, 1 );
    }
 
    /**
@@ -284,17 +275,10 @@ public class WicaStreamMonitoredValueRequesterService
 
       final var storageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
-      Validate.validState( monitoredChannelInterestMap.containsKey( storageKey ) );
-      Validate.validState( monitoredChannelInterestMap.get( storageKey ) > 0 );
-
-      // Update the timestamp of the event that was most recently associated with the storage key.
-      monitoredChannelEventMap.put( storageKey, LocalDateTime.now() );
 
       // Reduce the level of interest in the channel.
-      final int currentInterestCount = monitoredChannelInterestMap.get( storageKey );
-      final int newInterestCount = currentInterestCount - 1;
+      final int newInterestCount = channelInterestTracker.decrement( storageKey );
       logger.debug( "Reducing interest level in monitored control system channel named: '{}' to {}" , controlSystemName.asString(), newInterestCount );
-      monitoredChannelInterestMap.put( storageKey, newInterestCount );
 
       if ( newInterestCount == 0 )
       {
@@ -305,15 +289,8 @@ public class WicaStreamMonitoredValueRequesterService
 
    private void discardMonitoredChannel( WicaDataBufferStorageKey storageKey )
    {
-      Validate.isTrue( monitoredChannelInterestMap.containsKey( storageKey ) );
-      Validate.isTrue( monitoredChannelEventMap.containsKey( storageKey ) );
-      Validate.isTrue( monitoredChannelInterestMap.get(storageKey ) == 0 );
-
       logger.debug( "Releasing resources for monitored control system channel associated with storage key: '{}'." , storageKey.toString() );
       applicationEventPublisher.publishEvent( new WicaChannelStopMonitoringEvent( storageKey.getWicaChannel() ) );
-
-      monitoredChannelInterestMap.remove( storageKey );
-      monitoredChannelEventMap.remove( storageKey );
    }
 
 /*- Nested Classes -----------------------------------------------------------*/
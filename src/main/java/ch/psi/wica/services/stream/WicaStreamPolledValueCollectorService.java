@@ -3,7 +3,9 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledValueUpdateEvent;
+import ch.psi.wica.infrastructure.stream.WicaStreamDataBufferCursor;
 import ch.psi.wica.infrastructure.stream.WicaStreamPolledValueDataBuffer;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
@@ -14,13 +16,16 @@ import net.jcip.annotations.ThreadSafe;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 
 import java.time.LocalDateTime;
 import java.util.AbstractMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -36,15 +41,20 @@ public class WicaStreamPolledValueCollectorService
 
    private final WicaStreamPolledValueDataBuffer wicaStreamPolledValueDataBuffer;
    private final WicaChannelValueFilteringService wicaChannelValueFilteringService;
+   private final WicaStreamChannelListenerRegistry alarmTransitionListeners;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
 
    public WicaStreamPolledValueCollectorService( @Value( "${wica.channel-polled-value-buffer-size}") int bufferSize,
-                                                 @Autowired WicaChannelValueFilteringService wicaChannelValueFilteringService )
+                                                 @Autowired WicaChannelValueFilteringService wicaChannelValueFilteringService,
+                                                 @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       this.wicaStreamPolledValueDataBuffer = new WicaStreamPolledValueDataBuffer( bufferSize );
       this.wicaChannelValueFilteringService = wicaChannelValueFilteringService;
+      this.alarmTransitionListeners = new WicaStreamChannelListenerRegistry();
+
+      controlSystemEventBus.subscribe( WicaChannelPolledValueUpdateEvent.class, this::handleUpdateEvent );
    }
 
 /*- Class methods ------------------------------------------------------------*/
@@ -60,6 +70,108 @@ public class WicaStreamPolledValueCollectorService
                      .collect( Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue ) );
    }
 
+   /**
+    * Returns an indication of whether the data buffer still holds every
+    * value received for the channels in the specified stream after the
+    * specified time.
+    *
+    * @param wicaStream the stream.
+    * @param since the time.
+    * @return the result.
+    */
+   boolean isRetainedSince( WicaStream wicaStream, LocalDateTime since )
+   {
+      return wicaStreamPolledValueDataBuffer.isRetainedSince( wicaStream.getWicaChannels(), since );
+   }
+
+   /**
+    * Registers a listener which will be notified each time a polled channel
+    * in the specified stream connects or disconnects, or has its alarm
+    * severity change to or from MAJOR or INVALID.
+    * <p>
+    * The listener is called on the thread which delivers the value, after
+    * the value has been saved in the data buffer, so it should do no more
+    * than hand the value on for later publication.
+    *
+    * @param wicaStream the stream.
+    * @param listener the listener.
+    * @return a handle which unregisters the listener when disposed.
+    */
+   Disposable addAlarmTransitionListener( WicaStream wicaStream, BiConsumer<WicaChannel,WicaChannelValue> listener )
+   {
+      Validate.notNull( wicaStream, "The 'wicaStream' argument is null." );
+      Validate.notNull( listener, "The 'listener' argument is null." );
+
+      final Set<WicaChannel> publishedChannels = wicaStream.getWicaChannels().stream()
+         .filter( c -> c.getProperties().getDataAcquisitionMode().doesPolling() )
+         .collect( Collectors.toUnmodifiableSet() );
+      return alarmTransitionListeners.add( publishedChannels, WicaDataBufferStorageKey::getPolledValueStorageKey, listener );
+   }
+
+   /**
+    * Returns a new cursor which can be used to track a subscriber's read
+    * position in the polled value buffer.
+    *
+    * @return the cursor.
+    */
+   public WicaStreamDataBufferCursor createCursor()
+   {
+      return wicaStreamPolledValueDataBuffer.createCursor();
+   }
+
+   /**
+    * Returns a new cursor whose first read returns only the polled values
+    * which the specified stream's channels receive after the cursor was
+    * created.
+    *
+    * @param wicaStream the stream.
+    * @return the cursor.
+    */
+   WicaStreamDataBufferCursor createCursorAtEnd( WicaStream wicaStream )
+   {
+      return wicaStreamPolledValueDataBuffer.createCursorAtEnd( wicaStream.getWicaChannels() );
+   }
+
+   /**
+    * Returns a map of the values for any polled channels in the specified
+    * stream which have received new values since the previous read made
+    * with the specified cursor.
+    *
+    * @param wicaStream the stream.
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    */
+   public Map<WicaChannel,List<WicaChannelValue>> get( WicaStream wicaStream, WicaStreamDataBufferCursor cursor )
+   {
+      final var inputMap = wicaStreamPolledValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), cursor );
+      return inputMap.entrySet()
+                     .stream()
+                     .filter( e -> e.getKey().getProperties().getDataAcquisitionMode().doesPolling() )
+                     .filter( e -> !e.getValue( ).isEmpty( ) )
+                     .collect( Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue ) );
+   }
+
+   /**
+    * Returns a map of the most recent value for any polled channels in the
+    * specified stream which have received values since the previous read
+    * made with the specified cursor. On the cursor's first read this is the
+    * latest value of every polled channel in the stream.
+    *
+    * @param wicaStream the stream.
+    * @param cursor the cursor recording the subscriber's read position.
+    * @return the map.
+    */
+   Map<WicaChannel,List<WicaChannelValue>> getLatest( WicaStream wicaStream, WicaStreamDataBufferCursor cursor )
+   {
+      final var inputMap = wicaStreamPolledValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), cursor );
+      return inputMap.entrySet()
+            .stream()
+            .filter( e -> e.getKey().getProperties().getDataAcquisitionMode().doesPolling() )
+            .map( e -> new AbstractMap.SimpleEntry<>(e.getKey(), wicaChannelValueFilteringService.filterLastValues( e.getValue() ) ) )
+            .filter( e -> !e.getValue( ).isEmpty( ) )
+            .collect( Collectors.toUnmodifiableMap( Map.Entry::getKey, Map.Entry::getValue ) );
+   }
+
    Map<WicaChannel,List<WicaChannelValue>> getLatest( WicaStream wicaStream )
    {
       final var inputMap = wicaStreamPolledValueDataBuffer.getLaterThan( wicaStream.getWicaChannels(), LocalDateTime.MIN );
@@ -74,14 +186,19 @@ public class WicaStreamPolledValueCollectorService
 
 /*- Private methods ----------------------------------------------------------*/
 
-   @EventListener
    public void handleUpdateEvent( WicaChannelPolledValueUpdateEvent event)
    {
       Validate.notNull( event, "The 'event' argument is null." );
       final WicaChannel wicaChannel = event.getWicaChannel();
       final WicaDataBufferStorageKey wicaDataBufferStorageKey = WicaDataBufferStorageKey.getPolledValueStorageKey( wicaChannel );
       final WicaChannelValue wicaChannelValue = event.getWicaChannelValue();
+      final Optional<WicaChannelValue> previousValue = wicaStreamPolledValueDataBuffer.findLatest( wicaDataBufferStorageKey );
       wicaStreamPolledValueDataBuffer.saveDataPoint( wicaDataBufferStorageKey, wicaChannelValue );
+
+      if ( previousValue.isPresent() && WicaStreamAlarmTransitions.isPriorityTransition( previousValue.get(), wicaChannelValue ) )
+      {
+         alarmTransitionListeners.notifyListeners( wicaDataBufferStorageKey, wicaChannelValue );
+      }
    }
 
 /*- Nested Classes -----------------------------------------------------------*/
@@ -3,6 +3,7 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.*;
 import ch.psi.wica.model.app.WicaDataBufferStorageKey;
 import ch.psi.wica.model.channel.WicaChannel;
@@ -20,10 +21,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 /*- Interface Declaration ----------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
@@ -50,8 +48,8 @@ public class WicaStreamPolledValueRequesterService
    private final boolean wicaChannelPublishPollerRestarts;
    private final boolean wicaChannelPublishChannelValueInitialState;
    private final ApplicationEventPublisher applicationEventPublisher;
-   private final Map<WicaDataBufferStorageKey,Integer> polledChannelInterestMap;
-   private final Map<WicaDataBufferStorageKey, LocalDateTime> polledChannelEventMap;
+   private final ControlSystemEventBus controlSystemEventBus;
+   private final WicaStreamChannelInterestTracker channelInterestTracker;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -75,37 +73,36 @@ public class WicaStreamPolledValueRequesterService
     * @param applicationEventPublisher reference to the application publisher
     *    which will be used to publish the channels that are to be polled
     *    or which are no longer of interest.
+    *
+    * @param controlSystemEventBus reference to the bus which will be used to
+    *    publish the initial state of newly requested channels.
     */
    WicaStreamPolledValueRequesterService( @Value( "${wica.channel-resource-release-interval-in-secs}" ) int wicaChannelResourceReleaseIntervalInSecs,
                                           @Value( "${wica.channel-publish-poller-restarts}" ) boolean wicaChannelPublishPollerRestarts,
                                           @Value( "${wica.channel-publish-channel-value-initial-state}" ) boolean wicaChannelPublishChannelValueInitialState,
-                                          @Autowired ApplicationEventPublisher applicationEventPublisher )
+                                          @Autowired ApplicationEventPublisher applicationEventPublisher,
+                                          @Autowired ControlSystemEventBus controlSystemEventBus )
    {
       this.wicaChannelResourceReleaseIntervalInSecs = wicaChannelResourceReleaseIntervalInSecs;
       this.wicaChannelPublishPollerRestarts = wicaChannelPublishPollerRestarts;
       this.wicaChannelPublishChannelValueInitialState = wicaChannelPublishChannelValueInitialState;
       this.applicationEventPublisher = Validate.notNull( applicationEventPublisher, "The 'applicationEventPublisher' argument is null." );
-      this.polledChannelInterestMap = Collections.synchronizedMap( new HashMap<>() );
-      this.polledChannelEventMap = Collections.synchronizedMap( new HashMap<>() );
+      this.controlSystemEventBus = Validate.notNull( controlSystemEventBus, "The 'controlSystemEventBus' argument is null." );
+      this.channelInterestTracker = new WicaStreamChannelInterestTracker( Duration.ofSeconds( wicaChannelResourceReleaseIntervalInSecs ) );
    }
 
 /*- Class methods ------------------------------------------------------------*/
 /*- Public methods -----------------------------------------------------------*/
 
    /**
-    * This method runs periodically to scan the discard list for entries corresponding to
-    * polled channels that are no longer of interest
+    * This method runs periodically to release the resources associated with
+    * polled channels which are no longer of interest. Only the channels
+    * whose release deadline has passed are visited.
     */
    @Scheduled( fixedRate=RESOURCE_RELEASE_SCAN_INTERVAL )
    public void discardPollersThatHaveReachedEndOfLife()
    {
-      final var timeNow = LocalDateTime.now();
-      polledChannelInterestMap.keySet()
-            .stream()
-            .filter( key -> polledChannelInterestMap.get( key ) == 0 )
-            .filter( key -> timeNow.isAfter( polledChannelEventMap.get( key ).plusSeconds( wicaChannelResourceReleaseIntervalInSecs ) ) )
-            .toList()
-            .forEach( this::discardPolledChannel );
+      channelInterestTracker.releaseExpired( this::discardPolledChannel );
    }
 
 /*- Package-level methods ----------------------------------------------------*/
@@ -165,7 +162,7 @@ public class WicaStreamPolledValueRequesterService
    int getInterestCountForChannel( WicaChannel wicaChannel )
    {
       final var storageKey = WicaDataBufferStorageKey.getPolledValueStorageKey( wicaChannel );
-      return polledChannelInterestMap.getOrDefault( storageKey, 0 );
+      return channelInterestTracker.getInterestCount( storageKey );
    }
 
 /*- Private methods ----------------------------------------------------------*/
@@ -195,7 +192,7 @@ public class WicaStreamPolledValueRequesterService
       // Publish a channel disconnect value
       if ( wicaChannelPublishPollerRestarts )
       {
-         applicationEventPublisher.publishEvent( new WicaChannelPolledValueUpdateEvent( wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+         controlSystemEventBus.publish( new WicaChannelPolledValueUpdateEvent( wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
       }
 
       // Tell the underlying control system to START polling this channel.
@@ -216,17 +213,11 @@ public class WicaStreamPolledValueRequesterService
       final var storageKey = WicaDataBufferStorageKey.getPolledValueStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
 
-      // Update the timestamp associated with the storage key. These timestamps are used by
-      // the periodic scheduling task to determine when to release a channel for which
-      // there is no longer any interest.
-      polledChannelEventMap.put( storageKey, LocalDateTime.now() );
-
-      // If a channel with these polling parameters already exists simply increment the interest count.
-      if ( polledChannelInterestMap.containsKey( storageKey ) )
+      // Increment the level of interest in the channel. If the channel was already
+      // being acquired with these parameters there is nothing more to do.
+      if ( ! channelInterestTracker.increment( storageKey ) )
       {
-         final int newInterestCount = polledChannelInterestMap.get( storageKey ) + 1;
-         logger.debug( "Increasing interest level in polled control system channel named: '{}' to {}", controlSystemName, newInterestCount );
-         polledChannelInterestMap.put( storageKey, newInterestCount );
+         logger.debug( "Increasing interest level in polled control system channel named: '{}' to {}", controlSystemName, channelInterestTracker.getInterestCount( storageKey ) );
          return;
       }
 
@@ -237,13 +228,12 @@ public class WicaStreamPolledValueRequesterService
       // When the initial state publication feature is enabled publish the initial channel's state as being DISCONNECTED.
       if ( this.wicaChannelPublishChannelValueInitialState )
       {
-         applicationEventPublisher.publishEvent( new WicaChannelPolledValueUpdateEvent(wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+         controlSystemEventBus.publish( new WicaChannelPolledValueUpdateEvent(wicaChannel, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
       }
 
       // Publish an event instructing the underlying control system to start polling.
       // Pretty soon the first polled value should arrive.
       applicationEventPublisher.publishEvent( new WicaChannelStartPollingEvent( wicaChannel ) );
-      polledChannelInterestMap.put( storageKey, 1 );
    }
 
    /**
@@ -266,17 +256,10 @@ public class WicaStreamPolledValueRequesterService
 
       final var storageKey = WicaDataBufferStorageKey.getPolledValueStorageKey( wicaChannel );
       final var controlSystemName = wicaChannel.getName().getControlSystemName();
-      Validate.validState( polledChannelInterestMap.containsKey( storageKey ) );
-      Validate.validState( polledChannelInterestMap.get( storageKey ) > 0 );
-
-      // Update the timestamp of the event that was most recently associated with the storage key.
-      polledChannelEventMap.put( storageKey, LocalDateTime.now() );
 
       // Reduce the level of interest in the channel.
-      final int currentInterestCount = polledChannelInterestMap.get( storageKey );
-      final int newInterestCount = currentInterestCount - 1;
+      final int newInterestCount = channelInterestTracker.decrement( storageKey );
       logger.debug( "Reducing interest level in polled control system channel named: '{}' to {}" , controlSystemName.asString(), newInterestCount );
-      polledChannelInterestMap.put( storageKey, newInterestCount );
 
       if ( newInterestCount == 0 )
       {
@@ -287,15 +270,8 @@ public class WicaStreamPolledValueRequesterService
 
    private void discardPolledChannel( WicaDataBufferStorageKey storageKey )
    {
-      Validate.isTrue( polledChannelInterestMap.containsKey( storageKey ) );
-      Validate.isTrue( polledChannelEventMap.containsKey( storageKey ) );
-      Validate.isTrue( polledChannelInterestMap.get(storageKey ) == 0 );
-
       logger.debug( "Releasing resources for polled control system channel associated with storage key: '{}'." , storageKey.toString() );
       applicationEventPublisher.publishEvent( new WicaChannelStopPollingEvent( storageKey.getWicaChannel() ) );
-
-      polledChannelInterestMap.remove( storageKey );
-      polledChannelEventMap.remove( storageKey );
    }
 
    /*- Nested Classes -----------------------------------------------------------*/
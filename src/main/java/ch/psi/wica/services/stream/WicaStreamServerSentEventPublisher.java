@@ -4,7 +4,11 @@ package ch.psi.wica.services.stream;
 /*- Imported packages --------------------------------------------------------*/
 /*- Class Declaration --------------------------------------------------------*/
 
+import ch.psi.wica.infrastructure.stream.WicaStreamDataBufferCursor;
 import ch.psi.wica.infrastructure.stream.WicaStreamServerSentEventBuilder;
+import ch.psi.wica.model.channel.WicaChannel;
+import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
 import ch.psi.wica.model.stream.WicaStream;
 import ch.psi.wica.model.stream.WicaStreamId;
 import ch.psi.wica.model.stream.WicaStreamProperties;
@@ -15,16 +19,69 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 /**
  * Provides the functionality to publish a stream of Server-Sent-Events (SSE)
  * to remote web clients.
+ * <p>
+ * All subscribers to the publisher share a single, reference-counted, hot
+ * flux. The work of scanning the data buffers and serializing the SSE
+ * payloads is therefore performed once per stream irrespective of the
+ * number of subscribers. The shared flux starts when the first subscriber
+ * arrives and stops when the last subscriber leaves.
+ * <p>
+ * Subscribers which join whilst the shared flux is already running are
+ * first sent a snapshot of the latest metadata and values for all channels
+ * in the stream. The snapshot is cached and reused by further subscribers
+ * until the shared flux next reads from the data buffers.
+ * <p>
+ * Every event is assigned a sequence number which increases monotonically
+ * within the stream. Web clients which reconnect after a network
+ * interruption present the ID of the last event they received. When the
+ * values published since that event are still held in the data buffers
+ * only those values are replayed to the client; otherwise the client is
+ * sent the snapshot.
+ * <p>
+ * Each subscriber receives the shared flux through its own bounded outbox.
+ * When the subscriber's web client cannot keep up the events waiting in the
+ * outbox are conflated so that the client still receives the latest state
+ * of every channel without holding back the other subscribers. Optionally
+ * the rate at which each outbox sends values adapts to the speed of its
+ * subscriber's web client.
+ * <p>
+ * Optionally monitored values are also pushed to subscribers soon after
+ * they arrive. The arrival of a value opens a short micro-batch window at
+ * the end of which the values received in the window are published
+ * together. The monitored value interval then only determines the maximum
+ * time between monitored value events.
+ * <p>
+ * Optionally the publisher also has an alarm lane. Channels which connect
+ * or disconnect, or whose alarm severity changes to or from MAJOR or
+ * INVALID, are published straight away in alarm value events, with the
+ * transitions detected within a short coalescing window sent together.
+ * The routine publication of values is unaffected.
  */
 @ThreadSafe
 public class WicaStreamServerSentEventPublisher
@@ -44,8 +101,30 @@ public class WicaStreamServerSentEventPublisher
 
    private final WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService;
    private final WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService;
+   private final WicaStreamTickSchedulerService wicaStreamTickSchedulerService;
    private final AtomicBoolean shutdown = new AtomicBoolean( false );
 
+   private final Flux<WicaStreamSubscriberOutbox.Event> sharedFlux;
+   private final AtomicInteger subscriberCount = new AtomicInteger( 0 );
+   private final AtomicLong eventsConflated = new AtomicLong( 0 );
+   private final AtomicLong valuesDropped = new AtomicLong( 0 );
+   private final WicaStreamSubscriberOutbox.Pacing pacing;
+   private final Options options;
+   private static final int ALARM_LANE_MAX_BATCH_SIZE = 1024;
+   private static final int ALARM_LANE_MAX_PENDING_BATCHES = 16;
+   private final Set<WicaStreamSubscriberOutbox> outboxes = ConcurrentHashMap.newKeySet();
+   private final AtomicLong snapshotGeneration = new AtomicLong( 0 );
+   private final AtomicReference<Snapshot> cachedSnapshot = new AtomicReference<>();
+   private final AtomicReference<ResumePosition> resumePosition = new AtomicReference<>();
+
+   // The following fields are only updated from the combined flux after the
+   // individual fluxes have been merged, which serialises the updates.
+   private static final int EVENT_HISTORY_SIZE = 1024;
+   private final AtomicLong eventSequence = new AtomicLong( 0 );
+   private final EventHistory eventHistory = new EventHistory( EVENT_HISTORY_SIZE );
+   private volatile LocalDateTime monitoredValuesDeliveredUpTo;
+   private volatile LocalDateTime polledValuesDeliveredUpTo;
+   private volatile long lastMetadataEventSequence = -1;
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
@@ -61,13 +140,49 @@ public class WicaStreamServerSentEventPublisher
     * @param wicaStreamPolledValueCollectorService the service which will be used to collect polled values.
     * @param wicaChannelMetadataMapSerializerService the service which will be used to serialize channel metadata.
     * @param wicaChannelValueMapSerializerService the service which will be used to serialize channel values.
+    * @param wicaStreamTickSchedulerService the service which will drive the publication of each flux.
+    */
+   WicaStreamServerSentEventPublisher( WicaStream wicaStream,
+                                       WicaStreamMetadataCollectorService wicaStreamMetadataCollectorService,
+                                       WicaStreamMonitoredValueCollectorService wicaStreamMonitoredValueCollectorService,
+                                       WicaStreamPolledValueCollectorService wicaStreamPolledValueCollectorService,
+                                       WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService,
+                                       WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService,
+                                       WicaStreamTickSchedulerService wicaStreamTickSchedulerService )
+   {
+      this( wicaStream,
+            wicaStreamMetadataCollectorService,
+            wicaStreamMonitoredValueCollectorService,
+            wicaStreamPolledValueCollectorService,
+            wicaChannelMetadataMapSerializerService,
+            wicaChannelValueMapSerializerService,
+            wicaStreamTickSchedulerService,
+            Options.DEFAULTS );
+   }
+
+   /**
+    * Create a new publisher whose subscribers may optionally be sent values
+    * at a rate which adapts to the speed of their web clients, to whom
+    * monitored values may optionally be pushed soon after they arrive, and
+    * who may optionally be sent alarm transitions as soon as they are detected.
+    *
+    * @param wicaStream the stream associated with this publisher.
+    * @param wicaStreamMetadataCollectorService the service which will be used to collect metadata.
+    * @param wicaStreamMonitoredValueCollectorService the service which will be used to collect monitored values.
+    * @param wicaStreamPolledValueCollectorService the service which will be used to collect polled values.
+    * @param wicaChannelMetadataMapSerializerService the service which will be used to serialize channel metadata.
+    * @param wicaChannelValueMapSerializerService the service which will be used to serialize channel values.
+    * @param wicaStreamTickSchedulerService the service which will drive the publication of each flux.
+    * @param options the publication options.
     */
    WicaStreamServerSentEventPublisher( WicaStream wicaStream,
                                        WicaStreamMetadataCollectorService wicaStreamMetadataCollectorService,
                                        WicaStreamMonitoredValueCollectorService wicaStreamMonitoredValueCollectorService,
                                        WicaStreamPolledValueCollectorService wicaStreamPolledValueCollectorService,
                                        WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService,
-                                       WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService )
+                                       WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService,
+                                       WicaStreamTickSchedulerService wicaStreamTickSchedulerService,
+                                       Options options )
    {
       this.wicaStream = Validate.notNull( wicaStream, "The 'wicaStream' argument is null." );
       this.wicaStreamMetadataCollectorService = Validate.notNull( wicaStreamMetadataCollectorService, "The 'wicaStreamMetadataCollectorService' argument is null." );
@@ -75,9 +190,21 @@ public class WicaStreamServerSentEventPublisher
       this.wicaStreamPolledValueCollectorService = Validate.notNull( wicaStreamPolledValueCollectorService, "The 'wicaStreamPolledValueCollectorService' argument is null." );
       this.wicaChannelMetadataMapSerializerService = Validate.notNull(wicaChannelMetadataMapSerializerService, "The 'wicaChannelMetadataMapSerializerService' argument is null.");
       this.wicaChannelValueMapSerializerService = Validate.notNull(wicaChannelValueMapSerializerService, "The 'wicaChannelValueMapSerializerService' argument is null.");
+      this.wicaStreamTickSchedulerService = Validate.notNull( wicaStreamTickSchedulerService, "The 'wicaStreamTickSchedulerService' argument is null." );
 
       this.wicaStreamId = Validate.notNull( wicaStream.getWicaStreamId(), "The 'wicaStreamId' argument is null." );
       this.wicaStreamProperties = Validate.notNull( wicaStream.getWicaStreamProperties(), "The 'wicaStreamProperties' argument is null." );
+      this.options = Validate.notNull( options, "The 'options' argument is null." );
+
+      // There is nothing to adapt when the stream publishes no values.
+      final int monitoredValueIntervalInMillis = Math.max( 0, wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() );
+      final int polledValueIntervalInMillis = Math.max( 0, wicaStreamProperties.getPolledValueFluxIntervalInMillis() );
+      final boolean adaptive = options.adaptiveRateEnabled() && ( ( monitoredValueIntervalInMillis > 0 ) || ( polledValueIntervalInMillis > 0 ) );
+      this.pacing = new WicaStreamSubscriberOutbox.Pacing( adaptive, monitoredValueIntervalInMillis, polledValueIntervalInMillis, options.adaptiveRateMaxSlowdownFactor() );
+
+      // The combined flux is created afresh each time the shared flux is
+      // restarted so that each run begins with a new set of buffer cursors.
+      this.sharedFlux = Flux.defer( this::createCombinedFlux ).publish().refCount();
 
       shutdown.set( false );
    }
@@ -97,6 +224,10 @@ public class WicaStreamServerSentEventPublisher
 
    /**
     * Returns a reference to this publisher's combined flux.
+    * <p>
+    * Each subscription to the returned flux shares the publisher's hot
+    * flux. Subscribers which join whilst the hot flux is already running
+    * first receive a snapshot of the stream's latest metadata and values.
     *
     * @return the flux.
     *
@@ -104,12 +235,138 @@ public class WicaStreamServerSentEventPublisher
     */
    Flux<ServerSentEvent<String>> getFlux()
    {
+      return getFlux( OptionalLong.empty() );
+   }
+
+   /**
+    * Returns a reference to this publisher's combined flux on behalf of a
+    * web client which is reconnecting to the stream.
+    * <p>
+    * Each subscription to the returned flux shares the publisher's hot
+    * flux. When the specified event sequence number is present and the
+    * values published since that event are still held in the data buffers
+    * the subscriber first receives only those values. Otherwise, subscribers
+    * which join whilst the hot flux is already running first receive a
+    * snapshot of the stream's latest metadata and values.
+    *
+    * @param lastEventSequence the sequence number of the last event which
+    *     the client received, or empty if unknown.
+    * @return the flux.
+    *
+    * @throws IllegalStateException if the flux has been shutdown.
+    */
+   Flux<ServerSentEvent<String>> getFlux( OptionalLong lastEventSequence )
+   {
+      Validate.notNull( lastEventSequence, "The 'lastEventSequence' argument is null." );
       if ( shutdown.get() )
       {
          logger.error( "Programming error: unexpected state - attempt to get flux after publisher has been shut down." );
          throw new IllegalStateException( "Call to getFlux(), but the publisher has already been shut down." );
       }
-      return createCombinedFlux();
+      return Flux.defer( () -> {
+         final boolean lateJoiner = subscriberCount.getAndIncrement() > 0;
+
+         // Note: when the hot flux is not yet running its first read of the
+         // data buffers delivers the latest values, so no snapshot is needed.
+         // But a client which is sent a replay already has those values, so
+         // the hot flux then resumes from the position the replay was read
+         // from. That position is taken before the replay is read so that no
+         // value can fall between the two.
+         final ResumePosition position = ( lastEventSequence.isPresent() && ! lateJoiner ) ? createResumePosition() : null;
+         final Optional<List<ServerSentEvent<String>>> replay = lastEventSequence.isPresent() ? getReplay( lastEventSequence.getAsLong() ) : Optional.empty();
+         if ( ( position != null ) && replay.isPresent() )
+         {
+            resumePosition.set( position );
+         }
+         final WicaStreamSubscriberOutbox outbox = new WicaStreamSubscriberOutbox( wicaStreamId, wicaChannelMetadataMapSerializerService, wicaChannelValueMapSerializerService, eventsConflated, valuesDropped, pacing );
+         outboxes.add( outbox );
+         final Flux<ServerSentEvent<String>> outboxFlux = outbox.attach( sharedFlux );
+         final Flux<ServerSentEvent<String>> subscriberFlux;
+         if ( replay.isPresent() )
+         {
+            subscriberFlux = Flux.fromIterable( replay.get() ).concatWith( outboxFlux );
+         }
+         else
+         {
+            subscriberFlux = lateJoiner ? Flux.fromIterable( getSnapshot() ).concatWith( outboxFlux ) : outboxFlux;
+         }
+         return subscriberFlux.doFinally( signal -> {
+            subscriberCount.decrementAndGet();
+            resumePosition.compareAndSet( position, null );
+            outboxes.remove( outbox );
+            if ( ( outbox.getEventsConflated() > 0 ) || ( outbox.getValuesDropped() > 0 ) )
+            {
+               logger.info( "subscriber to stream with id: '{}' could not keep up. {} events were conflated and {} channel values were dropped.", wicaStreamId, outbox.getEventsConflated(), outbox.getValuesDropped() );
+            }
+         } );
+      } );
+   }
+
+   /**
+    * Returns the number of subscribers currently sharing this publisher's flux.
+    *
+    * @return the result.
+    */
+   public int getSubscriberCount()
+   {
+      return subscriberCount.get();
+   }
+
+   /**
+    * Returns the number of events which were conflated, across all of this
+    * publisher's subscribers, because a web client could not keep up.
+    *
+    * @return the result.
+    */
+   public long getEventsConflated()
+   {
+      return eventsConflated.get();
+   }
+
+   /**
+    * Returns the number of channel values which were dropped, across all of
+    * this publisher's subscribers, when events were conflated.
+    *
+    * @return the result.
+    */
+   public long getValuesDropped()
+   {
+      return valuesDropped.get();
+   }
+
+   /**
+    * Returns whether the rate at which values are sent to this publisher's
+    * subscribers adapts to the speed of their web clients.
+    *
+    * @return the result.
+    */
+   public boolean isAdaptiveRateEnabled()
+   {
+      return pacing.adaptive();
+   }
+
+   /**
+    * Returns the longest interval at which monitored values are currently
+    * being sent to any of this publisher's subscribers.
+    *
+    * @return the result, which is the stream's configured interval when
+    *     there are no subscribers or none has been slowed down.
+    */
+   public long getMaxEffectiveMonitoredValueIntervalInMillis()
+   {
+      return outboxes.stream().mapToLong( WicaStreamSubscriberOutbox::getEffectiveMonitoredValueIntervalInMillis ).max().orElse( pacing.monitoredValueIntervalInMillis() );
+   }
+
+   /**
+    * Returns the longest interval at which polled values are currently
+    * being sent to any of this publisher's subscribers.
+    *
+    * @return the result, which is the stream's configured interval when
+    *     there are no subscribers or none has been slowed down.
+    */
+   public long getMaxEffectivePolledValueIntervalInMillis()
+   {
+      return outboxes.stream().mapToLong( WicaStreamSubscriberOutbox::getEffectivePolledValueIntervalInMillis ).max().orElse( pacing.polledValueIntervalInMillis() );
    }
 
    /**
@@ -141,17 +398,19 @@ public class WicaStreamServerSentEventPublisher
     * to the server to recreate the stream.
     * <p>
     * This flux runs periodically at a rate determined by the properties of the stream.
+    * The heartbeat payload is built once per scheduler tick and is shared by all
+    * streams whose heartbeat falls due on the same tick.
     *
     * @return the flux.
     */
-   private Flux<ServerSentEvent<String>> createHeartbeatFlux()
+   private Flux<PendingEvent> createHeartbeatFlux()
    {
-      return Flux.interval( Duration.ofMillis( wicaStreamProperties.getHeartbeatFluxIntervalInMillis() ) )
-            .onBackpressureBuffer()
-            .map(l -> {
+      return wicaStreamTickSchedulerService.interval( Duration.ofMillis( wicaStreamProperties.getHeartbeatFluxIntervalInMillis() ) )
+            .onBackpressureLatest()
+            .map( tick -> {
                logger.trace("heartbeat flux is publishing new SSE...");
-               final String jsonHeartbeatString = LocalDateTime.now().toString();
-               return WicaStreamServerSentEventBuilder.EV_WICA_SERVER_HEARTBEAT.build( wicaStreamId, jsonHeartbeatString );
+               final String jsonHeartbeatString = tick.heartbeatPayload();
+               return new PendingEvent( WicaStreamServerSentEventBuilder.EV_WICA_SERVER_HEARTBEAT, jsonHeartbeatString, null, null, null );
             })
             .doOnComplete( () -> logger.warn( "heartbeat flux with id: '{}' completed.", wicaStreamId   ))
             .doOnCancel( () -> logger.warn( "heartbeat flux with id: '{}' was cancelled.", wicaStreamId  ))
@@ -174,21 +433,22 @@ public class WicaStreamServerSentEventPublisher
     * will be sent out periodically and will contain only only information for those channels
     * which have received new metadata information since the previous message.
     *
+    * @param cursor the cursor from which the flux reads the metadata.
     * @return the flux.
     */
-   private Flux<ServerSentEvent<String>> createMetadataFlux()
+   private Flux<PendingEvent> createMetadataFlux( WicaStreamDataBufferCursor cursor )
    {
-      final AtomicReference<LocalDateTime> lastUpdateTime = new AtomicReference<>( LocalDateTime.MIN );
-      return Flux.interval( Duration.ofMillis( wicaStreamProperties.getMetadataFluxIntervalInMillis() ) )
-         .onBackpressureBuffer()
+      return wicaStreamTickSchedulerService.interval( Duration.ofMillis( wicaStreamProperties.getMetadataFluxIntervalInMillis() ) )
+         .onBackpressureLatest()
          .map( l -> {
             logger.trace("channel-metadata flux with id: '{}' is publishing new SSE...", wicaStreamId);
-            return wicaStreamMetadataCollectorService.get( wicaStream, lastUpdateTime.getAndSet( LocalDateTime.now()) );
+            invalidateSnapshot();
+            return wicaStreamMetadataCollectorService.get( wicaStream, cursor );
          } )
          .filter( m -> !m.keySet( ).isEmpty( ) )
          .map( map -> {
                final String jsonMetadataString = wicaChannelMetadataMapSerializerService.serialize ( map );
-               return WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA.build( wicaStreamId, jsonMetadataString );
+               return new PendingEvent( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA, jsonMetadataString, null, map, null );
          } )
          .doOnComplete( () -> logger.warn( "channel-metadata flux with id: '{}' completed.", wicaStreamId  ))
          .doOnCancel( () -> logger.warn( "channel-metadata flux with id: '{}' was cancelled.", wicaStreamId  ) )
@@ -204,29 +464,46 @@ public class WicaStreamServerSentEventPublisher
     * MONITORING.
     * <p>
     * This flux runs periodically at a rate determined by the properties of the stream.
+    * In push mode it additionally runs at the end of each micro-batch window.
     * <p>
     * New subscribers to the flux receive first a Server-Sent-Event (SSE) message
     * containing the latest received information for all monitored channels, then subsequent
     * SSE messages will be sent out periodically and will contain only only information
     * for those channels which have received new information since the previous message.
     *
+    * @param cursor the cursor from which the flux reads the values.
+    * @param sendLatest whether the flux's first read should deliver the
+    *     latest value of every channel.
     * @return the flux.
     */
-   private Flux<ServerSentEvent<String>> createMonitoredValueFlux()
+   private Flux<PendingEvent> createMonitoredValueFlux( WicaStreamDataBufferCursor cursor, boolean sendLatest )
    {
-      final AtomicReference<LocalDateTime> lastUpdateTime = new AtomicReference<>( LocalDateTime.MIN  );
-      return Flux.interval( Duration.ofMillis( wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() ) )
-         .onBackpressureDrop( (x) -> logger.warn( "Dropping message with sequence no. '{}' because remote web client couldn't keep up", x ) )
-         .map(l -> {
+      final AtomicBoolean firstUpdate = new AtomicBoolean( sendLatest );
+      final AtomicLong reportedOverruns = new AtomicLong( 0 );
+      // Ticks carry no data so only the latest need be retained when the
+      // flux is held back. The next read of the data buffer collects all the
+      // values which arrived since the previous read.
+      final Flux<Boolean> periodicTriggers = wicaStreamTickSchedulerService.interval( Duration.ofMillis( wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() ) )
+         .onBackpressureLatest()
+         .map( tick -> Boolean.FALSE );
+      final Flux<Boolean> pushTriggers = options.pushModeEnabled() ? createMonitoredValuePushFlux() : Flux.empty();
+
+      return periodicTriggers.mergeWith( pushTriggers )
+         .map( pushed -> {
             logger.trace("channel-value-monitor flux with id: '{}' is publishing new SSE...", wicaStreamId );
-            final var timeOfLastUpdate = lastUpdateTime.getAndSet( LocalDateTime.now() );
-            return timeOfLastUpdate.equals( LocalDateTime.MIN ) ? wicaStreamMonitoredValueCollectorService.getLatest( wicaStream ) :
-               wicaStreamMonitoredValueCollectorService.get( wicaStream, timeOfLastUpdate );
+            invalidateSnapshot();
+            final var readTime = LocalDateTime.now();
+            final var map = firstUpdate.getAndSet( false ) ? wicaStreamMonitoredValueCollectorService.getLatest( wicaStream, cursor ) :
+               wicaStreamMonitoredValueCollectorService.get( wicaStream, cursor );
+            reportOverruns( "channel-value-monitor", cursor, reportedOverruns );
+            return new TimedValueMap( map, readTime, pushed );
          } )
-         .filter( (map) -> ( !wicaStreamProperties.getQuietMode() ) || ( !map.keySet( ).isEmpty( ) ) )
-         .map( (map) -> {
-            final var jsonServerSentEventString = wicaChannelValueMapSerializerService.serialize( map );
-            return WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_MONITORED_VALUES.build(wicaStreamId, jsonServerSentEventString );
+         // Pushed reads which find that the values have already been
+         // published by a periodic read are never sent, even outside quiet mode.
+         .filter( (timedMap) -> ( !timedMap.map().keySet( ).isEmpty( ) ) || ( !wicaStreamProperties.getQuietMode() && !timedMap.pushed() ) )
+         .map( (timedMap) -> {
+            final var jsonServerSentEventString = wicaChannelValueMapSerializerService.serialize( timedMap.map() );
+            return new PendingEvent( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_MONITORED_VALUES, jsonServerSentEventString, timedMap.readTime(), null, timedMap.map() );
          } )
          .doOnComplete( () -> logger.warn( "channel-value-monitor flux with id: '{}' completed.", wicaStreamId ))
          .doOnCancel( () -> logger.warn("channel-value-monitor flux with id: '{}' was cancelled.", wicaStreamId ))
@@ -248,23 +525,30 @@ public class WicaStreamServerSentEventPublisher
     * SSE messages will be sent out periodically and will contain only only information
     * for those channels which have received new information since the previous message.
     *
+    * @param cursor the cursor from which the flux reads the values.
+    * @param sendLatest whether the flux's first read should deliver the
+    *     latest value of every channel.
     * @return the flux.
     */
-   private Flux<ServerSentEvent<String>> createPolledValueFlux()
+   private Flux<PendingEvent> createPolledValueFlux( WicaStreamDataBufferCursor cursor, boolean sendLatest )
    {
-      final AtomicReference<LocalDateTime> lastUpdateTime = new AtomicReference<>( LocalDateTime.MIN  );
-      return Flux.interval( Duration.ofMillis( wicaStreamProperties.getPolledValueFluxIntervalInMillis() ) )
-         .onBackpressureDrop( (x) -> logger.warn( "Dropping message with sequence no. '{}' because remote web client couldn't keep up", x ) )
+      final AtomicBoolean firstUpdate = new AtomicBoolean( sendLatest );
+      final AtomicLong reportedOverruns = new AtomicLong( 0 );
+      return wicaStreamTickSchedulerService.interval( Duration.ofMillis( wicaStreamProperties.getPolledValueFluxIntervalInMillis() ) )
+         .onBackpressureLatest()
          .map(l -> {
             logger.trace("channel-value-poll flux with id: '{}' is publishing new SSE...", wicaStreamId );
-            final var timeOfLastUpdate = lastUpdateTime.getAndSet( LocalDateTime.now() );
-            return timeOfLastUpdate.equals( LocalDateTime.MIN  ) ? wicaStreamPolledValueCollectorService.getLatest( wicaStream ) :
-               wicaStreamPolledValueCollectorService.get( wicaStream, timeOfLastUpdate );
+            invalidateSnapshot();
+            final var readTime = LocalDateTime.now();
+            final var map = firstUpdate.getAndSet( false ) ? wicaStreamPolledValueCollectorService.getLatest( wicaStream, cursor ) :
+               wicaStreamPolledValueCollectorService.get( wicaStream, cursor );
+            reportOverruns( "channel-value-poll", cursor, reportedOverruns );
+            return new TimedValueMap( map, readTime, false );
          } )
-            .filter( (map) -> ( !wicaStreamProperties.getQuietMode() ) || ( !map.keySet( ).isEmpty( ) ) )
-         .map( (map) -> {
-            final var jsonServerSentEventString = wicaChannelValueMapSerializerService.serialize( map );
-            return WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_POLLED_VALUES.build(wicaStreamId, jsonServerSentEventString );
+         .filter( (timedMap) -> ( !wicaStreamProperties.getQuietMode() ) || ( !timedMap.map().keySet( ).isEmpty( ) ) )
+         .map( (timedMap) -> {
+            final var jsonServerSentEventString = wicaChannelValueMapSerializerService.serialize( timedMap.map() );
+            return new PendingEvent( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_POLLED_VALUES, jsonServerSentEventString, timedMap.readTime(), null, timedMap.map() );
          })
          .doOnComplete( () -> logger.warn( "channel-value-poll flux with id: '{}' completed.", wicaStreamId ))
          .doOnCancel( () -> logger.warn("channel-value-poll flux with id: '{}' was cancelled.", wicaStreamId ))
@@ -272,44 +556,429 @@ public class WicaStreamServerSentEventPublisher
    //.log();
    }
 
+   /**
+    * Creates the flux which triggers the publication of monitored values in
+    * push mode.
+    * <p>
+    * The flux listens for values being saved in the data buffer for any of
+    * the stream's channels. The first value to arrive opens a micro-batch
+    * window. The flux emits when the window closes or when the configured
+    * number of values has arrived, whichever is the sooner.
+    *
+    * @return the flux.
+    */
+   private Flux<Boolean> createMonitoredValuePushFlux()
+   {
+      return Flux.<Boolean>create( sink -> sink.onDispose( wicaStreamMonitoredValueCollectorService.addValueSavedListener( wicaStream, () -> sink.next( Boolean.TRUE ) ) ),
+                                   FluxSink.OverflowStrategy.LATEST )
+         // The notifications arrive on the channel access callback threads,
+         // which must never be held up reading and serializing the values.
+         .publishOn( Schedulers.parallel() )
+         .bufferTimeout( options.pushMaxBatchSize(), Duration.ofMillis( options.pushBatchWindowInMillis() ) )
+         .onBackpressureLatest()
+         .map( batch -> Boolean.TRUE );
+   }
+
+   /**
+    * Create the WICA CHANNEL ALARM VALUES FLUX.
+    * <p>
+    * The purpose of this flux is to publish without delay the values of
+    * channels in the stream which connect or disconnect, or whose alarm
+    * severity changes to or from MAJOR or INVALID.
+    * <p>
+    * The transitions are detected by the collector services as the values
+    * arrive. The first transition opens a short coalescing window at the end
+    * of which all the transitions detected in the window are published
+    * together. The values are sent unfiltered since each of them marks a
+    * change of state which the web client should not miss. The same values
+    * are also published, filtered, in the stream's routine value events.
+    *
+    * @return the flux.
+    */
+   private Flux<PendingEvent> createAlarmValueFlux()
+   {
+      final boolean monitoredValuesPublished = wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0;
+      final boolean polledValuesPublished = wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0;
+      return Flux.<Map.Entry<WicaChannel,WicaChannelValue>>create( sink -> {
+            final BiConsumer<WicaChannel,WicaChannelValue> listener = ( c, v ) -> sink.next( Map.entry( c, v ) );
+            final Disposable.Composite listeners = Disposables.composite();
+            if ( monitoredValuesPublished )
+            {
+               listeners.add( wicaStreamMonitoredValueCollectorService.addAlarmTransitionListener( wicaStream, listener ) );
+            }
+            if ( polledValuesPublished )
+            {
+               listeners.add( wicaStreamPolledValueCollectorService.addAlarmTransitionListener( wicaStream, listener ) );
+            }
+            sink.onDispose( listeners );
+         } )
+         .bufferTimeout( ALARM_LANE_MAX_BATCH_SIZE, Duration.ofMillis( options.alarmLaneCoalescingWindowInMillis() ) )
+         // A batch which cannot be delivered is not lost to the web client
+         // since its values are also sent in the routine value events.
+         .onBackpressureBuffer( ALARM_LANE_MAX_PENDING_BATCHES,
+                                dropped -> logger.warn( "channel-alarm-value flux with id: '{}' dropped a batch of {} transitions.", wicaStreamId, dropped.size() ),
+                                BufferOverflowStrategy.DROP_OLDEST )
+         .map( transitions -> {
+            logger.trace("channel-alarm-value flux with id: '{}' is publishing new SSE...", wicaStreamId );
+            invalidateSnapshot();
+            final Map<WicaChannel,List<WicaChannelValue>> map = new LinkedHashMap<>();
+            transitions.forEach( e -> map.computeIfAbsent( e.getKey(), k -> new ArrayList<>() ).add( e.getValue() ) );
+            final var jsonServerSentEventString = wicaChannelValueMapSerializerService.serialize( map );
+            return new PendingEvent( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_ALARM_VALUES, jsonServerSentEventString, null, null, map );
+         } )
+         .doOnComplete( () -> logger.warn( "channel-alarm-value flux with id: '{}' completed.", wicaStreamId ))
+         .doOnCancel( () -> logger.warn("channel-alarm-value flux with id: '{}' was cancelled.", wicaStreamId ))
+         .doOnError( (e) -> logger.warn( "channel-alarm-value flux with id: '{}' had error.", wicaStreamId, e ));
+   }
+
    /**
     * Creates the COMBINED FLUX.
     * <p>
     * The purpose of this flux is to merge together all the individual fluxes in
     * this publisher, returning a reference to a flux which can be cancelled
     * by a call to the shutdown method.
+    *
+    * @return the flux.
     */
-   private Flux<ServerSentEvent<String>> createCombinedFlux()
+   private Flux<WicaStreamSubscriberOutbox.Event> createCombinedFlux()
    {
+      // When the flux is restarted on behalf of a client which has been sent
+      // a replay, the data buffers are read from where the replay left off.
+      final ResumePosition resumed = resumePosition.getAndSet( null );
+      final var position = ( resumed != null ) ? resumed : new ResumePosition( wicaStreamMetadataCollectorService.createCursor(),
+                                                                               wicaStreamMonitoredValueCollectorService.createCursor(),
+                                                                               wicaStreamPolledValueCollectorService.createCursor() );
+      final boolean sendLatest = ( resumed == null );
+
       // Any flux can be suppressed by configuring its refresh rate to 0ms.
       final var heartbeatFlux = wicaStreamProperties.getHeartbeatFluxIntervalInMillis() > 0 ? createHeartbeatFlux() :
-         Flux.<ServerSentEvent<String>>empty();
-      final var metadataFlux = wicaStreamProperties.getMetadataFluxIntervalInMillis() > 0 ? createMetadataFlux() :
-         Flux.<ServerSentEvent<String>>empty();
-      final var monitoredValueFlux = wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0 ? createMonitoredValueFlux() :
-         Flux.<ServerSentEvent<String>>empty();
-      final var polledValueFlux = wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0 ?  createPolledValueFlux() :
-         Flux.<ServerSentEvent<String>>empty();
-
-      // Create a single Flux which merges all of the above.
+         Flux.<PendingEvent>empty();
+      final var metadataFlux = wicaStreamProperties.getMetadataFluxIntervalInMillis() > 0 ? createMetadataFlux( position.metadataCursor() ) :
+         Flux.<PendingEvent>empty();
+      final var monitoredValueFlux = wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0 ? createMonitoredValueFlux( position.monitoredValueCursor(), sendLatest ) :
+         Flux.<PendingEvent>empty();
+      final var polledValueFlux = wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0 ?  createPolledValueFlux( position.polledValueCursor(), sendLatest ) :
+         Flux.<PendingEvent>empty();
+      final var alarmValueFlux = options.alarmLaneEnabled() ? createAlarmValueFlux() : Flux.<PendingEvent>empty();
+
+      // Create a single Flux which merges all of the above. The event
+      // sequence numbers are assigned after the merge so that they increase
+      // monotonically in the order in which the events are delivered.
       return heartbeatFlux
          .mergeWith( metadataFlux )
          .mergeWith( monitoredValueFlux )
          .mergeWith( polledValueFlux )
+         .mergeWith( alarmValueFlux )
+         .map( this::publish )
          .doOnComplete( () -> logger.warn( "combined flux with id: '{}' flux completed.", wicaStreamId ))
          .doOnCancel( () -> logger.warn("combined flux with id: '{}' was cancelled.", wicaStreamId ))
          .doOnError( (e) -> logger.warn( "combined flux with id: '{}' had error: '{}'", wicaStreamId, e.getMessage() ) )
-         .takeUntil( (sse) -> {
+         .takeUntil( (event) -> {
             final boolean shutdownRequest = shutdown.get();
             if ( shutdownRequest)
             {
-               logger.warn( "combined flux with id: '{}' discovered shutdown request when delivering SSE: '{}'",  wicaStreamId, sse );
+               logger.warn( "combined flux with id: '{}' discovered shutdown request when delivering event with sequence no. '{}'",  wicaStreamId, event.sequence() );
             }
             return shutdownRequest;
          } );
       //.log();
    }
 
+   /**
+    * Returns the snapshot of the latest metadata and values for the channels
+    * in the stream, building a new one if the cached snapshot is out of date.
+    *
+    * @return the snapshot's events.
+    */
+   private List<ServerSentEvent<String>> getSnapshot()
+   {
+      // The generation is captured before the snapshot is built so that a
+      // snapshot which was overtaken by a read of the data buffers whilst it
+      // was being built is never reused.
+      final long generation = snapshotGeneration.get();
+      final Snapshot snapshot = cachedSnapshot.get();
+      if ( ( snapshot != null ) && ( snapshot.generation() == generation ) )
+      {
+         return snapshot.events();
+      }
+
+      // The snapshot's events carry the sequence number of the most recently
+      // published event since the snapshot supersedes it.
+      final long sequence = eventSequence.get();
+
+      logger.trace( "building snapshot for stream with id: '{}'", wicaStreamId );
+      final List<ServerSentEvent<String>> events = new ArrayList<>();
+      if ( wicaStreamProperties.getMetadataFluxIntervalInMillis() > 0 )
+      {
+         final var metadataMap = wicaStreamMetadataCollectorService.get( wicaStream, wicaStreamMetadataCollectorService.createCursor() );
+         if ( ! metadataMap.isEmpty() )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA.build( wicaStreamId, sequence, wicaChannelMetadataMapSerializerService.serialize( metadataMap ) ) );
+         }
+      }
+      if ( wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0 )
+      {
+         final var valueMap = wicaStreamMonitoredValueCollectorService.getLatest( wicaStream );
+         if ( ( ! wicaStreamProperties.getQuietMode() ) || ( ! valueMap.isEmpty() ) )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_MONITORED_VALUES.build( wicaStreamId, sequence, wicaChannelValueMapSerializerService.serialize( valueMap ) ) );
+         }
+      }
+      if ( wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0 )
+      {
+         final var valueMap = wicaStreamPolledValueCollectorService.getLatest( wicaStream );
+         if ( ( ! wicaStreamProperties.getQuietMode() ) || ( ! valueMap.isEmpty() ) )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_POLLED_VALUES.build( wicaStreamId, sequence, wicaChannelValueMapSerializerService.serialize( valueMap ) ) );
+         }
+      }
+
+      final List<ServerSentEvent<String>> result = List.copyOf( events );
+      cachedSnapshot.set( new Snapshot( generation, result ) );
+      return result;
+   }
+
+   /**
+    * Returns the position at the end of the data buffers for the channels in
+    * the stream.
+    *
+    * @return the position.
+    */
+   private ResumePosition createResumePosition()
+   {
+      return new ResumePosition( wicaStreamMetadataCollectorService.createCursorAtEnd( wicaStream ),
+                                 wicaStreamMonitoredValueCollectorService.createCursorAtEnd( wicaStream ),
+                                 wicaStreamPolledValueCollectorService.createCursorAtEnd( wicaStream ) );
+   }
+
+   /**
+    * Returns the events which bring a reconnecting web client up to date
+    * after it last received the event with the specified sequence number.
+    *
+    * @param lastEventSequence the sequence number.
+    * @return the events, or empty if the values published since the event
+    *     are no longer held in the data buffers.
+    */
+   private Optional<List<ServerSentEvent<String>>> getReplay( long lastEventSequence )
+   {
+      // The sequence number is captured before the data buffers are read so
+      // that the client's next reconnection cannot skip any values.
+      final long sequence = eventSequence.get();
+      final Optional<LocalDateTime> since = eventHistory.getValuesDeliveredUpTo( lastEventSequence );
+      final boolean monitoredValuesEnabled = wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0;
+      final boolean polledValuesEnabled = wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0;
+      if ( since.isEmpty() ||
+           ( monitoredValuesEnabled && ! wicaStreamMonitoredValueCollectorService.isRetainedSince( wicaStream, since.get() ) ) ||
+           ( polledValuesEnabled && ! wicaStreamPolledValueCollectorService.isRetainedSince( wicaStream, since.get() ) ) )
+      {
+         logger.info( "stream with id: '{}' cannot replay the values published since event '{}'.", wicaStreamId, lastEventSequence );
+         return Optional.empty();
+      }
+
+      logger.info( "stream with id: '{}' is replaying the values published since event '{}'.", wicaStreamId, lastEventSequence );
+      final List<ServerSentEvent<String>> events = new ArrayList<>();
+      if ( ( wicaStreamProperties.getMetadataFluxIntervalInMillis() > 0 ) && ( lastMetadataEventSequence > lastEventSequence ) )
+      {
+         final var metadataMap = wicaStreamMetadataCollectorService.get( wicaStream, wicaStreamMetadataCollectorService.createCursor() );
+         if ( ! metadataMap.isEmpty() )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA.build( wicaStreamId, sequence, wicaChannelMetadataMapSerializerService.serialize( metadataMap ) ) );
+         }
+      }
+      if ( monitoredValuesEnabled )
+      {
+         final var valueMap = wicaStreamMonitoredValueCollectorService.getForReplay( wicaStream, since.get() );
+         if ( ! valueMap.isEmpty() )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_MONITORED_VALUES.build( wicaStreamId, sequence, wicaChannelValueMapSerializerService.serialize( valueMap ) ) );
+         }
+      }
+      if ( polledValuesEnabled )
+      {
+         final var valueMap = wicaStreamPolledValueCollectorService.get( wicaStream, since.get() );
+         if ( ! valueMap.isEmpty() )
+         {
+            events.add( WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_POLLED_VALUES.build( wicaStreamId, sequence, wicaChannelValueMapSerializerService.serialize( valueMap ) ) );
+         }
+      }
+      return Optional.of( events );
+   }
+
+   /**
+    * Assigns the next sequence number to the supplied event and records, for
+    * the benefit of clients which later reconnect, the time up to which the
+    * stream's values had been delivered when the event was published.
+    *
+    * @param pendingEvent the event.
+    * @return the published event.
+    */
+   private WicaStreamSubscriberOutbox.Event publish( PendingEvent pendingEvent )
+   {
+      final long sequence = eventSequence.incrementAndGet();
+      switch ( pendingEvent.builder() )
+      {
+         case EV_WICA_CHANNEL_METADATA -> lastMetadataEventSequence = sequence;
+         case EV_WICA_CHANNEL_MONITORED_VALUES -> monitoredValuesDeliveredUpTo = pendingEvent.readTime();
+         case EV_WICA_CHANNEL_POLLED_VALUES -> polledValuesDeliveredUpTo = pendingEvent.readTime();
+         default -> { }
+      }
+      eventHistory.record( sequence, getValuesDeliveredUpTo() );
+      return new WicaStreamSubscriberOutbox.Event( sequence, pendingEvent.builder(), pendingEvent.data(), pendingEvent.metadataMap(), pendingEvent.valueMap() );
+   }
+
+   /**
+    * Returns the time up to which all the stream's values have been
+    * delivered, or null if the values from some enabled flux have not yet
+    * been delivered at all.
+    *
+    * @return the result.
+    */
+   private LocalDateTime getValuesDeliveredUpTo()
+   {
+      final LocalDateTime monitored = wicaStreamProperties.getMonitoredValueFluxIntervalInMillis() > 0 ? monitoredValuesDeliveredUpTo : LocalDateTime.MAX;
+      final LocalDateTime polled = wicaStreamProperties.getPolledValueFluxIntervalInMillis() > 0 ? polledValuesDeliveredUpTo : LocalDateTime.MAX;
+      if ( ( monitored == null ) || ( polled == null ) )
+      {
+         return null;
+      }
+      final LocalDateTime result = monitored.isBefore( polled ) ? monitored : polled;
+      return result.equals( LocalDateTime.MAX ) ? LocalDateTime.now() : result;
+   }
+
+   /**
+    * Marks any cached snapshot as out of date.
+    */
+   private void invalidateSnapshot()
+   {
+      snapshotGeneration.incrementAndGet();
+   }
+
+   /**
+    * Logs a warning when the specified cursor has fallen so far behind the
+    * data buffer that values were overwritten before they could be published.
+    *
+    * @param fluxName the name of the flux for logging purposes.
+    * @param cursor the cursor to check.
+    * @param reportedOverruns the overrun count at the time of the previous report.
+    */
+   private void reportOverruns( String fluxName, WicaStreamDataBufferCursor cursor, AtomicLong reportedOverruns )
+   {
+      final long overruns = cursor.getOverrunCount();
+      final long previouslyReportedOverruns = reportedOverruns.getAndSet( overruns );
+      if ( overruns > previouslyReportedOverruns )
+      {
+         logger.warn( "{} flux with id: '{}' could not keep up with the data buffer. {} values were lost (total: {}).", fluxName, wicaStreamId, overruns - previouslyReportedOverruns, overruns );
+      }
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
+   /**
+    * The options which determine how a publisher's events are published.
+    *
+    * @param adaptiveRateEnabled whether the rate at which values are sent to
+    *     each subscriber adapts to the speed of its web client.
+    * @param adaptiveRateMaxSlowdownFactor the maximum factor by which the
+    *     stream's value intervals may be stretched for a slow web client.
+    * @param pushModeEnabled whether monitored values are pushed to the
+    *     subscribers soon after they arrive.
+    * @param pushBatchWindowInMillis the length of the micro-batch window
+    *     which is opened by the arrival of a monitored value.
+    * @param pushMaxBatchSize the number of values after which a micro-batch
+    *     is published without waiting for the end of its window.
+    * @param alarmLaneEnabled whether alarm transitions are published as soon
+    *     as they are detected.
+    * @param alarmLaneCoalescingWindowInMillis the length of the window within
+    *     which alarm transitions are gathered into a single event.
+    */
+   record Options( boolean adaptiveRateEnabled,
+                   int adaptiveRateMaxSlowdownFactor,
+                   boolean pushModeEnabled,
+                   int pushBatchWindowInMillis,
+                   int pushMaxBatchSize,
+                   boolean alarmLaneEnabled,
+                   int alarmLaneCoalescingWindowInMillis )
+   {
+      /** Values are sent at the stream's configured rates and nothing is pushed. */
+      static final Options DEFAULTS = new Options( false, 1, false, 0, 1, false, 0 );
+
+      Options
+      {
+         Validate.isTrue( adaptiveRateMaxSlowdownFactor >= 1, "The 'adaptiveRateMaxSlowdownFactor' argument was less than one." );
+         Validate.isTrue( ! pushModeEnabled || ( pushBatchWindowInMillis > 0 ), "The 'pushBatchWindowInMillis' argument was not positive." );
+         Validate.isTrue( pushMaxBatchSize >= 1, "The 'pushMaxBatchSize' argument was less than one." );
+         Validate.isTrue( ! alarmLaneEnabled || ( alarmLaneCoalescingWindowInMillis > 0 ), "The 'alarmLaneCoalescingWindowInMillis' argument was not positive." );
+      }
+
+      /**
+       * Returns a copy of these options with push mode enabled.
+       *
+       * @param batchWindowInMillis the micro-batch window.
+       * @param maxBatchSize the maximum micro-batch size.
+       * @return the result.
+       */
+      Options withPushMode( int batchWindowInMillis, int maxBatchSize )
+      {
+         return new Options( adaptiveRateEnabled, adaptiveRateMaxSlowdownFactor, true, batchWindowInMillis, maxBatchSize, alarmLaneEnabled, alarmLaneCoalescingWindowInMillis );
+      }
+
+      /**
+       * Returns a copy of these options with the alarm lane enabled.
+       *
+       * @param coalescingWindowInMillis the coalescing window.
+       * @return the result.
+       */
+      Options withAlarmLane( int coalescingWindowInMillis )
+      {
+         return new Options( adaptiveRateEnabled, adaptiveRateMaxSlowdownFactor, pushModeEnabled, pushBatchWindowInMillis, pushMaxBatchSize, true, coalescingWindowInMillis );
+      }
+   }
+
+   private record Snapshot( long generation, List<ServerSentEvent<String>> events ) {}
+
+   private record ResumePosition( WicaStreamDataBufferCursor metadataCursor,
+                                  WicaStreamDataBufferCursor monitoredValueCursor,
+                                  WicaStreamDataBufferCursor polledValueCursor ) {}
+
+   private record TimedValueMap( Map<WicaChannel,List<WicaChannelValue>> map, LocalDateTime readTime, boolean pushed ) {}
+
+   // The read time is only relevant for value events. The maps are retained
+   // so that the subscribers' outboxes can conflate the events.
+   private record PendingEvent( WicaStreamServerSentEventBuilder builder,
+                                String data,
+                                LocalDateTime readTime,
+                                Map<WicaChannel,WicaChannelMetadata> metadataMap,
+                                Map<WicaChannel,List<WicaChannelValue>> valueMap ) {}
+
+   /**
+    * Records, for a bounded number of the most recently published events,
+    * the time up to which the stream's values had been delivered when each
+    * event was published.
+    */
+   @ThreadSafe
+   private static final class EventHistory
+   {
+      private final long[] sequences;
+      private final LocalDateTime[] deliveredUpTo;
+
+      private EventHistory( int capacity )
+      {
+         this.sequences = new long[ capacity ];
+         this.deliveredUpTo = new LocalDateTime[ capacity ];
+      }
+
+      private synchronized void record( long sequence, LocalDateTime valuesDeliveredUpTo )
+      {
+         final int slot = (int) ( sequence % sequences.length );
+         sequences[ slot ] = sequence;
+         deliveredUpTo[ slot ] = valuesDeliveredUpTo;
+      }
+
+      private synchronized Optional<LocalDateTime> getValuesDeliveredUpTo( long sequence )
+      {
+         final int slot = (int) ( sequence % sequences.length );
+         return ( sequence > 0 ) && ( sequences[ slot ] == sequence ) ? Optional.ofNullable( deliveredUpTo[ slot ] ) : Optional.empty();
+      }
+   }
+
 }
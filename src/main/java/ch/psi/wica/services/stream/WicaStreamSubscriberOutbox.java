@@ -0,0 +1,645 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.infrastructure.stream.WicaStreamServerSentEventBuilder;
+import ch.psi.wica.model.app.WicaFilterType;
+import ch.psi.wica.model.channel.WicaChannel;
+import ch.psi.wica.model.channel.WicaChannelProperties;
+import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.stream.WicaStreamId;
+import ch.psi.wica.services.channel.WicaChannelMetadataMapSerializerService;
+import ch.psi.wica.services.channel.WicaChannelValueMapSerializerService;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Holds the events which have been published to a single subscriber of a
+ * stream but which the subscriber's web client has not yet accepted.
+ * <p>
+ * The outbox always accepts events from the publisher's shared flux, so a
+ * slow subscriber never holds back the other subscribers to the stream.
+ * When an event arrives whilst an earlier event of the same type is still
+ * waiting to be sent the two are conflated into a single event. Conflated
+ * value events retain, for each channel, only the latest value, or the
+ * latest N values for channels configured with the 'last-n' filter. The
+ * outbox therefore never holds more than one event of each type and a
+ * slow client always receives the current state of every channel.
+ * <p>
+ * The ID of each event which leaves the outbox never exceeds the sequence
+ * number of the oldest event which is still waiting to be sent. A client
+ * which reconnects after receiving the event is therefore never told that
+ * it has seen values which are still waiting in the outbox.
+ * <p>
+ * When adaptive pacing is enabled the outbox also measures how long the
+ * subscriber's web client takes to accept each event. For slow clients the
+ * interval between value events is stretched, up to a configured limit, with
+ * the values arriving in between conflated as above. The interval shrinks
+ * back to the stream's configured interval when the client catches up. Since
+ * the channel values are filtered before they reach the outbox, every client
+ * sees the output of the same filters whatever its pace.
+ * <p>
+ * Alarm value events are never paced and are placed ahead of any value
+ * events which are still waiting to be sent, so that a slow client learns
+ * of alarm and connection state changes as soon as it is able. The waiting
+ * values which are no newer than an overtaking alarm value for the same
+ * channel are discarded, so that a client never receives a channel value
+ * which is older than one it has already seen.
+ */
+@ThreadSafe
+class WicaStreamSubscriberOutbox
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final WicaStreamId wicaStreamId;
+   private final WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService;
+   private final WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService;
+   private final AtomicLong streamEventsConflated;
+   private final AtomicLong streamValuesDropped;
+
+   private final AtomicLong eventsConflated = new AtomicLong( 0 );
+   private final AtomicLong valuesDropped = new AtomicLong( 0 );
+   private final AtomicInteger drainRequests = new AtomicInteger( 0 );
+   private final AtomicLong awaitingDemandSinceNanos = new AtomicLong( 0 );
+
+   private final Pacing pacing;
+   private volatile double slowdownFactor = 1.0;
+
+   // The following fields are guarded by the pending deque.
+   private final Deque<Entry> pending = new ArrayDeque<>();
+   private long lastSentSequence;
+   private long lastMonitoredValuesSentNanos;
+   private long lastPolledValuesSentNanos;
+   private boolean delayedDrainScheduled;
+   private boolean upstreamComplete;
+   private boolean downstreamComplete;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Creates a new outbox which sends events as quickly as the subscriber's
+    * web client accepts them.
+    *
+    * @param wicaStreamId the ID of the stream whose events the outbox holds.
+    * @param wicaChannelMetadataMapSerializerService the service which will be used to
+    *     serialize conflated channel metadata.
+    * @param wicaChannelValueMapSerializerService the service which will be used to
+    *     serialize conflated channel values.
+    * @param streamEventsConflated the stream-wide counter of conflated events.
+    * @param streamValuesDropped the stream-wide counter of channel values which
+    *     were discarded during conflation.
+    */
+   WicaStreamSubscriberOutbox( WicaStreamId wicaStreamId,
+                               WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService,
+                               WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService,
+                               AtomicLong streamEventsConflated,
+                               AtomicLong streamValuesDropped )
+   {
+      this( wicaStreamId, wicaChannelMetadataMapSerializerService, wicaChannelValueMapSerializerService, streamEventsConflated, streamValuesDropped, Pacing.NONE );
+   }
+
+   /**
+    * Creates a new outbox which paces the value events according to the
+    * specified policy.
+    *
+    * @param wicaStreamId the ID of the stream whose events the outbox holds.
+    * @param wicaChannelMetadataMapSerializerService the service which will be used to
+    *     serialize conflated channel metadata.
+    * @param wicaChannelValueMapSerializerService the service which will be used to
+    *     serialize conflated channel values.
+    * @param streamEventsConflated the stream-wide counter of conflated events.
+    * @param streamValuesDropped the stream-wide counter of channel values which
+    *     were discarded during conflation.
+    * @param pacing the pacing policy.
+    */
+   WicaStreamSubscriberOutbox( WicaStreamId wicaStreamId,
+                               WicaChannelMetadataMapSerializerService wicaChannelMetadataMapSerializerService,
+                               WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService,
+                               AtomicLong streamEventsConflated,
+                               AtomicLong streamValuesDropped,
+                               Pacing pacing )
+   {
+      this.wicaStreamId = Validate.notNull( wicaStreamId, "The 'wicaStreamId' argument is null." );
+      this.wicaChannelMetadataMapSerializerService = Validate.notNull( wicaChannelMetadataMapSerializerService, "The 'wicaChannelMetadataMapSerializerService' argument is null." );
+      this.wicaChannelValueMapSerializerService = Validate.notNull( wicaChannelValueMapSerializerService, "The 'wicaChannelValueMapSerializerService' argument is null." );
+      this.streamEventsConflated = Validate.notNull( streamEventsConflated, "The 'streamEventsConflated' argument is null." );
+      this.streamValuesDropped = Validate.notNull( streamValuesDropped, "The 'streamValuesDropped' argument is null." );
+      this.pacing = Validate.notNull( pacing, "The 'pacing' argument is null." );
+
+      // Allow the first value events to be sent immediately.
+      final long longAgo = System.nanoTime() - TimeUnit.DAYS.toNanos( 1 );
+      this.lastMonitoredValuesSentNanos = longAgo;
+      this.lastPolledValuesSentNanos = longAgo;
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Package-access methods ---------------------------------------------------*/
+
+   /**
+    * Returns a flux which delivers the events from the specified source
+    * through this outbox.
+    * <p>
+    * The source is subscribed when the returned flux is subscribed and is
+    * cancelled when the returned flux is cancelled.
+    *
+    * @param source the source of the events.
+    * @return the flux.
+    */
+   Flux<ServerSentEvent<String>> attach( Flux<Event> source )
+   {
+      Validate.notNull( source, "The 'source' argument is null." );
+      return Flux.create( sink -> {
+         final Disposable upstream = source.subscribe( event -> { offer( event ); drain( sink ); },
+                                                       sink::error,
+                                                       () -> { markUpstreamComplete(); drain( sink ); } );
+         sink.onRequest( n -> {
+            final long sinceNanos = awaitingDemandSinceNanos.getAndSet( 0 );
+            if ( sinceNanos != 0 )
+            {
+               adaptPace( System.nanoTime() - sinceNanos );
+            }
+            drain( sink );
+         } );
+         sink.onDispose( upstream );
+      } );
+   }
+
+   /**
+    * Returns the number of events which were conflated with an earlier
+    * event whilst waiting to be sent.
+    *
+    * @return the result.
+    */
+   long getEventsConflated()
+   {
+      return eventsConflated.get();
+   }
+
+   /**
+    * Returns the number of channel values which were discarded when events
+    * were conflated.
+    *
+    * @return the result.
+    */
+   long getValuesDropped()
+   {
+      return valuesDropped.get();
+   }
+
+   /**
+    * Returns the interval at which this outbox currently sends monitored
+    * value events.
+    *
+    * @return the result, which is the stream's configured interval unless
+    *     the outbox has slowed down for a slow web client.
+    */
+   long getEffectiveMonitoredValueIntervalInMillis()
+   {
+      return Math.round( pacing.monitoredValueIntervalInMillis() * slowdownFactor );
+   }
+
+   /**
+    * Returns the interval at which this outbox currently sends polled
+    * value events.
+    *
+    * @return the result, which is the stream's configured interval unless
+    *     the outbox has slowed down for a slow web client.
+    */
+   long getEffectivePolledValueIntervalInMillis()
+   {
+      return Math.round( pacing.polledValueIntervalInMillis() * slowdownFactor );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private void offer( Event event )
+   {
+      synchronized ( pending )
+      {
+         final Entry existing = pending.stream().filter( e -> e.builder == event.builder() ).findFirst().orElse( null );
+         final Entry entry;
+         if ( existing == null )
+         {
+            entry = new Entry( event );
+         }
+         else
+         {
+            existing.conflate( event );
+            eventsConflated.incrementAndGet();
+            streamEventsConflated.incrementAndGet();
+
+            // Conflated metadata keeps its place in the queue so that it is
+            // never overtaken by values for the channels which it describes.
+            if ( existing.builder == WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA )
+            {
+               return;
+            }
+            pending.remove( existing );
+            entry = existing;
+         }
+
+         // Alarm values overtake any waiting value events but never the
+         // metadata. Other events join the back of the queue.
+         if ( entry.builder == WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_ALARM_VALUES )
+         {
+            addAfterLastMetadata( entry );
+         }
+         else
+         {
+            pending.addLast( entry );
+         }
+      }
+   }
+
+   private void addAfterLastMetadata( Entry entry )
+   {
+      final Deque<Entry> overtaken = new ArrayDeque<>();
+      while ( ! pending.isEmpty() && pending.peekLast().builder != WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA )
+      {
+         final Entry overtakenEntry = pending.pollLast();
+         // An entry left with no values would be sent as an empty event.
+         if ( ! overtakenEntry.discardValuesSupersededBy( entry.valueMap ) )
+         {
+            overtaken.addFirst( overtakenEntry );
+         }
+      }
+      pending.addLast( entry );
+      pending.addAll( overtaken );
+   }
+
+   private void markUpstreamComplete()
+   {
+      synchronized ( pending )
+      {
+         upstreamComplete = true;
+      }
+   }
+
+   private void drain( FluxSink<ServerSentEvent<String>> sink )
+   {
+      // Only one thread drains at a time. A thread which finds the outbox
+      // already being drained leaves a request for the draining thread to
+      // look again.
+      if ( drainRequests.getAndIncrement() != 0 )
+      {
+         return;
+      }
+      int missed = 1;
+      do
+      {
+         while ( sink.requestedFromDownstream() > 0 )
+         {
+            final long nowNanos = System.nanoTime();
+            final Entry entry;
+            final long sequence;
+            synchronized ( pending )
+            {
+               entry = pollFirstDue( nowNanos );
+               if ( entry == null )
+               {
+                  scheduleDelayedDrain( sink, nowNanos );
+                  break;
+               }
+               final long oldestWaitingSequence = pending.stream().mapToLong( e -> e.oldestSequence ).min().orElse( Long.MAX_VALUE );
+               sequence = Math.max( lastSentSequence, Math.min( entry.newestSequence, oldestWaitingSequence - 1 ) );
+               lastSentSequence = sequence;
+               switch ( entry.builder )
+               {
+                  case EV_WICA_CHANNEL_MONITORED_VALUES -> lastMonitoredValuesSentNanos = nowNanos;
+                  case EV_WICA_CHANNEL_POLLED_VALUES -> lastPolledValuesSentNanos = nowNanos;
+                  default -> { }
+               }
+            }
+            sink.next( entry.builder.build( wicaStreamId, sequence, entry.getData() ) );
+
+            if ( pacing.adaptive() )
+            {
+               // A client which has already asked for more has kept up.
+               if ( sink.requestedFromDownstream() > 0 )
+               {
+                  adaptPace( 0 );
+               }
+               else
+               {
+                  awaitingDemandSinceNanos.set( nowNanos );
+               }
+            }
+         }
+
+         final boolean complete;
+         synchronized ( pending )
+         {
+            complete = upstreamComplete && pending.isEmpty() && ! downstreamComplete;
+            downstreamComplete |= complete;
+         }
+         if ( complete )
+         {
+            sink.complete();
+         }
+         missed = drainRequests.addAndGet( -missed );
+      }
+      while ( missed != 0 );
+   }
+
+   /**
+    * Removes and returns the first waiting event which is due to be sent.
+    * Must be called with the pending deque locked.
+    *
+    * @param nowNanos the current value of System.nanoTime().
+    * @return the event, or null if no event is due.
+    */
+   private Entry pollFirstDue( long nowNanos )
+   {
+      final Iterator<Entry> iterator = pending.iterator();
+      while ( iterator.hasNext() )
+      {
+         final Entry entry = iterator.next();
+         if ( getNanosUntilDue( entry, nowNanos ) <= 0 )
+         {
+            iterator.remove();
+            return entry;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Arranges for the outbox to be drained again when the earliest waiting
+    * event falls due. Must be called with the pending deque locked.
+    *
+    * @param sink the sink to drain into.
+    * @param nowNanos the current value of System.nanoTime().
+    */
+   private void scheduleDelayedDrain( FluxSink<ServerSentEvent<String>> sink, long nowNanos )
+   {
+      if ( delayedDrainScheduled || pending.isEmpty() )
+      {
+         return;
+      }
+      final long delayNanos = pending.stream().mapToLong( e -> getNanosUntilDue( e, nowNanos ) ).min().orElse( 0 );
+      delayedDrainScheduled = true;
+      Schedulers.parallel().schedule( () -> {
+         synchronized ( pending )
+         {
+            delayedDrainScheduled = false;
+         }
+         drain( sink );
+      }, delayNanos, TimeUnit.NANOSECONDS );
+   }
+
+   /**
+    * Returns the time remaining before the specified event may be sent.
+    * Must be called with the pending deque locked.
+    *
+    * @param entry the event.
+    * @param nowNanos the current value of System.nanoTime().
+    * @return the result, which is zero or negative when the event is due.
+    */
+   private long getNanosUntilDue( Entry entry, long nowNanos )
+   {
+      if ( ! pacing.adaptive() )
+      {
+         return 0;
+      }
+      final long lastSentNanos;
+      final int intervalInMillis;
+      switch ( entry.builder )
+      {
+         case EV_WICA_CHANNEL_MONITORED_VALUES -> { lastSentNanos = lastMonitoredValuesSentNanos; intervalInMillis = pacing.monitoredValueIntervalInMillis(); }
+         case EV_WICA_CHANNEL_POLLED_VALUES -> { lastSentNanos = lastPolledValuesSentNanos; intervalInMillis = pacing.polledValueIntervalInMillis(); }
+         default -> { return 0; }
+      }
+      // Half an interval of tolerance allows for jitter in the arrival of
+      // the events, so that a client which keeps up is never held back.
+      final long pacedIntervalNanos = (long) ( TimeUnit.MILLISECONDS.toNanos( intervalInMillis ) * ( slowdownFactor - 0.5 ) );
+      return lastSentNanos + pacedIntervalNanos - nowNanos;
+   }
+
+   /**
+    * Adjusts the pace at which value events are sent according to the time
+    * which the web client took to accept the most recent event.
+    * <p>
+    * The interval is doubled when the client took more than half of it to
+    * accept an event and recovers gradually when the client takes less
+    * than a quarter of it.
+    *
+    * @param latencyNanos the time taken.
+    */
+   private void adaptPace( long latencyNanos )
+   {
+      synchronized ( pending )
+      {
+         final double referenceNanos = TimeUnit.MILLISECONDS.toNanos( pacing.getShortestValueIntervalInMillis() ) * slowdownFactor;
+         if ( latencyNanos > referenceNanos / 2 )
+         {
+            slowdownFactor = Math.min( pacing.maxSlowdownFactor(), slowdownFactor * 2 );
+         }
+         else if ( latencyNanos < referenceNanos / 4 )
+         {
+            slowdownFactor = Math.max( 1.0, slowdownFactor * 0.9 );
+         }
+      }
+   }
+
+   /**
+    * Returns the number of values which should be retained for the
+    * specified channel when its values are conflated.
+    *
+    * @param wicaChannel the channel.
+    * @return the result.
+    */
+   private static int getRetainedValueCount( WicaChannel wicaChannel )
+   {
+      final WicaChannelProperties wicaChannelProperties = wicaChannel.getProperties();
+      final boolean lastN = wicaChannelProperties.getOptionalFilterType().map( t -> t == WicaFilterType.LAST_N ).orElse( false );
+      return lastN ? Math.max( 1, wicaChannelProperties.getOptionalFilterNumSamples().orElse( 1 ) ) : 1;
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   /**
+    * The policy which determines the pace at which value events are sent.
+    *
+    * @param adaptive whether the pace adapts to the speed of the web client.
+    * @param monitoredValueIntervalInMillis the stream's configured interval
+    *     between monitored value events, or zero if there are none.
+    * @param polledValueIntervalInMillis the stream's configured interval
+    *     between polled value events, or zero if there are none.
+    * @param maxSlowdownFactor the maximum factor by which the intervals may
+    *     be stretched.
+    */
+   record Pacing( boolean adaptive, int monitoredValueIntervalInMillis, int polledValueIntervalInMillis, int maxSlowdownFactor )
+   {
+      static final Pacing NONE = new Pacing( false, 0, 0, 1 );
+
+      Pacing
+      {
+         Validate.isTrue( maxSlowdownFactor >= 1, "The 'maxSlowdownFactor' argument was less than one." );
+         Validate.isTrue( ! adaptive || ( monitoredValueIntervalInMillis > 0 ) || ( polledValueIntervalInMillis > 0 ), "Adaptive pacing requires at least one value interval." );
+      }
+
+      private int getShortestValueIntervalInMillis()
+      {
+         if ( monitoredValueIntervalInMillis <= 0 )
+         {
+            return polledValueIntervalInMillis;
+         }
+         return polledValueIntervalInMillis <= 0 ? monitoredValueIntervalInMillis : Math.min( monitoredValueIntervalInMillis, polledValueIntervalInMillis );
+      }
+   }
+
+   /**
+    * An event which has been published on a stream's shared flux.
+    *
+    * @param sequence the event's sequence number.
+    * @param builder the builder for the event's type.
+    * @param data the serialized payload.
+    * @param metadataMap the metadata on which the payload is based, or null
+    *     if the event does not carry metadata.
+    * @param valueMap the values on which the payload is based, or null if
+    *     the event does not carry values.
+    */
+   record Event( long sequence,
+                 WicaStreamServerSentEventBuilder builder,
+                 String data,
+                 Map<WicaChannel,WicaChannelMetadata> metadataMap,
+                 Map<WicaChannel,List<WicaChannelValue>> valueMap ) {}
+
+   /**
+    * An event which is waiting to be sent. Each entry is owned by the
+    * outbox's pending deque until it is removed for sending.
+    */
+   private class Entry
+   {
+      private final WicaStreamServerSentEventBuilder builder;
+      private final long oldestSequence;
+      private long newestSequence;
+      private String data;
+      private Map<WicaChannel,WicaChannelMetadata> metadataMap;
+      private Map<WicaChannel,List<WicaChannelValue>> valueMap;
+
+      private Entry( Event event )
+      {
+         this.builder = event.builder();
+         this.oldestSequence = event.sequence();
+         this.newestSequence = event.sequence();
+         this.data = event.data();
+         this.metadataMap = event.metadataMap();
+         this.valueMap = event.valueMap();
+      }
+
+      private void conflate( Event event )
+      {
+         newestSequence = event.sequence();
+         if ( ( metadataMap != null ) && ( event.metadataMap() != null ) )
+         {
+            final Map<WicaChannel,WicaChannelMetadata> merged = new LinkedHashMap<>( metadataMap );
+            merged.putAll( event.metadataMap() );
+            metadataMap = merged;
+            data = null;
+         }
+         else if ( ( valueMap != null ) && ( event.valueMap() != null ) )
+         {
+            final Map<WicaChannel,List<WicaChannelValue>> merged = new LinkedHashMap<>( valueMap );
+            event.valueMap().forEach( ( wicaChannel, newValues ) -> merged.merge( wicaChannel, newValues, ( oldValues, values ) -> {
+               final List<WicaChannelValue> combined = new ArrayList<>( oldValues );
+               combined.addAll( values );
+               final int excess = combined.size() - getRetainedValueCount( wicaChannel );
+               if ( excess <= 0 )
+               {
+                  return combined;
+               }
+               valuesDropped.addAndGet( excess );
+               streamValuesDropped.addAndGet( excess );
+               return List.copyOf( combined.subList( excess, combined.size() ) );
+            } ) );
+            valueMap = merged;
+            data = null;
+         }
+         else
+         {
+            // Events without a structured payload, such as heartbeats, are
+            // simply superseded.
+            data = event.data();
+         }
+      }
+
+      /**
+       * Discards the values which are no newer than the latest of the
+       * specified values for the same channel.
+       *
+       * @param newerValueMap the values which will be sent ahead of this entry.
+       * @return true if this entry carried values and now carries none.
+       */
+      private boolean discardValuesSupersededBy( Map<WicaChannel,List<WicaChannelValue>> newerValueMap )
+      {
+         if ( ( valueMap == null ) || valueMap.isEmpty() || ( newerValueMap == null ) )
+         {
+            return false;
+         }
+         final Map<WicaChannel,List<WicaChannelValue>> retained = new LinkedHashMap<>();
+         int discarded = 0;
+         for ( Map.Entry<WicaChannel,List<WicaChannelValue>> channelValues : valueMap.entrySet() )
+         {
+            final List<WicaChannelValue> newerValues = newerValueMap.get( channelValues.getKey() );
+            if ( ( newerValues == null ) || newerValues.isEmpty() )
+            {
+               retained.put( channelValues.getKey(), channelValues.getValue() );
+               continue;
+            }
+            final LocalDateTime supersededAt = newerValues.get( newerValues.size() - 1 ).getWicaServerTimestamp();
+            final List<WicaChannelValue> laterValues = channelValues.getValue().stream().filter( v -> v.getWicaServerTimestamp().isAfter( supersededAt ) ).toList();
+            discarded += channelValues.getValue().size() - laterValues.size();
+            if ( ! laterValues.isEmpty() )
+            {
+               retained.put( channelValues.getKey(), laterValues );
+            }
+         }
+         if ( discarded == 0 )
+         {
+            return false;
+         }
+         valuesDropped.addAndGet( discarded );
+         streamValuesDropped.addAndGet( discarded );
+         valueMap = retained;
+         data = null;
+         return retained.isEmpty();
+      }
+
+      private String getData()
+      {
+         if ( data == null )
+         {
+            data = ( metadataMap != null ) ? wicaChannelMetadataMapSerializerService.serialize( metadataMap ) :
+               wicaChannelValueMapSerializerService.serialize( valueMap );
+         }
+         return data;
+      }
+   }
+
+}
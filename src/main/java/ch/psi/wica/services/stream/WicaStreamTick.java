@@ -0,0 +1,64 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.apache.commons.lang3.Validate;
+
+import java.time.LocalDateTime;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Models a single tick of the {@link WicaStreamTickSchedulerService}.
+ * <p>
+ * One instance is created per tick and is shared by every publisher that
+ * falls due on that tick, so information which is the same for all
+ * publishers (for example the heartbeat payload) is only built once.
+ *
+ * @param sequence the tick's sequence number.
+ * @param timestamp the time at which the tick was processed.
+ * @param heartbeatPayload the payload to be sent in heartbeat events.
+ */
+public record WicaStreamTick( long sequence, LocalDateTime timestamp, String heartbeatPayload )
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Models a single tick of the scheduler.
+    *
+    * @param sequence the tick's sequence number.
+    * @param timestamp the time at which the tick was processed.
+    * @param heartbeatPayload the payload to be sent in heartbeat events.
+    */
+   public WicaStreamTick
+   {
+      Validate.notNull( timestamp, "The 'timestamp' argument is null." );
+      Validate.notNull( heartbeatPayload, "The 'heartbeatPayload' argument is null." );
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+
+   /**
+    * Creates a new tick with the specified sequence number based on the
+    * current time.
+    *
+    * @param sequence the tick's sequence number.
+    * @return the tick.
+    */
+   static WicaStreamTick createNow( long sequence )
+   {
+      final LocalDateTime now = LocalDateTime.now();
+      return new WicaStreamTick( sequence, now, now.toString() );
+   }
+
+/*- Public methods -----------------------------------------------------------*/
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,265 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.StatisticsCollectionService;
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides a single periodic timer which drives the fluxes of all wica stream
+ * publishers.
+ * <p>
+ * Subscriptions are held on a hashed timing wheel whose slots are visited
+ * once per tick. On each tick all subscriptions that have fallen due are
+ * driven in a single batched pass and are then rescheduled one interval
+ * later. The cost of a tick is therefore proportional to the number of
+ * subscriptions which share the visited slot rather than to the total
+ * number of subscriptions.
+ */
+@Service
+@ThreadSafe
+public class WicaStreamTickSchedulerService
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int WHEEL_SIZE = 512;
+
+   private final Logger logger = LoggerFactory.getLogger( WicaStreamTickSchedulerService.class );
+
+   private final long tickResolutionInMillis;
+   private final long tickResolutionInNanos;
+   private final long startTimeInNanos;
+   private final ScheduledExecutorService executor;
+   private final Queue<Subscription> pendingSubscriptions;
+   private final List<List<Subscription>> wheel;
+   private final WicaStreamTickSchedulerStatistics statisticsCollector;
+
+   // Only accessed from the tick thread.
+   private long currentTick;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+
+   /**
+    * Constructs a new instance.
+    *
+    * @param tickResolutionInMillis the period of the scheduler's tick. The
+    *    intervals of all subscriptions are rounded up to a multiple of this value.
+    *
+    * @param statisticsCollectionService an object which will collect the statistics
+    *    associated with this class instance.
+    */
+   public WicaStreamTickSchedulerService( @Value( "${wica.stream-tick-resolution-in-ms}" ) int tickResolutionInMillis,
+                                          @Autowired StatisticsCollectionService statisticsCollectionService )
+   {
+      Validate.isTrue( tickResolutionInMillis > 0, "The 'tickResolutionInMillis' argument was not positive." );
+      Validate.notNull( statisticsCollectionService, "The 'statisticsCollectionService' argument was null." );
+
+      this.tickResolutionInMillis = tickResolutionInMillis;
+      this.tickResolutionInNanos = TimeUnit.MILLISECONDS.toNanos( tickResolutionInMillis );
+      this.pendingSubscriptions = new ConcurrentLinkedQueue<>();
+      this.wheel = new ArrayList<>( WHEEL_SIZE );
+      for ( int i = 0; i < WHEEL_SIZE; i++ )
+      {
+         wheel.add( new ArrayList<>() );
+      }
+
+      this.statisticsCollector = new WicaStreamTickSchedulerStatistics();
+      statisticsCollectionService.addCollectable( statisticsCollector );
+
+      this.executor = Executors.newSingleThreadScheduledExecutor( r -> {
+         final Thread thread = new Thread( r, "wica-stream-tick" );
+         thread.setDaemon( true );
+         return thread;
+      } );
+      this.currentTick = 0;
+      this.startTimeInNanos = System.nanoTime();
+      executor.scheduleAtFixedRate( this::tick, tickResolutionInMillis, tickResolutionInMillis, TimeUnit.MILLISECONDS );
+   }
+
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   /**
+    * Returns a flux which emits a tick every time the specified period elapses.
+    * <p>
+    * The flux is driven by this scheduler's shared timer rather than by a
+    * timer of its own. When the subscriber is slow only the most recent
+    * tick is retained.
+    *
+    * @param period the period between ticks.
+    * @return the flux.
+    *
+    * @throws NullPointerException if the 'period' argument was null.
+    * @throws IllegalArgumentException if the 'period' argument was not positive.
+    */
+   public Flux<WicaStreamTick> interval( Duration period )
+   {
+      Validate.notNull( period, "The 'period' argument was null." );
+      Validate.isTrue( period.toMillis() > 0, "The 'period' argument was not positive." );
+
+      return Flux.<WicaStreamTick>create( sink -> {
+                   final Subscription subscription = subscribe( period.toMillis(), sink::next );
+                   sink.onDispose( subscription::cancel );
+                }, FluxSink.OverflowStrategy.LATEST )
+                .publishOn( Schedulers.parallel(), 1 );
+   }
+
+   /**
+    * Returns the statistics for this scheduler.
+    *
+    * @return the statistics.
+    */
+   public WicaStreamTickSchedulerStatistics getStatistics()
+   {
+      return statisticsCollector;
+   }
+
+   /**
+    * Stops the scheduler.
+    */
+   @PreDestroy
+   public void close()
+   {
+      executor.shutdownNow();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private Subscription subscribe( long intervalInMillis, Consumer<WicaStreamTick> consumer )
+   {
+      final long intervalInTicks = Math.max( 1, ( intervalInMillis + tickResolutionInMillis - 1 ) / tickResolutionInMillis );
+      final Subscription subscription = new Subscription( intervalInTicks, consumer );
+
+      // The subscription will be placed on the wheel by the tick thread.
+      pendingSubscriptions.add( subscription );
+      statisticsCollector.incrementActiveSubscriptions();
+      return subscription;
+   }
+
+   private void tick()
+   {
+      try
+      {
+         final long tickStartTimeInNanos = System.nanoTime();
+         currentTick++;
+         final long tickLagInNanos = Math.max( 0, tickStartTimeInNanos - ( startTimeInNanos + currentTick * tickResolutionInNanos ) );
+
+         // Place any new subscriptions on the wheel.
+         Subscription pending;
+         while ( ( pending = pendingSubscriptions.poll() ) != null )
+         {
+            pending.deadlineTick = currentTick + pending.intervalInTicks;
+            addToWheel( pending );
+         }
+
+         // Remove from the current slot all subscriptions that have been
+         // cancelled or which have now fallen due.
+         final List<Subscription> slot = wheel.get( (int) ( currentTick % WHEEL_SIZE ) );
+         final List<Subscription> dueList = new ArrayList<>();
+         final Iterator<Subscription> iterator = slot.iterator();
+         while ( iterator.hasNext() )
+         {
+            final Subscription subscription = iterator.next();
+            if ( subscription.isCancelled() )
+            {
+               iterator.remove();
+            }
+            else if ( subscription.deadlineTick <= currentTick )
+            {
+               iterator.remove();
+               dueList.add( subscription );
+            }
+         }
+
+         // Drive everything that has fallen due in a single pass, sharing the
+         // same tick object, then reschedule it for the next interval.
+         if ( ! dueList.isEmpty() )
+         {
+            final WicaStreamTick wicaStreamTick = WicaStreamTick.createNow( currentTick );
+            for ( Subscription subscription : dueList )
+            {
+               subscription.consumer.accept( wicaStreamTick );
+               subscription.deadlineTick += subscription.intervalInTicks;
+               addToWheel( subscription );
+            }
+         }
+
+         statisticsCollector.updateTickResult( tickLagInNanos, dueList.size(), System.nanoTime() - tickStartTimeInNanos );
+      }
+      catch ( RuntimeException ex )
+      {
+         // Exceptions must not escape from here as they would silently
+         // cancel all further executions of the tick.
+         logger.error( "Unexpected exception when processing tick: '{}'", ex.getMessage(), ex );
+      }
+   }
+
+   private void addToWheel( Subscription subscription )
+   {
+      wheel.get( (int) ( subscription.deadlineTick % WHEEL_SIZE ) ).add( subscription );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+   /**
+    * Models a request to be driven periodically by the scheduler.
+    */
+   private class Subscription
+   {
+      private final long intervalInTicks;
+      private final Consumer<WicaStreamTick> consumer;
+      private final AtomicBoolean cancelled = new AtomicBoolean( false );
+
+      // Only accessed from the tick thread.
+      private long deadlineTick;
+
+      private Subscription( long intervalInTicks, Consumer<WicaStreamTick> consumer )
+      {
+         this.intervalInTicks = intervalInTicks;
+         this.consumer = consumer;
+      }
+
+      private boolean isCancelled()
+      {
+         return cancelled.get();
+      }
+
+      private void cancel()
+      {
+         if ( ! cancelled.getAndSet( true ) )
+         {
+            statisticsCollector.decrementActiveSubscriptions();
+         }
+      }
+   }
+
+}
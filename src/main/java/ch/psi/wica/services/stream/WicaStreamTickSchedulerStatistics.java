@@ -0,0 +1,174 @@
+/*- Package Declaration ------------------------------------------------------*/
+
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.StatisticsCollectable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Provides statistics related to the stream tick scheduler.
+ */
+@ThreadSafe
+public class WicaStreamTickSchedulerStatistics implements StatisticsCollectable
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final AtomicInteger activeSubscriptions = new AtomicInteger( 0 );
+   private final AtomicLong tickCount = new AtomicLong( 0 );
+   private final AtomicLong lastTickLagInNanos = new AtomicLong( 0 );
+   private final AtomicLong maxTickLagInNanos = new AtomicLong( 0 );
+   private final AtomicLong dispatchCount = new AtomicLong( 0 );
+   private final AtomicInteger maxDispatchesPerTick = new AtomicInteger( 0 );
+   private final AtomicLong maxTickDurationInNanos = new AtomicLong( 0 );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Override
+   public Statistics get()
+   {
+      return new Statistics( "WICA STREAM TICK SCHEDULER",
+                             List.of( new StatisticsItem( "- Active Subscriptions", getActiveSubscriptions() ),
+                                      new StatisticsItem( "- Ticks", getTickCount() ),
+                                      new StatisticsItem( "- Last Tick Lag (us)", getLastTickLag() ),
+                                      new StatisticsItem( "- Max Tick Lag (us)", getMaxTickLag() ),
+                                      new StatisticsItem( "- Total Dispatches", getDispatchCount() ),
+                                      new StatisticsItem( "- Max Dispatches Per Tick", getMaxDispatchesPerTick() ),
+                                      new StatisticsItem( "- Max Tick Duration (us)", getMaxTickDuration() ) ) );
+   }
+
+   @Override
+   public void reset()
+   {
+      tickCount.set( 0 );
+      lastTickLagInNanos.set( 0 );
+      maxTickLagInNanos.set( 0 );
+      dispatchCount.set( 0 );
+      maxDispatchesPerTick.set( 0 );
+      maxTickDurationInNanos.set( 0 );
+   }
+
+   /**
+    * Returns the number of publishers currently subscribed to the scheduler.
+    *
+    * @return the result.
+    */
+   public String getActiveSubscriptions()
+   {
+      return String.valueOf( activeSubscriptions.get() );
+   }
+
+   /**
+    * Returns the number of ticks processed.
+    *
+    * @return the result.
+    */
+   public String getTickCount()
+   {
+      return String.valueOf( tickCount.get() );
+   }
+
+   /**
+    * Returns the lag of the most recent tick behind its scheduled time.
+    *
+    * @return the result.
+    */
+   public String getLastTickLag()
+   {
+      return String.valueOf( TimeUnit.NANOSECONDS.toMicros( lastTickLagInNanos.get() ) );
+   }
+
+   /**
+    * Returns the largest lag of any tick behind its scheduled time.
+    *
+    * @return the result.
+    */
+   public String getMaxTickLag()
+   {
+      return String.valueOf( TimeUnit.NANOSECONDS.toMicros( maxTickLagInNanos.get() ) );
+   }
+
+   /**
+    * Returns the total number of times a publisher has been driven by a tick.
+    *
+    * @return the result.
+    */
+   public String getDispatchCount()
+   {
+      return String.valueOf( dispatchCount.get() );
+   }
+
+   /**
+    * Returns the largest number of publishers driven by a single tick.
+    *
+    * @return the result.
+    */
+   public String getMaxDispatchesPerTick()
+   {
+      return String.valueOf( maxDispatchesPerTick.get() );
+   }
+
+   /**
+    * Returns the longest time taken to process a single tick.
+    *
+    * @return the result.
+    */
+   public String getMaxTickDuration()
+   {
+      return String.valueOf( TimeUnit.NANOSECONDS.toMicros( maxTickDurationInNanos.get() ) );
+   }
+
+/*- Package-access methods ---------------------------------------------------*/
+
+   /**
+    * Increments the count of active subscriptions.
+    */
+   void incrementActiveSubscriptions()
+   {
+      activeSubscriptions.incrementAndGet();
+   }
+
+   /**
+    * Decrements the count of active subscriptions.
+    */
+   void decrementActiveSubscriptions()
+   {
+      activeSubscriptions.decrementAndGet();
+   }
+
+   /**
+    * Updates the statistics with the result of a single tick.
+    *
+    * @param tickLagInNanos how late the tick was relative to its scheduled time.
+    * @param dispatches the number of publishers driven by the tick.
+    * @param tickDurationInNanos the time taken to process the tick.
+    */
+   void updateTickResult( long tickLagInNanos, int dispatches, long tickDurationInNanos )
+   {
+      tickCount.incrementAndGet();
+      lastTickLagInNanos.set( tickLagInNanos );
+      maxTickLagInNanos.accumulateAndGet( tickLagInNanos, Math::max );
+      dispatchCount.addAndGet( dispatches );
+      maxDispatchesPerTick.accumulateAndGet( dispatches, Math::max );
+      maxTickDurationInNanos.accumulateAndGet( tickDurationInNanos, Math::max );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
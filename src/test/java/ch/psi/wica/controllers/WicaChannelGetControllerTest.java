@@ -22,6 +22,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -89,6 +90,45 @@ class WicaChannelGetControllerTest
       } );
    }
 
+   @Test
+   void testGetMultipleValuesRequest_SharedTimeout()
+   {
+      final String bulkRequest = "{ \"channels\": [ \"XXXXX1\", { \"name\": \"XXXXX2\", \"fieldsOfInterest\": \"conn;val\" }, \"XXXXX3\" ] }";
+      final int userSpecifiedTimeout = 300;
+      final RequestBuilder postRequest = MockMvcRequestBuilders.post("/ca/channel/bulk?timeout=" + userSpecifiedTimeout + "&fieldsOfInterest=conn" )
+                                                               .contentType( MediaType.APPLICATION_JSON_VALUE )
+                                                               .content( bulkRequest )
+                                                               .accept( MediaType.APPLICATION_JSON_VALUE );
+
+      // Check that the channels are read concurrently, so that the method
+      // returns in less than the sum of the individual timeouts.
+      final int guardTime = 200;
+      final int testTimeoutInMillis = userSpecifiedTimeout + guardTime;
+      assertTimeoutPreemptively( Duration.ofMillis( testTimeoutInMillis ), () -> {
+         mockMvc.perform( postRequest )
+               .andExpect( status().isOk() )
+               .andExpect( content().contentTypeCompatibleWith( MediaType.APPLICATION_JSON_VALUE ) )
+               .andDo( print() )
+               .andExpect( content().string( containsString("\"XXXXX1\":{\"conn\":false}") ) )
+               .andExpect( content().string( containsString("\"XXXXX2\":{") ) )
+               .andExpect( content().string( containsString("\"XXXXX3\":{\"conn\":false}") ) )
+               .andReturn();
+      } );
+   }
+
+   @Test
+   void testGetMultipleValuesRequest_BadRequest() throws Exception
+   {
+      final RequestBuilder postRequest = MockMvcRequestBuilders.post("/ca/channel/bulk" )
+                                                               .contentType( MediaType.APPLICATION_JSON_VALUE )
+                                                               .content( "{ \"channels\": [] }" )
+                                                               .accept( MediaType.APPLICATION_JSON_VALUE );
+      mockMvc.perform( postRequest )
+            .andDo( print() )
+            .andExpect( status().isBadRequest() )
+            .andExpect( header().exists( "X-WICA-ERROR" ) );
+   }
+
    // By default this test is suppressed as it would create problems in the automatic
    // build system. The test should be enabled as required during pre-production testing.
    @Disabled
@@ -0,0 +1,89 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controllers;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Checks that, when requests are handled on virtual threads, a burst of
+ * channel GET requests against slow (here: non-existent) channels is not
+ * limited by the size of the server's thread pool.
+ * <p>
+ * The thread pool is deliberately made small. Were the requests handled on
+ * platform threads they would be processed in batches of the pool size, so
+ * that the burst would take (requests / pool size) * timeout to complete.
+ */
+@SpringBootTest( webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                 properties = { "wica.channel-io-virtual-threads-enabled=true", "server.tomcat.threads.max=5" } )
+class WicaChannelIoLoadTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final int NUMBER_OF_REQUESTS = 100;
+   private static final int CHANNEL_TIMEOUT_IN_MILLIS = 500;
+
+   private final Logger logger = LoggerFactory.getLogger( WicaChannelIoLoadTest.class );
+
+   @LocalServerPort
+   private int port;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Test
+   void testThroughputWithManySlowChannels()
+   {
+      final HttpClient httpClient = HttpClient.newHttpClient();
+      final StopWatch stopWatch = StopWatch.createStarted();
+
+      final List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+      for ( int i = 0; i < NUMBER_OF_REQUESTS; i++ )
+      {
+         final URI uri = URI.create( "http://localhost:" + port + "/ca/channel/SLOW:CHANNEL:" + i + "?timeout=" + CHANNEL_TIMEOUT_IN_MILLIS + "&fieldsOfInterest=conn" );
+         responses.add( httpClient.sendAsync( HttpRequest.newBuilder( uri ).GET().build(), HttpResponse.BodyHandlers.ofString() ) );
+      }
+
+      for ( CompletableFuture<HttpResponse<String>> response : responses )
+      {
+         assertThat( response.join().statusCode(), is( 200 ) );
+         assertThat( response.join().body(), containsString( "\"conn\":false" ) );
+      }
+
+      final long elapsedTimeInMillis = stopWatch.getTime( TimeUnit.MILLISECONDS );
+      logger.info( "Completed {} slow channel GET requests in {} ms. Throughput = {} requests/second.", NUMBER_OF_REQUESTS, elapsedTimeInMillis, ( 1000L * NUMBER_OF_REQUESTS ) / Math.max( 1, elapsedTimeInMillis ) );
+
+      // With a pool of 5 platform threads the burst would take at least 10 seconds.
+      assertThat( elapsedTimeInMillis, lessThan( 4_000L ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -16,9 +16,11 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.Duration;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -85,6 +87,43 @@ class WicaChannelPutControllerTest
       } );
    }
 
+   @Test
+   void testBulkPutRequest_SharedTimeout()
+   {
+      final String bulkPutRequest = "{ \"XXXXX1\": 25, \"XXXXX2\": 2.5, \"XXXXX3\": \"ON\", \"XXXXX4\": [ 1.0, 2.5 ] }";
+      final int userSpecifiedTimeout = 300;
+      final RequestBuilder putRequest = MockMvcRequestBuilders.put("/ca/channel/bulk?timeout=" + userSpecifiedTimeout )
+                                                              .contentType( MediaType.APPLICATION_JSON_VALUE )
+                                                              .accept( MediaType.APPLICATION_JSON_VALUE )
+                                                              .content( bulkPutRequest );
+
+      // Check that the writes are pipelined, so that the method returns in
+      // less than the sum of the individual timeouts.
+      final int guardTime = 200;
+      final int testTimeoutInMillis = userSpecifiedTimeout + guardTime;
+      assertTimeoutPreemptively( Duration.ofMillis( testTimeoutInMillis ), () -> {
+         mockMvc.perform( putRequest )
+               .andExpect( status().isOk() )
+               .andDo( print() )
+               .andExpect( content().string( containsString( "\"XXXXX1\":{\"ok\":false" ) ) )
+               .andExpect( content().string( containsString( "\"XXXXX4\":{\"ok\":false" ) ) )
+               .andReturn();
+      } );
+   }
+
+   @Test
+   void testBulkPutRequest_BadMode() throws Exception
+   {
+      final RequestBuilder putRequest = MockMvcRequestBuilders.put("/ca/channel/bulk?mode=sometimes" )
+                                                              .contentType( MediaType.APPLICATION_JSON_VALUE )
+                                                              .accept( MediaType.APPLICATION_JSON_VALUE )
+                                                              .content( "{ \"XXXXX1\": 25 }" );
+      mockMvc.perform( putRequest )
+            .andDo( print() )
+            .andExpect( status().isBadRequest() )
+            .andExpect( header().exists( "X-WICA-ERROR" ) );
+   }
+
    // By default this test is suppressed as it would create problems in the automatic
    // build system. The test should be enabled as required during pre-production testing.
    @Disabled
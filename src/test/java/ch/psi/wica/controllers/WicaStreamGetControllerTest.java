@@ -21,6 +21,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
@@ -28,11 +29,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -158,7 +163,7 @@ class WicaStreamGetControllerTest
 
       final HttpServletRequest httpServletRequestMock =  Mockito.mock( HttpServletRequest.class );
       Mockito.when( httpServletRequestMock.getRemoteHost() ).thenReturn( "MyHostname" );
-      final ResponseEntity<Flux<ServerSentEvent<String>>> responseEntity = wicaStreamGetController.get( Optional.of( streamId ), httpServletRequestMock );
+      final ResponseEntity<Flux<ServerSentEvent<String>>> responseEntity = wicaStreamGetController.get( Optional.of( streamId ), Optional.empty(), httpServletRequestMock );
       final Flux<ServerSentEvent<String>> flux = responseEntity.getBody();
       assertNotNull( flux );
       given( httpServletRequestMock.getRemoteHost()).willReturn( "localhost");
@@ -175,6 +180,93 @@ class WicaStreamGetControllerTest
          .verifyComplete();
    }
 
+   @Test
+   void testSendRequestWithLastEventId_OnlyMissedEventsAreReplayed() throws Exception
+   {
+      // Send a POST request with a list containing a couple of EPICS channels.
+      final RequestBuilder postRequest = MockMvcRequestBuilders.post( "/ca/streams" )
+         .content( epicsChannelListOkCustomisedForStepVerifier )
+         .contentType( MediaType.APPLICATION_JSON_VALUE )
+         .accept( MediaType.TEXT_PLAIN_VALUE );
+
+      final MvcResult postRequestResult = mockMvc.perform( postRequest ).andDo( print()).andExpect( status().isOk() ).andReturn();
+      final String streamId= postRequestResult.getResponse().getContentAsString();
+
+      // Subscribe a first client and wait until it has received the initial
+      // metadata, monitored values and polled values.
+      final HttpServletRequest httpServletRequestMock =  Mockito.mock( HttpServletRequest.class );
+      Mockito.when( httpServletRequestMock.getRemoteHost() ).thenReturn( "MyHostname" );
+      final Flux<ServerSentEvent<String>> firstFlux = wicaStreamGetController.get( Optional.of( streamId ), Optional.empty(), httpServletRequestMock ).getBody();
+      assertNotNull( firstFlux );
+      final List<ServerSentEvent<String>> firstClientEvents = new CopyOnWriteArrayList<>();
+      final Disposable firstClient = firstFlux.subscribe( firstClientEvents::add );
+      try
+      {
+         final long deadline = System.currentTimeMillis() + 10_000;
+         while ( ( firstClientEvents.size() < 3 ) && ( System.currentTimeMillis() < deadline ) )
+         {
+            Thread.sleep( 100 );
+         }
+         assertEquals( 3, firstClientEvents.size() );
+         assertTrue( sseCommentContains( firstClientEvents.get( 0 ), "channel metadata" ) );
+         final String lastEventId = firstClientEvents.get( 2 ).id();
+
+         // A client which reconnects after receiving all of the above is not
+         // sent the stream's metadata and values again. It receives only the
+         // events published after the reconnection.
+         final RequestBuilder getRequest = MockMvcRequestBuilders.get( "/ca/streams/" + streamId )
+            .header( "Last-Event-ID", lastEventId )
+            .accept( MediaType.TEXT_EVENT_STREAM_VALUE );
+         final MvcResult getRequestResult = mockMvc.perform( getRequest )
+            .andDo( l -> Thread.sleep( 3_500 ) )
+            .andDo( print() )
+            .andExpect( status().isOk() )
+            .andExpect( content().contentType( "text/event-stream" ) )
+            .andExpect( content().string( not( containsString( "channel metadata" ) ) ) )
+            .andExpect( content().string( containsString( "channel monitored values" ) ) )
+            .andReturn();
+
+         logger.info( "Data returned from GET request was: '{}'", getRequestResult.getResponse().getContentAsString() );
+      }
+      finally
+      {
+         firstClient.dispose();
+         deleteStream( streamId );
+      }
+   }
+
+   @Test
+   void testSendRequestWithUnknownLastEventId_FullStateIsSent() throws Exception
+   {
+      // Send a POST request with a list containing a couple of EPICS channels.
+      final RequestBuilder postRequest = MockMvcRequestBuilders.post( "/ca/streams" )
+         .content( epicsChannelListOkCustomisedForStepVerifier )
+         .contentType( MediaType.APPLICATION_JSON_VALUE )
+         .accept( MediaType.TEXT_PLAIN_VALUE );
+
+      final MvcResult postRequestResult = mockMvc.perform( postRequest ).andDo( print()).andExpect( status().isOk() ).andReturn();
+      final String streamId= postRequestResult.getResponse().getContentAsString();
+
+      // A client which claims to have received an event which the stream
+      // never published cannot be resumed, so it receives the full state.
+      final RequestBuilder getRequest = MockMvcRequestBuilders.get( "/ca/streams/" + streamId )
+         .header( "Last-Event-ID", streamId + "-999999" )
+         .accept( MediaType.TEXT_EVENT_STREAM_VALUE );
+      try
+      {
+         mockMvc.perform( getRequest )
+            .andDo( l -> Thread.sleep( 1_000 ) )
+            .andDo( print() )
+            .andExpect( status().isOk() )
+            .andExpect( content().string( containsString( "channel metadata" ) ) )
+            .andReturn();
+      }
+      finally
+      {
+         deleteStream( streamId );
+      }
+   }
+
    @Test
    void testSendInvalidRequestEmptyPathVariable_ShouldBeRejected() throws Exception
    {
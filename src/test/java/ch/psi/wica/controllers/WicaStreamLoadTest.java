@@ -38,6 +38,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -224,6 +225,62 @@ class WicaStreamLoadTest
       logger.info( "Multi-Threaded Stream Delete test completed {} iterations in {} us. Throughput = {} requests/second.", iterations, deleteStreamCycleTime, (1_000_000L * iterations ) / deleteStreamCycleTime );
    }
 
+   private static Stream<Arguments> getArgsForTestStreamCreateAndDeleteConcurrentClientThroughput()
+   {
+      return Stream.of( Arguments.of(  1, 10, lightStream ),
+                        Arguments.of( 10, 10, lightStream ),
+                        Arguments.of( 50, 10, lightStream ),
+                        Arguments.of(  1, 10, heavyStream ),
+                        Arguments.of( 10, 10, heavyStream ),
+                        Arguments.of( 50, 10, heavyStream ),
+                        Arguments.of(  1, 10, proscanStream ),
+                        Arguments.of( 10, 10, proscanStream ),
+                        Arguments.of( 50, 10, proscanStream ) );
+   }
+
+   // Unlike the test above, in which all the CREATE operations complete before
+   // any DELETE operation starts, here each client repeatedly creates and then
+   // deletes its own stream. The CREATE and DELETE operations of the different
+   // clients therefore overlap, which exercises the server's ability to handle
+   // the lifecycle of many streams concurrently.
+   @MethodSource( "getArgsForTestStreamCreateAndDeleteConcurrentClientThroughput" )
+   @ParameterizedTest
+   void testStreamCreateAndDeleteConcurrentClientThroughput( int clients, int cyclesPerClient, WicaStream wicaStream ) throws InterruptedException, ExecutionException
+   {
+      logger.info( "Starting Concurrent Client Stream Create and Delete test with {} clients...", clients );
+      final ExecutorService executorService = Executors.newFixedThreadPool( clients );
+      final CompletionService<Integer> executor = new ExecutorCompletionService<>( executorService );
+      final StopWatch stopWatch = StopWatch.createStarted();
+
+      // Submit the tasks for each client.
+      for ( int i = 0; i < clients; i++ )
+      {
+         executor.submit( () -> {
+            int completedCycles = 0;
+            for ( int cycle = 0; cycle < cyclesPerClient; cycle++ )
+            {
+               final String streamId = sendStreamCreateRequest( wicaStream );
+               if ( ( streamId != null ) && ( sendStreamDeleteRequest( streamId ) != null ) )
+               {
+                  completedCycles++;
+               }
+            }
+            return completedCycles;
+         } );
+      }
+
+      // Get all the results and check that each client completed all its cycles.
+      for ( int i = 0; i < clients; i++ )
+      {
+         assertThat( executor.take().get(), is( cyclesPerClient ) );
+      }
+      executorService.shutdown();
+
+      final int operations = 2 * clients * cyclesPerClient;
+      final long cycleTime = stopWatch.getTime( TimeUnit.MICROSECONDS );
+      logger.info( "Concurrent Client Stream Create and Delete test completed {} operations in {} us. Throughput = {} requests/second.", operations, cycleTime, (1_000_000L * operations ) / cycleTime );
+   }
+
    private static Stream<Arguments> getArgsForTestGetSingleThreadedThroughput()
    {
       // return Stream.of( Arguments.of( 500, testStream,  50*10*500, 10_100  ) );
@@ -4,12 +4,13 @@ package ch.psi.wica.controlsystem.epics;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelMetadataUpdateEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelMonitoredValueUpdateEvent;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledValueUpdateEvent;
 import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
-import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -35,6 +36,14 @@ public class EventReceiverMock
 
 /*- Main ---------------------------------------------------------------------*/
 /*- Constructor --------------------------------------------------------------*/
+
+   public EventReceiverMock( @Autowired ControlSystemEventBus controlSystemEventBus )
+   {
+      controlSystemEventBus.subscribe( WicaChannelMonitoredValueUpdateEvent.class, this::handleWicaChannelMonitoredValueUpdateEvent );
+      controlSystemEventBus.subscribe( WicaChannelMetadataUpdateEvent.class, this::handleWicaChannelMonitoredMetadataUpdateEvent );
+      controlSystemEventBus.subscribe( WicaChannelPolledValueUpdateEvent.class, this::handleWicaChannelPolledValueUpdateEvent );
+   }
+
 /*- Class methods ------------------------------------------------------------*/
 /*- Public methods -----------------------------------------------------------*/
 
@@ -64,21 +73,18 @@ public class EventReceiverMock
       return Optional.ofNullable( value.get() );
    }
 
-   @EventListener
    public void handleWicaChannelMonitoredValueUpdateEvent( WicaChannelMonitoredValueUpdateEvent event)
    {
       value.set( event.getWicaChannelValue() );
       valuePublished.set( LocalDateTime.now());
    }
 
-   @EventListener
    public void handleWicaChannelMonitoredMetadataUpdateEvent( WicaChannelMetadataUpdateEvent event )
    {
       metadata.set( event.getWicaChannelMetadata() );
       metadataPublished.set( LocalDateTime.now() );
    }
 
-   @EventListener
    public void handleWicaChannelPolledValueUpdateEvent( WicaChannelPolledValueUpdateEvent event )
    {
       value.set( event.getWicaChannelValue() );
@@ -0,0 +1,88 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelSubscriberIndexTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final EpicsChannelName channelA = EpicsChannelName.of( "channelA" );
+   private final EpicsChannelName channelB = EpicsChannelName.of( "channelB" );
+   private EpicsChannelSubscriberIndex<String> index;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      index = new EpicsChannelSubscriberIndex<>();
+   }
+
+   @Test
+   void testNullArguments()
+   {
+      assertThrows( NullPointerException.class, () -> index.add( null, "sub1" ) );
+      assertThrows( NullPointerException.class, () -> index.add( channelA, null ) );
+      assertThrows( NullPointerException.class, () -> index.remove( null, "sub1" ) );
+      assertThrows( NullPointerException.class, () -> index.get( null ) );
+   }
+
+   @Test
+   void testGetReturnsOnlySubscribersOfRequestedChannel()
+   {
+      index.add( channelA, "sub1" );
+      index.add( channelB, "sub2" );
+      index.add( channelA, "sub3" );
+      assertThat( index.get( channelA ), is( List.of( "sub1", "sub3" ) ) );
+      assertThat( index.get( channelB ), is( List.of( "sub2" ) ) );
+      assertThat( index.get( EpicsChannelName.of( "unknown" ) ), is( List.of() ) );
+      assertThat( index.contains( channelA, "sub3" ), is( true ) );
+      assertThat( index.contains( channelB, "sub3" ), is( false ) );
+   }
+
+   @Test
+   void testRemove()
+   {
+      index.add( channelA, "sub1" );
+      index.add( channelA, "sub2" );
+      assertThat( index.remove( channelA, "sub1" ), is( true ) );
+      assertThat( index.remove( channelA, "sub1" ), is( false ) );
+      assertThat( index.remove( channelB, "sub2" ), is( false ) );
+      assertThat( index.get( channelA ), is( List.of( "sub2" ) ) );
+      assertThat( index.remove( channelA, "sub2" ), is( true ) );
+      assertThat( index.get( channelA ), is( List.of() ) );
+   }
+
+   @Test
+   void testSnapshotIsNotAffectedBySubsequentChanges()
+   {
+      index.add( channelA, "sub1" );
+      final List<String> snapshot = index.get( channelA );
+      index.add( channelA, "sub2" );
+      index.remove( channelA, "sub1" );
+      assertThat( snapshot, is( List.of( "sub1" ) ) );
+      assertThrows( UnsupportedOperationException.class, () -> index.get( channelA ).add( "sub3" ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -3,6 +3,7 @@ package ch.psi.wica.controlsystem.epics.channel;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.model.channel.value.WicaChannelValue;
 import ch.psi.wica.model.channel.value.WicaChannelValueConnectedInteger;
 import ch.psi.wica.model.channel.value.WicaChannelValueDisconnected;
 import org.epics.ca.Channel;
@@ -135,6 +136,26 @@ class EpicsChannelValueGetterTest
       assertThrows ( ExecutionException.class, () -> epicsChannelValueGetter.get( caChannel, 1, TimeUnit.MILLISECONDS ) );
    }
 
+   @Test
+   void testGetValueAsyncDoesNotBlockAndCanBeTimedOut()
+   {
+      // Setup a CompletableFuture which will never complete.
+      final CompletableFuture<Metadata<Object>> neverCompletingFuture = new CompletableFuture<>();
+
+      @SuppressWarnings( "unchecked" )
+      final Channel<Object> caChannel =  Mockito.mock( Channel.class );
+      when( caChannel.getName() ).thenReturn( "some-channel-name" );
+      when( caChannel.getConnectionState() ).thenReturn( ConnectionState.CONNECTED );
+      when( caChannel.getAsync( any() ) ).thenReturn( neverCompletingFuture );
+
+      // Invoke the method-under-test and verify that it returns immediately and that the
+      // timeout applied by the caller completes the future exceptionally.
+      final CompletableFuture<WicaChannelValue> future = epicsChannelValueGetter.getAsync( caChannel );
+      assertThat( future.isDone(), is( false ) );
+      final var ex = assertThrows( ExecutionException.class, () -> future.orTimeout( 10, TimeUnit.MILLISECONDS ).get() );
+      assertThat( ex.getCause() instanceof TimeoutException, is( true ) );
+   }
+
 
 /*- Private methods ----------------------------------------------------------*/
 /*- Nested Classes -----------------------------------------------------------*/
@@ -0,0 +1,203 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import org.epics.ca.Channel;
+import org.epics.ca.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelConnectionCacheTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final EpicsChannelName CHANNEL1 = EpicsChannelName.of( "channel1" );
+   private static final EpicsChannelName CHANNEL2 = EpicsChannelName.of( "channel2" );
+   private static final EpicsChannelName CHANNEL3 = EpicsChannelName.of( "channel3" );
+
+   private Context caContextMock;
+   private AtomicLong nanoTime;
+   private EpicsChannelConnectionCache<Object> cache;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      caContextMock = Mockito.mock( Context.class );
+      when( caContextMock.createChannel( anyString(), any() ) ).thenAnswer( invocation -> createChannelMock() );
+      nanoTime = new AtomicLong( 0 );
+      cache = new EpicsChannelConnectionCache<>( caContextMock, Object.class, 2, 10, TimeUnit.SECONDS, nanoTime::get );
+   }
+
+   @Test
+   void testAcquire_ThrowsNullPointerExceptionWhenChannelNameIsNull()
+   {
+      assertThrows( NullPointerException.class, () -> cache.acquire( null ) );
+   }
+
+   @Test
+   void testAcquire_ChannelIsCreatedOnceAndReused()
+   {
+      final CompletableFuture<Channel<Object>> future1;
+      final CompletableFuture<Channel<Object>> future2;
+      try ( var lease = cache.acquire( CHANNEL1 ) )
+      {
+         future1 = lease.getConnectFuture();
+      }
+      try ( var lease = cache.acquire( CHANNEL1 ) )
+      {
+         future2 = lease.getConnectFuture();
+      }
+      assertThat( future2, sameInstance( future1 ) );
+      assertThat( cache.getMissCount(), is( 1L ) );
+      assertThat( cache.getHitCount(), is( 1L ) );
+      verify( caContextMock, times( 1 ) ).createChannel( "channel1", Object.class );
+   }
+
+   @Test
+   void testAcquire_ConcurrentRequestsShareConnectionAttempt()
+   {
+      final var pendingConnect = new CompletableFuture<Channel<Object>>();
+      final Channel<Object> caChannelMock = createChannelMock( pendingConnect );
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock );
+
+      try ( var lease1 = cache.acquire( CHANNEL1 ); var lease2 = cache.acquire( CHANNEL1 ) )
+      {
+         assertThat( lease2.getConnectFuture(), sameInstance( lease1.getConnectFuture() ) );
+         verify( caChannelMock, times( 1 ) ).connectAsync();
+      }
+   }
+
+   @Test
+   void testEvictIdleChannels_IdleChannelsAreClosed()
+   {
+      final Channel<Object> caChannelMock = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock );
+      cache.acquire( CHANNEL1 ).close();
+
+      nanoTime.set( TimeUnit.SECONDS.toNanos( 5 ) );
+      cache.evictIdleChannels();
+      assertThat( cache.size(), is( 1 ) );
+
+      nanoTime.set( TimeUnit.SECONDS.toNanos( 11 ) );
+      cache.evictIdleChannels();
+      assertThat( cache.size(), is( 0 ) );
+      verify( caChannelMock, times( 1 ) ).close();
+   }
+
+   @Test
+   void testEvictIdleChannels_LeasedChannelsAreNotClosed()
+   {
+      final Channel<Object> caChannelMock = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock );
+      try ( var ignored = cache.acquire( CHANNEL1 ) )
+      {
+         nanoTime.set( TimeUnit.SECONDS.toNanos( 100 ) );
+         cache.evictIdleChannels();
+         assertThat( cache.size(), is( 1 ) );
+         verify( caChannelMock, never() ).close();
+      }
+   }
+
+   @Test
+   void testAcquire_IdleChannelsAreLeftForPeriodicEviction()
+   {
+      final Channel<Object> caChannelMock1 = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock1 );
+      cache.acquire( CHANNEL1 ).close();
+
+      nanoTime.set( TimeUnit.SECONDS.toNanos( 11 ) );
+      cache.acquire( CHANNEL2 ).close();
+      assertThat( cache.size(), is( 2 ) );
+      verify( caChannelMock1, never() ).close();
+
+      cache.evictIdleChannels();
+      assertThat( cache.size(), is( 1 ) );
+      verify( caChannelMock1, times( 1 ) ).close();
+   }
+
+   @Test
+   void testAcquire_LeastRecentlyUsedChannelIsClosedWhenMaxSizeExceeded()
+   {
+      final Channel<Object> caChannelMock1 = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock1 );
+
+      cache.acquire( CHANNEL1 ).close();
+      nanoTime.incrementAndGet();
+      cache.acquire( CHANNEL2 ).close();
+      nanoTime.incrementAndGet();
+      cache.acquire( CHANNEL3 ).close();
+
+      assertThat( cache.size(), is( 2 ) );
+      verify( caChannelMock1, times( 1 ) ).close();
+   }
+
+   @Test
+   void testAcquire_FailedConnectionIsRetried()
+   {
+      final Channel<Object> failedChannelMock = createChannelMock( CompletableFuture.failedFuture( new RuntimeException( "connect failed" ) ) );
+      final Channel<Object> goodChannelMock = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( failedChannelMock, goodChannelMock );
+
+      cache.acquire( CHANNEL1 ).close();
+      try ( var lease = cache.acquire( CHANNEL1 ) )
+      {
+         assertThat( lease.getConnectFuture().isCompletedExceptionally(), is( false ) );
+      }
+      verify( failedChannelMock, times( 1 ) ).close();
+      assertThat( cache.getMissCount(), is( 2L ) );
+   }
+
+   @Test
+   void testClose_AllChannelsAreClosed()
+   {
+      final Channel<Object> caChannelMock = createChannelMock();
+      when( caContextMock.createChannel( "channel1", Object.class ) ).thenReturn( caChannelMock );
+      cache.acquire( CHANNEL1 ).close();
+      cache.close();
+      assertThat( cache.size(), is( 0 ) );
+      verify( caChannelMock, times( 1 ) ).close();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private static Channel<Object> createChannelMock()
+   {
+      return createChannelMock( null );
+   }
+
+   @SuppressWarnings( "unchecked" )
+   private static Channel<Object> createChannelMock( CompletableFuture<Channel<Object>> connectFuture )
+   {
+      final Channel<Object> caChannelMock = Mockito.mock( Channel.class );
+      when( caChannelMock.connectAsync() ).thenReturn( connectFuture == null ? CompletableFuture.completedFuture( caChannelMock ) : connectFuture );
+      return caChannelMock;
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,127 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelIoLimiterTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final long NO_DEADLINE = System.nanoTime() + TimeUnit.HOURS.toNanos( 1 );
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Test
+   void testConstructor()
+   {
+      assertThrows( IllegalArgumentException.class, () -> new EpicsChannelIoLimiter( 0 ) );
+   }
+
+   @Test
+   void testOperationsBeyondLimitAreQueuedPerIoc()
+   {
+      final var limiter = new EpicsChannelIoLimiter( 2 );
+      final AtomicInteger started = new AtomicInteger();
+      final CompletableFuture<String> op1 = new CompletableFuture<>();
+
+      final var result1 = limiter.submit( "ioc1", NO_DEADLINE, () -> { started.incrementAndGet(); return op1; } );
+      limiter.submit( "ioc1", NO_DEADLINE, () -> { started.incrementAndGet(); return new CompletableFuture<>(); } );
+      final var result3 = limiter.submit( "ioc1", NO_DEADLINE, () -> { started.incrementAndGet(); return CompletableFuture.completedFuture( "3" ); } );
+      limiter.submit( "ioc2", NO_DEADLINE, () -> { started.incrementAndGet(); return new CompletableFuture<>(); } );
+
+      // The third operation against ioc1 must wait. The limit for ioc2 is independent.
+      assertThat( started.get(), is( 3 ) );
+      assertThat( limiter.getQueuedOperations(), is( 1 ) );
+      assertThat( result3.isDone(), is( false ) );
+
+      // Completing the first operation allows the queued one to start.
+      op1.complete( "1" );
+      assertThat( result1.join(), is( "1" ) );
+      assertThat( started.get(), is( 4 ) );
+      assertThat( result3.join(), is( "3" ) );
+      assertThat( limiter.getQueuedOperations(), is( 0 ) );
+   }
+
+   @Test
+   void testQueuedOperationIsAbandonedAfterDeadline()
+   {
+      final var limiter = new EpicsChannelIoLimiter( 1 );
+      final CompletableFuture<String> op1 = new CompletableFuture<>();
+      final AtomicInteger started = new AtomicInteger();
+
+      limiter.submit( "ioc1", NO_DEADLINE, () -> op1 );
+      final var expired = limiter.submit( "ioc1", System.nanoTime() - 1, () -> { started.incrementAndGet(); return CompletableFuture.completedFuture( "2" ); } );
+      final var live = limiter.submit( "ioc1", NO_DEADLINE, () -> { started.incrementAndGet(); return CompletableFuture.completedFuture( "3" ); } );
+
+      op1.complete( "1" );
+      final var ex = assertThrows( ExecutionException.class, expired::get );
+      assertThat( ex.getCause(), instanceOf( TimeoutException.class ) );
+      assertThat( live.join(), is( "3" ) );
+      assertThat( started.get(), is( 1 ) );
+   }
+
+   @Test
+   void testFailedOperationReleasesPermit()
+   {
+      final var limiter = new EpicsChannelIoLimiter( 1 );
+      final var failed = limiter.submit( "ioc1", NO_DEADLINE, () -> { throw new IllegalStateException( "failed" ); } );
+      assertThrows( ExecutionException.class, failed::get );
+      assertThat( limiter.submit( "ioc1", NO_DEADLINE, () -> CompletableFuture.completedFuture( "2" ) ).join(), is( "2" ) );
+   }
+
+   @Test
+   void testHungOperationReleasesPermitAtDeadline()
+   {
+      final var limiter = new EpicsChannelIoLimiter( 1 );
+      final CompletableFuture<String> hung = new CompletableFuture<>();
+      final var result1 = limiter.submit( "ioc1", System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( 100 ), () -> hung );
+      final var result2 = limiter.submit( "ioc1", NO_DEADLINE, () -> CompletableFuture.completedFuture( "2" ) );
+
+      final var ex = assertThrows( ExecutionException.class, result1::get );
+      assertThat( ex.getCause(), instanceOf( TimeoutException.class ) );
+      assertThat( result2.join(), is( "2" ) );
+      assertThat( hung.isDone(), is( false ) );
+   }
+
+   @Test
+   void testExpiredQueuedOperationsAreAbandonedByScan() throws InterruptedException
+   {
+      final var limiter = new EpicsChannelIoLimiter( 1 );
+      limiter.submit( "ioc1", NO_DEADLINE, CompletableFuture::new );
+      final var expired = limiter.submit( "ioc1", System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( 10 ), () -> CompletableFuture.completedFuture( "2" ) );
+      final var live = limiter.submit( "ioc1", NO_DEADLINE, () -> CompletableFuture.completedFuture( "3" ) );
+      assertThat( limiter.getQueuedOperations(), is( 2 ) );
+
+      Thread.sleep( 50 );
+      limiter.abandonExpiredOperations();
+      assertThat( limiter.getQueuedOperations(), is( 1 ) );
+      final var ex = assertThrows( ExecutionException.class, expired::get );
+      assertThat( ex.getCause(), instanceOf( TimeoutException.class ) );
+      assertThat( live.isDone(), is( false ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,139 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.io;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelWriteCoalescerTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final EpicsChannelName CHANNEL1 = EpicsChannelName.of( "abcd1" );
+   private static final EpicsChannelName CHANNEL2 = EpicsChannelName.of( "abcd2" );
+
+   private EpicsChannelWriteCoalescer coalescer;
+   private List<String> startedWrites;
+   private List<CompletableFuture<Void>> pendingWrites;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      coalescer = new EpicsChannelWriteCoalescer();
+      startedWrites = new ArrayList<>();
+      pendingWrites = new ArrayList<>();
+   }
+
+   @Test
+   void testNullArguments()
+   {
+      assertThrows( NullPointerException.class, () -> coalescer.write( null, () -> CompletableFuture.completedFuture( null ) ) );
+      assertThrows( NullPointerException.class, () -> coalescer.write( CHANNEL1, null ) );
+   }
+
+   @Test
+   void testWriteToIdleChannelStartsImmediately()
+   {
+      final var result = coalescer.write( CHANNEL1, write( "1" ) );
+      assertThat( startedWrites, is( List.of( "1" ) ) );
+      assertThat( result.isDone(), is( false ) );
+      assertThat( coalescer.getChannelsWithWritesInProgress(), is( 1 ) );
+
+      pendingWrites.get( 0 ).complete( null );
+      assertThat( result.join(), is( EpicsChannelWriteCoalescer.Outcome.WRITTEN ) );
+      assertThat( coalescer.getChannelsWithWritesInProgress(), is( 0 ) );
+   }
+
+   @Test
+   void testQueuedWritesAreSupersededByNewestValue()
+   {
+      final var result1 = coalescer.write( CHANNEL1, write( "1" ) );
+      final var result2 = coalescer.write( CHANNEL1, write( "2" ) );
+      final var result3 = coalescer.write( CHANNEL1, write( "3" ) );
+
+      // Only the first write has started. The second was superseded by the third.
+      assertThat( startedWrites, is( List.of( "1" ) ) );
+      assertThat( result2.join(), is( EpicsChannelWriteCoalescer.Outcome.SUPERSEDED ) );
+      assertThat( result3.isDone(), is( false ) );
+
+      // When the first write completes the newest value is written.
+      pendingWrites.get( 0 ).complete( null );
+      assertThat( result1.join(), is( EpicsChannelWriteCoalescer.Outcome.WRITTEN ) );
+      assertThat( startedWrites, is( List.of( "1", "3" ) ) );
+
+      pendingWrites.get( 1 ).complete( null );
+      assertThat( result3.join(), is( EpicsChannelWriteCoalescer.Outcome.WRITTEN ) );
+      assertThat( coalescer.getChannelsWithWritesInProgress(), is( 0 ) );
+   }
+
+   @Test
+   void testChannelsAreCoalescedIndependently()
+   {
+      coalescer.write( CHANNEL1, write( "1" ) );
+      coalescer.write( CHANNEL2, write( "2" ) );
+      assertThat( startedWrites, is( List.of( "1", "2" ) ) );
+      assertThat( coalescer.getChannelsWithWritesInProgress(), is( 2 ) );
+   }
+
+   @Test
+   void testFailedWriteIsReportedAndQueuedWriteStillStarts()
+   {
+      final var result1 = coalescer.write( CHANNEL1, write( "1" ) );
+      final var result2 = coalescer.write( CHANNEL1, write( "2" ) );
+
+      pendingWrites.get( 0 ).completeExceptionally( new RuntimeException( "write failed" ) );
+      final var ex = assertThrows( ExecutionException.class, result1::get );
+      assertThat( ex.getCause(), instanceOf( RuntimeException.class ) );
+      assertThat( startedWrites, is( List.of( "1", "2" ) ) );
+
+      pendingWrites.get( 1 ).complete( null );
+      assertThat( result2.join(), is( EpicsChannelWriteCoalescer.Outcome.WRITTEN ) );
+   }
+
+   @Test
+   void testWriteOperationWhichThrowsIsReportedAsFailed()
+   {
+      final var result = coalescer.write( CHANNEL1, () -> { throw new IllegalStateException( "closed" ); } );
+      final var ex = assertThrows( ExecutionException.class, result::get );
+      assertThat( ex.getCause(), instanceOf( IllegalStateException.class ) );
+      assertThat( coalescer.getChannelsWithWritesInProgress(), is( 0 ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private Supplier<CompletableFuture<Void>> write( String value )
+   {
+      return () -> {
+         startedWrites.add( value );
+         final CompletableFuture<Void> future = new CompletableFuture<>();
+         pendingWrites.add( future );
+         return future;
+      };
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
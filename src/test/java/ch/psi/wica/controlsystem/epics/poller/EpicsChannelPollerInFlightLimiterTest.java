@@ -0,0 +1,73 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.poller;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelPollerInFlightLimiterTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Test
+   void testConstructor_ThrowsIllegalArgumentExceptionWhenLimitsNotPositive()
+   {
+      assertThrows( IllegalArgumentException.class, () -> new EpicsChannelPollerInFlightLimiter( 0, 1 ) );
+      assertThrows( IllegalArgumentException.class, () -> new EpicsChannelPollerInFlightLimiter( 1, 0 ) );
+   }
+
+   @Test
+   void testTryAcquire_PerIocLimitIsEnforced()
+   {
+      final var limiter = new EpicsChannelPollerInFlightLimiter( 10, 2 );
+      assertThat( limiter.tryAcquire( "ioc1" ), is( true ) );
+      assertThat( limiter.tryAcquire( "ioc1" ), is( true ) );
+      assertThat( limiter.tryAcquire( "ioc1" ), is( false ) );
+
+      // Other IOCs are unaffected.
+      assertThat( limiter.tryAcquire( "ioc2" ), is( true ) );
+
+      limiter.release( "ioc1" );
+      assertThat( limiter.tryAcquire( "ioc1" ), is( true ) );
+   }
+
+   @Test
+   void testTryAcquire_GlobalLimitIsEnforced()
+   {
+      final var limiter = new EpicsChannelPollerInFlightLimiter( 2, 2 );
+      assertThat( limiter.tryAcquire( "ioc1" ), is( true ) );
+      assertThat( limiter.tryAcquire( "ioc2" ), is( true ) );
+      assertThat( limiter.tryAcquire( "ioc3" ), is( false ) );
+
+      // A refusal on the global limit must not consume the IOC's own permit.
+      limiter.release( "ioc1" );
+      assertThat( limiter.tryAcquire( "ioc3" ), is( true ) );
+      assertThat( limiter.tryAcquire( "ioc3" ), is( false ) );
+      limiter.release( "ioc2" );
+      assertThat( limiter.tryAcquire( "ioc3" ), is( true ) );
+   }
+
+   @Test
+   void testRelease_ThrowsIllegalStateExceptionWhenIocNotRecognised()
+   {
+      final var limiter = new EpicsChannelPollerInFlightLimiter( 2, 2 );
+      assertThrows( IllegalStateException.class, () -> limiter.release( "unknown" ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,72 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.poller;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelPollerPublisherTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Test
+   void testGetInitialDelayInMillis_IsWithinPollingInterval()
+   {
+      for ( int i = 0; i < 1000; i++ )
+      {
+         final long delay = EpicsChannelPollerPublisher.Poller.getInitialDelayInMillis( EpicsChannelName.of( "wica:test:counter" + i ), 1000, 1234567L + i );
+         assertThat( delay, greaterThanOrEqualTo( 0L ) );
+         assertThat( delay, lessThan( 1000L ) );
+      }
+   }
+
+   @Test
+   void testGetInitialDelayInMillis_PhaseIsIndependentOfStartTime()
+   {
+      final EpicsChannelName channelName = EpicsChannelName.of( "wica:test:counter01" );
+      for ( long startTime = 1_000_000L; startTime < 1_002_000L; startTime += 37 )
+      {
+         final long firstRunTime = startTime + EpicsChannelPollerPublisher.Poller.getInitialDelayInMillis( channelName, 1000, startTime );
+         final long referenceRunTime = 1_000_000L + EpicsChannelPollerPublisher.Poller.getInitialDelayInMillis( channelName, 1000, 1_000_000L );
+         assertThat( Math.floorMod( firstRunTime - referenceRunTime, 1000L ), is( 0L ) );
+      }
+   }
+
+   @Test
+   void testGetInitialDelayInMillis_SimilarChannelNamesAreSpreadAcrossPeriod()
+   {
+      // Allocate 2000 similarly named channels to ten equal slots of the polling period.
+      final int[] slotCounts = new int[ 10 ];
+      for ( int i = 0; i < 2000; i++ )
+      {
+         final EpicsChannelName channelName = EpicsChannelName.of( String.format( "wica:test:counter%04d", i ) );
+         final long delay = EpicsChannelPollerPublisher.Poller.getInitialDelayInMillis( channelName, 1000, 0L );
+         slotCounts[ (int) ( delay / 100 ) ]++;
+      }
+
+      // Ideally each slot would hold 200 channels.
+      for ( int slotCount : slotCounts )
+      {
+         assertThat( slotCount, greaterThan( 150 ) );
+         assertThat( slotCount, lessThan( 250 ) );
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
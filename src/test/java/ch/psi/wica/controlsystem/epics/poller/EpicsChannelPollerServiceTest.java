@@ -196,6 +196,33 @@ class EpicsChannelPollerServiceTest
       assertThat( epicsChannelPollerPublisher.getStatistics().getPollSuccessCount(), is( "300" ) );
    }
 
+   @Test
+   void testStartPolling_RequestsForSameChannelAndPollingIntervalShareOnePoller()
+   {
+      final EpicsChannelPollerRequest pollingRequest1 = createPollRequest( "abcd##1", 100 );
+      final EpicsChannelPollerRequest pollingRequest2 = createPollRequest( "abcd##2", 100 );
+      final EpicsChannelPollerRequest pollingRequest3 = createPollRequest( "abcd##3", 200 );
+
+      epicsChannelPollerService.startPolling( pollingRequest1 );
+      epicsChannelPollerService.startPolling( pollingRequest2 );
+      epicsChannelPollerService.startPolling( pollingRequest3 );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActiveRequests(), is( "3" ) );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActivePollers(), is( "2" ) );
+
+      // The shared poller must survive until its last request is removed.
+      epicsChannelPollerService.stopPolling( pollingRequest1 );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActiveRequests(), is( "2" ) );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActivePollers(), is( "2" ) );
+
+      epicsChannelPollerService.stopPolling( pollingRequest2 );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActiveRequests(), is( "1" ) );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActivePollers(), is( "1" ) );
+
+      epicsChannelPollerService.stopPolling( pollingRequest3 );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActiveRequests(), is( "0" ) );
+      assertThat( epicsChannelPollerPublisher.getStatistics().getActivePollers(), is( "0" ) );
+   }
+
    @Test
    void testStopPolling_ThrowsIllegalStateExceptionWhenStoppingPollingChannelThatWasNeverPreviouslyPolled()
    {
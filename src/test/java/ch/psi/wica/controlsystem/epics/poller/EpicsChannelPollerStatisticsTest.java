@@ -0,0 +1,85 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.epics.poller;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class EpicsChannelPollerStatisticsTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private EpicsChannelPollerStatistics statistics;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      statistics = new EpicsChannelPollerStatistics( new ConcurrentHashMap<>(), new ConcurrentHashMap<>() );
+   }
+
+   @Test
+   void testBurstStatistics_InitialState()
+   {
+      assertThat( statistics.getPollBurstSizeMean(), is( "0" ) );
+      assertThat( statistics.getPollBurstSizeMax(), is( "0" ) );
+   }
+
+   @Test
+   void testBurstStatistics_PollsInSameTickAreCountedAsOneBurst()
+   {
+      // Five polls in the first tick, one poll in each of the next five ticks.
+      for ( int i = 0; i < 5; i++ )
+      {
+         statistics.recordPollStart( 1000 );
+      }
+      for ( int i = 1; i <= 5; i++ )
+      {
+         statistics.recordPollStart( 1000 + 100L * i );
+      }
+      assertThat( statistics.getPollBurstSizeMax(), is( "5" ) );
+      assertThat( statistics.getPollBurstSizeMean(), is( "1" ) );
+   }
+
+   @Test
+   void testBurstStatistics_Reset()
+   {
+      statistics.recordPollStart( 1000 );
+      statistics.recordPollStart( 1000 );
+      statistics.reset();
+      assertThat( statistics.getPollBurstSizeMean(), is( "0" ) );
+      assertThat( statistics.getPollBurstSizeMax(), is( "0" ) );
+   }
+
+   @Test
+   void testLatencyStatistics()
+   {
+      statistics.incrementPollsInFlight();
+      statistics.incrementPollsInFlight();
+      assertThat( statistics.getPollsInFlight(), is( "2" ) );
+      statistics.decrementPollsInFlight( 10_000_000L );
+      statistics.decrementPollsInFlight( 30_000_000L );
+      assertThat( statistics.getPollsInFlight(), is( "0" ) );
+      assertThat( statistics.getPollLatencyMeanInMillis(), is( "20" ) );
+      assertThat( statistics.getPollLatencyMaxInMillis(), is( "30" ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,103 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.event;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Compares the cost of delivering scoped events through the control system
+ * event bus with that of delivering them through Spring's event multicaster
+ * using SpEL conditions, which is how they were previously delivered.
+ */
+class ControlSystemEventBusPerformanceTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( ControlSystemEventBusPerformanceTest.class );
+   private static final int NUMBER_OF_EVENTS = 200_000;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @Test
+   void testPerformance()
+   {
+      final long springTimeInMicros;
+      try ( AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext( SpringListeners.class ) )
+      {
+         final SpringListeners listeners = ctx.getBean( SpringListeners.class );
+         final StopWatch stopWatch = StopWatch.createStarted();
+         for ( int i = 0; i < NUMBER_OF_EVENTS; i++ )
+         {
+            ctx.publishEvent( new TestEvent( i % 2 == 0 ? "monitored" : "polled" ) );
+         }
+         springTimeInMicros = Math.max( 1, stopWatch.getTime( TimeUnit.MICROSECONDS ) );
+         assertThat( listeners.monitoredCount.get(), is( (long) NUMBER_OF_EVENTS / 2 ) );
+         assertThat( listeners.polledCount.get(), is( (long) NUMBER_OF_EVENTS / 2 ) );
+      }
+
+      final ControlSystemEventBus bus = new ControlSystemEventBus();
+      final AtomicLong monitoredCount = new AtomicLong();
+      final AtomicLong polledCount = new AtomicLong();
+      bus.subscribe( TestEvent.class, "monitored", e -> monitoredCount.incrementAndGet() );
+      bus.subscribe( TestEvent.class, "polled", e -> polledCount.incrementAndGet() );
+
+      final StopWatch stopWatch = StopWatch.createStarted();
+      for ( int i = 0; i < NUMBER_OF_EVENTS; i++ )
+      {
+         final String scope = i % 2 == 0 ? "monitored" : "polled";
+         bus.publish( new TestEvent( scope ), scope );
+      }
+      final long busTimeInMicros = Math.max( 1, stopWatch.getTime( TimeUnit.MICROSECONDS ) );
+      assertThat( monitoredCount.get(), is( (long) NUMBER_OF_EVENTS / 2 ) );
+      assertThat( polledCount.get(), is( (long) NUMBER_OF_EVENTS / 2 ) );
+
+      logger.info( "Delivered {} events. Spring: {} us ({} ns/event). Event bus: {} us ({} ns/event).",
+                   NUMBER_OF_EVENTS,
+                   springTimeInMicros, ( 1000L * springTimeInMicros ) / NUMBER_OF_EVENTS,
+                   busTimeInMicros, ( 1000L * busTimeInMicros ) / NUMBER_OF_EVENTS );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+   public record TestEvent( String scope ) {}
+
+   public static class SpringListeners
+   {
+      private final AtomicLong monitoredCount = new AtomicLong();
+      private final AtomicLong polledCount = new AtomicLong();
+
+      @EventListener( condition = "#event.scope == 'monitored'" )
+      public void handleMonitored( TestEvent event )
+      {
+         monitoredCount.incrementAndGet();
+      }
+
+      @EventListener( condition = "#event.scope == 'polled'" )
+      public void handlePolled( TestEvent event )
+      {
+         polledCount.incrementAndGet();
+      }
+   }
+
+}
@@ -0,0 +1,100 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.controlsystem.event;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class ControlSystemEventBusTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private ControlSystemEventBus bus;
+   private List<String> received;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      bus = new ControlSystemEventBus();
+      received = new ArrayList<>();
+   }
+
+   @Test
+   void testNullArguments()
+   {
+      assertThrows( NullPointerException.class, () -> bus.subscribe( null, e -> {} ) );
+      assertThrows( NullPointerException.class, () -> bus.subscribe( TestEvent.class, null ) );
+      assertThrows( NullPointerException.class, () -> bus.subscribe( TestEvent.class, null, e -> {} ) );
+      assertThrows( NullPointerException.class, () -> bus.publish( null ) );
+      assertThrows( NullPointerException.class, () -> bus.publish( new TestEvent( "a" ), null ) );
+   }
+
+   @Test
+   void testPublishWithNoListeners()
+   {
+      bus.publish( new TestEvent( "a" ) );
+      bus.publish( new TestEvent( "a" ), "monitored" );
+      assertThat( received.isEmpty(), is( true ) );
+   }
+
+   @Test
+   void testUnscopedListenersReceiveAllEventsOfTheirType()
+   {
+      bus.subscribe( TestEvent.class, e -> received.add( "L1:" + e.name() ) );
+      bus.subscribe( TestEvent.class, e -> received.add( "L2:" + e.name() ) );
+      bus.subscribe( OtherTestEvent.class, e -> received.add( "L3:" + e.name() ) );
+
+      bus.publish( new TestEvent( "a" ) );
+      bus.publish( new TestEvent( "b" ), "monitored" );
+      assertThat( received, is( List.of( "L1:a", "L2:a", "L1:b", "L2:b" ) ) );
+   }
+
+   @Test
+   void testScopedListenersReceiveOnlyEventsOfTheirScope()
+   {
+      bus.subscribe( TestEvent.class, "monitored", e -> received.add( "M:" + e.name() ) );
+      bus.subscribe( TestEvent.class, "polled", e -> received.add( "P:" + e.name() ) );
+      bus.subscribe( TestEvent.class, e -> received.add( "U:" + e.name() ) );
+
+      bus.publish( new TestEvent( "a" ), "monitored" );
+      bus.publish( new TestEvent( "b" ), "polled" );
+      bus.publish( new TestEvent( "c" ), "metadata" );
+      bus.publish( new TestEvent( "d" ) );
+      assertThat( received, is( List.of( "U:a", "M:a", "U:b", "P:b", "U:c", "U:d" ) ) );
+   }
+
+   @Test
+   void testListenerExceptionDoesNotPreventDeliveryToOtherListeners()
+   {
+      bus.subscribe( TestEvent.class, e -> { throw new IllegalStateException( "test exception" ); } );
+      bus.subscribe( TestEvent.class, e -> received.add( e.name() ) );
+
+      bus.publish( new TestEvent( "a" ) );
+      assertThat( received, is( List.of( "a" ) ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+   private record TestEvent( String name ) {}
+   private record OtherTestEvent( String name ) {}
+
+}
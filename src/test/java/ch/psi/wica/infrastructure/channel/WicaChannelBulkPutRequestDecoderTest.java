@@ -0,0 +1,87 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaChannelBulkPutRequestDecoderTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private WicaChannelBulkPutRequestDecoder decoder;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      decoder = new WicaChannelBulkPutRequestDecoder();
+   }
+
+   @Test
+   void testNullArgument()
+   {
+      assertThrows( NullPointerException.class, () -> decoder.decode( null ) );
+   }
+
+   @Test
+   void testGoodDecode()
+   {
+      final String testString = "{ \"INT\": 3, \"BIGINT\": 12345678901, \"DBL\": 1.5, \"STR\": \"ON\", " +
+                                  "\"INTARR\": [ 1, 2 ], \"DBLARR\": [ 1, 2.5 ], \"STRARR\": [ \"a\", \"b\" ] }";
+      final Map<String,Object> result = decoder.decode( testString );
+
+      assertThat( List.copyOf( result.keySet() ), is( List.of( "INT", "BIGINT", "DBL", "STR", "INTARR", "DBLARR", "STRARR" ) ) );
+      assertThat( result.get( "INT" ), is( 3 ) );
+      assertThat( result.get( "BIGINT" ), is( 12345678901.0 ) );
+      assertThat( result.get( "DBL" ), is( 1.5 ) );
+      assertThat( result.get( "STR" ), is( "ON" ) );
+      assertThat( result.get( "INTARR" ), instanceOf( int[].class ) );
+      assertThat( (int[]) result.get( "INTARR" ), is( new int[] { 1, 2 } ) );
+      assertThat( result.get( "DBLARR" ), instanceOf( double[].class ) );
+      assertThat( (double[]) result.get( "DBLARR" ), is( new double[] { 1.0, 2.5 } ) );
+      assertThat( (String[]) result.get( "STRARR" ), is( new String[] { "a", "b" } ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "",
+                             "[]",
+                             "{}",
+                             "{ \"\": 1 }",
+                             "{ \"CHAN1\": null }",
+                             "{ \"CHAN1\": true }",
+                             "{ \"CHAN1\": {} }",
+                             "{ \"CHAN1\": [] }",
+                             "{ \"CHAN1\": [ 1, \"a\" ] }",
+                             "{ \"CHAN1\": [ [ 1 ] ] }",
+                             "{ \"CHAN1\": 1, \"CHAN1\": 2 }",
+                             "{ \"CHAN1\": 1 " } )
+   void testBadDecode( String testString )
+   {
+      assertThrows( IllegalArgumentException.class, () -> decoder.decode( testString ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
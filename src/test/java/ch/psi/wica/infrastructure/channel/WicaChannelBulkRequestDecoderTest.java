@@ -0,0 +1,79 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaChannelBulkRequestDecoderTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private WicaChannelBulkRequestDecoder decoder;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      decoder = new WicaChannelBulkRequestDecoder();
+   }
+
+   @Test
+   void testNullArgument()
+   {
+      assertThrows( NullPointerException.class, () -> decoder.decode( null ) );
+   }
+
+   @Test
+   void testGoodDecode()
+   {
+      final String testString = "{ \"channels\": [ \"CHAN1\", { \"name\": \"CHAN2\", \"numericScale\": 3, \"fieldsOfInterest\": \"val;sevr\" }, { \"name\": \"CHAN3\" } ] }";
+      final List<WicaChannelBulkRequestDecoder.ChannelRequest> result = decoder.decode( testString );
+      assertThat( result, is( List.of( new WicaChannelBulkRequestDecoder.ChannelRequest( "CHAN1", null, null ),
+                                       new WicaChannelBulkRequestDecoder.ChannelRequest( "CHAN2", 3, "val;sevr" ),
+                                       new WicaChannelBulkRequestDecoder.ChannelRequest( "CHAN3", null, null ) ) ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "",
+                             "   ",
+                             "[]",
+                             "{}",
+                             "{ \"channels\": \"CHAN1\" }",
+                             "{ \"channels\": [] }",
+                             "{ \"channels\": [ 1 ] }",
+                             "{ \"channels\": [ \" \" ] }",
+                             "{ \"channels\": [ { \"numericScale\": 3 } ] }",
+                             "{ \"channels\": [ { \"name\": \"CHAN1\", \"numericScale\": -1 } ] }",
+                             "{ \"channels\": [ { \"name\": \"CHAN1\", \"numericScale\": \"abc\" } ] }",
+                             "{ \"channels\": [ { \"name\": \"CHAN1\", \"fieldsOfInterest\": 3 } ] }",
+                             "{ \"channels\": [ \"CHAN1\", { \"name\": \"CHAN1\" } ] }",
+                             "{ \"channels\": [ \"CHAN1\" ], \"channels\": [ \"CHAN2\" ] }",
+                             "{ \"channels\": [ \"CHAN1\" " } )
+   void testBadDecode( String testString )
+   {
+      assertThrows( IllegalArgumentException.class, () -> decoder.decode( testString ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
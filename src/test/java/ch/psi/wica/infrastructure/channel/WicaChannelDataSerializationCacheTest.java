@@ -0,0 +1,113 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaChannelDataSerializationCacheTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private WicaChannelDataSerializationCache cache;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      cache = new WicaChannelDataSerializationCache();
+   }
+
+   @Test
+   void testNullArguments()
+   {
+      final var value = WicaChannelValueBuilder.createChannelValueConnectedReal( 1.0 );
+      assertThrows( NullPointerException.class, () -> cache.writeToJson( null, Set.of(), 2, false ) );
+      assertThrows( NullPointerException.class, () -> cache.writeToJson( value, null, 2, false ) );
+   }
+
+   @Test
+   void testResultMatchesUncachedSerializer()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 123.456789 );
+      final var serializer = WicaChannelDataSerializerBuilder.create()
+            .withFieldsOfInterest( Set.of( "val" ) )
+            .withNumericScale( 2 )
+            .withQuotedNumericStrings( false )
+            .build();
+      assertThat( cache.writeToJson( value, Set.of( "val" ), 2, false ), is( serializer.writeToJson( value ) ) );
+   }
+
+   @Test
+   void testSameValueAndSettingsIsSerializedOnce()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 123.456789 );
+      final String json1 = cache.writeToJson( value, Set.of( "val" ), 2, false );
+      final String json2 = cache.writeToJson( value, Set.of( "val" ), 2, false );
+      assertThat( json2, sameInstance( json1 ) );
+      assertThat( cache.getMissCount(), is( 1L ) );
+      assertThat( cache.getHitCount(), is( 1L ) );
+      assertThat( cache.size(), is( 1 ) );
+   }
+
+   @Test
+   void testDifferentSettingsAreSerializedSeparately()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 123.456789 );
+      final String json1 = cache.writeToJson( value, Set.of( "val" ), 2, false );
+      final String json2 = cache.writeToJson( value, Set.of( "val" ), 4, false );
+      final String json3 = cache.writeToJson( value, Set.of( "val", "type" ), 2, false );
+      assertThat( json1, is( "{\"val\":123.46}" ) );
+      assertThat( json2, is( "{\"val\":123.4568}" ) );
+      assertThat( json3, not( is( json1 ) ) );
+      assertThat( cache.getMissCount(), is( 3L ) );
+      assertThat( cache.size(), is( 1 ) );
+   }
+
+   @Test
+   void testDistinctButEqualValuesAreCachedSeparately()
+   {
+      final WicaChannelValue value1 = WicaChannelValueBuilder.createChannelValueConnectedReal( 1.0 );
+      final WicaChannelValue value2 = WicaChannelValueBuilder.createChannelValueConnectedReal( 1.0 );
+      cache.writeToJson( value1, Set.of( "val" ), 2, false );
+      cache.writeToJson( value2, Set.of( "val" ), 2, false );
+      assertThat( cache.getMissCount(), is( 2L ) );
+      assertThat( cache.size(), is( 2 ) );
+   }
+
+   @Test
+   void testManyDistinctSettingsAreSerializedCorrectly()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 123.456789 );
+      for ( int i = 0; i < 200; i++ )
+      {
+         cache.writeToJson( WicaChannelValueBuilder.createChannelValueConnectedReal( i ), Set.of( "val" ), i % 100, false );
+      }
+      assertThat( cache.writeToJson( value, Set.of( "val" ), 2, false ), is( "{\"val\":123.46}" ) );
+      assertThat( cache.writeToJson( value, Set.of( "val" ), 4, false ), is( "{\"val\":123.4568}" ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,85 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaDoubleFormatterTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @ParameterizedTest
+   @CsvSource( { "0.0,           2, 0.00",
+                 "-0.0,          2, 0.00",
+                 "123.456789,    0, 123",
+                 "123.456789,    2, 123.46",
+                 "-123.456789,   2, -123.46",
+                 "0.05,          1, 0.1",
+                 "-0.001,        2, 0.00",
+                 "0.000001,      8, 0.00000100",
+                 "999.999,       2, 1000.00",
+                 "123456.654321, 6, 123456.654321" } )
+   void testFormat( double value, int numericScale, String expectedResult )
+   {
+      assertThat( format( value, numericScale ), is( expectedResult ) );
+   }
+
+   @ParameterizedTest
+   @CsvSource( { "NaN,      2",
+                 "Infinity, 2",
+                 "1e20,     2",
+                 "1.0,      16",
+                 "2.5,      0",
+                 "1.005,    2",
+                 "0.125,    2" } )
+   void testValuesNotHandledOnFastPath( double value, int numericScale )
+   {
+      assertThat( WicaDoubleFormatter.format( value, numericScale, new char[ WicaDoubleFormatter.MAX_FORMATTED_LENGTH ] ), is( -1 ) );
+   }
+
+   @Test
+   void testFastPathAgreesWithBigDecimal()
+   {
+      final Random random = new Random( 1234 );
+      final char[] buffer = new char[ WicaDoubleFormatter.MAX_FORMATTED_LENGTH ];
+      for ( int i = 0; i < 100_000; i++ )
+      {
+         final double value = ( random.nextDouble() - 0.5 ) * Math.pow( 10, random.nextInt( 20 ) - 8 );
+         final int numericScale = random.nextInt( 16 );
+         final int length = WicaDoubleFormatter.format( value, numericScale, buffer );
+         if ( length >= 0 )
+         {
+            assertThat( "value: " + value + ", scale: " + numericScale, new String( buffer, 0, length ), is( WicaDoubleFormatter.formatUsingBigDecimal( value, numericScale ) ) );
+         }
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private static String format( double value, int numericScale )
+   {
+      final char[] buffer = new char[ WicaDoubleFormatter.MAX_FORMATTED_LENGTH ];
+      final int length = WicaDoubleFormatter.format( value, numericScale, buffer );
+      return length < 0 ? WicaDoubleFormatter.formatUsingBigDecimal( value, numericScale ) : new String( buffer, 0, length );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
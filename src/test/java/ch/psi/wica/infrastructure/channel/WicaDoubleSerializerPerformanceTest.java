@@ -0,0 +1,124 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.infrastructure.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+/**
+ * Compares the performance of the double serializer with that of the
+ * original BigDecimal based implementation for scalars and for large arrays.
+ */
+class WicaDoubleSerializerPerformanceTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final Logger logger = LoggerFactory.getLogger( WicaDoubleSerializerPerformanceTest.class );
+   private static final JsonFactory jsonFactory = new JsonFactory();
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   private static Stream<Arguments> getArgsForPerformanceTest()
+   {
+      return Stream.of( Arguments.of( 100_000,      1, 6 ),
+                        Arguments.of( 100_000,      1, 6 ),
+                        Arguments.of( 100_000,      1, 2 ),
+                        Arguments.of( 100_000,      1, 2 ),
+                        Arguments.of(     100, 10_000, 6 ),
+                        Arguments.of(     100, 10_000, 6 ),
+                        Arguments.of(     100, 10_000, 2 ),
+                        Arguments.of(     100, 10_000, 2 ) );
+   }
+
+   @MethodSource( "getArgsForPerformanceTest" )
+   @ParameterizedTest
+   void testPerformance( int iterations, int arraySize, int numericScale ) throws IOException
+   {
+      final Random random = new Random( 1234 );
+      final double[] values = new double[ arraySize ];
+      for ( int i = 0; i < arraySize; i++ )
+      {
+         values[ i ] = ( random.nextDouble() - 0.5 ) * 100_000;
+      }
+      final WicaDoubleArraySerializer serializer = new WicaDoubleArraySerializer( numericScale );
+
+      // Check that both implementations produce the same output.
+      assertThat( serializeUsingFormatter( serializer, values ), is( serializeUsingBigDecimal( values, numericScale ) ) );
+
+      final StopWatch stopWatch = StopWatch.createStarted();
+      for ( int i = 0; i < iterations; i++ )
+      {
+         serializeUsingBigDecimal( values, numericScale );
+      }
+      final long bigDecimalTimeInMicros = Math.max( 1, stopWatch.getTime( TimeUnit.MICROSECONDS ) );
+
+      stopWatch.reset();
+      stopWatch.start();
+      for ( int i = 0; i < iterations; i++ )
+      {
+         serializeUsingFormatter( serializer, values );
+      }
+      final long formatterTimeInMicros = Math.max( 1, stopWatch.getTime( TimeUnit.MICROSECONDS ) );
+
+      final long doublesSerialized = (long) iterations * arraySize;
+      logger.info( "Serialized {} doubles (array size: {}, scale: {}). BigDecimal: {} us ({} doubles/s). Formatter: {} us ({} doubles/s).",
+                   doublesSerialized, arraySize, numericScale,
+                   bigDecimalTimeInMicros, ( 1_000_000L * doublesSerialized ) / bigDecimalTimeInMicros,
+                   formatterTimeInMicros, ( 1_000_000L * doublesSerialized ) / formatterTimeInMicros );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private static String serializeUsingFormatter( WicaDoubleArraySerializer serializer, double[] values ) throws IOException
+   {
+      final StringWriter writer = new StringWriter();
+      try ( JsonGenerator gen = jsonFactory.createGenerator( writer ) )
+      {
+         serializer.serialize( values, gen, null );
+      }
+      return writer.toString();
+   }
+
+   private static String serializeUsingBigDecimal( double[] values, int numericScale ) throws IOException
+   {
+      final StringWriter writer = new StringWriter();
+      try ( JsonGenerator gen = jsonFactory.createGenerator( writer ) )
+      {
+         gen.writeStartArray();
+         for ( double value : values )
+         {
+            gen.writeNumber( WicaDoubleFormatter.formatUsingBigDecimal( value, numericScale ) );
+         }
+         gen.writeEndArray();
+      }
+      return writer.toString();
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -187,6 +187,111 @@ class WicaStreamMonitoredValueDataBufferTest
       }
    }
 
+   @Test
+   void testGetLaterThanCursor_ReturnsOnlyNewValues()
+   {
+      final WicaChannel abc = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "abc" ).build();
+      final WicaChannel def = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "def" ).build();
+      final WicaStreamDataBufferCursor cursor = testObject.createCursor();
+
+      // Nothing has been saved yet.
+      assertThat( testObject.getLaterThan( Set.of( abc, def ), cursor ).isEmpty(), is( true ) );
+
+      final WicaChannelValue testValue1 = WicaChannelValueBuilder.createChannelValueDisconnected();
+      final WicaChannelValue testValue2 = WicaChannelValueBuilder.createChannelValueDisconnected();
+      injectValueUpdate( abc, testValue1 );
+      injectValueUpdate( abc, testValue2 );
+
+      final var firstReadMap = testObject.getLaterThan( Set.of( abc, def ), cursor );
+      assertThat( firstReadMap.size(), is( 1 ) );
+      assertThat( firstReadMap.get( abc ), is( List.of( testValue1, testValue2 ) ) );
+
+      // A second read with no intervening updates returns nothing.
+      assertThat( testObject.getLaterThan( Set.of( abc, def ), cursor ).isEmpty(), is( true ) );
+
+      final WicaChannelValue testValue3 = WicaChannelValueBuilder.createChannelValueDisconnected();
+      injectValueUpdate( def, testValue3 );
+
+      final var secondReadMap = testObject.getLaterThan( Set.of( abc, def ), cursor );
+      assertThat( secondReadMap.size(), is( 1 ) );
+      assertThat( secondReadMap.get( def ), is( List.of( testValue3 ) ) );
+      assertThat( cursor.getOverrunCount(), is( 0L ) );
+   }
+
+   @Test
+   void testGetLaterThanCursorAtEnd_ReturnsOnlyValuesSavedAfterCreation()
+   {
+      final WicaChannel abc = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "abc" ).build();
+      final WicaChannel def = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "def" ).build();
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+
+      final WicaStreamDataBufferCursor cursor = testObject.createCursorAtEnd( Set.of( abc, def ) );
+      assertThat( testObject.getLaterThan( Set.of( abc, def ), cursor ).isEmpty(), is( true ) );
+
+      // Values saved later are returned, including those for channels which
+      // had no values when the cursor was created.
+      final WicaChannelValue testValue1 = WicaChannelValueBuilder.createChannelValueDisconnected();
+      final WicaChannelValue testValue2 = WicaChannelValueBuilder.createChannelValueDisconnected();
+      injectValueUpdate( abc, testValue1 );
+      injectValueUpdate( def, testValue2 );
+
+      final var readMap = testObject.getLaterThan( Set.of( abc, def ), cursor );
+      assertThat( readMap.get( abc ), is( List.of( testValue1 ) ) );
+      assertThat( readMap.get( def ), is( List.of( testValue2 ) ) );
+      assertThat( cursor.getOverrunCount(), is( 0L ) );
+   }
+
+   @Test
+   void testGetLaterThanCursor_ReportsOverruns()
+   {
+      final WicaChannel abc = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "abc" ).build();
+      final WicaStreamDataBufferCursor cursor = testObject.createCursor();
+
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      assertThat( testObject.getLaterThan( Set.of( abc ), cursor ).get( abc ).size(), is( 1 ) );
+
+      // Write 5 values into a buffer that can only hold 3 of them.
+      for ( int i = 0; i < 5; i++ )
+      {
+         injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      }
+      assertThat( testObject.getLaterThan( Set.of( abc ), cursor ).get( abc ).size(), is( 3 ) );
+      assertThat( cursor.getOverrunCount(), is( 2L ) );
+   }
+
+   @Test
+   void testGetLaterThanCursor_IndependentCursors()
+   {
+      final WicaChannel abc = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "abc" ).build();
+      final WicaStreamDataBufferCursor cursor1 = testObject.createCursor();
+      final WicaStreamDataBufferCursor cursor2 = testObject.createCursor();
+
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      assertThat( testObject.getLaterThan( Set.of( abc ), cursor1 ).get( abc ).size(), is( 1 ) );
+
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      assertThat( testObject.getLaterThan( Set.of( abc ), cursor1 ).get( abc ).size(), is( 1 ) );
+      assertThat( testObject.getLaterThan( Set.of( abc ), cursor2 ).get( abc ).size(), is( 2 ) );
+   }
+
+   @Test
+   void testIsRetainedSince()
+   {
+      final WicaChannel abc = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "abc" ).build();
+      final LocalDateTime beginTime = LocalDateTime.now().minusSeconds( 1 );
+
+      // Whilst the ring has spare capacity nothing can have been overwritten.
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      injectValueUpdate( abc, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      assertThat( testObject.isRetainedSince( Set.of( abc ), beginTime ), is( false ) );
+      assertThat( testObject.isRetainedSince( Set.of( abc ), LocalDateTime.now() ), is( true ) );
+
+      final WicaChannel def = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "def" ).build();
+      injectValueUpdate( def, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      assertThat( testObject.isRetainedSince( Set.of( def ), beginTime ), is( true ) );
+   }
+
 /*- Private methods ----------------------------------------------------------*/
    
    private void injectValueUpdate( WicaChannel wicaChannel, WicaChannelValue wicaChannelValue )
@@ -0,0 +1,206 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.channel;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelManager;
+import ch.psi.wica.controlsystem.epics.channel.EpicsChannelName;
+import ch.psi.wica.controlsystem.epics.io.EpicsChannelReaderService;
+import ch.psi.wica.model.app.ControlSystemName;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
+import ch.psi.wica.services.stream.WicaStreamMonitoredValueCollectorService;
+import org.epics.ca.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaChannelValueReadServiceTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final EpicsChannelName CHANNEL_NAME = EpicsChannelName.of( "abcd" );
+
+   private EpicsChannelReaderService readerServiceMock;
+   private EpicsChannelManager monitoredChannelManagerMock;
+   private WicaStreamMonitoredValueCollectorService collectorServiceMock;
+   private AtomicLong nanoTime;
+   private WicaChannelValueReadService service;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      readerServiceMock = mock( EpicsChannelReaderService.class );
+      monitoredChannelManagerMock = mock( EpicsChannelManager.class );
+      collectorServiceMock = mock( WicaStreamMonitoredValueCollectorService.class );
+      when( monitoredChannelManagerMock.getConnectedChannel( any() ) ).thenReturn( Optional.empty() );
+      when( collectorServiceMock.getLatestValue( any() ) ).thenReturn( Optional.empty() );
+      nanoTime = new AtomicLong( 0 );
+      service = new WicaChannelValueReadService( readerServiceMock, monitoredChannelManagerMock, collectorServiceMock, nanoTime::get );
+   }
+
+   @Test
+   void testNullArguments()
+   {
+      assertThrows( NullPointerException.class, () -> service.readChannelValue( null, 100, TimeUnit.MILLISECONDS, null ) );
+      assertThrows( NullPointerException.class, () -> service.readChannelValue( CHANNEL_NAME, 100, null, null ) );
+      assertThrows( IllegalArgumentException.class, () -> service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, -1 ) );
+   }
+
+   @Test
+   void testReadWithoutMaxAgeIsAlwaysFresh()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 1.0 );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS ) ).thenReturn( value );
+
+      assertThat( service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, null ).source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      assertThat( service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, null ).source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      verify( readerServiceMock, times( 2 ) ).readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS );
+   }
+
+   @Test
+   void testRecentValueIsServedFromCacheUntilItExpires()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 1.0 );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS ) ).thenReturn( value );
+      service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, null );
+
+      nanoTime.set( TimeUnit.MILLISECONDS.toNanos( 500 ) );
+      final var cachedResult = service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 500 );
+      assertThat( cachedResult.source(), is( WicaChannelValueReadService.Source.CACHE ) );
+      assertThat( cachedResult.value(), sameInstance( value ) );
+
+      nanoTime.set( TimeUnit.MILLISECONDS.toNanos( 501 ) );
+      assertThat( service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 500 ).source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      verify( readerServiceMock, times( 2 ) ).readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS );
+   }
+
+   @Test
+   void testDisconnectedValueIsNotCached()
+   {
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS ) ).thenReturn( WicaChannelValueBuilder.createChannelValueDisconnected() );
+      service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, null );
+      assertThat( service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 1000 ).source(), is( WicaChannelValueReadService.Source.FRESH ) );
+   }
+
+   @Test
+   @SuppressWarnings( "unchecked" )
+   void testMonitoredValueIsServedFromCache()
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 2.0 );
+      when( monitoredChannelManagerMock.getConnectedChannel( CHANNEL_NAME ) ).thenReturn( Optional.of( mock( Channel.class ) ) );
+      when( collectorServiceMock.getLatestValue( ControlSystemName.of( "abcd" ) ) ).thenReturn( Optional.of( value ) );
+
+      final var result = service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 10_000 );
+      assertThat( result.source(), is( WicaChannelValueReadService.Source.CACHE ) );
+      assertThat( result.value(), sameInstance( value ) );
+      verify( readerServiceMock, never() ).readChannelValue( any(), anyLong(), any() );
+   }
+
+   @Test
+   @SuppressWarnings( "unchecked" )
+   void testZeroMaxAgeBypassesMonitoredValue()
+   {
+      final WicaChannelValue monitoredValue = WicaChannelValueBuilder.createChannelValueConnectedReal( 2.0 );
+      final WicaChannelValue freshValue = WicaChannelValueBuilder.createChannelValueConnectedReal( 2.5 );
+      when( monitoredChannelManagerMock.getConnectedChannel( CHANNEL_NAME ) ).thenReturn( Optional.of( mock( Channel.class ) ) );
+      when( collectorServiceMock.getLatestValue( ControlSystemName.of( "abcd" ) ) ).thenReturn( Optional.of( monitoredValue ) );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS ) ).thenReturn( freshValue );
+
+      final var result = service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 0 );
+      assertThat( result.source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      assertThat( result.value(), sameInstance( freshValue ) );
+   }
+
+   @Test
+   @SuppressWarnings( "unchecked" )
+   void testMonitoredValueOlderThanMaxAgeIsNotServedFromCache()
+   {
+      final WicaChannelValue staleValue = mock( WicaChannelValue.class );
+      when( staleValue.isConnected() ).thenReturn( true );
+      when( staleValue.getWicaServerTimestamp() ).thenReturn( LocalDateTime.now().minusSeconds( 60 ) );
+      final WicaChannelValue freshValue = WicaChannelValueBuilder.createChannelValueConnectedReal( 2.5 );
+      when( monitoredChannelManagerMock.getConnectedChannel( CHANNEL_NAME ) ).thenReturn( Optional.of( mock( Channel.class ) ) );
+      when( collectorServiceMock.getLatestValue( ControlSystemName.of( "abcd" ) ) ).thenReturn( Optional.of( staleValue ) );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS ) ).thenReturn( freshValue );
+
+      final var result = service.readChannelValue( CHANNEL_NAME, 100, TimeUnit.MILLISECONDS, 10_000 );
+      assertThat( result.source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      assertThat( result.value(), sameInstance( freshValue ) );
+   }
+
+   @Test
+   void testConcurrentRequestsJoinTheReadInProgress() throws Exception
+   {
+      final WicaChannelValue value = WicaChannelValueBuilder.createChannelValueConnectedReal( 3.0 );
+      final CountDownLatch readStarted = new CountDownLatch( 1 );
+      final CountDownLatch readAllowedToFinish = new CountDownLatch( 1 );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS ) ).thenAnswer( invocation -> {
+         readStarted.countDown();
+         readAllowedToFinish.await();
+         return value;
+      } );
+
+      final var leader = CompletableFuture.supplyAsync( () -> service.readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS, null ) );
+      readStarted.await();
+      final var follower = CompletableFuture.supplyAsync( () -> service.readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS, null ) );
+
+      // Give the follower time to join the read before allowing it to complete.
+      Thread.sleep( 100 );
+      readAllowedToFinish.countDown();
+
+      assertThat( leader.get().source(), is( WicaChannelValueReadService.Source.FRESH ) );
+      assertThat( follower.get().source(), is( WicaChannelValueReadService.Source.JOINED ) );
+      assertThat( follower.get().value(), sameInstance( value ) );
+      verify( readerServiceMock, times( 1 ) ).readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS );
+   }
+
+   @Test
+   void testJoinedRequestTimesOutAsDisconnected() throws Exception
+   {
+      final CountDownLatch readStarted = new CountDownLatch( 1 );
+      final CountDownLatch readAllowedToFinish = new CountDownLatch( 1 );
+      when( readerServiceMock.readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS ) ).thenAnswer( invocation -> {
+         readStarted.countDown();
+         readAllowedToFinish.await();
+         return WicaChannelValueBuilder.createChannelValueConnectedReal( 4.0 );
+      } );
+
+      final var leader = CompletableFuture.supplyAsync( () -> service.readChannelValue( CHANNEL_NAME, 1000, TimeUnit.MILLISECONDS, null ) );
+      readStarted.await();
+      final var result = service.readChannelValue( CHANNEL_NAME, 50, TimeUnit.MILLISECONDS, null );
+      readAllowedToFinish.countDown();
+
+      assertThat( result.source(), is( WicaChannelValueReadService.Source.JOINED ) );
+      assertThat( result.value().isConnected(), is( false ) );
+      leader.get();
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
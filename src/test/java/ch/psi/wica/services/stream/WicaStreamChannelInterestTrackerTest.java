@@ -0,0 +1,92 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.infrastructure.channel.WicaChannelBuilder;
+import ch.psi.wica.model.app.WicaDataBufferStorageKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaStreamChannelInterestTrackerTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final WicaDataBufferStorageKey storageKey = WicaDataBufferStorageKey.getMonitoredValueStorageKey( WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "XXX" ).build() );
+   private List<WicaDataBufferStorageKey> releasedKeys;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      releasedKeys = new ArrayList<>();
+   }
+
+   @Test
+   void testIncrementAndDecrement()
+   {
+      final var tracker = new WicaStreamChannelInterestTracker( Duration.ZERO );
+      assertThat( tracker.increment( storageKey ), is( true ) );
+      assertThat( tracker.increment( storageKey ), is( false ) );
+      assertThat( tracker.getInterestCount( storageKey ), is( 2 ) );
+      assertThat( tracker.decrement( storageKey ), is( 1 ) );
+      assertThat( tracker.decrement( storageKey ), is( 0 ) );
+      assertThrows( IllegalStateException.class, () -> tracker.decrement( storageKey ) );
+   }
+
+   @Test
+   void testChannelIsReleasedOnlyAfterReleaseDelay() throws InterruptedException
+   {
+      final var tracker = new WicaStreamChannelInterestTracker( Duration.ofMillis( 200 ) );
+      tracker.increment( storageKey );
+      tracker.decrement( storageKey );
+
+      tracker.releaseExpired( releasedKeys::add );
+      assertThat( releasedKeys.isEmpty(), is( true ) );
+      assertThat( tracker.getLastEventTime( storageKey ).isPresent(), is( true ) );
+
+      Thread.sleep( 300 );
+      tracker.releaseExpired( releasedKeys::add );
+      assertThat( releasedKeys, is( List.of( storageKey ) ) );
+      assertThat( tracker.getLastEventTime( storageKey ).isPresent(), is( false ) );
+   }
+
+   @Test
+   void testRevivalOfInterestCancelsRelease()
+   {
+      final var tracker = new WicaStreamChannelInterestTracker( Duration.ZERO );
+      tracker.increment( storageKey );
+      tracker.decrement( storageKey );
+      assertThat( tracker.increment( storageKey ), is( false ) );
+
+      tracker.releaseExpired( releasedKeys::add );
+      assertThat( releasedKeys.isEmpty(), is( true ) );
+      assertThat( tracker.getInterestCount( storageKey ), is( 1 ) );
+
+      // A subsequent loss of interest schedules a new release.
+      tracker.decrement( storageKey );
+      tracker.releaseExpired( releasedKeys::add );
+      assertThat( releasedKeys, is( List.of( storageKey ) ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
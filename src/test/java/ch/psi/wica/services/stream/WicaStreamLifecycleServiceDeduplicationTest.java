@@ -0,0 +1,148 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.stream.WicaStream;
+import ch.psi.wica.model.stream.WicaStreamId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+@SpringBootTest( properties = { "wica.stream-deduplication-enabled=true", "wica.stream-lazy-acquisition-enabled=false" } )
+class WicaStreamLifecycleServiceDeduplicationTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   @Autowired
+   private WicaStreamLifecycleService service;
+
+   @SpyBean
+   private WicaStreamMonitoredValueRequesterService wicaStreamMonitoredValueRequesterService;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      WicaStreamId.resetAllocationSequencer();
+   }
+
+   @Test
+   void testIdenticalConfigurationsSharePipeline()
+   {
+      // The second configuration differs only in formatting and channel order.
+      final WicaStream stream1 = service.create( "{ \"props\" : { \"prec\":3 }, \"channels\":  [ { \"name\": \"DEDUP:CHAN:1\" }, { \"name\": \"DEDUP:CHAN:2\" } ] }" );
+      final WicaStream stream2 = service.create( "{\"channels\":[{\"name\":\"DEDUP:CHAN:2\"},{\"name\":\"DEDUP:CHAN:1\"}],\"props\":{\"prec\":3}}" );
+
+      assertThat( stream1.getWicaStreamId(), not( stream2.getWicaStreamId() ) );
+      assertThat( service.isKnown( stream1.getWicaStreamId() ), is( true ) );
+      assertThat( service.isKnown( stream2.getWicaStreamId() ), is( true ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).startMonitoring( any() );
+
+      // Deleting the first handle leaves the pipeline running for the second.
+      service.delete( stream1.getWicaStreamId() );
+      assertThat( service.isKnown( stream1.getWicaStreamId() ), is( false ) );
+      assertThat( service.isKnown( stream2.getWicaStreamId() ), is( true ) );
+      verify( wicaStreamMonitoredValueRequesterService, never() ).stopMonitoring( any() );
+
+      // Deleting the last handle tears the pipeline down.
+      service.delete( stream2.getWicaStreamId() );
+      assertThat( service.isKnown( stream2.getWicaStreamId() ), is( false ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).stopMonitoring( any() );
+   }
+
+   @Test
+   void testDifferentConfigurationsDoNotSharePipeline()
+   {
+      final WicaStream stream1 = service.create( "{ \"props\" : { \"prec\":3 }, \"channels\":  [ { \"name\": \"DEDUP:CHAN:1\" } ] }" );
+      final WicaStream stream2 = service.create( "{ \"props\" : { \"prec\":4 }, \"channels\":  [ { \"name\": \"DEDUP:CHAN:1\" } ] }" );
+      verify( wicaStreamMonitoredValueRequesterService, times( 2 ) ).startMonitoring( any() );
+
+      service.delete( stream1.getWicaStreamId() );
+      service.delete( stream2.getWicaStreamId() );
+      verify( wicaStreamMonitoredValueRequesterService, times( 2 ) ).stopMonitoring( any() );
+   }
+
+   @Test
+   void testNewHandleRestartsIdlePeriodOfSharedPipeline() throws InterruptedException
+   {
+      final String config = "{ \"props\" : { \"prec\":6 }, \"channels\":  [ { \"name\": \"DEDUP:CHAN:4\" } ] }";
+      final WicaStream stream1 = service.create( config );
+      Thread.sleep( 5 );
+      final long secondCreateTimeInMillis = System.currentTimeMillis();
+      final WicaStream stream2 = service.create( config );
+
+      // The pipeline has been idle for longer than the reap period since the
+      // first handle was created, but not since the second one was.
+      service.suspendOrDeleteIdleStreams( secondCreateTimeInMillis + TimeUnit.SECONDS.toMillis( 600 ) );
+      assertThat( service.isKnown( stream1.getWicaStreamId() ), is( true ) );
+      assertThat( service.isKnown( stream2.getWicaStreamId() ), is( true ) );
+
+      service.delete( stream1.getWicaStreamId() );
+      service.delete( stream2.getWicaStreamId() );
+   }
+
+   @Test
+   void testConcurrentCreateAndDeleteOfIdenticalConfigurations() throws Exception
+   {
+      final int numberOfStreams = 50;
+      final String config = "{ \"props\" : { \"prec\":5 }, \"channels\":  [ { \"name\": \"DEDUP:CHAN:3\" } ] }";
+      final ExecutorService executor = Executors.newFixedThreadPool( 10 );
+
+      final List<Future<WicaStream>> creates = new ArrayList<>();
+      for ( int i = 0; i < numberOfStreams; i++ )
+      {
+         creates.add( executor.submit( () -> service.create( config ) ) );
+      }
+      final List<WicaStreamId> ids = new ArrayList<>();
+      for ( Future<WicaStream> create : creates )
+      {
+         ids.add( create.get().getWicaStreamId() );
+      }
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).startMonitoring( any() );
+
+      final List<Future<?>> deletes = new ArrayList<>();
+      for ( WicaStreamId id : ids )
+      {
+         deletes.add( executor.submit( () -> service.delete( id ) ) );
+      }
+      for ( Future<?> delete : deletes )
+      {
+         delete.get();
+      }
+      executor.shutdown();
+
+      ids.forEach( id -> assertThat( service.isKnown( id ), is( false ) ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).stopMonitoring( any() );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
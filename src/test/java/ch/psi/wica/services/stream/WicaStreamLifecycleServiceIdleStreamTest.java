@@ -0,0 +1,134 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.stream.WicaStream;
+import ch.psi.wica.model.stream.WicaStreamId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+@SpringBootTest( properties = { "wica.stream-lazy-acquisition-enabled=true",
+                                "wica.stream-idle-grace-period-in-secs=30",
+                                "wica.stream-idle-reap-period-in-secs=600" } )
+class WicaStreamLifecycleServiceIdleStreamTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private static final String TEST_CONFIGURATION = "{ \"channels\":  [ { \"name\": \"IDLE:CHAN:1\" }, { \"name\": \"IDLE:CHAN:2\" } ] }";
+
+   @Autowired
+   private WicaStreamLifecycleService service;
+
+   @SpyBean
+   private WicaStreamMonitoredValueRequesterService wicaStreamMonitoredValueRequesterService;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      WicaStreamId.resetAllocationSequencer();
+   }
+
+   @Test
+   void testAcquisitionStartsOnFirstSubscriberAndIsSuspendedAfterGracePeriod()
+   {
+      final WicaStream stream = service.create( TEST_CONFIGURATION );
+      final WicaStreamId id = stream.getWicaStreamId();
+      assertThat( service.isAcquiring( id ), is( false ) );
+      verify( wicaStreamMonitoredValueRequesterService, never() ).startMonitoring( any() );
+
+      // The first subscriber starts the acquisition.
+      final var subscription1 = service.getFlux( id ).subscribe();
+      assertThat( service.isAcquiring( id ), is( true ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).startMonitoring( any() );
+
+      // Acquisition continues during the grace period after the last subscriber leaves.
+      subscription1.dispose();
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 20 ) );
+      assertThat( service.isAcquiring( id ), is( true ) );
+
+      // Acquisition is suspended once the grace period has expired, but the stream survives.
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 31 ) );
+      assertThat( service.isAcquiring( id ), is( false ) );
+      assertThat( service.isKnown( id ), is( true ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 1 ) ).stopMonitoring( any() );
+
+      // A new subscriber resumes the acquisition.
+      final var subscription2 = service.getFlux( id ).subscribe();
+      assertThat( service.isAcquiring( id ), is( true ) );
+      verify( wicaStreamMonitoredValueRequesterService, times( 2 ) ).startMonitoring( any() );
+
+      // Streams with subscribers are never suspended or deleted.
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 601 ) );
+      assertThat( service.isAcquiring( id ), is( true ) );
+      assertThat( service.isKnown( id ), is( true ) );
+
+      subscription2.dispose();
+      service.delete( id );
+      verify( wicaStreamMonitoredValueRequesterService, times( 2 ) ).stopMonitoring( any() );
+   }
+
+   @Test
+   void testStreamWhichIsNeverSubscribedIsDeletedAfterReapPeriod()
+   {
+      final WicaStream stream = service.create( TEST_CONFIGURATION );
+      final WicaStreamId id = stream.getWicaStreamId();
+
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 599 ) );
+      assertThat( service.isKnown( id ), is( true ) );
+
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 601 ) );
+      assertThat( service.isKnown( id ), is( false ) );
+
+      // Acquisition was never started so there was nothing to stop.
+      verify( wicaStreamMonitoredValueRequesterService, never() ).startMonitoring( any() );
+      verify( wicaStreamMonitoredValueRequesterService, never() ).stopMonitoring( any() );
+   }
+
+   @Test
+   void testSubscriberWhoseArrivalFailsIsNotCounted()
+   {
+      final WicaStream stream = service.create( TEST_CONFIGURATION );
+      final WicaStreamId id = stream.getWicaStreamId();
+
+      // The first attempt to start the acquisition fails and the subscriber receives the error.
+      doThrow( new IllegalStateException( "Simulated start failure." ) ).when( wicaStreamMonitoredValueRequesterService ).startMonitoring( any() );
+      final AtomicReference<Throwable> error = new AtomicReference<>();
+      service.getFlux( id ).subscribe( sse -> {}, error::set );
+      assertThat( error.get(), notNullValue() );
+      assertThat( service.isAcquiring( id ), is( false ) );
+
+      // The failed subscriber does not keep the stream alive.
+      service.suspendOrDeleteIdleStreams( System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 601 ) );
+      assertThat( service.isKnown( id ), is( false ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
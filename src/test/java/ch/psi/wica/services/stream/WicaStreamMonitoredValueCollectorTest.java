@@ -3,6 +3,7 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelMonitoredValueUpdateEvent;
 import ch.psi.wica.infrastructure.channel.WicaChannelBuilder;
 import ch.psi.wica.infrastructure.channel.WicaChannelPropertiesBuilder;
@@ -10,6 +11,8 @@ import ch.psi.wica.infrastructure.channel.WicaChannelValueTimestampRewriter;
 import ch.psi.wica.infrastructure.stream.WicaStreamBuilder;
 import ch.psi.wica.model.app.WicaDataAcquisitionMode;
 import ch.psi.wica.model.channel.WicaChannel;
+import ch.psi.wica.model.channel.value.WicaChannelAlarmSeverity;
+import ch.psi.wica.model.channel.value.WicaChannelAlarmStatus;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
 import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
 import ch.psi.wica.model.stream.WicaStream;
@@ -20,11 +23,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.Disposable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -43,9 +48,6 @@ class WicaStreamMonitoredValueCollectorTest
    @MockBean
    private WicaChannelValueFilteringService wicaChannelValueFilteringServiceMock;
 
-   @MockBean
-   private ApplicationEventPublisher applicationEventPublisher;
-
    @MockBean
    private WicaChannelValueTimestampRewriter wicaChannelValueTimestampRewriter;
 
@@ -111,7 +113,7 @@ class WicaStreamMonitoredValueCollectorTest
             .build();
 
       serviceUnderTest = new WicaStreamMonitoredValueCollectorService( 5,
-                                                                       applicationEventPublisher,
+                                                                       new ControlSystemEventBus(),
                                                                        wicaChannelValueTimestampRewriter,
                                                                        wicaChannelValueFilteringServiceMock );
 
@@ -181,7 +183,71 @@ class WicaStreamMonitoredValueCollectorTest
       assertThat( resultMap3.entrySet().size(), is( 0 ) );
    }
 
+   @Test
+   void test_addValueSavedListener()
+   {
+      final WicaStream otherStream = WicaStreamBuilder.create().withChannel( testChannel3 ).build();
+      final AtomicInteger notifications = new AtomicInteger( 0 );
+      final Disposable registration = serviceUnderTest.addValueSavedListener( otherStream, notifications::incrementAndGet );
+
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel1, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+      assertThat( notifications.get(), is( 0 ) );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+      assertThat( notifications.get(), is( 1 ) );
+
+      registration.dispose();
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, WicaChannelValueBuilder.createChannelValueDisconnected() ) );
+      assertThat( notifications.get(), is( 1 ) );
+   }
+
+   @Test
+   void test_addAlarmTransitionListener()
+   {
+      final WicaStream otherStream = WicaStreamBuilder.create().withChannel( testChannel3 ).build();
+      final List<WicaChannelValue> notifiedValues = new ArrayList<>();
+      final Disposable registration = serviceUnderTest.addAlarmTransitionListener( otherStream, ( c, v ) -> notifiedValues.add( v ) );
+
+      // The first value received on a channel is not a transition.
+      final WicaChannelValue disconnected = WicaChannelValueBuilder.createChannelValueDisconnected();
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, disconnected ) );
+      assertThat( notifiedValues.isEmpty(), is( true ) );
+
+      // Connecting is a transition.
+      final WicaChannelValue noAlarm = createValue( WicaChannelAlarmSeverity.NO_ALARM );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, noAlarm ) );
+      assertThat( notifiedValues, is( List.of( noAlarm ) ) );
+
+      // Changes of severity below MAJOR, and values which leave the severity
+      // unchanged, are not transitions.
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, createValue( WicaChannelAlarmSeverity.MINOR_ALARM ) ) );
+      assertThat( notifiedValues.size(), is( 1 ) );
+
+      // Changes to and from MAJOR or INVALID are transitions.
+      final WicaChannelValue major = createValue( WicaChannelAlarmSeverity.MAJOR_ALARM );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, major ) );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, createValue( WicaChannelAlarmSeverity.MAJOR_ALARM ) ) );
+      final WicaChannelValue invalid = createValue( WicaChannelAlarmSeverity.INVALID_ALARM );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, invalid ) );
+      final WicaChannelValue minor = createValue( WicaChannelAlarmSeverity.MINOR_ALARM );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, minor ) );
+      assertThat( notifiedValues, is( List.of( noAlarm, major, invalid, minor ) ) );
+
+      // Transitions on other channels, and transitions after the listener
+      // has been removed, are not notified.
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel1, disconnected ) );
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel1, noAlarm ) );
+      registration.dispose();
+      serviceUnderTest.handleWicaChannelMonitoredValueUpdateEvent( new WicaChannelMonitoredValueUpdateEvent( testChannel3, disconnected ) );
+      assertThat( notifiedValues.size(), is( 4 ) );
+   }
+
 /*- Private methods ----------------------------------------------------------*/
+
+   private WicaChannelValue createValue( WicaChannelAlarmSeverity wicaChannelAlarmSeverity )
+   {
+      return WicaChannelValueBuilder.createChannelValueConnectedReal( wicaChannelAlarmSeverity, WicaChannelAlarmStatus.ofNoError(), LocalDateTime.now(), 1.0 );
+   }
+
 /*- Nested Classes -----------------------------------------------------------*/
 
 }
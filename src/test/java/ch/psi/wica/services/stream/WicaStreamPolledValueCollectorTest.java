@@ -3,6 +3,7 @@ package ch.psi.wica.services.stream;
 
 /*- Imported packages --------------------------------------------------------*/
 
+import ch.psi.wica.controlsystem.event.ControlSystemEventBus;
 import ch.psi.wica.controlsystem.event.wica.WicaChannelPolledValueUpdateEvent;
 import ch.psi.wica.infrastructure.channel.WicaChannelBuilder;
 import ch.psi.wica.infrastructure.channel.WicaChannelPropertiesBuilder;
@@ -110,7 +111,7 @@ class WicaStreamPolledValueCollectorTest
                            .withChannel( testChannel4 )
                            .build();
 
-      serviceUnderTest = new WicaStreamPolledValueCollectorService( 5, wicaChannelValueFilteringServiceMock );
+      serviceUnderTest = new WicaStreamPolledValueCollectorService( 5, wicaChannelValueFilteringServiceMock, new ControlSystemEventBus() );
       given( wicaChannelValueFilteringServiceMock.filterLastValues( captorValueList.capture() ) ).willAnswer(( x) -> captorValueList.getValue() );
       given( wicaChannelValueFilteringServiceMock.filterValues(  captorChannel.capture(), captorValueList.capture() ) ).willAnswer(( x) -> captorValueList.getValue() );
    }
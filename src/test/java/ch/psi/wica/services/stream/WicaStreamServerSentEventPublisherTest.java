@@ -5,10 +5,14 @@ package ch.psi.wica.services.stream;
 
 import ch.psi.wica.infrastructure.channel.WicaChannelBuilder;
 import ch.psi.wica.infrastructure.stream.WicaStreamBuilder;
+import ch.psi.wica.infrastructure.stream.WicaStreamDataBufferCursor;
 import ch.psi.wica.infrastructure.stream.WicaStreamPropertiesBuilder;
+import ch.psi.wica.infrastructure.stream.WicaStreamServerSentEventBuilder;
 import ch.psi.wica.model.channel.WicaChannel;
 import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
 import ch.psi.wica.model.channel.metadata.WicaChannelMetadataBuilder;
+import ch.psi.wica.model.channel.value.WicaChannelAlarmSeverity;
+import ch.psi.wica.model.channel.value.WicaChannelAlarmStatus;
 import ch.psi.wica.model.channel.value.WicaChannelValue;
 import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
 import ch.psi.wica.model.stream.WicaStream;
@@ -27,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
 
 import java.io.IOException;
 import java.time.LocalDate;
@@ -34,13 +39,21 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 
 /*- Interface Declaration ----------------------------------------------------*/
@@ -72,6 +85,9 @@ class WicaStreamServerSentEventPublisherTest
    @Autowired
    private WicaChannelValueMapSerializerService wicaChannelValueMapSerializerService;
 
+   @Autowired
+   private WicaStreamTickSchedulerService wicaStreamTickSchedulerService;
+
    private final ObjectMapper jsonDecoder = new ObjectMapper();
 
    private final WicaChannel wicaTestChannel1 =  WicaChannelBuilder.create().withChannelNameAndDefaultProperties("CHAN_1").build();
@@ -131,7 +147,8 @@ class WicaStreamServerSentEventPublisherTest
                                                                 wicaStreamMonitoredValueCollectorService,
                                                                 wicaStreamPolledValueCollectorService,
                                                                 wicaChannelMetadataMapSerializerService,
-                                                                wicaChannelValueMapSerializerService );
+                                                                wicaChannelValueMapSerializerService,
+                                                                wicaStreamTickSchedulerService );
    }
 
    @Test
@@ -141,7 +158,7 @@ class WicaStreamServerSentEventPublisherTest
 
       // Set up the mock response.
       final ArgumentCaptor<WicaStream>captor1 = ArgumentCaptor.forClass( WicaStream.class );
-      final ArgumentCaptor<LocalDateTime>captor2 = ArgumentCaptor.forClass( LocalDateTime.class );
+      final ArgumentCaptor<WicaStreamDataBufferCursor>captor2 = ArgumentCaptor.forClass( WicaStreamDataBufferCursor.class );
       given( wicaStreamMetadataCollectorServiceMock.get( captor1.capture(), captor2.capture() ) ).willAnswer( rqst -> getMetadataMap() );
       given( wicaStreamMonitoredValueCollectorService.get(captor1.capture(), captor2.capture() ) ).willAnswer( rqst -> req1MonitoredValueMap );
       given( wicaStreamPolledValueCollectorService.get(captor1.capture(), captor2.capture() ) ).willAnswer(rqst -> req1MonitoredValueMap  );
@@ -182,11 +199,11 @@ class WicaStreamServerSentEventPublisherTest
 
       // Set up the mock response.
       final ArgumentCaptor<WicaStream>captor1 = ArgumentCaptor.forClass( WicaStream.class );
-      final ArgumentCaptor<LocalDateTime>captor2 = ArgumentCaptor.forClass( LocalDateTime.class );
+      final ArgumentCaptor<WicaStreamDataBufferCursor>captor2 = ArgumentCaptor.forClass( WicaStreamDataBufferCursor.class );
       given( wicaStreamMetadataCollectorServiceMock.get( captor1.capture(), captor2.capture() ) ).willAnswer( rqst -> getMetadataMap() );
-      given( wicaStreamMonitoredValueCollectorService.getLatest( captor1.capture() ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( captor1.capture(), captor2.capture() ) ).willAnswer( rqst -> req1MonitoredValueMap );
       given( wicaStreamMonitoredValueCollectorService.get( captor1.capture(), captor2.capture() ) ).willAnswer( rqst -> req2MonitoredValueMap );
-      given( wicaStreamPolledValueCollectorService.getLatest( captor1.capture() ) ).willAnswer(rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.getLatest( captor1.capture(), captor2.capture() ) ).willAnswer(rqst -> req1PolledValueMap );
       given( wicaStreamPolledValueCollectorService.get( captor1.capture(), captor2.capture() ) ).willAnswer(rqst -> req2PolledValueMap );
 
       // Subscribe to the stream publisher,
@@ -320,6 +337,298 @@ class WicaStreamServerSentEventPublisherTest
       assertThat( sse5.data(), containsString( LocalDate.now().toString() ) );
    }
 
+   @Test
+   void testSubscribersShareTheSameFlux() throws InterruptedException
+   {
+      // Set up the mock response.
+      given( wicaStreamMetadataCollectorServiceMock.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> getMetadataMap() );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+      given( wicaStreamPolledValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.getLatest( any( WicaStream.class ) ) ).willAnswer( rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2PolledValueMap );
+
+      // Subscribe the first subscriber, then a second one after the metadata has been published.
+      final List<ServerSentEvent<String>> sseList1 = new ArrayList<>();
+      final List<ServerSentEvent<String>> sseList2 = new ArrayList<>();
+      final var disposable1 = objectUnderTest.getFlux().subscribe( c -> { synchronized( this ) { sseList1.add( c ); } } );
+      Thread.sleep( 300 );
+      final var disposable2 = objectUnderTest.getFlux().subscribe( c -> { synchronized( this ) { sseList2.add( c ); } } );
+      assertThat( objectUnderTest.getSubscriberCount(), is( 2 ) );
+
+      // Let things run until the first heartbeat has been published.
+      Thread.sleep( 1150 );
+      disposable1.dispose();
+      disposable2.dispose();
+      assertThat( objectUnderTest.getSubscriberCount(), is( 0 ) );
+
+      synchronized( this )
+      {
+         // The first subscriber receives the same six notifications as in the test above.
+         assertThat( sseList1.size(), is( 6 ) );
+
+         // The late joiner first receives a snapshot of the monitored and polled values.
+         // The metadata has not changed since it was published, so is not included.
+         assertThat( sseList2.size(), is( 7 ) );
+         assertThat( sseList2.get( 0 ).comment(), containsString( "- channel monitored values" ) );
+         assertThat( sseList2.get( 0 ).data(), containsString( "MonMap_CHAN_1_Request_1_Value_Initial" ) );
+         assertThat( sseList2.get( 1 ).comment(), containsString( "- channel polled values" ) );
+
+         // Thereafter both subscribers receive the very same notifications.
+         for ( int i = 0; i < 5; i++ )
+         {
+            assertThat( sseList2.get( i + 2 ), sameInstance( sseList1.get( i + 1 ) ) );
+         }
+      }
+
+      // The data buffers were read once per publication interval, not once per subscriber.
+      verify( wicaStreamMonitoredValueCollectorService, times( 1 ) ).getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) );
+      verify( wicaStreamMonitoredValueCollectorService, times( 1 ) ).get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) );
+      verify( wicaStreamPolledValueCollectorService, times( 1 ) ).get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) );
+   }
+
+   @Test
+   void testReconnectingSubscriberIsSentOnlyMissedValues() throws InterruptedException
+   {
+      // Set up the mock response.
+      given( wicaStreamMetadataCollectorServiceMock.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> getMetadataMap() );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.getForReplay( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.isRetainedSince( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willReturn( true );
+      given( wicaStreamPolledValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.getLatest( any( WicaStream.class ) ) ).willAnswer( rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.get( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willAnswer( rqst -> req2PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.isRetainedSince( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willReturn( true );
+
+      // Let the first subscriber receive the metadata, the polled values and the monitored values.
+      final List<ServerSentEvent<String>> sseList1 = new ArrayList<>();
+      final var disposable1 = objectUnderTest.getFlux().subscribe( c -> { synchronized( this ) { sseList1.add( c ); } } );
+      Thread.sleep( 700 );
+
+      final long lastEventSequence;
+      synchronized( this )
+      {
+         assertThat( sseList1.size(), is( 3 ) );
+         for ( int i = 0; i < sseList1.size(); i++ )
+         {
+            assertThat( sseList1.get( i ).id(), is( "0-" + ( i + 1 ) ) );
+         }
+         lastEventSequence = WicaStreamServerSentEventBuilder.parseEventSequence( sseList1.get( 2 ).id() ).orElseThrow();
+      }
+
+      // A client which reconnects is sent only the values published since its last event.
+      final List<ServerSentEvent<String>> sseList2 = new ArrayList<>();
+      final var disposable2 = objectUnderTest.getFlux( OptionalLong.of( lastEventSequence ) ).subscribe( c -> { synchronized( this ) { sseList2.add( c ); } } );
+
+      // A client whose last event is no longer known is sent the snapshot.
+      final List<ServerSentEvent<String>> sseList3 = new ArrayList<>();
+      final var disposable3 = objectUnderTest.getFlux( OptionalLong.of( 999 ) ).subscribe( c -> { synchronized( this ) { sseList3.add( c ); } } );
+
+      disposable1.dispose();
+      disposable2.dispose();
+      disposable3.dispose();
+
+      synchronized( this )
+      {
+         assertThat( sseList2.size(), is( 2 ) );
+         assertThat( sseList2.get( 0 ).comment(), containsString( "- channel monitored values" ) );
+         assertThat( sseList2.get( 0 ).data(), containsString( "MonMap_CHAN_1_Request_2_Value_1" ) );
+         assertThat( sseList2.get( 0 ).id(), is( "0-3" ) );
+         assertThat( sseList2.get( 1 ).comment(), containsString( "- channel polled values" ) );
+         assertThat( sseList2.get( 1 ).data(), containsString( "PollMap_CHAN_1_Request_2_Value_1" ) );
+
+         assertThat( sseList3.size(), is( 2 ) );
+         assertThat( sseList3.get( 0 ).data(), containsString( "MonMap_CHAN_1_Request_1_Value_Initial" ) );
+         assertThat( sseList3.get( 1 ).data(), containsString( "PollMap_CHAN_1_Request_1_Value_Initial" ) );
+      }
+   }
+
+   @Test
+   void testSubscriberReconnectingAfterFluxStoppedIsNotSentFullStateAgain() throws InterruptedException
+   {
+      // Set up the mock response.
+      given( wicaStreamMetadataCollectorServiceMock.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> getMetadataMap() );
+      given( wicaStreamMetadataCollectorServiceMock.createCursorAtEnd( any( WicaStream.class ) ) ).willReturn( mock( WicaStreamDataBufferCursor.class ) );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.getForReplay( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.isRetainedSince( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willReturn( true );
+      given( wicaStreamMonitoredValueCollectorService.createCursorAtEnd( any( WicaStream.class ) ) ).willReturn( mock( WicaStreamDataBufferCursor.class ) );
+      given( wicaStreamPolledValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.get( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willAnswer( rqst -> req2PolledValueMap );
+      given( wicaStreamPolledValueCollectorService.isRetainedSince( any( WicaStream.class ), any( LocalDateTime.class ) ) ).willReturn( true );
+      given( wicaStreamPolledValueCollectorService.createCursorAtEnd( any( WicaStream.class ) ) ).willReturn( mock( WicaStreamDataBufferCursor.class ) );
+
+      // Let the only subscriber receive the metadata, the polled values and
+      // the monitored values, then leave so that the shared flux stops.
+      final List<ServerSentEvent<String>> sseList1 = new ArrayList<>();
+      final var disposable1 = objectUnderTest.getFlux().subscribe( c -> { synchronized( this ) { sseList1.add( c ); } } );
+      Thread.sleep( 700 );
+      disposable1.dispose();
+
+      final long lastEventSequence;
+      synchronized( this )
+      {
+         assertThat( sseList1.size(), is( 3 ) );
+         lastEventSequence = WicaStreamServerSentEventBuilder.parseEventSequence( sseList1.get( 2 ).id() ).orElseThrow();
+      }
+
+      // The client reconnects, restarting the shared flux. It is sent the
+      // replay and then only the values which arrive after the replay.
+      final List<ServerSentEvent<String>> sseList2 = new ArrayList<>();
+      final var disposable2 = objectUnderTest.getFlux( OptionalLong.of( lastEventSequence ) ).subscribe( c -> { synchronized( this ) { sseList2.add( c ); } } );
+      Thread.sleep( 700 );
+      disposable2.dispose();
+
+      synchronized( this )
+      {
+         assertThat( sseList2.isEmpty(), is( false ) );
+         for ( ServerSentEvent<String> sse : sseList2 )
+         {
+            assertThat( sse.comment(), not( containsString( "- channel metadata" ) ) );
+            assertThat( sse.data(), not( containsString( "Request_1_Value_Initial" ) ) );
+         }
+      }
+      verify( wicaStreamMonitoredValueCollectorService, times( 1 ) ).getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) );
+      verify( wicaStreamPolledValueCollectorService, times( 1 ) ).getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) );
+   }
+
+   @Test
+   void testPushModePublishesMonitoredValuesSoonAfterTheyArrive() throws InterruptedException
+   {
+      // Set up the mock response.
+      final AtomicReference<Runnable> valueSavedListener = new AtomicReference<>();
+      given( wicaStreamMonitoredValueCollectorService.addValueSavedListener( any( WicaStream.class ), any( Runnable.class ) ) ).willAnswer( rqst -> {
+         valueSavedListener.set( rqst.getArgument( 1 ) );
+         return (Disposable) () -> valueSavedListener.set( null );
+      } );
+      given( wicaStreamMonitoredValueCollectorService.getLatest( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req1MonitoredValueMap );
+      given( wicaStreamMonitoredValueCollectorService.get( any( WicaStream.class ), any( WicaStreamDataBufferCursor.class ) ) ).willAnswer( rqst -> req2MonitoredValueMap );
+
+      // Only the monitored values are published, at an interval longer than the test.
+      final WicaStreamProperties wicaStreamProperties = WicaStreamPropertiesBuilder.create()
+            .withQuietMode( true )
+            .withMetadataFluxInterval( 0 )
+            .withHeartbeatFluxInterval( 0 )
+            .withPolledValueFluxInterval( 0 )
+            .withMonitoredValueFluxInterval( 10_000 )
+            .build();
+
+      final WicaStream wicaStream = WicaStreamBuilder.create()
+            .withStreamProperties( wicaStreamProperties )
+            .withChannelNameAndStreamProperties( "CHAN_1" )
+            .build();
+
+      final var pushModePublisher = new WicaStreamServerSentEventPublisher( wicaStream,
+                                                                            wicaStreamMetadataCollectorServiceMock,
+                                                                            wicaStreamMonitoredValueCollectorService,
+                                                                            wicaStreamPolledValueCollectorService,
+                                                                            wicaChannelMetadataMapSerializerService,
+                                                                            wicaChannelValueMapSerializerService,
+                                                                            wicaStreamTickSchedulerService,
+                                                                            WicaStreamServerSentEventPublisher.Options.DEFAULTS.withPushMode( 10, 100 ) );
+
+      final List<ServerSentEvent<String>> sseList = new ArrayList<>();
+      final var disposable = pushModePublisher.getFlux().subscribe( c -> { synchronized( this ) { sseList.add( c ); } } );
+      Thread.sleep( 100 );
+      synchronized( this )
+      {
+         assertThat( sseList.isEmpty(), is( true ) );
+      }
+
+      // The arrival of a value is published after the micro-batch window.
+      valueSavedListener.get().run();
+      Thread.sleep( 200 );
+      synchronized( this )
+      {
+         assertThat( sseList.size(), is( 1 ) );
+         assertThat( sseList.get( 0 ).data(), containsString( "MonMap_CHAN_1_Request_1_Value_Initial" ) );
+      }
+
+      // Values arriving within the same window are published together.
+      valueSavedListener.get().run();
+      valueSavedListener.get().run();
+      valueSavedListener.get().run();
+      Thread.sleep( 200 );
+      synchronized( this )
+      {
+         assertThat( sseList.size(), is( 2 ) );
+         assertThat( sseList.get( 1 ).data(), containsString( "MonMap_CHAN_1_Request_2_Value_1" ) );
+      }
+
+      // The listener is removed when the last subscriber leaves.
+      disposable.dispose();
+      assertThat( valueSavedListener.get() == null, is( true ) );
+   }
+
+   @Test
+   void testAlarmLanePublishesAlarmTransitionsSoonAfterTheyAreDetected() throws InterruptedException
+   {
+      // Set up the mock response.
+      final AtomicReference<BiConsumer<WicaChannel,WicaChannelValue>> alarmTransitionListener = new AtomicReference<>();
+      given( wicaStreamMonitoredValueCollectorService.addAlarmTransitionListener( any( WicaStream.class ), any() ) ).willAnswer( rqst -> {
+         alarmTransitionListener.set( rqst.getArgument( 1 ) );
+         return (Disposable) () -> alarmTransitionListener.set( null );
+      } );
+
+      // Only the monitored values are published, at an interval longer than the test.
+      final WicaStreamProperties wicaStreamProperties = WicaStreamPropertiesBuilder.create()
+            .withQuietMode( true )
+            .withMetadataFluxInterval( 0 )
+            .withHeartbeatFluxInterval( 0 )
+            .withPolledValueFluxInterval( 0 )
+            .withMonitoredValueFluxInterval( 10_000 )
+            .build();
+
+      final WicaStream wicaStream = WicaStreamBuilder.create()
+            .withStreamProperties( wicaStreamProperties )
+            .withChannelNameAndStreamProperties( "CHAN_1" )
+            .withChannelNameAndStreamProperties( "CHAN_2" )
+            .build();
+      final WicaChannel chan1 = wicaStream.getWicaChannel( "CHAN_1" ).orElseThrow();
+      final WicaChannel chan2 = wicaStream.getWicaChannel( "CHAN_2" ).orElseThrow();
+
+      final var alarmLanePublisher = new WicaStreamServerSentEventPublisher( wicaStream,
+                                                                             wicaStreamMetadataCollectorServiceMock,
+                                                                             wicaStreamMonitoredValueCollectorService,
+                                                                             wicaStreamPolledValueCollectorService,
+                                                                             wicaChannelMetadataMapSerializerService,
+                                                                             wicaChannelValueMapSerializerService,
+                                                                             wicaStreamTickSchedulerService,
+                                                                             WicaStreamServerSentEventPublisher.Options.DEFAULTS.withAlarmLane( 20 ) );
+
+      final List<ServerSentEvent<String>> sseList = new ArrayList<>();
+      final var disposable = alarmLanePublisher.getFlux().subscribe( c -> { synchronized( this ) { sseList.add( c ); } } );
+      Thread.sleep( 100 );
+      synchronized( this )
+      {
+         assertThat( sseList.isEmpty(), is( true ) );
+      }
+
+      // Transitions detected within the coalescing window are published
+      // together without waiting for the monitored value interval.
+      alarmTransitionListener.get().accept( chan1, WicaChannelValueBuilder.createChannelValueDisconnected() );
+      alarmTransitionListener.get().accept( chan2, WicaChannelValueBuilder.createChannelValueConnectedReal( WicaChannelAlarmSeverity.MAJOR_ALARM, WicaChannelAlarmStatus.ofNoError(), LocalDateTime.now(), 12.5 ) );
+      Thread.sleep( 200 );
+      synchronized( this )
+      {
+         assertThat( sseList.size(), is( 1 ) );
+         assertThat( sseList.get( 0 ).event(), is( "ev-wica-channel-alarm-value" ) );
+         assertThat( sseList.get( 0 ).comment(), containsString( "- channel alarm values" ) );
+         assertThat( sseList.get( 0 ).data(), containsString( "CHAN_1" ) );
+         assertThat( sseList.get( 0 ).data(), containsString( "CHAN_2" ) );
+      }
+
+      // The listener is removed when the last subscriber leaves.
+      disposable.dispose();
+      assertThat( alarmTransitionListener.get() == null, is( true ) );
+   }
+
 /*- Private methods ----------------------------------------------------------*/
 
    private Map<WicaChannel,WicaChannelMetadata> getMetadataMap()
@@ -0,0 +1,316 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.infrastructure.channel.WicaChannelBuilder;
+import ch.psi.wica.infrastructure.channel.WicaChannelPropertiesBuilder;
+import ch.psi.wica.infrastructure.stream.WicaStreamServerSentEventBuilder;
+import ch.psi.wica.model.app.WicaFilterType;
+import ch.psi.wica.model.channel.WicaChannel;
+import ch.psi.wica.model.channel.metadata.WicaChannelMetadata;
+import ch.psi.wica.model.channel.metadata.WicaChannelMetadataBuilder;
+import ch.psi.wica.model.channel.value.WicaChannelValue;
+import ch.psi.wica.model.channel.value.WicaChannelValueBuilder;
+import ch.psi.wica.model.stream.WicaStreamId;
+import ch.psi.wica.services.channel.WicaChannelMetadataMapSerializerService;
+import ch.psi.wica.services.channel.WicaChannelValueMapSerializerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaStreamSubscriberOutboxTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private final WicaChannel latestValueChannel = WicaChannelBuilder.create().withChannelNameAndDefaultProperties( "CHAN_1" ).build();
+   private final WicaChannel lastTwoValuesChannel = WicaChannelBuilder.create()
+         .withChannelNameAndProperties( "CHAN_2", WicaChannelPropertiesBuilder.create().withDefaultProperties().withFilterType( WicaFilterType.LAST_N ).withFilterNumSamples( 2 ).build() )
+         .build();
+
+   private WicaChannelMetadataMapSerializerService metadataSerializerMock;
+   private WicaChannelValueMapSerializerService valueSerializerMock;
+   private List<Map<WicaChannel,List<WicaChannelValue>>> serializedValueMaps;
+   private AtomicLong streamEventsConflated;
+   private AtomicLong streamValuesDropped;
+   private WicaStreamSubscriberOutbox objectUnderTest;
+   private Sinks.Many<WicaStreamSubscriberOutbox.Event> source;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      metadataSerializerMock = mock( WicaChannelMetadataMapSerializerService.class );
+      valueSerializerMock = mock( WicaChannelValueMapSerializerService.class );
+      serializedValueMaps = new ArrayList<>();
+      given( metadataSerializerMock.serialize( any() ) ).willReturn( "conflated-metadata" );
+      given( valueSerializerMock.serialize( any() ) ).willAnswer( inv -> {
+         serializedValueMaps.add( inv.getArgument( 0 ) );
+         return "conflated-values";
+      } );
+
+      streamEventsConflated = new AtomicLong( 0 );
+      streamValuesDropped = new AtomicLong( 0 );
+      objectUnderTest = new WicaStreamSubscriberOutbox( WicaStreamId.of( "7" ), metadataSerializerMock, valueSerializerMock, streamEventsConflated, streamValuesDropped );
+      source = Sinks.many().multicast().onBackpressureBuffer();
+   }
+
+   @Test
+   void testEventsPassThroughUnchangedWhenClientKeepsUp()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ) )
+         .then( () -> {
+            source.tryEmitNext( heartbeatEvent( 1 ) );
+            source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "a" ) ) ) );
+         } )
+         .assertNext( sse -> assertEvent( sse, "7-1", "heartbeat-1" ) )
+         .assertNext( sse -> assertEvent( sse, "7-2", "values-2" ) )
+         .then( source::tryEmitComplete )
+         .verifyComplete();
+
+      assertThat( objectUnderTest.getEventsConflated(), is( 0L ) );
+      verifyNoInteractions( valueSerializerMock );
+   }
+
+   @Test
+   void testValueEventsAreConflatedForSlowClient()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( valueEvent( 1, Map.of( latestValueChannel, values( "a" ), lastTwoValuesChannel, values( "x" ) ) ) );
+            source.tryEmitNext( heartbeatEvent( 2 ) );
+            source.tryEmitNext( valueEvent( 3, Map.of( latestValueChannel, values( "b", "c" ), lastTwoValuesChannel, values( "y", "z" ) ) ) );
+         } )
+         .thenRequest( 2 )
+         // The conflated values moved behind the heartbeat. The heartbeat's
+         // ID must not acknowledge the values which are still waiting.
+         .assertNext( sse -> assertEvent( sse, "7-0", "heartbeat-2" ) )
+         .assertNext( sse -> assertEvent( sse, "7-3", "conflated-values" ) )
+         .thenCancel()
+         .verify();
+
+      assertThat( serializedValueMaps.size(), is( 1 ) );
+      assertThat( serializedValueMaps.get( 0 ).get( latestValueChannel ).size(), is( 1 ) );
+      assertThat( serializedValueMaps.get( 0 ).get( lastTwoValuesChannel ).size(), is( 2 ) );
+      assertThat( objectUnderTest.getEventsConflated(), is( 1L ) );
+      assertThat( objectUnderTest.getValuesDropped(), is( 3L ) );
+      assertThat( streamEventsConflated.get(), is( 1L ) );
+      assertThat( streamValuesDropped.get(), is( 3L ) );
+   }
+
+   @Test
+   void testConflatedMetadataIsNotOvertakenByValues()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( metadataEvent( 1 ) );
+            source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "a" ) ) ) );
+            source.tryEmitNext( metadataEvent( 3 ) );
+         } )
+         .thenRequest( 2 )
+         .assertNext( sse -> assertEvent( sse, "7-1", "conflated-metadata" ) )
+         .assertNext( sse -> assertEvent( sse, "7-2", "values-2" ) )
+         .thenCancel()
+         .verify();
+   }
+
+   @Test
+   void testAlarmValuesOvertakeWaitingValuesButNotMetadata()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( metadataEvent( 1 ) );
+            source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "a" ), lastTwoValuesChannel, values( "c" ) ) ) );
+            source.tryEmitNext( heartbeatEvent( 3 ) );
+            source.tryEmitNext( alarmValueEvent( 4, Map.of( latestValueChannel, values( "b" ) ) ) );
+         } )
+         .thenRequest( 4 )
+         .assertNext( sse -> assertEvent( sse, "7-1", "metadata-1" ) )
+         // The alarm's ID must not acknowledge the values which it overtook.
+         .assertNext( sse -> assertEvent( sse, "7-1", "alarm-values-4" ) )
+         .assertNext( sse -> assertEvent( sse, "7-2", "conflated-values" ) )
+         .assertNext( sse -> assertEvent( sse, "7-3", "heartbeat-3" ) )
+         .thenCancel()
+         .verify();
+
+      // The overtaken event keeps only the values for other channels.
+      assertThat( serializedValueMaps.size(), is( 1 ) );
+      assertThat( serializedValueMaps.get( 0 ).containsKey( latestValueChannel ), is( false ) );
+      assertThat( serializedValueMaps.get( 0 ).get( lastTwoValuesChannel ).size(), is( 1 ) );
+      assertThat( objectUnderTest.getValuesDropped(), is( 1L ) );
+   }
+
+   @Test
+   void testWaitingValuesSupersededByAlarmValuesAreDiscarded()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( valueEvent( 1, Map.of( latestValueChannel, values( "a" ) ) ) );
+            source.tryEmitNext( alarmValueEvent( 2, Map.of( latestValueChannel, values( "b" ) ) ) );
+            source.tryEmitNext( heartbeatEvent( 3 ) );
+         } )
+         .thenRequest( 3 )
+         // Nothing older than the alarm value follows it.
+         .assertNext( sse -> assertEvent( sse, "7-2", "alarm-values-2" ) )
+         .assertNext( sse -> assertEvent( sse, "7-3", "heartbeat-3" ) )
+         .thenCancel()
+         .verify();
+
+      assertThat( streamValuesDropped.get(), is( 1L ) );
+      verifyNoInteractions( valueSerializerMock );
+   }
+
+   @Test
+   void testEmptyValueEventOvertakenByAlarmValuesIsStillSent()
+   {
+      // Outside quiet mode a value event with no values is published periodically.
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( valueEvent( 1, Map.of() ) );
+            source.tryEmitNext( alarmValueEvent( 2, Map.of( latestValueChannel, values( "a" ) ) ) );
+         } )
+         .thenRequest( 2 )
+         .assertNext( sse -> assertEvent( sse, "7-0", "alarm-values-2" ) )
+         .assertNext( sse -> assertEvent( sse, "7-1", "values-1" ) )
+         .thenCancel()
+         .verify();
+
+      assertThat( objectUnderTest.getValuesDropped(), is( 0L ) );
+   }
+
+   @Test
+   void testPendingEventsAreDeliveredBeforeCompletion()
+   {
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 0 )
+         .then( () -> {
+            source.tryEmitNext( heartbeatEvent( 1 ) );
+            source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "a" ) ) ) );
+            source.tryEmitComplete();
+         } )
+         .thenRequest( 1 )
+         .assertNext( sse -> assertEvent( sse, "7-1", "heartbeat-1" ) )
+         .thenRequest( 1 )
+         .assertNext( sse -> assertEvent( sse, "7-2", "values-2" ) )
+         .verifyComplete();
+   }
+
+   @Test
+   void testAdaptivePacingSendsValuesLessOftenToSlowClient()
+   {
+      final var pacing = new WicaStreamSubscriberOutbox.Pacing( true, 100, 0, 4 );
+      objectUnderTest = new WicaStreamSubscriberOutbox( WicaStreamId.of( "7" ), metadataSerializerMock, valueSerializerMock, streamEventsConflated, streamValuesDropped, pacing );
+
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 1 )
+         .then( () -> source.tryEmitNext( valueEvent( 1, Map.of( latestValueChannel, values( "a" ) ) ) ) )
+         .assertNext( sse -> assertEvent( sse, "7-1", "values-1" ) )
+         // The client takes longer than half the interval to accept the event.
+         .thenAwait( Duration.ofMillis( 200 ) )
+         .thenRequest( 1 )
+         .then( () -> assertThat( objectUnderTest.getEffectiveMonitoredValueIntervalInMillis(), is( 200L ) ) )
+         .then( () -> source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "b" ) ) ) ) )
+         .assertNext( sse -> assertEvent( sse, "7-2", "values-2" ) )
+         .thenRequest( 1 )
+         // Values which arrive before the stretched interval has elapsed are
+         // held back and conflated.
+         .then( () -> {
+            source.tryEmitNext( valueEvent( 3, Map.of( latestValueChannel, values( "c" ) ) ) );
+            source.tryEmitNext( valueEvent( 4, Map.of( latestValueChannel, values( "d" ) ) ) );
+         } )
+         .expectNoEvent( Duration.ofMillis( 50 ) )
+         .assertNext( sse -> assertEvent( sse, "7-4", "conflated-values" ) )
+         .thenCancel()
+         .verify( Duration.ofSeconds( 5 ) );
+
+      assertThat( objectUnderTest.getEventsConflated(), is( 1L ) );
+   }
+
+   @Test
+   void testAdaptivePacingIsBoundedByMaxSlowdownFactor()
+   {
+      final var pacing = new WicaStreamSubscriberOutbox.Pacing( true, 100, 0, 4 );
+      objectUnderTest = new WicaStreamSubscriberOutbox( WicaStreamId.of( "7" ), metadataSerializerMock, valueSerializerMock, streamEventsConflated, streamValuesDropped, pacing );
+
+      StepVerifier.create( objectUnderTest.attach( source.asFlux() ), 1 )
+         .then( () -> source.tryEmitNext( valueEvent( 1, Map.of( latestValueChannel, values( "a" ) ) ) ) )
+         .assertNext( sse -> assertEvent( sse, "7-1", "values-1" ) )
+         .thenAwait( Duration.ofMillis( 300 ) )
+         .thenRequest( 1 )
+         .then( () -> source.tryEmitNext( valueEvent( 2, Map.of( latestValueChannel, values( "b" ) ) ) ) )
+         .assertNext( sse -> assertEvent( sse, "7-2", "values-2" ) )
+         .thenAwait( Duration.ofMillis( 300 ) )
+         .thenRequest( 1 )
+         .then( () -> source.tryEmitNext( valueEvent( 3, Map.of( latestValueChannel, values( "c" ) ) ) ) )
+         .assertNext( sse -> assertEvent( sse, "7-3", "values-3" ) )
+         .thenAwait( Duration.ofMillis( 300 ) )
+         .thenRequest( 1 )
+         .then( () -> assertThat( objectUnderTest.getEffectiveMonitoredValueIntervalInMillis(), is( 400L ) ) )
+         .thenCancel()
+         .verify( Duration.ofSeconds( 5 ) );
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+
+   private static void assertEvent( ServerSentEvent<String> sse, String expectedId, String expectedData )
+   {
+      assertThat( sse.id(), is( expectedId ) );
+      assertThat( sse.data(), is( expectedData ) );
+   }
+
+   private static List<WicaChannelValue> values( String... values )
+   {
+      final List<WicaChannelValue> result = new ArrayList<>();
+      for ( String value : values )
+      {
+         result.add( WicaChannelValueBuilder.createChannelValueConnectedString( value ) );
+      }
+      return result;
+   }
+
+   private static WicaStreamSubscriberOutbox.Event heartbeatEvent( long sequence )
+   {
+      return new WicaStreamSubscriberOutbox.Event( sequence, WicaStreamServerSentEventBuilder.EV_WICA_SERVER_HEARTBEAT, "heartbeat-" + sequence, null, null );
+   }
+
+   private WicaStreamSubscriberOutbox.Event metadataEvent( long sequence )
+   {
+      final Map<WicaChannel,WicaChannelMetadata> metadataMap = Map.of( latestValueChannel, WicaChannelMetadataBuilder.createUnknownInstance() );
+      return new WicaStreamSubscriberOutbox.Event( sequence, WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_METADATA, "metadata-" + sequence, metadataMap, null );
+   }
+
+   private static WicaStreamSubscriberOutbox.Event valueEvent( long sequence, Map<WicaChannel,List<WicaChannelValue>> valueMap )
+   {
+      return new WicaStreamSubscriberOutbox.Event( sequence, WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_MONITORED_VALUES, "values-" + sequence, null, valueMap );
+   }
+
+   private static WicaStreamSubscriberOutbox.Event alarmValueEvent( long sequence, Map<WicaChannel,List<WicaChannelValue>> valueMap )
+   {
+      return new WicaStreamSubscriberOutbox.Event( sequence, WicaStreamServerSentEventBuilder.EV_WICA_CHANNEL_ALARM_VALUES, "alarm-values-" + sequence, null, valueMap );
+   }
+
+/*- Nested Classes -----------------------------------------------------------*/
+
+}
@@ -0,0 +1,107 @@
+/*- Package Declaration ------------------------------------------------------*/
+package ch.psi.wica.services.stream;
+
+/*- Imported packages --------------------------------------------------------*/
+
+import ch.psi.wica.model.app.StatisticsCollectionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*- Interface Declaration ----------------------------------------------------*/
+/*- Class Declaration --------------------------------------------------------*/
+
+class WicaStreamTickSchedulerServiceTest
+{
+
+/*- Public attributes --------------------------------------------------------*/
+/*- Private attributes -------------------------------------------------------*/
+
+   private WicaStreamTickSchedulerService serviceUnderTest;
+
+/*- Main ---------------------------------------------------------------------*/
+/*- Constructor --------------------------------------------------------------*/
+/*- Class methods ------------------------------------------------------------*/
+/*- Public methods -----------------------------------------------------------*/
+
+   @BeforeEach
+   void beforeEach()
+   {
+      serviceUnderTest = new WicaStreamTickSchedulerService( 10, new StatisticsCollectionService() );
+   }
+
+   @AfterEach
+   void afterEach()
+   {
+      serviceUnderTest.close();
+   }
+
+   @Test
+   void testInvalidPeriod()
+   {
+      final var ex1 = assertThrows( NullPointerException.class, () -> serviceUnderTest.interval( null ) );
+      assertThat( ex1.getMessage(), is( "The 'period' argument was null." ) );
+      final var ex2 = assertThrows( IllegalArgumentException.class, () -> serviceUnderTest.interval( Duration.ZERO ) );
+      assertThat( ex2.getMessage(), is( "The 'period' argument was not positive." ) );
+   }
+
+   @Test
+   void testSubscriptionsWithDifferentIntervals() throws InterruptedException
+   {
+      final List<WicaStreamTick> fastTicks = new CopyOnWriteArrayList<>();
+      final List<WicaStreamTick> slowTicks = new CopyOnWriteArrayList<>();
+      final Disposable fast = serviceUnderTest.interval( Duration.ofMillis( 100 ) ).subscribe( fastTicks::add );
+      final Disposable slow = serviceUnderTest.interval( Duration.ofMillis( 300 ) ).subscribe( slowTicks::add );
+      assertThat( serviceUnderTest.getStatistics().getActiveSubscriptions(), is( "2" ) );
+
+      Thread.sleep( 950 );
+      fast.dispose();
+      slow.dispose();
+
+      assertThat( fastTicks.size(), greaterThanOrEqualTo( 8 ) );
+      assertThat( fastTicks.size(), lessThanOrEqualTo( 9 ) );
+      assertThat( slowTicks.size(), is( 3 ) );
+      assertThat( serviceUnderTest.getStatistics().getActiveSubscriptions(), is( "0" ) );
+   }
+
+   @Test
+   void testTicksAreSharedBetweenSubscriptions() throws InterruptedException
+   {
+      final List<WicaStreamTick> ticks1 = new CopyOnWriteArrayList<>();
+      final List<WicaStreamTick> ticks2 = new CopyOnWriteArrayList<>();
+
+      // Subscriptions which are placed on the wheel on the same tick fall due
+      // together and should then be driven by the same tick instance.
+      final Disposable subscription1 = serviceUnderTest.interval( Duration.ofMillis( 100 ) ).subscribe( ticks1::add );
+      final Disposable subscription2 = serviceUnderTest.interval( Duration.ofMillis( 100 ) ).subscribe( ticks2::add );
+      Thread.sleep( 350 );
+      subscription1.dispose();
+      subscription2.dispose();
+
+      final int commonSize = Math.min( ticks1.size(), ticks2.size() );
+      assertThat( commonSize, greaterThanOrEqualTo( 3 ) );
+      for ( int i = 0; i < commonSize; i++ )
+      {
+         if ( ticks1.get( i ).sequence() == ticks2.get( i ).sequence() )
+         {
+            assertThat( ticks1.get( i ), sameInstance( ticks2.get( i ) ) );
+         }
+      }
+   }
+
+/*- Private methods ----------------------------------------------------------*/
+/*- Nested Classes -----------------------------------------------------------*/
+
+}